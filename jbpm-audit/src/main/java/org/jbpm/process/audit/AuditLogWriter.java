@@ -0,0 +1,541 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.process.audit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.transaction.Status;
+import javax.transaction.UserTransaction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes audit log entries collected by {@link BufferedAuditLogger} to the data base on dedicated thread.
+ * <br/>
+ * Entries are kept in bounded buffer and are written in batches - every batch is stored within single
+ * transaction and single entity manager flush, so when the persistence unit is configured with
+ * <code>hibernate.jdbc.batch_size</code> the inserts are sent as JDBC batches.
+ * <br/>
+ * When the buffer is full callers are blocked until there is space available (back pressure), number
+ * of such waits and the time spent on them is available via getters together with other statistics.
+ * <br/>
+ * Following system properties are supported:
+ * <ul>
+ *  <li>org.jbpm.audit.buffer.size - capacity of the buffer - default 10000</li>
+ *  <li>org.jbpm.audit.batch.size - maximum number of entries written in single transaction - default 100</li>
+ *  <li>org.jbpm.audit.flush.interval - maximum time in milliseconds writer waits for entries - default 100</li>
+ * </ul>
+ */
+public class AuditLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    // shared writers are removed once the last logger using them is disposed
+    private static final Map<EntityManagerFactory, AuditLogWriter> writers = new HashMap<EntityManagerFactory, AuditLogWriter>();
+
+    private final EntityManagerFactory emf;
+    private final boolean isJTA;
+    private final BlockingQueue<AuditRecord> buffer;
+    private int batchSize = Integer.parseInt(System.getProperty("org.jbpm.audit.batch.size", "100"));
+    private long flushInterval = Long.parseLong(System.getProperty("org.jbpm.audit.flush.interval", "100"));
+
+    private volatile boolean active = true;
+    private final Thread writerThread;
+    // number of loggers that acquired this writer with get, guarded by writers
+    private int users;
+
+    // statistics
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong writeTime = new AtomicLong();
+    private final AtomicLong backPressureWaits = new AtomicLong();
+    private final AtomicLong backPressureTime = new AtomicLong();
+    private final AtomicLong maxBufferDepth = new AtomicLong();
+
+    public AuditLogWriter(EntityManagerFactory emf, boolean isJTA) {
+        this(emf, isJTA, Integer.parseInt(System.getProperty("org.jbpm.audit.buffer.size", "10000")));
+    }
+
+    public AuditLogWriter(EntityManagerFactory emf, boolean isJTA, int bufferSize) {
+        this.emf = emf;
+        this.isJTA = isJTA;
+        this.buffer = new ArrayBlockingQueue<AuditRecord>(bufferSize);
+        this.writerThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                processBuffer();
+            }
+        }, "jbpm-audit-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Returns writer shared by all buffered loggers that use given entity manager factory. Every call
+     * must be paired with {@link #release()} once the caller does not use the writer any more.
+     */
+    public static AuditLogWriter get(EntityManagerFactory emf, boolean isJTA) {
+        synchronized (writers) {
+            AuditLogWriter writer = writers.get(emf);
+            if (writer == null || !writer.isActive()) {
+                writer = new AuditLogWriter(emf, isJTA);
+                writers.put(emf, writer);
+            }
+            writer.users++;
+            return writer;
+        }
+    }
+
+    /**
+     * Returns writer currently shared for given entity manager factory, if any.
+     */
+    static AuditLogWriter find(EntityManagerFactory emf) {
+        synchronized (writers) {
+            return writers.get(emf);
+        }
+    }
+
+    /**
+     * Releases writer acquired with {@link #get(EntityManagerFactory, boolean)}, the writer is closed
+     * when it is released by all its users.
+     */
+    public void release() {
+        synchronized (writers) {
+            if (--users > 0) {
+                return;
+            }
+        }
+        close();
+    }
+
+    /**
+     * Places given records in the buffer, blocks in case there is no space in the buffer.
+     * @param records records to be written
+     * @return completion released once all given records were written (or failed to be written)
+     */
+    public WriteCompletion write(List<AuditRecord> records) {
+        if (!active) {
+            throw new IllegalStateException("Audit log writer has already been closed");
+        }
+        WriteCompletion completion = new WriteCompletion();
+        if (records.isEmpty()) {
+            completion.done();
+            return completion;
+        }
+        for (AuditRecord record : records) {
+            record.completion = completion;
+        }
+        // records are written in order so the last one completes all of them
+        records.get(records.size() - 1).last = true;
+        for (AuditRecord record : records) {
+            if (!buffer.offer(record)) {
+                long start = System.nanoTime();
+                backPressureWaits.incrementAndGet();
+                try {
+                    buffer.put(record);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for space in audit log buffer", e);
+                } finally {
+                    backPressureTime.addAndGet(System.nanoTime() - start);
+                }
+            }
+            enqueued.incrementAndGet();
+        }
+        long depth = buffer.size();
+        long max = maxBufferDepth.get();
+        while (depth > max && !maxBufferDepth.compareAndSet(max, depth)) {
+            max = maxBufferDepth.get();
+        }
+        return completion;
+    }
+
+    /**
+     * Stops accepting new records and writes all buffered ones before returning.
+     */
+    public void close() {
+        synchronized (writers) {
+            if (writers.get(emf) == this) {
+                writers.remove(emf);
+            }
+        }
+        active = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    protected void processBuffer() {
+        List<AuditRecord> batch = new ArrayList<AuditRecord>(batchSize);
+        while (active || !buffer.isEmpty()) {
+            try {
+                AuditRecord first = active ? buffer.poll(flushInterval, TimeUnit.MILLISECONDS) : buffer.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                // closing, drain what is left in the buffer
+                active = false;
+            } catch (Throwable e) {
+                logger.error("Unexpected error in audit log writer", e);
+            } finally {
+                batch.clear();
+            }
+        }
+        logger.debug("Audit log writer stopped {}", this);
+    }
+
+    protected void writeBatch(List<AuditRecord> batch) {
+        long start = System.nanoTime();
+        try {
+            writeRecords(batch);
+            written.addAndGet(batch.size());
+        } catch (Exception e) {
+            logger.warn("Unable to write batch of {} audit log entries, writing them one by one", batch.size(), e);
+            // single bad entry must not fail the others, retry every entry in its own transaction
+            for (AuditRecord record : batch) {
+                try {
+                    writeRecords(Collections.singletonList(record));
+                    written.incrementAndGet();
+                } catch (Exception ex) {
+                    failed.incrementAndGet();
+                    logger.error("Unable to write audit log entry {}", record.log, ex);
+                    if (record.completion != null) {
+                        record.completion.failed(ex);
+                    }
+                }
+            }
+        } finally {
+            batches.incrementAndGet();
+            writeTime.addAndGet(System.nanoTime() - start);
+            for (AuditRecord record : batch) {
+                if (record.last) {
+                    record.completion.done();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes given records within single transaction and single flush.
+     */
+    protected void writeRecords(List<AuditRecord> records) throws Exception {
+        EntityManager em = emf.createEntityManager();
+        Object tx = null;
+        try {
+            tx = beginTransaction(em);
+            // entries stored within this transaction, updates do not need to query for them
+            Map<Long, ProcessInstanceLog> processInstanceLogs = new HashMap<Long, ProcessInstanceLog>();
+            // node instance ids are unique only within process instance
+            Map<String, NodeInstanceLog> nodeInstanceLogs = new HashMap<String, NodeInstanceLog>();
+
+            for (AuditRecord record : records) {
+                writeRecord(em, record, processInstanceLogs, nodeInstanceLogs);
+            }
+            em.flush();
+            commitTransaction(tx);
+            tx = null;
+        } finally {
+            rollbackTransaction(tx);
+            try {
+                em.close();
+            } catch (Exception e) {
+                logger.error("Unable to close created EntityManager: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeRecord(EntityManager em, AuditRecord record,
+            Map<Long, ProcessInstanceLog> processInstanceLogs, Map<String, NodeInstanceLog> nodeInstanceLogs) {
+        switch (record.eventType) {
+        case AbstractAuditLogger.AFTER_COMPLETE_EVENT_TYPE:
+            ProcessInstanceLog completed = (ProcessInstanceLog) record.log;
+            ProcessInstanceLog processInstanceLog = processInstanceLogs.get(completed.getProcessInstanceId());
+            if (processInstanceLog == null) {
+                List<ProcessInstanceLog> result = em.createQuery(
+                        "from ProcessInstanceLog as log where log.processInstanceId = :piId and log.end is null")
+                        .setParameter("piId", completed.getProcessInstanceId()).getResultList();
+                if (result != null && result.size() != 0) {
+                    processInstanceLog = result.get(result.size() - 1);
+                }
+            }
+            if (processInstanceLog != null) {
+                processInstanceLog.setOutcome(completed.getOutcome());
+                processInstanceLog.setStatus(completed.getStatus());
+                processInstanceLog.setEnd(completed.getEnd());
+                processInstanceLog.setDuration(completed.getDuration());
+                processInstanceLog.setProcessInstanceDescription(completed.getProcessInstanceDescription());
+            }
+            break;
+        case AbstractAuditLogger.AFTER_NODE_ENTER_EVENT_TYPE:
+            NodeInstanceLog triggered = (NodeInstanceLog) record.log;
+            NodeInstanceLog nodeInstanceLog = nodeInstanceLogs.get(nodeInstanceKey(triggered));
+            if (nodeInstanceLog == null) {
+                List<NodeInstanceLog> result = em.createQuery(
+                        "from NodeInstanceLog as log where log.processInstanceId = :piId and log.nodeInstanceId = :nodeId and log.type = 0")
+                        .setParameter("piId", triggered.getProcessInstanceId())
+                        .setParameter("nodeId", triggered.getNodeInstanceId()).getResultList();
+                if (result != null && result.size() != 0) {
+                    nodeInstanceLog = result.get(result.size() - 1);
+                }
+            }
+            if (nodeInstanceLog != null) {
+                nodeInstanceLog.setWorkItemId(triggered.getWorkItemId());
+            }
+            break;
+        case AbstractAuditLogger.BEFORE_START_EVENT_TYPE:
+            ProcessInstanceLog started = (ProcessInstanceLog) record.log;
+            em.persist(started);
+            processInstanceLogs.put(started.getProcessInstanceId(), started);
+            break;
+        case AbstractAuditLogger.BEFORE_NODE_ENTER_EVENT_TYPE:
+            NodeInstanceLog entered = (NodeInstanceLog) record.log;
+            em.persist(entered);
+            nodeInstanceLogs.put(nodeInstanceKey(entered), entered);
+            break;
+        default:
+            em.persist(record.log);
+            break;
+        }
+    }
+
+    private static String nodeInstanceKey(NodeInstanceLog log) {
+        return log.getProcessInstanceId() + ":" + log.getNodeInstanceId();
+    }
+
+    private Object beginTransaction(EntityManager em) throws Exception {
+        if (isJTA) {
+            UserTransaction ut = JPAWorkingMemoryDbLogger.findUserTransaction();
+            if (ut == null) {
+                throw new IllegalStateException("No user transaction found, unable to write audit log entries");
+            }
+            if (ut.getStatus() != Status.STATUS_NO_TRANSACTION) {
+                throw new IllegalStateException("Audit log writer thread is already associated with a transaction");
+            }
+            ut.begin();
+            em.joinTransaction();
+            return ut;
+        }
+        EntityTransaction tx = em.getTransaction();
+        tx.begin();
+        return tx;
+    }
+
+    private void commitTransaction(Object tx) throws Exception {
+        if (tx instanceof UserTransaction) {
+            ((UserTransaction) tx).commit();
+        } else {
+            ((EntityTransaction) tx).commit();
+        }
+    }
+
+    private void rollbackTransaction(Object tx) {
+        if (tx == null) {
+            return;
+        }
+        try {
+            if (tx instanceof UserTransaction) {
+                ((UserTransaction) tx).rollback();
+            } else if (((EntityTransaction) tx).isActive()) {
+                ((EntityTransaction) tx).rollback();
+            }
+        } catch (Exception e) {
+            logger.error("Unable to rollback transaction: ", e);
+        }
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Returns true while the writer thread is alive.
+     */
+    public boolean isRunning() {
+        return writerThread.isAlive();
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * Returns number of entries currently waiting in the buffer.
+     */
+    public int getBufferDepth() {
+        return buffer.size();
+    }
+
+    public long getMaxBufferDepth() {
+        return maxBufferDepth.get();
+    }
+
+    public long getEnqueuedCount() {
+        return enqueued.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * Returns number of times callers had to wait for space in the buffer.
+     */
+    public long getBackPressureWaits() {
+        return backPressureWaits.get();
+    }
+
+    /**
+     * Returns total time in milliseconds callers spent waiting for space in the buffer.
+     */
+    public long getBackPressureTime() {
+        return TimeUnit.NANOSECONDS.toMillis(backPressureTime.get());
+    }
+
+    /**
+     * Returns number of entries written per second of time spent on writing.
+     */
+    public double getWriteThroughput() {
+        long nanos = writeTime.get();
+        if (nanos <= 0) {
+            return 0;
+        }
+        return written.get() / ((double) nanos / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Override
+    public String toString() {
+        return "AuditLogWriter [enqueued=" + enqueued + ", written=" + written + ", failed=" + failed
+                + ", batches=" + batches + ", backPressureWaits=" + backPressureWaits + ", maxBufferDepth=" + maxBufferDepth + "]";
+    }
+
+    /**
+     * Single audit log entry together with the type of the event it was produced for.
+     */
+    public static class AuditRecord {
+
+        private final int eventType;
+        private final Object log;
+        private volatile WriteCompletion completion;
+        private volatile boolean last;
+
+        public AuditRecord(int eventType, Object log) {
+            this.eventType = eventType;
+            this.log = log;
+        }
+
+        public int getEventType() {
+            return eventType;
+        }
+
+        public Object getLog() {
+            return log;
+        }
+    }
+
+    /**
+     * Completion of records handed over to the writer with single {@link AuditLogWriter#write(List)} call,
+     * it is released once all of them were written or failed to be written.
+     */
+    public static class WriteCompletion {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private final AtomicLong failedCount = new AtomicLong();
+        private volatile Exception failure;
+
+        public void await() throws InterruptedException {
+            latch.await();
+        }
+
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            return latch.await(timeout, unit);
+        }
+
+        public boolean isDone() {
+            return latch.getCount() == 0;
+        }
+
+        public boolean isFailed() {
+            return failedCount.get() > 0;
+        }
+
+        /**
+         * Returns number of records that could not be written.
+         */
+        public long getFailedCount() {
+            return failedCount.get();
+        }
+
+        /**
+         * Returns exception of the last record that could not be written, if any.
+         */
+        public Exception getFailure() {
+            return failure;
+        }
+
+        void failed(Exception e) {
+            failure = e;
+            failedCount.incrementAndGet();
+        }
+
+        void done() {
+            latch.countDown();
+        }
+    }
+}
@@ -25,6 +25,7 @@ import javax.persistence.EntityManagerFactory;
 
 import org.jbpm.process.audit.jms.AsyncAuditLogProducer;
 import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.EnvironmentName;
 import org.kie.api.runtime.KieSession;
 
 /**
@@ -35,13 +36,16 @@ import org.kie.api.runtime.KieSession;
  *  <li>JMS - asynchronous logger that can be configured to place messages on the queue
  *  either with respect to active transaction (only after transaction is committed) or 
  *  place them directly as they are generated</li>
+ *  <li>BUFFERED - logger that collects audit events during engine transaction and writes them in batches
+ *  on dedicated thread once the transaction is committed, see <code>BufferedAuditLogger</code></li>
  * </ul>
  */
 public class AuditLoggerFactory {
 
     public enum Type {
         JPA,
-        JMS
+        JMS,
+        BUFFERED
     }
     
     /**
@@ -59,7 +63,14 @@ public class AuditLoggerFactory {
      * <li>jbpm.audit.jms.connection.factory.jndi - JNDI name of the connection factory to look up - type String</li>
      * <li>jbpm.audit.jms.queue.jndi - JNDI name of the queue to look up - type String</li>
      * </ul>
-     * @param type - type of the AuditLoger to create (JPA or JMS)
+     * 
+     * <bold>BUFFERED</bold>
+     * <ul>
+     * <li>jbpm.audit.emf - entity manager factory used to write audit events, when not given the one from ksession's
+     * environment is used - type javax.persistence.EntityManagerFactory</li>
+     * <li>jbpm.audit.durability - SYNC_ON_COMMIT or ASYNC - default SYNC_ON_COMMIT - type String</li>
+     * </ul>
+     * @param type - type of the AuditLoger to create (JPA, JMS or BUFFERED)
      * @param ksession - ksession that the logger will be attached to
      * @param properties - optional properties for the type of logger to initialize it
      * @return new instance of AbstractAuditLogger
@@ -101,12 +112,46 @@ public class AuditLoggerFactory {
                     throw new RuntimeException("Error when looking up ConnectionFactory/Queue", e);
                 }
                 break;
+            case BUFFERED:
+                Environment env = ksession.getEnvironment();
+                EntityManagerFactory emf = (EntityManagerFactory) properties.get("jbpm.audit.emf");
+                if (emf == null) {
+                    emf = (EntityManagerFactory) env.get(EnvironmentName.ENTITY_MANAGER_FACTORY);
+                }
+                logger = newBufferedInstance(emf, env, properties);
+                ksession.addEventListener(logger);
+                break;
             default:
                 break;
         }
         
         return logger;
     }
+
+    /**
+     * Creates new instance of buffered audit logger that writes audit events in batches on dedicated thread.
+     * Supported parameters are as follows:
+     * <ul>
+     * <li>jbpm.audit.durability - SYNC_ON_COMMIT or ASYNC - default SYNC_ON_COMMIT - type String</li>
+     * </ul>
+     * NOTE: this will build the logger but it is not registered directly on a session: once received, 
+     * it will need to be registered as an event listener. Loggers share single writer per entity manager factory
+     * that is closed once all of them were disposed, so dispose the logger together with the session
+     * @param emf EntityManagerFactory used to write audit events
+     * @param env Environment instance to be used
+     * @param properties - optional properties to initialize the logger
+     * @return new instance of buffered audit logger
+     */
+    public static AbstractAuditLogger newBufferedInstance(EntityManagerFactory emf, Environment env, Map<String, Object> properties) {
+        if (emf == null) {
+            throw new IllegalArgumentException("EntityManagerFactory is required for buffered audit logger");
+        }
+        BufferedAuditLogger logger = new BufferedAuditLogger(emf, env);
+        if (properties != null && properties.containsKey("jbpm.audit.durability")) {
+            logger.setDurability(BufferedAuditLogger.Durability.valueOf(properties.get("jbpm.audit.durability").toString()));
+        }
+        return logger;
+    }
     
     /**
      * Creates new instance of JPA audit logger
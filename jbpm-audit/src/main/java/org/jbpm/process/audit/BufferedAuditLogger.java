@@ -0,0 +1,242 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.process.audit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.drools.persistence.TransactionManager;
+import org.drools.persistence.TransactionSynchronization;
+import org.jbpm.process.audit.AuditLogWriter.AuditRecord;
+import org.jbpm.process.audit.AuditLogWriter.WriteCompletion;
+import org.jbpm.process.instance.impl.ProcessInstanceImpl;
+import org.jbpm.workflow.instance.impl.NodeInstanceImpl;
+import org.kie.api.event.KieRuntimeEvent;
+import org.kie.api.event.process.ProcessCompletedEvent;
+import org.kie.api.event.process.ProcessNodeLeftEvent;
+import org.kie.api.event.process.ProcessNodeTriggeredEvent;
+import org.kie.api.event.process.ProcessStartedEvent;
+import org.kie.api.event.process.ProcessVariableChangedEvent;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.EnvironmentName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Audit logger that does not write to the data base as part of the engine transaction. Audit log entries
+ * are collected for the duration of the transaction and once it is committed they are handed over to
+ * {@link AuditLogWriter} that stores them in batches on its own thread. Entries of rolled back
+ * transactions are discarded.
+ * <br/>
+ * Two durability modes are supported:
+ * <ul>
+ *  <li>SYNC_ON_COMMIT - thread that committed the transaction waits until its entries are written, entries that
+ *  could not be written are reported to it with IllegalStateException</li>
+ *  <li>ASYNC - entries are written in background, they can be lost if the JVM crashes before they are written</li>
+ * </ul>
+ * When there is no active transaction (or the environment does not provide drools transaction manager)
+ * entries are handed over to the writer immediately.
+ */
+public class BufferedAuditLogger extends AbstractAuditLogger {
+
+    private static final Logger logger = LoggerFactory.getLogger(BufferedAuditLogger.class);
+
+    public enum Durability {
+        SYNC_ON_COMMIT,
+        ASYNC
+    }
+
+    private final AuditLogWriter writer;
+    // writer shared with other loggers of the same entity manager factory, released on dispose
+    private final boolean sharedWriter;
+    private boolean disposed;
+    private Durability durability = Durability.valueOf(System.getProperty("org.jbpm.audit.durability", Durability.SYNC_ON_COMMIT.name()));
+
+    private final ThreadLocal<PendingRecords> pending = new ThreadLocal<PendingRecords>();
+
+    public BufferedAuditLogger(AuditLogWriter writer) {
+        this.writer = writer;
+        this.sharedWriter = false;
+    }
+
+    public BufferedAuditLogger(AuditLogWriter writer, Durability durability) {
+        this.writer = writer;
+        this.sharedWriter = false;
+        this.durability = durability;
+    }
+
+    public BufferedAuditLogger(EntityManagerFactory emf, Environment env) {
+        Boolean isJTA = env == null ? null : (Boolean) env.get("IS_JTA_TRANSACTION");
+        this.writer = AuditLogWriter.get(emf, isJTA == null || isJTA.booleanValue());
+        this.sharedWriter = true;
+    }
+
+    @Override
+    public void beforeNodeTriggered(ProcessNodeTriggeredEvent event) {
+        NodeInstanceLog log = (NodeInstanceLog) builder.buildEvent(event);
+        record(new AuditRecord(BEFORE_NODE_ENTER_EVENT_TYPE, log), event);
+        ((NodeInstanceImpl) event.getNodeInstance()).getMetaData().put("NodeInstanceLog", log);
+    }
+
+    @Override
+    public void afterNodeTriggered(ProcessNodeTriggeredEvent event) {
+        // log built before node was triggered might have been handed over to the writer already
+        // so record the work item id as separate update instead of modifying it
+        NodeInstanceLog log = (NodeInstanceLog) ((NodeInstanceImpl) event.getNodeInstance()).getMetaData().get("NodeInstanceLog");
+        if (log != null && log.getWorkItemId() == null) {
+            NodeInstanceLog update = (NodeInstanceLog) builder.buildEvent(event);
+            if (update.getWorkItemId() != null) {
+                record(new AuditRecord(AFTER_NODE_ENTER_EVENT_TYPE, update), event);
+            }
+        }
+    }
+
+    @Override
+    public void afterNodeLeft(ProcessNodeLeftEvent event) {
+        NodeInstanceLog log = (NodeInstanceLog) builder.buildEvent(event, null);
+        record(new AuditRecord(AFTER_NODE_LEFT_EVENT_TYPE, log), event);
+    }
+
+    @Override
+    public void afterVariableChanged(ProcessVariableChangedEvent event) {
+        VariableInstanceLog log = (VariableInstanceLog) builder.buildEvent(event);
+        record(new AuditRecord(AFTER_VAR_CHANGE_EVENT_TYPE, log), event);
+    }
+
+    @Override
+    public void beforeProcessStarted(ProcessStartedEvent event) {
+        ProcessInstanceLog log = (ProcessInstanceLog) builder.buildEvent(event);
+        record(new AuditRecord(BEFORE_START_EVENT_TYPE, log), event);
+        ((ProcessInstanceImpl) event.getProcessInstance()).getMetaData().put("ProcessInstanceLog", log);
+    }
+
+    @Override
+    public void afterProcessCompleted(ProcessCompletedEvent event) {
+        ProcessInstanceLog log = (ProcessInstanceLog) builder.buildEvent(event, null);
+        ProcessInstanceLog startLog = (ProcessInstanceLog) ((ProcessInstanceImpl) event.getProcessInstance()).getMetaData().get("ProcessInstanceLog");
+        if (startLog != null && startLog.getStart() != null) {
+            log.setDuration(log.getEnd().getTime() - startLog.getStart().getTime());
+        }
+        record(new AuditRecord(AFTER_COMPLETE_EVENT_TYPE, log), event);
+    }
+
+    @Override
+    public void beforeNodeLeft(ProcessNodeLeftEvent event) {
+    }
+
+    @Override
+    public void beforeVariableChanged(ProcessVariableChangedEvent event) {
+    }
+
+    @Override
+    public void afterProcessStarted(ProcessStartedEvent event) {
+    }
+
+    @Override
+    public void beforeProcessCompleted(ProcessCompletedEvent event) {
+    }
+
+    protected void record(AuditRecord record, KieRuntimeEvent event) {
+        PendingRecords pendingRecords = pending.get();
+        if (pendingRecords == null || pendingRecords.completed) {
+            TransactionManager tm = getTransactionManager(event);
+            if (tm == null || tm.getStatus() != TransactionManager.STATUS_ACTIVE) {
+                List<AuditRecord> records = new ArrayList<AuditRecord>(1);
+                records.add(record);
+                handOver(records);
+                return;
+            }
+            pendingRecords = new PendingRecords();
+            tm.registerTransactionSynchronization(pendingRecords);
+            pending.set(pendingRecords);
+        }
+        pendingRecords.records.add(record);
+    }
+
+    protected void handOver(List<AuditRecord> records) {
+        WriteCompletion completion = writer.write(records);
+        if (durability == Durability.SYNC_ON_COMMIT) {
+            try {
+                completion.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while waiting for {} audit log entries to be written", records.size());
+                return;
+            }
+            if (completion.isFailed()) {
+                throw new IllegalStateException("Unable to write " + completion.getFailedCount() + " of "
+                        + records.size() + " audit log entries", completion.getFailure());
+            }
+        }
+    }
+
+    protected TransactionManager getTransactionManager(KieRuntimeEvent event) {
+        Environment env = event.getKieRuntime().getEnvironment();
+        if (env == null) {
+            return null;
+        }
+        Object tm = env.get(EnvironmentName.TRANSACTION_MANAGER);
+        if (tm instanceof TransactionManager) {
+            return (TransactionManager) tm;
+        }
+        return null;
+    }
+
+    public AuditLogWriter getWriter() {
+        return writer;
+    }
+
+    /**
+     * Releases the writer shared by loggers of the same entity manager factory, it is closed once the last
+     * of them is disposed. Writer given to the constructor is left to the caller.
+     */
+    public synchronized void dispose() {
+        if (sharedWriter && !disposed) {
+            disposed = true;
+            writer.release();
+        }
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public void setDurability(Durability durability) {
+        this.durability = durability;
+    }
+
+    private class PendingRecords implements TransactionSynchronization {
+
+        private final List<AuditRecord> records = new ArrayList<AuditRecord>();
+        private volatile boolean completed = false;
+
+        @Override
+        public void beforeCompletion() {
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            completed = true;
+            if (status == TransactionManager.STATUS_COMMITTED) {
+                handOver(records);
+            } else {
+                logger.debug("Transaction not committed (status {}), discarding {} audit log entries", status, records.size());
+            }
+        }
+    }
+}
@@ -50,7 +50,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Enables history log via JPA.
- * 
+ * <br/>
+ * Audit entries are persisted as part of the engine transaction, see <code>BufferedAuditLogger</code>
+ * for logger that writes them in batches once the transaction is committed.
  */
 public class JPAWorkingMemoryDbLogger extends AbstractAuditLogger {
 
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.process.audit;
+
+import static org.jbpm.persistence.util.PersistenceUtil.createEnvironment;
+import static org.jbpm.process.audit.AbstractAuditLogServiceTest.createKieSession;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.jbpm.process.audit.AuditLogWriter.AuditRecord;
+import org.jbpm.process.audit.AuditLogWriter.WriteCompletion;
+import org.jbpm.process.instance.impl.demo.SystemOutWorkItemHandler;
+import org.junit.After;
+import org.junit.Test;
+import org.kie.api.KieBase;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.EnvironmentName;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.process.ProcessInstance;
+
+/**
+ * This class tests the following classes:
+ * <ul>
+ * <li>BufferedAuditLogger</li>
+ * <li>AuditLogWriter</li>
+ * </ul>
+ */
+public class WorkingMemoryDbLoggerWithBufferedLoggerTest extends AbstractWorkingMemoryDbLoggerTest {
+
+    private KieSession ksession = null;
+    private BufferedAuditLogger auditLogger;
+
+    @After
+    public void closeWriter() {
+        if (auditLogger != null) {
+            auditLogger.dispose();
+        }
+    }
+
+    @Override
+    public ProcessInstance startProcess(String processName) {
+        if( ksession == null ) {
+            KieBase kbase = createKnowledgeBase();
+
+            Environment env = createEnvironment(context);
+            ksession = createKieSession(kbase, env);
+
+            auditLogger = new BufferedAuditLogger((EntityManagerFactory) env.get(EnvironmentName.ENTITY_MANAGER_FACTORY), env);
+            auditLogger.setDurability(BufferedAuditLogger.Durability.SYNC_ON_COMMIT);
+            ksession.addEventListener(auditLogger);
+            ksession.getWorkItemManager().registerWorkItemHandler("Human Task", new SystemOutWorkItemHandler());
+        }
+        return ksession.startProcess(processName);
+    }
+
+    @Test
+    public void testWriterStatistics() {
+        startProcess("com.sample.ruleflow");
+
+        AuditLogWriter writer = auditLogger.getWriter();
+        assertEquals(writer.getEnqueuedCount(), writer.getWrittenCount());
+        assertEquals(0, writer.getFailedCount());
+        assertEquals(0, writer.getBufferDepth());
+    }
+
+    @Test
+    public void testSharedWriterClosedOnceLoggersDisposed() {
+        Environment env = createEnvironment(context);
+        EntityManagerFactory emf = (EntityManagerFactory) env.get(EnvironmentName.ENTITY_MANAGER_FACTORY);
+        BufferedAuditLogger first = new BufferedAuditLogger(emf, env);
+        BufferedAuditLogger second = new BufferedAuditLogger(emf, env);
+        AuditLogWriter writer = first.getWriter();
+        assertSame(writer, second.getWriter());
+        assertSame(writer, AuditLogWriter.find(emf));
+
+        first.dispose();
+        // disposing the same logger again must not release the writer of the other one
+        first.dispose();
+        assertTrue(writer.isRunning());
+        assertSame(writer, AuditLogWriter.find(emf));
+
+        second.dispose();
+        assertFalse(writer.isRunning());
+        assertNull(AuditLogWriter.find(emf));
+    }
+
+    @Test
+    public void testFailedEntryDoesNotFailBatch() throws Exception {
+        AuditLogWriter writer = new AuditLogWriter((EntityManagerFactory) context.get(EnvironmentName.ENTITY_MANAGER_FACTORY), true);
+        writer.setFlushInterval(TimeUnit.SECONDS.toMillis(1));
+        try {
+            List<AuditRecord> records = new ArrayList<AuditRecord>();
+            records.add(new AuditRecord(AbstractAuditLogger.BEFORE_START_EVENT_TYPE, new ProcessInstanceLog(1001, "com.sample.ruleflow")));
+            // not an entity, can not be persisted
+            records.add(new AuditRecord(AbstractAuditLogger.AFTER_VAR_CHANGE_EVENT_TYPE, new Object()));
+            records.add(new AuditRecord(AbstractAuditLogger.BEFORE_NODE_ENTER_EVENT_TYPE,
+                    new NodeInstanceLog(NodeInstanceLog.TYPE_ENTER, 1001, "com.sample.ruleflow", "1", "1", "Start")));
+
+            WriteCompletion completion = writer.write(records);
+            assertTrue(completion.await(10, TimeUnit.SECONDS));
+            assertTrue(completion.isFailed());
+            assertEquals(1, completion.getFailedCount());
+            assertEquals(2, writer.getWrittenCount());
+            assertEquals(1, writer.getFailedCount());
+
+            assertNotNull(logService.findProcessInstance(1001));
+            assertEquals(1, logService.findNodeInstances(1001).size());
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testNodeInstanceUpdateMatchesProcessInstance() throws Exception {
+        AuditLogWriter writer = new AuditLogWriter((EntityManagerFactory) context.get(EnvironmentName.ENTITY_MANAGER_FACTORY), true);
+        try {
+            // same node instance id in two process instances, stored in separate batches
+            List<AuditRecord> records = new ArrayList<AuditRecord>();
+            records.add(new AuditRecord(AbstractAuditLogger.BEFORE_NODE_ENTER_EVENT_TYPE,
+                    new NodeInstanceLog(NodeInstanceLog.TYPE_ENTER, 2001, "com.sample.ruleflow", "1", "2", "Task")));
+            records.add(new AuditRecord(AbstractAuditLogger.BEFORE_NODE_ENTER_EVENT_TYPE,
+                    new NodeInstanceLog(NodeInstanceLog.TYPE_ENTER, 2002, "com.sample.ruleflow", "1", "2", "Task")));
+            assertTrue(writer.write(records).await(10, TimeUnit.SECONDS));
+
+            NodeInstanceLog update = new NodeInstanceLog(NodeInstanceLog.TYPE_ENTER, 2001, "com.sample.ruleflow", "1", "2", "Task");
+            update.setWorkItemId(5L);
+            records = new ArrayList<AuditRecord>();
+            records.add(new AuditRecord(AbstractAuditLogger.AFTER_NODE_ENTER_EVENT_TYPE, update));
+            WriteCompletion completion = writer.write(records);
+            assertTrue(completion.await(10, TimeUnit.SECONDS));
+            assertFalse(completion.isFailed());
+
+            assertEquals(Long.valueOf(5), logService.findNodeInstances(2001).get(0).getWorkItemId());
+            assertNull(logService.findNodeInstances(2002).get(0).getWorkItemId());
+        } finally {
+            writer.close();
+        }
+    }
+
+}
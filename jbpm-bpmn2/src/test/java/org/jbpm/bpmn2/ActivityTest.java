@@ -1721,6 +1721,16 @@ public class ActivityTest extends JbpmBpmn2TestCase {
     	}
     }
     
+    @Test
+    public void testAdHocSubProcessInvalidCompleteExpression() throws Exception {
+        try { 
+        	createKnowledgeBaseWithoutDumper("BPMN2-AdHocSubProcessInvalidCompleteExpression.bpmn2");
+        	fail("Process should be invalid, completion condition does not compile");
+    	} catch (RuntimeException e) {
+    		// there should be build errors
+    	}
+    }
+    
     @Test
     public void testSubProcessWithTypeVariable() throws Exception {
         KieBase kbase = createKnowledgeBaseWithoutDumper("subprocess/BPMN2-SubProcessWithTypeVariable.bpmn2");
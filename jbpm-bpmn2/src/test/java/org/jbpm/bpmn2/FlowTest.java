@@ -1248,6 +1248,17 @@ public class FlowTest extends JbpmBpmn2TestCase {
 
     }
     
+    @Test
+    public void testMultiInstanceLoopCharacteristicsProcessInvalidCompletionCondition()
+            throws Exception {
+        try {
+            createKnowledgeBaseWithoutDumper("BPMN2-MultiInstanceLoopCharacteristicsProcessInvalidCmpCond.bpmn2");
+            fail("Process should be invalid, completion condition does not compile");
+        } catch (RuntimeException e) {
+            // there should be build errors
+        }
+    }
+    
     @Test
     public void testMultiInstanceLoopCharacteristicsProcessWithOutputAndScripts()
             throws Exception {
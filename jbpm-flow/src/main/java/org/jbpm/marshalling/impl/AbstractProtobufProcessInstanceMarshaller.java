@@ -125,7 +125,7 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
         }
 
         VariableScopeInstance variableScopeInstance = (VariableScopeInstance) workFlow.getContextInstance( VariableScope.VARIABLE_SCOPE );
-        List<Map.Entry<String, Object>> variables = new ArrayList<Map.Entry<String, Object>>( variableScopeInstance.getVariables().entrySet() );
+        List<Map.Entry<String, Object>> variables = new ArrayList<Map.Entry<String, Object>>( variableScopeInstance.getVariables( false ).entrySet() );
         Collections.sort( variables,
                           new Comparator<Map.Entry<String, Object>>() {
                               public int compare(Map.Entry<String, Object> o1,
@@ -135,8 +135,11 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
                           } );
 
         for ( Map.Entry<String, Object> variable : variables ) {
-            if ( variable.getValue() != null ) {
-                _instance.addVariable( ProtobufProcessMarshaller.marshallVariable( context, variable.getKey(), variable.getValue() ) );
+            if ( variable.getValue() instanceof ProtobufProcessMarshaller.LazyVariable ) {
+                // not accessed since read, write it back as it is
+                _instance.addVariable( ((ProtobufProcessMarshaller.LazyVariable) variable.getValue()).write( context ) );
+            } else if ( variable.getValue() != null ) {
+                _instance.addVariable( ProtobufProcessMarshaller.marshallVariable( context, variable.getKey(), variable.getValue(), variableScopeInstance ) );
             }
         }
         
@@ -335,7 +338,7 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
                                   } );
                 for ( Map.Entry<String, Object> variable : variables ) {
                     
-                    _foreach.addVariable( ProtobufProcessMarshaller.marshallVariable( context, variable.getKey(), variable.getValue() ) );
+                    _foreach.addVariable( ProtobufProcessMarshaller.marshallVariable( context, variable.getKey(), variable.getValue(), variableScopeInstance ) );
                 }
             }
             
@@ -391,7 +394,7 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
                                   } );
                 for ( Map.Entry<String, Object> variable : variables ) {
                     
-                    _composite.addVariable( ProtobufProcessMarshaller.marshallVariable( context, variable.getKey(), variable.getValue() ) );
+                    _composite.addVariable( ProtobufProcessMarshaller.marshallVariable( context, variable.getKey(), variable.getValue(), variableScopeInstance ) );
                 }
             }
             
@@ -529,9 +532,7 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
                     .getContextInstance( variableScope );
             for ( JBPMMessages.Variable _variable : _instance.getVariableList() ) {
                 try {
-                    Object _value = ProtobufProcessMarshaller.unmarshallVariableValue( context, _variable );
-                    variableScopeInstance.internalSetVariable( _variable.getName(), 
-                                                               _value );
+                    ProtobufProcessMarshaller.unmarshallLazyVariable( context, _variable, variableScopeInstance );
                 } catch ( ClassNotFoundException e ) {
                     throw new IllegalArgumentException( "Could not reload variable " + _variable.getName() );
                 }
@@ -576,8 +577,7 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
                     VariableScopeInstance variableScopeInstance = (VariableScopeInstance) ((CompositeContextNodeInstance) nodeInstance).getContextInstance( variableScope );
                     for ( JBPMMessages.Variable _variable : _node.getContent().getComposite().getVariableList() ) {
                         try {
-                            Object _value = ProtobufProcessMarshaller.unmarshallVariableValue( context, _variable );
-                            variableScopeInstance.internalSetVariable( _variable.getName(), _value );
+                            ProtobufProcessMarshaller.unmarshallVariable( context, _variable, variableScopeInstance );
                         } catch ( ClassNotFoundException e ) {
                             throw new IllegalArgumentException( "Could not reload variable " + _variable.getName() );
                         }
@@ -617,8 +617,7 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
                     VariableScopeInstance variableScopeInstance = (VariableScopeInstance) ((ForEachNodeInstance) nodeInstance).getContextInstance( VariableScope.VARIABLE_SCOPE );
                     for ( JBPMMessages.Variable _variable : _node.getContent().getForEach().getVariableList() ) {
                         try {
-                            Object _value = ProtobufProcessMarshaller.unmarshallVariableValue( context, _variable );
-                            variableScopeInstance.internalSetVariable( _variable.getName(), _value );
+                            ProtobufProcessMarshaller.unmarshallVariable( context, _variable, variableScopeInstance );
                         } catch ( ClassNotFoundException e ) {
                             throw new IllegalArgumentException( "Could not reload variable " + _variable.getName() );
                         }
@@ -640,8 +639,7 @@ public abstract class AbstractProtobufProcessInstanceMarshaller
                     VariableScopeInstance variableScopeInstance = (VariableScopeInstance) ((EventSubProcessNodeInstance) nodeInstance).getContextInstance( VariableScope.VARIABLE_SCOPE );
                     for ( JBPMMessages.Variable _variable : _node.getContent().getComposite().getVariableList() ) {
                         try {
-                            Object _value = ProtobufProcessMarshaller.unmarshallVariableValue( context, _variable );
-                            variableScopeInstance.internalSetVariable( _variable.getName(), _value );
+                            ProtobufProcessMarshaller.unmarshallVariable( context, _variable, variableScopeInstance );
                         } catch ( ClassNotFoundException e ) {
                             throw new IllegalArgumentException( "Could not reload variable " + _variable.getName() );
                         }
@@ -31,12 +31,14 @@ import org.drools.core.marshalling.impl.PersisterHelper;
 import org.drools.core.marshalling.impl.ProcessMarshaller;
 import org.drools.core.marshalling.impl.ProtobufMessages;
 import org.drools.core.marshalling.impl.ProtobufMessages.Header;
+import org.drools.core.marshalling.impl.SerializablePlaceholderResolverStrategy;
 import org.drools.core.process.instance.WorkItemManager;
 import org.drools.core.process.instance.impl.WorkItemImpl;
 import org.jbpm.marshalling.impl.JBPMMessages.ProcessTimer.TimerInstance.Builder;
 import org.jbpm.marshalling.impl.JBPMMessages.Variable;
 import org.jbpm.marshalling.impl.JBPMMessages.VariableContainer;
 import org.jbpm.process.instance.InternalProcessRuntime;
+import org.jbpm.process.instance.context.variable.VariableScopeInstance;
 import org.jbpm.process.instance.timer.TimerInstance;
 import org.jbpm.process.instance.timer.TimerManager;
 import org.jbpm.process.instance.timer.TimerManager.ProcessJobContext;
@@ -58,6 +60,21 @@ public class ProtobufProcessMarshaller
 		persistWorkItemVars = turnOn;
 	}
 
+	// reuse of marshalled bytes of variables that were not set since they were marshalled (or unmarshalled) last time,
+	// values must be replaced with setVariable instead of modified in place when enabled
+	private static boolean reuseMarshalledVariables = Boolean.parseBoolean(System.getProperty("org.jbpm.variable.marshalled.reuse", "false"));
+
+	public static void setMarshalledVariablesReuse(boolean turnOn) {
+		reuseMarshalledVariables = turnOn;
+	}
+
+	// process variables are unmarshalled on first access instead of when the process instance is read
+	private static boolean lazyVariables = Boolean.parseBoolean(System.getProperty("org.jbpm.variable.lazy", "false"));
+
+	public static void setLazyVariables(boolean turnOn) {
+		lazyVariables = turnOn;
+	}
+
     public void writeProcessInstances(MarshallerWriteContext context) throws IOException {
         ProtobufMessages.ProcessData.Builder _pdata = (ProtobufMessages.ProcessData.Builder) context.parameterObject;
                                                   
@@ -270,6 +287,46 @@ public class ProtobufProcessMarshaller
         return builder.build();
     }
     
+    /**
+     * Marshals variable of given variable scope instance. When reuse of marshalled variables is enabled
+     * bytes marshalled last time are written again if the variable was not set since, and strategy resolved
+     * last time is used as long as the variable holds value of the same class.
+     */
+    public static Variable marshallVariable(MarshallerWriteContext context,
+                                            String name,
+                                            Object value,
+                                            VariableScopeInstance variableScopeInstance) throws IOException {
+        if ( !reuseMarshalledVariables || value == null || variableScopeInstance == null ) {
+            return marshallVariable( context, name, value );
+        }
+        MarshalledVariable marshalled = (MarshalledVariable) variableScopeInstance.getMarshalledVariable( name );
+        ObjectMarshallingStrategy strategy;
+        if ( marshalled != null && marshalled.value.getClass() == value.getClass() ) {
+            strategy = marshalled.strategy;
+        } else {
+            strategy = context.objectMarshallingStrategyStore.getStrategyObject( value );
+        }
+        Integer index = context.getStrategyIndex( strategy );
+        ByteString bytes;
+        if ( marshalled != null && marshalled.value == value && marshalled.bytes != null ) {
+            bytes = marshalled.bytes;
+        } else {
+            ObjectMarshallingStrategy.Context strategyContext = context.strategyContext.get( strategy );
+            bytes = ByteString.copyFrom( strategy.marshal( strategyContext,
+                                                           context,
+                                                           value ) );
+            // bytes of strategies with context refer to the context so they can't be written again
+            variableScopeInstance.setMarshalledVariable( name, new MarshalledVariable( value,
+                                                                                     strategy,
+                                                                                     strategyContext == null ? bytes : null ) );
+        }
+        return JBPMMessages.Variable.newBuilder()
+                .setName( name )
+                .setStrategyIndex( index )
+                .setValue( bytes )
+                .build();
+    }
+
     public static Variable marshallVariablesMap(MarshallerWriteContext context, Map<String, Object> variables) throws IOException{
         Map<String, Variable> marshalledVariables = new HashMap<String, Variable>();
         for(String key : variables.keySet()){
@@ -328,6 +385,48 @@ public class ProtobufProcessMarshaller
         return value;
     }
     
+    /**
+     * Unmarshals variable into given variable scope instance, keeping its bytes for reuse when reuse
+     * of marshalled variables is enabled.
+     */
+    public static void unmarshallVariable(MarshallerReaderContext context,
+                                          JBPMMessages.Variable _variable,
+                                          VariableScopeInstance variableScopeInstance) throws IOException,
+                                                                                       ClassNotFoundException {
+        Object value = unmarshallVariableValue( context, _variable );
+        variableScopeInstance.internalSetVariable( _variable.getName(), value );
+        if ( reuseMarshalledVariables && value != null ) {
+            ObjectMarshallingStrategy strategy = context.usedStrategies.get( _variable.getStrategyIndex() );
+            variableScopeInstance.setMarshalledVariable( _variable.getName(),
+                                                         new MarshalledVariable( value,
+                                                                                 strategy,
+                                                                                 context.strategyContexts.get( strategy ) == null ? _variable.getValue() : null ) );
+        }
+    }
+
+    /**
+     * Same as <code>unmarshallVariable</code> but when lazy variables are enabled the value is unmarshalled
+     * on first access. Only variables of <code>SerializablePlaceholderResolverStrategy</code> without context are
+     * unmarshalled lazily, as they can be written back as they are and need nothing but their bytes and class
+     * loader to be unmarshalled - unlike e.g. entities, that must be loaded within the reading transaction.
+     */
+    public static void unmarshallLazyVariable(MarshallerReaderContext context,
+                                              JBPMMessages.Variable _variable,
+                                              VariableScopeInstance variableScopeInstance) throws IOException,
+                                                                                           ClassNotFoundException {
+        if ( lazyVariables && _variable.getValue() != null && !_variable.getValue().isEmpty() ) {
+            ObjectMarshallingStrategy strategy = context.usedStrategies.get( _variable.getStrategyIndex() );
+            if ( strategy instanceof SerializablePlaceholderResolverStrategy && context.strategyContexts.get( strategy ) == null ) {
+                ClassLoader classLoader = context.kBase == null ? null : context.kBase.getRootClassLoader();
+                variableScopeInstance.setLazyVariable( _variable.getName(),
+                                                       new LazyVariable( strategy, classLoader, _variable.getName(),
+                                                                         _variable.getValue(), variableScopeInstance ) );
+                return;
+            }
+        }
+        unmarshallVariable( context, _variable, variableScopeInstance );
+    }
+
 	public static Map<String, Object> unmarshallVariableContainerValue(MarshallerReaderContext context, JBPMMessages.VariableContainer _variableContiner)
 			throws IOException, ClassNotFoundException {
 		Map<String, Object> variables = new HashMap<String, Object>();
@@ -378,4 +477,70 @@ public class ProtobufProcessMarshaller
         }
     }
 
+    /**
+     * Value of a variable together with the strategy it was marshalled with and the marshalled bytes,
+     * bytes are null when they can't be reused.
+     */
+    static class MarshalledVariable {
+
+        final Object value;
+        final ObjectMarshallingStrategy strategy;
+        final ByteString bytes;
+
+        MarshalledVariable(Object value, ObjectMarshallingStrategy strategy, ByteString bytes) {
+            this.value = value;
+            this.strategy = strategy;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Variable read from protobuf message that was not unmarshalled yet, it is written back as it was read
+     * when it is not accessed before the process instance is marshalled again. Keeps only the bytes of
+     * the variable, not the reader context of the whole process instance.
+     */
+    static class LazyVariable implements VariableScopeInstance.LazyVariable {
+
+        private final ObjectMarshallingStrategy strategy;
+        private final ClassLoader classLoader;
+        private final String name;
+        private final ByteString bytes;
+        private final VariableScopeInstance variableScopeInstance;
+
+        LazyVariable(ObjectMarshallingStrategy strategy,
+                     ClassLoader classLoader,
+                     String name,
+                     ByteString bytes,
+                     VariableScopeInstance variableScopeInstance) {
+            this.strategy = strategy;
+            this.classLoader = classLoader;
+            this.name = name;
+            this.bytes = bytes;
+            this.variableScopeInstance = variableScopeInstance;
+        }
+
+        public Object resolve() {
+            try {
+                // strategy has no context and does not read from the stream
+                Object value = strategy.unmarshal( null, null, bytes.toByteArray(), classLoader );
+                if ( reuseMarshalledVariables && value != null ) {
+                    variableScopeInstance.setMarshalledVariable( name,
+                                                                 new MarshalledVariable( value, strategy, bytes ) );
+                }
+                return value;
+            } catch ( IOException e ) {
+                throw new IllegalArgumentException( "Could not reload variable " + name, e );
+            } catch ( ClassNotFoundException e ) {
+                throw new IllegalArgumentException( "Could not reload variable " + name, e );
+            }
+        }
+
+        Variable write(MarshallerWriteContext context) {
+            return JBPMMessages.Variable.newBuilder()
+                    .setName( name )
+                    .setStrategyIndex( context.getStrategyIndex( strategy ) )
+                    .setValue( bytes )
+                    .build();
+        }
+    }
 }
@@ -20,16 +20,20 @@ import java.io.InputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.List;
 import java.util.Properties;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.drools.core.time.TimeUtils;
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.joda.time.Duration;
 import org.joda.time.Period;
 import org.joda.time.format.ISODateTimeFormat;
@@ -66,6 +70,10 @@ import org.slf4j.LoggerFactory;
  * Weekend days should be given as integer that corresponds to <code>java.util.Calendar</code> constants.
  * <br/>
  * 
+ * Configuration is compiled when the calendar is created - holidays are kept sorted so they are looked up
+ * with binary search, weekend days in a lookup table, and parsed time expressions are cached. Working days
+ * are added by whole weeks up to the next holiday instead of day by day. Subclasses that change
+ * day handling so that weeks differ in number of working days must disable it with <code>isWeekSkippingEnabled</code>.
  */
 public class BusinessCalendarImpl implements BusinessCalendar {
 	
@@ -74,6 +82,7 @@ public class BusinessCalendarImpl implements BusinessCalendar {
     private Properties businessCalendarConfiguration;
     
     private static final long HOUR_IN_MILLIS = 60 * 60 * 1000;
+    private static final long WEEK_IN_MILLIS = 7 * 24 * HOUR_IN_MILLIS;
     
     private int daysPerWeek;
     private int hoursInDay;
@@ -85,6 +94,15 @@ public class BusinessCalendarImpl implements BusinessCalendar {
     private List<Integer> weekendDays= new ArrayList<Integer>();
     private SessionClock clock;
     
+    // compiled form of the configuration
+    private boolean[] weekendDayTable = new boolean[8];
+    private TimePeriod[] holidayIndex;
+    private volatile int workingDaysPerWeek = -1;
+    
+    private static final int MAX_CACHED_EXPRESSIONS = 1000;
+    private final ConcurrentHashMap<String, String> isoExpressions = new ConcurrentHashMap<String, String>();
+    private final ConcurrentHashMap<String, int[]> parsedExpressions = new ConcurrentHashMap<String, int[]>();
+    
     private static final Pattern SIMPLE  = Pattern.compile( "([+-])?\\s*((\\d+)[Ww])?\\s*((\\d+)[Dd])?\\s*((\\d+)[Hh])?\\s*((\\d+)[Mm])?\\s*((\\d+)[Ss])?" );
     private static final int     SIM_WEEK = 3;
     private static final int     SIM_DAY = 5;
@@ -154,10 +172,30 @@ public class BusinessCalendarImpl implements BusinessCalendar {
         holidays = parseHolidays();
         parseWeekendDays();
         this.timezone = businessCalendarConfiguration.getProperty(TIMEZONE);
+        indexHolidays();
+        indexWeekendDays();
     }
     
     protected String adoptISOFormat(String timeExpression) {
-    	
+        if (timeExpression != null) {
+            // already in simple format
+            if (parsedExpressions.containsKey(timeExpression)) {
+                return timeExpression;
+            }
+            // periods do not depend on current time so they can be cached, dates cannot
+            if (DateTimeUtils.isPeriod(timeExpression)) {
+                String adopted = isoExpressions.get(timeExpression);
+                if (adopted == null) {
+                    adopted = convertISOFormat(timeExpression);
+                    cacheExpression(isoExpressions, timeExpression, adopted);
+                }
+                return adopted;
+            }
+        }
+        return convertISOFormat(timeExpression);
+    }
+    
+    private String convertISOFormat(String timeExpression) {
     	try {
     		Period p = null;
     		if (DateTimeUtils.isPeriod(timeExpression)) {
@@ -215,23 +253,12 @@ public class BusinessCalendarImpl implements BusinessCalendar {
         }
         
         
-        String trimmed = timeExpression.trim();
-        int weeks = 0;
-        int days = 0;
-        int hours = 0;
-        int min = 0;
-        int sec = 0;
-        
-        if( trimmed.length() > 0 ) {
-            Matcher mat = SIMPLE.matcher( trimmed );
-            if ( mat.matches() ) {
-                weeks = (mat.group( SIM_WEEK ) != null) ? Integer.parseInt( mat.group( SIM_WEEK ) ) : 0;
-                days = (mat.group( SIM_DAY ) != null) ? Integer.parseInt( mat.group( SIM_DAY ) ) : 0;
-                hours = (mat.group( SIM_HOU ) != null) ? Integer.parseInt( mat.group( SIM_HOU ) ) : 0;
-                min = (mat.group( SIM_MIN ) != null) ? Integer.parseInt( mat.group( SIM_MIN ) ) : 0;
-                sec = (mat.group( SIM_SEC ) != null) ? Integer.parseInt( mat.group( SIM_SEC ) ) : 0;
-            }
-        }
+        int[] parsed = parseTimeExpression(timeExpression);
+        int weeks = parsed[0];
+        int days = parsed[1];
+        int hours = parsed[2];
+        int min = parsed[3];
+        int sec = parsed[4];
         int time = 0;
         
         Calendar c = new GregorianCalendar();
@@ -254,11 +281,7 @@ public class BusinessCalendarImpl implements BusinessCalendar {
         // calculate number of days
         int numberOfDays = hours/hoursInDay;
         if (numberOfDays > 0) {
-            for (int i = 0; i < numberOfDays; i++) {
-                c.add(Calendar.DAY_OF_YEAR, 1);
-                handleWeekend(c);
-                handleHoliday(c);
-            }
+            addWorkingDays(c, numberOfDays);
         }
 
         int currentCalHour = c.get(Calendar.HOUR_OF_DAY);
@@ -318,34 +341,214 @@ public class BusinessCalendarImpl implements BusinessCalendar {
         return c.getTime();
     }
     
+    /**
+     * Moves given calendar, that is set to a working day, by given number of working days. Whole weeks
+     * that end before next holiday and next daylight saving change are skipped at once, remaining days
+     * are moved one by one.
+     */
+    private void addWorkingDays(Calendar c, int numberOfDays) {
+        int workingDays = getWorkingDaysPerWeek();
+        DateTimeZone zone = workingDays > 0 ? DateTimeZone.forTimeZone(c.getTimeZone()) : null;
+        int remaining = numberOfDays;
+        while (remaining > 0) {
+            int weeks = workingDays > 0 ? remaining / workingDays : 0;
+            if (weeks > 0) {
+                long start = c.getTimeInMillis();
+                long transition = zone.nextTransition(start);
+                // zones without further transitions return given instant
+                long limit = Math.min(getNextHolidayStart(start), transition > start ? transition : Long.MAX_VALUE);
+                if (limit <= start) {
+                    weeks = 0;
+                } else if (limit != Long.MAX_VALUE) {
+                    weeks = (int) Math.min(weeks, (limit - start - 1) / WEEK_IN_MILLIS);
+                }
+                if (weeks > 0) {
+                    c.add(Calendar.WEEK_OF_YEAR, weeks);
+                    remaining -= weeks * workingDays;
+                    continue;
+                }
+            }
+            c.add(Calendar.DAY_OF_YEAR, 1);
+            handleWeekend(c);
+            handleHoliday(c);
+            remaining--;
+        }
+    }
+    
     protected void handleHoliday(Calendar c) {
         if (!holidays.isEmpty()) {
             Date current = c.getTime();
-            for (TimePeriod holiday : holidays) {
-                // check each holiday if it overlaps current date and break after first match
-                if (current.after(holiday.getFrom()) && current.before(holiday.getTo())) {
-                    
-                    Calendar tmp = new GregorianCalendar();
-                    tmp.setTime(holiday.getTo());   
-                    
-                    Calendar tmp2 = new GregorianCalendar();
-                    tmp2.setTime(current);
-                    tmp2.set(Calendar.HOUR_OF_DAY, 0);
-                    tmp2.set(Calendar.MINUTE, 0);
-                    tmp2.set(Calendar.SECOND, 0);
-                    tmp2.set(Calendar.MILLISECOND, 0);
+            TimePeriod holiday = findHoliday(current.getTime());
+            if (holiday != null) {
+                Calendar tmp = new GregorianCalendar();
+                tmp.setTime(holiday.getTo());   
+                
+                Calendar tmp2 = new GregorianCalendar();
+                tmp2.setTime(current);
+                tmp2.set(Calendar.HOUR_OF_DAY, 0);
+                tmp2.set(Calendar.MINUTE, 0);
+                tmp2.set(Calendar.SECOND, 0);
+                tmp2.set(Calendar.MILLISECOND, 0);
 
-                    long difference = tmp.getTimeInMillis() - tmp2.getTimeInMillis();
-                    
-                    c.add(Calendar.HOUR_OF_DAY, (int) (difference/HOUR_IN_MILLIS));
-                    
-                    handleWeekend(c);
-                    break;
-                }
+                long difference = tmp.getTimeInMillis() - tmp2.getTimeInMillis();
+                
+                c.add(Calendar.HOUR_OF_DAY, (int) (difference/HOUR_IN_MILLIS));
+                
+                handleWeekend(c);
             }
         }
         
     }
+    
+    /**
+     * Returns first holiday that overlaps given time or null if there is none.
+     */
+    private TimePeriod findHoliday(long time) {
+        if (holidayIndex == null) {
+            for (TimePeriod holiday : holidays) {
+                if (time > holiday.getFrom().getTime() && time < holiday.getTo().getTime()) {
+                    return holiday;
+                }
+            }
+            return null;
+        }
+        // holidays in the index do not overlap so only the last one starting before given time can match
+        int low = 0;
+        int high = holidayIndex.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (holidayIndex[mid].getFrom().getTime() < time) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (found >= 0 && time < holidayIndex[found].getTo().getTime()) {
+            return holidayIndex[found];
+        }
+        return null;
+    }
+    
+    /**
+     * Returns start of the first holiday that ends after given time or <code>Long.MAX_VALUE</code> if there is none.
+     */
+    private long getNextHolidayStart(long time) {
+        long next = Long.MAX_VALUE;
+        if (holidayIndex == null) {
+            for (TimePeriod holiday : holidays) {
+                if (holiday.getTo().getTime() > time) {
+                    next = Math.min(next, holiday.getFrom().getTime());
+                }
+            }
+            return next;
+        }
+        int low = 0;
+        int high = holidayIndex.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (holidayIndex[mid].getTo().getTime() > time) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        if (low < holidayIndex.length) {
+            next = holidayIndex[low].getFrom().getTime();
+        }
+        return next;
+    }
+    
+    /**
+     * Sorts holidays by their start and removes duplicates. Holidays are looked up in this index only when
+     * they do not overlap each other, otherwise the first match of the configured list is used as before.
+     */
+    private void indexHolidays() {
+        List<TimePeriod> sorted = new ArrayList<TimePeriod>(holidays);
+        Collections.sort(sorted, new Comparator<TimePeriod>() {
+            public int compare(TimePeriod o1, TimePeriod o2) {
+                int result = o1.getFrom().compareTo(o2.getFrom());
+                return result != 0 ? result : o1.getTo().compareTo(o2.getTo());
+            }
+        });
+        List<TimePeriod> index = new ArrayList<TimePeriod>(sorted.size());
+        TimePeriod previous = null;
+        for (TimePeriod holiday : sorted) {
+            if (previous != null && previous.getFrom().equals(holiday.getFrom()) && previous.getTo().equals(holiday.getTo())) {
+                continue;
+            }
+            if (holiday.getFrom().after(holiday.getTo()) || (previous != null && previous.getTo().after(holiday.getFrom()))) {
+                holidayIndex = null;
+                return;
+            }
+            index.add(holiday);
+            previous = holiday;
+        }
+        holidayIndex = index.toArray(new TimePeriod[index.size()]);
+    }
+    
+    private void indexWeekendDays() {
+        for (Integer day : weekendDays) {
+            if (day >= 0 && day < weekendDayTable.length) {
+                weekendDayTable[day] = true;
+            }
+        }
+    }
+    
+    private int getWorkingDaysPerWeek() {
+        if (workingDaysPerWeek < 0) {
+            int count = 0;
+            if (isWeekSkippingEnabled()) {
+                for (int day = Calendar.SUNDAY; day <= Calendar.SATURDAY; day++) {
+                    if (isWorkingDay(day)) {
+                        count++;
+                    }
+                }
+            }
+            workingDaysPerWeek = count;
+        }
+        return workingDaysPerWeek;
+    }
+    
+    /**
+     * Returns true when working days can be added by whole weeks, which is only valid when every week without
+     * configured holidays has the same working days. Subclasses that override <code>handleWeekend</code>,
+     * <code>handleHoliday</code> or <code>isWorkingDay</code> in a way that breaks this must return false
+     * so that working days are added one by one.
+     */
+    protected boolean isWeekSkippingEnabled() {
+        return true;
+    }
+    
+    private int[] parseTimeExpression(String timeExpression) {
+        int[] parsed = parsedExpressions.get(timeExpression);
+        if (parsed != null) {
+            return parsed;
+        }
+        parsed = new int[5];
+        String trimmed = timeExpression.trim();
+        if( trimmed.length() > 0 ) {
+            Matcher mat = SIMPLE.matcher( trimmed );
+            if ( mat.matches() ) {
+                parsed[0] = (mat.group( SIM_WEEK ) != null) ? Integer.parseInt( mat.group( SIM_WEEK ) ) : 0;
+                parsed[1] = (mat.group( SIM_DAY ) != null) ? Integer.parseInt( mat.group( SIM_DAY ) ) : 0;
+                parsed[2] = (mat.group( SIM_HOU ) != null) ? Integer.parseInt( mat.group( SIM_HOU ) ) : 0;
+                parsed[3] = (mat.group( SIM_MIN ) != null) ? Integer.parseInt( mat.group( SIM_MIN ) ) : 0;
+                parsed[4] = (mat.group( SIM_SEC ) != null) ? Integer.parseInt( mat.group( SIM_SEC ) ) : 0;
+            }
+        }
+        cacheExpression(parsedExpressions, timeExpression, parsed);
+        return parsed;
+    }
+    
+    private static <T> void cacheExpression(ConcurrentHashMap<String, T> cache, String expression, T value) {
+        // expressions computed from dates are unique so the cache is kept bounded
+        if (cache.size() >= MAX_CACHED_EXPRESSIONS) {
+            cache.clear();
+        }
+        cache.put(expression, value);
+    }
 
     protected int getPropertyAsInt(String propertyName, String defaultValue) {
         String value = businessCalendarConfiguration.getProperty(propertyName, defaultValue);
@@ -490,6 +693,9 @@ public class BusinessCalendarImpl implements BusinessCalendar {
     }
     
     protected boolean isWorkingDay(int day) {
+        if (day >= 0 && day < weekendDayTable.length) {
+            return !weekendDayTable[day];
+        }
         if (weekendDays.contains(day)) {
             return false;
         }
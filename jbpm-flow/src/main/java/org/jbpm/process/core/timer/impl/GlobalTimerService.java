@@ -45,9 +45,8 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 
 public class GlobalTimerService implements TimerService, InternalSchedulerService {
@@ -57,7 +56,8 @@ public class GlobalTimerService implements TimerService, InternalSchedulerServic
     protected TimerJobFactoryManager jobFactoryManager;
     protected GlobalSchedulerService schedulerService;
     protected RuntimeManager manager;
-    protected ConcurrentHashMap<Long, List<GlobalJobHandle>> timerJobsPerSession = new ConcurrentHashMap<Long, List<GlobalJobHandle>>();
+    // job handles of process timers per session, indexed by timer id
+    protected ConcurrentHashMap<Long, Map<Long, GlobalJobHandle>> timerJobsPerSession = new ConcurrentHashMap<Long, Map<Long, GlobalJobHandle>>();
     private String timerServiceId;
     
     public GlobalTimerService(RuntimeManager manager, GlobalSchedulerService schedulerService) {
@@ -76,23 +76,23 @@ public class GlobalTimerService implements TimerService, InternalSchedulerServic
         if (ctx instanceof ProcessJobContext) {
             ProcessJobContext processCtx = (ProcessJobContext) ctx; 
  
-            List<GlobalJobHandle> jobHandles = timerJobsPerSession.get(processCtx.getSessionId());
+            Map<Long, GlobalJobHandle> jobHandles = timerJobsPerSession.get(processCtx.getSessionId());
             if (jobHandles == null) {
-                jobHandles = new CopyOnWriteArrayList<GlobalJobHandle>();
-                timerJobsPerSession.put(processCtx.getSessionId(), jobHandles);
-            } else {
-                // check if the given job is already scheduled
-                for (GlobalJobHandle handle : jobHandles) {
-                    long timerId = handle.getTimerId();
-                    if (timerId == processCtx.getTimer().getId()) {
-                        // this timer job is already registered
-                        return handle;
-                    }
+                jobHandles = new ConcurrentHashMap<Long, GlobalJobHandle>();
+                Map<Long, GlobalJobHandle> existing = timerJobsPerSession.putIfAbsent(processCtx.getSessionId(), jobHandles);
+                if (existing != null) {
+                    jobHandles = existing;
                 }
             }
+            // check if the given job is already scheduled
+            GlobalJobHandle handle = jobHandles.get(processCtx.getTimer().getId());
+            if (handle != null) {
+                // this timer job is already registered
+                return handle;
+            }
             GlobalJobHandle jobHandle = (GlobalJobHandle) this.schedulerService.scheduleJob(job, ctx, trigger);
             if (jobHandle != null) {
-            	jobHandles.add(jobHandle);
+            	jobHandles.put(processCtx.getTimer().getId(), jobHandle);
             }
                        
             return jobHandle;
@@ -108,15 +108,14 @@ public class GlobalTimerService implements TimerService, InternalSchedulerServic
         }
         
         long sessionId = ((GlobalJobHandle) jobHandle).getSessionId();
-        List<GlobalJobHandle> handles = timerJobsPerSession.get(sessionId);
+        Map<Long, GlobalJobHandle> handles = timerJobsPerSession.get(sessionId);
         if (handles == null) {
         	logger.debug("No known job handles for session {}", sessionId);
             return this.schedulerService.removeJob(jobHandle);
         }       
 
-        if (handles.contains(jobHandle)) {
+        if (removeHandle(handles, (GlobalJobHandle) jobHandle)) {
         	logger.debug("Found match so removing job handle {} from sessions {} handles", jobHandle, sessionId);
-            handles.remove(jobHandle);
             if (handles.isEmpty()) {
                 timerJobsPerSession.remove(sessionId);
             }
@@ -127,6 +126,14 @@ public class GlobalTimerService implements TimerService, InternalSchedulerServic
         }
     }
 
+    private boolean removeHandle(Map<Long, GlobalJobHandle> handles, GlobalJobHandle jobHandle) {
+        if (jobHandle.getTimerJobInstance() != null) {
+            return handles.remove(jobHandle.getTimerId(), jobHandle);
+        }
+        // handle without job instance cannot provide its timer id
+        return handles.values().remove(jobHandle);
+    }
+
     @Override
     public long getCurrentTime() {
         return System.currentTimeMillis();
@@ -139,9 +146,9 @@ public class GlobalTimerService implements TimerService, InternalSchedulerServic
     }
     
     public void destroy() {
-        Collection<List<GlobalJobHandle>> activeTimers = timerJobsPerSession.values();
-        for (List<GlobalJobHandle> handles : activeTimers) {
-            for (GlobalJobHandle handle : handles) {
+        Collection<Map<Long, GlobalJobHandle>> activeTimers = timerJobsPerSession.values();
+        for (Map<Long, GlobalJobHandle> handles : activeTimers) {
+            for (GlobalJobHandle handle : handles.values()) {
                 this.schedulerService.removeJob(handle);
             }
         }
@@ -155,9 +162,9 @@ public class GlobalTimerService implements TimerService, InternalSchedulerServic
     @Override
     public Collection<TimerJobInstance> getTimerJobInstances(long id) {
         Collection<TimerJobInstance> timers = new ArrayList<TimerJobInstance>();
-        List<GlobalJobHandle> jobs = timerJobsPerSession.get(id); {
+        Map<Long, GlobalJobHandle> jobs = timerJobsPerSession.get(id); {
             if (jobs != null) {
-                for (GlobalJobHandle job : jobs) {
+                for (GlobalJobHandle job : jobs.values()) {
                 	if (job != null && schedulerService.isValid(job)) {
                 		timers.add(job.getTimerJobInstance());
                 	}
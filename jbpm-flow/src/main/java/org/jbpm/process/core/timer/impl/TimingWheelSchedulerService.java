@@ -0,0 +1,250 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.process.core.timer.impl;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.drools.core.time.InternalSchedulerService;
+import org.drools.core.time.Job;
+import org.drools.core.time.JobContext;
+import org.drools.core.time.JobHandle;
+import org.drools.core.time.SelfRemovalJobContext;
+import org.drools.core.time.TimerService;
+import org.drools.core.time.Trigger;
+import org.drools.core.time.impl.TimerJobInstance;
+import org.jbpm.process.core.timer.GlobalSchedulerService;
+import org.jbpm.process.core.timer.NamedJobContext;
+import org.jbpm.process.core.timer.SchedulerServiceInterceptor;
+import org.jbpm.process.core.timer.impl.GlobalTimerService.GlobalJobHandle;
+import org.jbpm.process.instance.timer.TimerManager.ProcessJobContext;
+import org.jbpm.process.instance.timer.TimerManager.StartProcessJobContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In memory scheduler service backed by a hashed {@link TimingWheel}. Compared to
+ * <code>ThreadPoolSchedulerService</code> scheduling and cancelling a timer is O(1) regardless of number
+ * of pending timers and every timer costs considerably less memory, which makes it suitable for
+ * large number of long lived timers (SLA, boundary timers). Timers fire with precision of one tick.
+ * <br/>
+ * It can be given to <code>RuntimeEnvironmentBuilder.schedulerService</code> or enabled as default
+ * scheduler with system property <code>org.jbpm.timer.wheel=true</code>.
+ */
+public class TimingWheelSchedulerService implements GlobalSchedulerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheelSchedulerService.class);
+
+    public static final long DEFAULT_TICK_MILLIS = 100;
+    public static final int DEFAULT_WHEEL_SIZE = 4096;
+
+    private AtomicLong idCounter = new AtomicLong();
+    private TimingWheel timingWheel;
+    private ExecutorService executor;
+    private TimerService globalTimerService;
+    private SchedulerServiceInterceptor interceptor = new DelegateSchedulerServiceInterceptor(this);
+
+    private int poolSize;
+    private long tickMillis;
+    private int wheelSize;
+
+    private ConcurrentHashMap<String, JobHandle> activeTimer = new ConcurrentHashMap<String, JobHandle>();
+
+    public TimingWheelSchedulerService(int poolSize) {
+        this(poolSize, DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * @param poolSize number of threads executing timer jobs
+     * @param tickMillis duration of one tick of the wheel in milliseconds
+     * @param wheelSize number of buckets of the wheel
+     */
+    public TimingWheelSchedulerService(int poolSize, long tickMillis, int wheelSize) {
+        this.poolSize = poolSize;
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+    }
+
+    @Override
+    public void initScheduler(TimerService globalTimerService) {
+        this.globalTimerService = globalTimerService;
+
+        this.executor = Executors.newFixedThreadPool(poolSize);
+        this.timingWheel = new TimingWheel(tickMillis, TimeUnit.MILLISECONDS, wheelSize, executor);
+        this.timingWheel.start();
+    }
+
+    @Override
+    public void shutdown() {
+        this.timingWheel.stop();
+        try {
+            this.executor.shutdown();
+            if ( !this.executor.awaitTermination( 10, TimeUnit.SECONDS ) ) {
+                this.executor.shutdownNow();
+            }
+        } catch ( InterruptedException e ) {
+            this.executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public JobHandle scheduleJob(Job job, JobContext ctx, Trigger trigger) {
+
+        Date date = trigger.hasNextFireTime();
+        if ( date != null ) {
+            String jobname = null;
+            if (ctx instanceof ProcessJobContext) {
+                jobname = getJobName((ProcessJobContext) ctx);
+                JobHandle existing = activeTimer.get(jobname);
+                if (existing != null) {
+                    return existing;
+                }
+            }
+            GlobalWheelJobHandle jobHandle = new GlobalWheelJobHandle( idCounter.getAndIncrement() );
+
+            TimerJobInstance jobInstance = globalTimerService.
+                                 getTimerJobFactoryManager().createTimerJobInstance( job,
+                                                                                     ctx,
+                                                                                     trigger,
+                                                                                     jobHandle,
+                                                                                     (InternalSchedulerService) globalTimerService );
+            jobHandle.setTimerJobInstance( jobInstance );
+            interceptor.internalSchedule( jobInstance );
+            if (jobname != null) {
+                activeTimer.put(jobname, jobHandle);
+            }
+            return jobHandle;
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean removeJob(JobHandle jobHandle) {
+        if (jobHandle == null) {
+            return false;
+        }
+        jobHandle.setCancel( true );
+        GlobalWheelJobHandle wheelJobHandle = (GlobalWheelJobHandle) jobHandle;
+        JobContext jobContext = wheelJobHandle.getTimerJobInstance().getJobContext();
+        if (jobContext instanceof SelfRemovalJobContext) {
+            jobContext = ((SelfRemovalJobContext) jobContext).getJobContext();
+        }
+        if (jobContext instanceof ProcessJobContext) {
+            activeTimer.remove(getJobName((ProcessJobContext) jobContext));
+            globalTimerService.getTimerJobFactoryManager().removeTimerJobInstance( wheelJobHandle.getTimerJobInstance() );
+        }
+        TimingWheel.Timeout timeout = wheelJobHandle.getTimeout();
+        return timeout != null && timeout.cancel();
+    }
+
+    @Override
+    public void internalSchedule(TimerJobInstance timerJobInstance) {
+        if (timingWheel == null || !timingWheel.isRunning()) {
+            return;
+        }
+        Date date = timerJobInstance.getTrigger().hasNextFireTime();
+        GlobalWheelJobHandle jobHandle = (GlobalWheelJobHandle) timerJobInstance.getJobHandle();
+        long delay = Math.max(0, date.getTime() - System.currentTimeMillis());
+
+        jobHandle.setTimeout( timingWheel.schedule(new TimerJobTask(timerJobInstance), delay, TimeUnit.MILLISECONDS) );
+        globalTimerService.getTimerJobFactoryManager().addTimerJobInstance( timerJobInstance );
+    }
+
+    /**
+     * Returns number of timers waiting in the wheel.
+     */
+    public long getPendingTimersCount() {
+        return timingWheel == null ? 0 : timingWheel.getPendingCount();
+    }
+
+    private static String getJobName(ProcessJobContext processCtx) {
+        if (processCtx instanceof StartProcessJobContext) {
+            return "StartProcess-" + ((StartProcessJobContext) processCtx).getProcessId() + "-" + processCtx.getTimer().getId();
+        }
+        return processCtx.getSessionId() + "-" + processCtx.getProcessInstanceId() + "-" + processCtx.getTimer().getId();
+    }
+
+    public static class GlobalWheelJobHandle extends GlobalJobHandle implements Serializable {
+
+        private static final long     serialVersionUID = 510l;
+
+        private transient TimingWheel.Timeout timeout;
+
+        public GlobalWheelJobHandle(long id) {
+            super(id);
+        }
+
+        public TimingWheel.Timeout getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(TimingWheel.Timeout timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    private static class TimerJobTask implements Runnable {
+
+        private final TimerJobInstance timerJobInstance;
+
+        TimerJobTask(TimerJobInstance timerJobInstance) {
+            this.timerJobInstance = timerJobInstance;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void run() {
+            try {
+                ((Callable<Void>) timerJobInstance).call();
+            } catch (Exception e) {
+                logger.error("Error when executing timer job {}", timerJobInstance, e);
+            }
+        }
+    }
+
+    @Override
+    public JobHandle buildJobHandleForContext(NamedJobContext ctx) {
+        // this is in memory scheduler and the building of context is required for permanent ScheduleService only
+        return null;
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return false;
+    }
+
+    @Override
+    public void setInterceptor(SchedulerServiceInterceptor interceptor) {
+        this.interceptor = interceptor;
+    }
+
+    @Override
+    public boolean retryEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isValid(GlobalJobHandle jobHandle) {
+        return true;
+    }
+}
@@ -21,6 +21,7 @@ import java.util.Map;
 
 import org.jbpm.process.core.context.swimlane.SwimlaneContext;
 import org.jbpm.process.instance.context.AbstractContextInstance;
+import org.jbpm.workflow.instance.impl.WorkflowProcessInstanceImpl;
 
 public class SwimlaneContextInstance extends AbstractContextInstance {
 
@@ -42,6 +43,9 @@ public class SwimlaneContextInstance extends AbstractContextInstance {
 
     public void setActorId(String swimlane, String actorId) {
         swimlaneActors.put(swimlane, actorId);
+        if (getProcessInstance() instanceof WorkflowProcessInstanceImpl) {
+            ((WorkflowProcessInstanceImpl) getProcessInstance()).setDirty(true);
+        }
     }
     
     public Map<String, String> getSwimlaneActors() {
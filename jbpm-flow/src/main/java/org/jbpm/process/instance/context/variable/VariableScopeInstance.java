@@ -16,6 +16,9 @@
 
 package org.jbpm.process.instance.context.variable;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -27,6 +30,7 @@ import org.jbpm.process.instance.ContextInstanceContainer;
 import org.jbpm.process.instance.InternalProcessRuntime;
 import org.jbpm.process.instance.context.AbstractContextInstance;
 import org.jbpm.workflow.core.Node;
+import org.jbpm.workflow.instance.impl.WorkflowProcessInstanceImpl;
 import org.jbpm.workflow.instance.node.CompositeContextNodeInstance;
 
 /**
@@ -40,13 +44,19 @@ public class VariableScopeInstance extends AbstractContextInstance {
     private Map<String, Object> variables = new HashMap<String, Object>();
     private transient String variableIdPrefix = null;
     private transient String variableInstanceIdPrefix = null;
+    // last marshalled form of variables, dropped whenever the variable is set
+    private transient Map<String, Object> marshalledVariables = null;
+    // variables that were not unmarshalled yet, resolved on first access
+    private transient Map<String, LazyVariable> lazyVariables = null;
 
     public String getContextType() {
         return VariableScope.VARIABLE_SCOPE;
     }
 
     public Object getVariable(String name) {
-                
+        if (lazyVariables != null && lazyVariables.containsKey(name)) {
+            resolveLazyVariable(name);
+        }
         Object value = variables.get(name);
         if (value != null) {
             return value;
@@ -67,7 +77,44 @@ public class VariableScopeInstance extends AbstractContextInstance {
     }
 
     public Map<String, Object> getVariables() {
-        return Collections.unmodifiableMap(variables);
+        return getVariables(true);
+    }
+
+    /**
+     * @param resolveLazy when false variables that were not unmarshalled yet are not resolved
+     * and the returned map contains their <code>LazyVariable</code> instead of the value
+     */
+    public Map<String, Object> getVariables(boolean resolveLazy) {
+        if (lazyVariables == null || lazyVariables.isEmpty()) {
+            return Collections.unmodifiableMap(variables);
+        }
+        if (resolveLazy) {
+            for (String name : new ArrayList<String>(lazyVariables.keySet())) {
+                resolveLazyVariable(name);
+            }
+            return Collections.unmodifiableMap(variables);
+        }
+        Map<String, Object> result = new HashMap<String, Object>(variables);
+        result.putAll(lazyVariables);
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Sets variable whose value is unmarshalled when it is accessed for the first time.
+     */
+    public void setLazyVariable(String name, LazyVariable lazyVariable) {
+        if (lazyVariables == null) {
+            lazyVariables = new HashMap<String, LazyVariable>();
+        }
+        variables.remove(name);
+        lazyVariables.put(name, lazyVariable);
+    }
+
+    private void resolveLazyVariable(String name) {
+        Object value = lazyVariables.get(name).resolve();
+        lazyVariables.remove(name);
+        // value is the same as stored one, so the process instance is not made dirty
+        variables.put(name, value);
     }
 
     public void setVariable(String name, Object value) {
@@ -75,6 +122,9 @@ public class VariableScopeInstance extends AbstractContextInstance {
             throw new IllegalArgumentException(
                 "The name of a variable may not be null!");
         }
+        if (lazyVariables != null && lazyVariables.containsKey(name)) {
+            resolveLazyVariable(name);
+        }
         Object oldValue = variables.get(name);
         if (oldValue == null) {
         	if (value == null) {
@@ -98,8 +148,38 @@ public class VariableScopeInstance extends AbstractContextInstance {
     
     public void internalSetVariable(String name, Object value) {
     	variables.put(name, value);
+    	if (lazyVariables != null) {
+    	    lazyVariables.remove(name);
+    	}
+    	if (marshalledVariables != null) {
+    	    marshalledVariables.remove(name);
+    	}
+    	if (getProcessInstance() instanceof WorkflowProcessInstanceImpl) {
+    	    ((WorkflowProcessInstanceImpl) getProcessInstance()).setDirty(true);
+    	}
     }
     
+    /**
+     * Returns marshalled form of given variable as stored by the marshaller, or null if the variable
+     * was set since it was marshalled last time.
+     */
+    public Object getMarshalledVariable(String name) {
+        return marshalledVariables == null ? null : marshalledVariables.get(name);
+    }
+
+    public void setMarshalledVariable(String name, Object marshalled) {
+        if (marshalled == null) {
+            if (marshalledVariables != null) {
+                marshalledVariables.remove(name);
+            }
+            return;
+        }
+        if (marshalledVariables == null) {
+            marshalledVariables = new HashMap<String, Object>();
+        }
+        marshalledVariables.put(name, marshalled);
+    }
+
     public VariableScope getVariableScope() {
     	return (VariableScope) getContext();
     }
@@ -115,4 +195,17 @@ public class VariableScopeInstance extends AbstractContextInstance {
     	}
 	}
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getVariables(true);
+        out.defaultWriteObject();
+    }
+
+    /**
+     * Value of a variable that is unmarshalled on demand.
+     */
+    public interface LazyVariable {
+
+        Object resolve();
+    }
+
 }
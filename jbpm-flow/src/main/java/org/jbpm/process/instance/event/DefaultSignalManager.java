@@ -33,6 +33,7 @@ import java.io.ObjectOutput;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 public class DefaultSignalManager implements SignalManager {
@@ -75,10 +76,22 @@ public class DefaultSignalManager implements SignalManager {
 	}
 	
 	public void internalSignalEvent(String type, Object event) {
+		internalSignalEvent(type, event, null);
+	}
+
+	/**
+	 * Signals all listeners registered for given type except process instances
+	 * which ids are given in <code>signaledProcessInstanceIds</code> (already signaled ones).
+	 */
+	public void internalSignalEvent(String type, Object event, Set<Long> signaledProcessInstanceIds) {
 		if (processEventListeners != null) {
 			List<EventListener> eventListeners = processEventListeners.get(type);
 			if (eventListeners != null) {
 				for (EventListener eventListener: eventListeners) {
+					if (signaledProcessInstanceIds != null && eventListener instanceof ProcessInstance
+							&& signaledProcessInstanceIds.contains(((ProcessInstance) eventListener).getId())) {
+						continue;
+					}
 					eventListener.signalEvent(type, event);
 				}
 			}
@@ -164,11 +177,17 @@ public class DefaultSignalManager implements SignalManager {
 
 		private String type;
 		private Object event;
+		private transient Set<Long> signaledProcessInstanceIds;
 		
 		public SignalAction(String type, Object event) {
 			this.type = type;
 			this.event = event;
 		}
+
+		public SignalAction(String type, Object event, Set<Long> signaledProcessInstanceIds) {
+			this(type, event);
+			this.signaledProcessInstanceIds = signaledProcessInstanceIds;
+		}
 		
 		public SignalAction(MarshallerReaderContext context) throws IOException, ClassNotFoundException {
 			type = context.readUTF();
@@ -178,11 +197,11 @@ public class DefaultSignalManager implements SignalManager {
 		}
 		
 		public void execute(InternalWorkingMemory workingMemory) {
-			((DefaultSignalManager) ((InternalProcessRuntime) workingMemory.getProcessRuntime()).getSignalManager()).internalSignalEvent(type, event);
+			((DefaultSignalManager) ((InternalProcessRuntime) workingMemory.getProcessRuntime()).getSignalManager()).internalSignalEvent(type, event, signaledProcessInstanceIds);
 		}
 
         public void execute(InternalKnowledgeRuntime kruntime) {
-        	((DefaultSignalManager) ((InternalProcessRuntime) kruntime.getProcessRuntime()).getSignalManager()).internalSignalEvent(type, event);
+        	((DefaultSignalManager) ((InternalProcessRuntime) kruntime.getProcessRuntime()).getSignalManager()).internalSignalEvent(type, event, signaledProcessInstanceIds);
         }
 		public void write(MarshallerWriteContext context) throws IOException {
 			context.writeInt( WorkingMemoryAction.SignalAction );
@@ -20,16 +20,7 @@ import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
-import java.util.Map;
-import java.util.Map.Entry;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
-
-import org.jbpm.process.core.context.variable.VariableScope;
-import org.jbpm.process.instance.context.variable.VariableScopeInstance;
-import org.jbpm.workflow.instance.WorkflowProcessInstance;
-import org.kie.api.runtime.Globals;
 import org.kie.api.runtime.process.ProcessContext;
 
 public class JavaScriptAction implements Action, Externalizable {
@@ -54,31 +45,7 @@ public class JavaScriptAction implements Action, Externalizable {
     }
     
     public void execute(ProcessContext context) throws Exception {
-        ScriptEngineManager factory = new ScriptEngineManager();
-        ScriptEngine engine = factory.getEngineByName("JavaScript");
-        engine.put("kcontext", context);
-        
-        // insert globals into context
-        Globals globals = context.getKieRuntime().getGlobals();
-        
-        if (globals != null && globals.getGlobalKeys() != null) {
-            for (String gKey : globals.getGlobalKeys()) {
-                engine.put(gKey, globals.get(gKey));
-            }
-        }
-        if (context.getProcessInstance() != null && context.getProcessInstance().getProcess() != null) {
-            // insert process variables
-            VariableScopeInstance variableScope = (VariableScopeInstance) ((WorkflowProcessInstance)context.getProcessInstance())
-                    .getContextInstance(VariableScope.VARIABLE_SCOPE);
-    
-            Map<String, Object> variables = variableScope.getVariables();
-            if (variables != null ) {
-                for (Entry<String, Object> variable : variables.entrySet()) {
-                    engine.put(variable.getKey(), variable.getValue());
-                }
-            }
-        }
-        engine.eval(expr);
+        JavaScriptEngineSupport.eval(expr, context);
     }
 
 }
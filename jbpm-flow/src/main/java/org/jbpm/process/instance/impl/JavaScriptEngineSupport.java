@@ -0,0 +1,263 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.process.instance.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+import javax.script.SimpleScriptContext;
+
+import org.jbpm.process.core.context.variable.VariableScope;
+import org.jbpm.process.instance.context.variable.VariableScopeInstance;
+import org.jbpm.workflow.instance.WorkflowProcessInstance;
+import org.kie.api.definition.process.Process;
+import org.kie.api.runtime.Globals;
+import org.kie.api.runtime.process.ProcessContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evaluates JavaScript actions and constraints with pooled script engines.
+ * <br/>
+ * Script engines are expensive to create so they are kept in a pool, each engine is used by one thread at a time.
+ * Every pooled engine compiles an expression once (when the engine is <code>Compilable</code>) and keeps the
+ * compiled script per process definition, so scripts of undeployed processes can be garbage collected.
+ * Size of the pool is given by system property <code>org.jbpm.javascript.engine.pool.size</code>
+ * (number of processors by default), when all engines are in use additional engines are created and discarded after use.
+ * <br/>
+ * Every pooled engine keeps one engine scope (created by <code>createBindings</code>) that is cleared after each
+ * evaluation, so variables and functions declared by a script are not visible to the next script evaluated by the
+ * same engine. When a script leaves entries that cannot be removed the engine scope is created again.
+ * Instead of copying all globals and process variables into the engine, the global scope of the evaluation is given
+ * by bindings that resolve <code>kcontext</code>, process variables and globals (in that order) only when the
+ * script refers to them. Process variables must be changed with <code>kcontext.setVariable</code>.
+ */
+public final class JavaScriptEngineSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(JavaScriptEngineSupport.class);
+
+    private static final String ENGINE_NAME = "JavaScript";
+    private static final int POOL_SIZE = Integer.parseInt(System.getProperty("org.jbpm.javascript.engine.pool.size",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+    private static final ScriptEngineManager manager = new ScriptEngineManager();
+    private static final BlockingQueue<PooledEngine> engines = new ArrayBlockingQueue<PooledEngine>(Math.max(1, POOL_SIZE));
+
+    private JavaScriptEngineSupport() {
+    }
+
+    /**
+     * Evaluates given expression in given process context and returns its result.
+     */
+    public static Object eval(String expr, ProcessContext context) throws ScriptException {
+        PooledEngine engine = engines.poll();
+        if (engine == null) {
+            engine = new PooledEngine(createEngine());
+        }
+        try {
+            return engine.eval(expr, context);
+        } finally {
+            engines.offer(engine);
+        }
+    }
+
+    private static ScriptEngine createEngine() {
+        ScriptEngine engine;
+        synchronized (manager) {
+            engine = manager.getEngineByName(ENGINE_NAME);
+        }
+        if (engine == null) {
+            throw new IllegalStateException("No " + ENGINE_NAME + " script engine available");
+        }
+        logger.debug("Created script engine {}", engine);
+        return engine;
+    }
+
+    private static Process getProcess(ProcessContext context) {
+        if (context.getProcessInstance() == null) {
+            return null;
+        }
+        return context.getProcessInstance().getProcess();
+    }
+
+    private static class PooledEngine {
+
+        private final ScriptEngine engine;
+        private final Map<Process, Map<String, CompiledScript>> compiledScripts = new WeakHashMap<Process, Map<String, CompiledScript>>();
+        private final Map<String, CompiledScript> compiledStandaloneScripts = new HashMap<String, CompiledScript>();
+
+        private Bindings engineScope;
+        private Set<String> engineScopeKeys;
+
+        PooledEngine(ScriptEngine engine) {
+            this.engine = engine;
+        }
+
+        Object eval(String expr, ProcessContext context) throws ScriptException {
+            ScriptContext scriptContext = new SimpleScriptContext();
+            scriptContext.setBindings(getEngineScope(), ScriptContext.ENGINE_SCOPE);
+            scriptContext.setBindings(new ProcessContextBindings(context, engine.getBindings(ScriptContext.GLOBAL_SCOPE)),
+                    ScriptContext.GLOBAL_SCOPE);
+
+            try {
+                CompiledScript compiled = compile(expr, getProcess(context));
+                if (compiled != null) {
+                    return compiled.eval(scriptContext);
+                }
+                return engine.eval(expr, scriptContext);
+            } finally {
+                clearEngineScope();
+            }
+        }
+
+        private Bindings getEngineScope() {
+            if (engineScope == null) {
+                engineScope = engine.createBindings();
+                engineScopeKeys = new HashSet<String>(engineScope.keySet());
+            }
+            return engineScope;
+        }
+
+        private void clearEngineScope() {
+            for (String key : new ArrayList<String>(engineScope.keySet())) {
+                if (!engineScopeKeys.contains(key)) {
+                    engineScope.remove(key);
+                }
+            }
+            // e.g. top level var declarations cannot be deleted from the global object of the engine
+            if (!engineScopeKeys.equals(new HashSet<String>(engineScope.keySet()))) {
+                engineScope = null;
+                engineScopeKeys = null;
+            }
+        }
+
+        private CompiledScript compile(String expr, Process process) throws ScriptException {
+            if (!(engine instanceof Compilable)) {
+                return null;
+            }
+            Map<String, CompiledScript> scripts = compiledStandaloneScripts;
+            if (process != null) {
+                scripts = compiledScripts.get(process);
+                if (scripts == null) {
+                    scripts = new HashMap<String, CompiledScript>();
+                    compiledScripts.put(process, scripts);
+                }
+            }
+            CompiledScript compiled = scripts.get(expr);
+            if (compiled == null) {
+                compiled = ((Compilable) engine).compile(expr);
+                scripts.put(expr, compiled);
+            }
+            return compiled;
+        }
+    }
+
+    /**
+     * Bindings that look up <code>kcontext</code>, process variables, globals and finally the engine manager's
+     * global bindings on first access. Only values put into them directly are part of the entry set.
+     * Declared process variables and globals are bound even when their value is <code>null</code>.
+     */
+    private static class ProcessContextBindings extends SimpleBindings {
+
+        private static final String KCONTEXT = "kcontext";
+        private static final Object UNBOUND = new Object();
+
+        private final ProcessContext context;
+        private final Bindings fallback;
+        private VariableScopeInstance variableScope;
+        private boolean variableScopeResolved;
+
+        ProcessContextBindings(ProcessContext context, Bindings fallback) {
+            this.context = context;
+            this.fallback = fallback;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return super.containsKey(key) || resolve((String) key) != UNBOUND;
+        }
+
+        @Override
+        public Object get(Object key) {
+            if (super.containsKey(key)) {
+                return super.get(key);
+            }
+            Object value = resolve((String) key);
+            return value == UNBOUND ? null : value;
+        }
+
+        private Object resolve(String name) {
+            if (KCONTEXT.equals(name)) {
+                return context;
+            }
+            VariableScopeInstance scope = getVariableScope();
+            if (scope != null) {
+                Object value = scope.getVariable(name);
+                if (value != null || scope.getVariableScope().findVariable(name) != null
+                        || scope.getVariables(false).containsKey(name)) {
+                    return value;
+                }
+            }
+            Globals globals = context.getKieRuntime() == null ? null : context.getKieRuntime().getGlobals();
+            if (globals != null) {
+                Object value = globals.get(name);
+                if (value != null || isGlobal(globals, name)) {
+                    return value;
+                }
+            }
+            if (fallback != null && fallback.containsKey(name)) {
+                return fallback.get(name);
+            }
+            return UNBOUND;
+        }
+
+        private static boolean isGlobal(Globals globals, String name) {
+            if (globals.getGlobalKeys() != null) {
+                for (String key : globals.getGlobalKeys()) {
+                    if (name.equals(key)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private VariableScopeInstance getVariableScope() {
+            if (!variableScopeResolved) {
+                variableScopeResolved = true;
+                if (getProcess(context) != null) {
+                    variableScope = (VariableScopeInstance) ((WorkflowProcessInstance) context.getProcessInstance())
+                            .getContextInstance(VariableScope.VARIABLE_SCOPE);
+                }
+            }
+            return variableScope;
+        }
+    }
+}
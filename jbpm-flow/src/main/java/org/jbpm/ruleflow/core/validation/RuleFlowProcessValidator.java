@@ -32,6 +32,7 @@ import org.drools.core.time.TimeUtils;
 import org.drools.core.time.impl.CronExpression;
 import org.jbpm.process.core.context.exception.CompensationScope;
 import org.jbpm.process.core.context.variable.Variable;
+import org.jbpm.process.core.context.variable.VariableScope;
 import org.jbpm.process.core.event.EventFilter;
 import org.jbpm.process.core.event.EventTypeFilter;
 import org.jbpm.process.core.timer.DateTimeUtils;
@@ -49,6 +50,7 @@ import org.jbpm.workflow.core.node.CatchLinkNode;
 import org.jbpm.workflow.core.node.CompositeNode;
 import org.jbpm.workflow.core.node.CompositeNode.CompositeNodeEnd;
 import org.jbpm.workflow.core.node.CompositeNode.NodeAndType;
+import org.jbpm.workflow.core.node.DataAssociation;
 import org.jbpm.workflow.core.node.DynamicNode;
 import org.jbpm.workflow.core.node.EndNode;
 import org.jbpm.workflow.core.node.EventNode;
@@ -294,6 +296,8 @@ public class RuleFlowProcessValidator implements ProcessValidator {
 	                	validateTimer(timer, node, process, errors);
 	                }
                 }
+                compileDataAssociations(subProcess, subProcess.getInAssociations());
+                compileDataAssociations(subProcess, subProcess.getOutAssociations());
                 if(!subProcess.isIndependent() && !subProcess.isWaitForCompletion()){
                     errors.add(new ProcessValidationErrorImpl(process,
                         "SubProcess node '" + node.getName() + "' [" + node.getId() + "] you can only set " +
@@ -372,6 +376,8 @@ public class RuleFlowProcessValidator implements ProcessValidator {
 	                	validateTimer(timer, node, process, errors);
 	                }
                 }
+                compileDataAssociations(workItemNode, workItemNode.getInAssociations());
+                compileDataAssociations(workItemNode, workItemNode.getOutAssociations());
             } else if (node instanceof ForEachNode) {
                 final ForEachNode forEachNode = (ForEachNode) node;
                 String variableName = forEachNode.getVariableName();
@@ -383,6 +389,14 @@ public class RuleFlowProcessValidator implements ProcessValidator {
                 if (collectionExpression == null || "".equals(collectionExpression)) {
                     errors.add(new ProcessValidationErrorImpl(process,
                         "ForEach node '" + node.getName() + "' [" + node.getId() + "] has no collection expression"));
+                } else if (forEachNode.resolveContext(VariableScope.VARIABLE_SCOPE, collectionExpression) == null) {
+                    compileExpression(forEachNode, collectionExpression,
+                        "ForEach node '" + node.getName() + "' [" + node.getId() + "] has invalid collection expression", process, errors);
+                }
+                String completionCondition = forEachNode.getCompletionConditionExpression();
+                if (completionCondition != null && !"".equals(completionCondition)) {
+                    compileExpression(forEachNode, completionCondition,
+                        "ForEach node '" + node.getName() + "' [" + node.getId() + "] has invalid completion condition", process, errors);
                 }
                 if (forEachNode.getDefaultIncomingConnections().size() == 0 && !acceptsNoIncomingConnections(node)) {
                     errors.add(new ProcessValidationErrorImpl(process,
@@ -415,6 +429,9 @@ public class RuleFlowProcessValidator implements ProcessValidator {
                 if ("".equals(dynamicNode.getCompletionExpression()) && !dynamicNode.isAutoComplete()) {
                     errors.add(new ProcessValidationErrorImpl(process,
                         "Dynamic node '" + node.getName() + "' [" + node.getId() + "] has no completion condition set"));
+                } else if (dynamicNode.getCompletionExpression() != null && !"".equals(dynamicNode.getCompletionExpression())) {
+                    compileExpression(dynamicNode, dynamicNode.getCompletionExpression(),
+                        "Dynamic node '" + node.getName() + "' [" + node.getId() + "] has invalid completion condition", process, errors);
                 }
                 validateNodes(dynamicNode.getNodes(), errors, process);
             } else if (node instanceof CompositeNode) {
@@ -638,6 +655,44 @@ public class RuleFlowProcessValidator implements ProcessValidator {
     		(nodeContainer instanceof WorkflowProcess && ((WorkflowProcess) nodeContainer).isDynamic());
     }
     
+    /**
+     * Compiles expression evaluated by given node, the compiled form is cached on the node
+     * so it does not need to be parsed when the node is triggered.
+     */
+    private void compileExpression(NodeImpl node, String expression, String message,
+            RuleFlowProcess process, List<ProcessValidationError> errors) {
+        try {
+            node.getCompiledExpression(expression);
+        } catch (Throwable t) {
+            errors.add(new ProcessValidationErrorImpl(process, message + ": " + t.getMessage() + "."));
+        }
+    }
+
+    /**
+     * Compiles sources of data associations without assignments or transformation. Sources are
+     * evaluated as expressions only when they do not refer to a variable, so failures are just logged.
+     */
+    private void compileDataAssociations(NodeImpl node, List<DataAssociation> associations) {
+        if (associations == null) {
+            return;
+        }
+        for (DataAssociation association : associations) {
+            if (association.getTransformation() != null
+                    || (association.getAssignments() != null && !association.getAssignments().isEmpty())
+                    || association.getSources() == null) {
+                continue;
+            }
+            for (String source : association.getSources()) {
+                try {
+                    node.getCompiledExpression(source);
+                } catch (Throwable t) {
+                    logger.warn("Data association source '{}' of node '{}' [{}] is not a valid expression: {}",
+                            source, node.getName(), node.getId(), t.getMessage());
+                }
+            }
+        }
+    }
+
     private void validateTimer(final Timer timer, final Node node,
     		final RuleFlowProcess process, final List<ProcessValidationError> errors) {
     	if (timer.getDelay() == null && timer.getDate() == null) {
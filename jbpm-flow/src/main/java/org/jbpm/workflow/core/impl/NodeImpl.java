@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.jbpm.process.core.Context;
@@ -31,6 +32,7 @@ import org.jbpm.workflow.core.Node;
 import org.jbpm.workflow.core.node.CompositeNode;
 import org.kie.api.definition.process.Connection;
 import org.kie.api.definition.process.NodeContainer;
+import org.mvel2.MVEL;
 
 /**
  * Default implementation of a node.
@@ -55,6 +57,9 @@ public abstract class NodeImpl implements Node, Serializable, ContextResolver {
     
     protected Map<ConnectionRef, Constraint> constraints = new HashMap<ConnectionRef, Constraint>();
 
+    private transient volatile Map<String, Serializable> compiledExpressions;
+    private transient volatile Map<String, ParameterTemplate> parameterTemplates;
+
     public NodeImpl() {
         this.id = -1;
         this.incomingConnections = new HashMap<String, List<Connection>>();
@@ -288,6 +293,55 @@ public abstract class NodeImpl implements Node, Serializable, ContextResolver {
     public void setMetaData(Map<String, Object> metaData) {
     	this.metaData = metaData;
     }
+
+    /**
+     * Returns compiled form of given MVEL expression (data association source, parameter, collection
+     * or completion condition) used by this node. Each expression is compiled only once, usually
+     * when the process is validated, and the compiled form is shared by all instances of this node.
+     * @throws RuntimeException when the expression cannot be compiled
+     */
+    public Serializable getCompiledExpression(String expression) {
+        Map<String, Serializable> expressions = compiledExpressions;
+        if (expressions == null) {
+            synchronized (this) {
+                expressions = compiledExpressions;
+                if (expressions == null) {
+                    expressions = new ConcurrentHashMap<String, Serializable>();
+                    compiledExpressions = expressions;
+                }
+            }
+        }
+        Serializable compiled = expressions.get(expression);
+        if (compiled == null) {
+            compiled = MVEL.compileExpression(expression);
+            expressions.put(expression, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Returns template of given string with <code>#{}</code> parameters (timer expression, event type,
+     * work parameter) defined on this node. Templates are parsed only once, so this should not be used
+     * with values coming from process instances.
+     */
+    public ParameterTemplate getParameterTemplate(String text) {
+        Map<String, ParameterTemplate> templates = parameterTemplates;
+        if (templates == null) {
+            synchronized (this) {
+                templates = parameterTemplates;
+                if (templates == null) {
+                    templates = new ConcurrentHashMap<String, ParameterTemplate>();
+                    parameterTemplates = templates;
+                }
+            }
+        }
+        ParameterTemplate template = templates.get(text);
+        if (template == null) {
+            template = ParameterTemplate.compile(text);
+            templates.put(text, template);
+        }
+        return template;
+    }
     
     public Constraint getConstraint(final Connection connection) {
         if ( connection == null ) {
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.workflow.core.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * String with <code>#{expression}</code> parameters split into literal segments and expressions,
+ * so it can be rendered without scanning the string again. Strings without parameters are constant
+ * and are returned as they are.
+ * <br/>
+ * Templates of node definitions are cached on the node, see {@link NodeImpl#getParameterTemplate(String)}.
+ */
+public final class ParameterTemplate {
+
+    private static final Pattern PARAMETER_MATCHER = Pattern.compile("#\\{([\\S&&[^\\}]]+)\\}", Pattern.DOTALL);
+
+    private static final String[] NO_EXPRESSIONS = new String[0];
+
+    private final String text;
+    private final String[] literals;
+    private final String[] expressions;
+
+    private ParameterTemplate(String text, String[] literals, String[] expressions) {
+        this.text = text;
+        this.literals = literals;
+        this.expressions = expressions;
+    }
+
+    public static ParameterTemplate compile(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Template text cannot be null");
+        }
+        if (text.indexOf("#{") < 0) {
+            return new ParameterTemplate(text, new String[] {text}, NO_EXPRESSIONS);
+        }
+        List<String> literals = new ArrayList<String>();
+        List<String> expressions = new ArrayList<String>();
+        Matcher matcher = PARAMETER_MATCHER.matcher(text);
+        int start = 0;
+        while (matcher.find()) {
+            literals.add(text.substring(start, matcher.start()));
+            expressions.add(matcher.group(1));
+            start = matcher.end();
+        }
+        literals.add(text.substring(start));
+        return new ParameterTemplate(text,
+                literals.toArray(new String[literals.size()]),
+                expressions.toArray(new String[expressions.size()]));
+    }
+
+    public boolean isConstant() {
+        return expressions.length == 0;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String[] getExpressions() {
+        return expressions.clone();
+    }
+
+    /**
+     * Renders this template, each distinct expression is resolved once. Parameters that resolve
+     * to <code>null</code> are left in the result as they are.
+     */
+    public String render(Resolver resolver) {
+        if (isConstant()) {
+            return text;
+        }
+        String[] values = new String[expressions.length];
+        StringBuilder result = new StringBuilder(text.length() + 16 * expressions.length);
+        for (int i = 0; i < expressions.length; i++) {
+            result.append(literals[i]);
+            String value = null;
+            boolean resolved = false;
+            for (int j = 0; j < i; j++) {
+                if (expressions[j].equals(expressions[i])) {
+                    value = values[j];
+                    resolved = true;
+                    break;
+                }
+            }
+            if (!resolved) {
+                value = resolver.resolve(expressions[i]);
+            }
+            values[i] = value;
+            if (value == null) {
+                result.append("#{").append(expressions[i]).append('}');
+            } else {
+                result.append(value);
+            }
+        }
+        result.append(literals[expressions.length]);
+        return result.toString();
+    }
+
+    public String toString() {
+        return text;
+    }
+
+    /**
+     * Provides values of template parameters.
+     */
+    public interface Resolver {
+
+        /**
+         * @return string value of given expression or <code>null</code> if it cannot be resolved
+         */
+        String resolve(String expression);
+    }
+}
@@ -26,6 +26,7 @@ import java.util.Map;
 
 import org.drools.core.common.InternalKnowledgeRuntime;
 import org.drools.core.spi.ProcessContext;
+import org.drools.core.util.MVELSafeHelper;
 import org.jbpm.process.core.Context;
 import org.jbpm.process.core.ContextContainer;
 import org.jbpm.process.core.context.exception.ExceptionScope;
@@ -49,6 +50,7 @@ import org.kie.api.definition.process.Connection;
 import org.kie.api.definition.process.Node;
 import org.kie.api.runtime.process.NodeInstance;
 import org.kie.api.runtime.process.NodeInstanceContainer;
+import org.mvel2.integration.VariableResolverFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -70,7 +72,11 @@ public abstract class NodeInstanceImpl implements org.jbpm.workflow.instance.Nod
     private int level;
 
     public void setId(final long id) {
+        long previousId = this.id;
         this.id = id;
+        if (previousId != id && nodeInstanceContainer instanceof WorkflowProcessInstanceImpl) {
+            ((WorkflowProcessInstanceImpl) nodeInstanceContainer).nodeInstanceIdChanged(this, previousId);
+        }
     }
 
     public long getId() {
@@ -78,7 +84,11 @@ public abstract class NodeInstanceImpl implements org.jbpm.workflow.instance.Nod
     }
 
     public void setNodeId(final long nodeId) {
+        long previousNodeId = this.nodeId;
         this.nodeId = nodeId;
+        if (previousNodeId != nodeId && nodeInstanceContainer instanceof WorkflowProcessInstanceImpl) {
+            ((WorkflowProcessInstanceImpl) nodeInstanceContainer).nodeInstanceNodeIdChanged(this, previousNodeId);
+        }
     }
 
     public long getNodeId() {
@@ -208,7 +218,18 @@ public abstract class NodeInstanceImpl implements org.jbpm.workflow.instance.Nod
             exceptionScopeInstance.handleException(exceptionName, e);
         }
     }
-    
+
+    /**
+     * Evaluates MVEL expression of this node using its compiled form cached on the node definition.
+     *
+     * @param expression expression to evaluate
+     * @param factory resolver of the variables used by the expression
+     */
+    protected Object evaluateExpression(String expression, VariableResolverFactory factory) {
+        Serializable compiled = ((NodeImpl) getNode()).getCompiledExpression(expression);
+        return MVELSafeHelper.getEvaluator().executeExpression(compiled, factory);
+    }
+
     protected void triggerCompleted(String type, boolean remove) {
         Node node = getNode();
         if (node != null) {
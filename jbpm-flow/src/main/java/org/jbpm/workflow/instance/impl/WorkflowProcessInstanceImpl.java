@@ -72,7 +72,10 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 
 	private static final long serialVersionUID = 510l;
 
-	private final List<NodeInstance> nodeInstances = new ArrayList<NodeInstance>();;
+	private final List<NodeInstance> nodeInstances = new ArrayList<NodeInstance>();
+	// indexes of node instances by id and by node id, rebuilt on demand
+	private transient Map<Long, NodeInstance> nodeInstancesById;
+	private transient Map<Long, List<NodeInstance>> nodeInstancesByNodeId;
 
 	@Deprecated // this should be deleted in 7.0.x
 	private long nodeInstanceCounter = 0;
@@ -87,6 +90,9 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 	private Map<String, Integer> iterationLevels = new HashMap<String, Integer>();
 	private int currentLevel;
 	private boolean persisted = false;
+	// tracks changes since last time process instance was loaded or stored
+	private boolean dirty = true;
+	private transient boolean disconnected = false;
 	private Object faultData;
 	
 	private boolean signalCompletion = true;
@@ -104,6 +110,122 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 	    }
 		((NodeInstanceImpl) nodeInstance).setId(id);
 		this.nodeInstances.add(nodeInstance);
+		indexNodeInstance(nodeInstance);
+		this.dirty = true;
+	}
+
+	private void indexNodeInstance(NodeInstance nodeInstance) {
+		if (nodeInstancesById == null) {
+			buildNodeInstanceIndex();
+			return;
+		}
+		indexNodeInstanceId(nodeInstance);
+		List<NodeInstance> instances = nodeInstancesByNodeId.get(nodeInstance.getNodeId());
+		if (instances == null) {
+			instances = new ArrayList<NodeInstance>(1);
+			nodeInstancesByNodeId.put(nodeInstance.getNodeId(), instances);
+		}
+		instances.add(nodeInstance);
+	}
+
+	private void indexNodeInstanceId(NodeInstance nodeInstance) {
+		// the first node instance with given id wins, same as when looking it up in the list
+		if (!nodeInstancesById.containsKey(nodeInstance.getId())) {
+			nodeInstancesById.put(nodeInstance.getId(), nodeInstance);
+		}
+	}
+
+	private void unindexNodeInstance(NodeInstance nodeInstance) {
+		if (nodeInstancesById == null) {
+			return;
+		}
+		if (nodeInstancesById.get(nodeInstance.getId()) == nodeInstance) {
+			nodeInstancesById.remove(nodeInstance.getId());
+		}
+		List<NodeInstance> instances = nodeInstancesByNodeId.get(nodeInstance.getNodeId());
+		if (instances != null) {
+			// node instances are compared by identity, subclasses might override equals
+			int index = indexOfIdentity(instances, nodeInstance);
+			if (index >= 0) {
+				instances.remove(index);
+			}
+			if (instances.isEmpty()) {
+				nodeInstancesByNodeId.remove(nodeInstance.getNodeId());
+			}
+		}
+	}
+
+	private static int indexOfIdentity(List<NodeInstance> instances, NodeInstance nodeInstance) {
+		for (int i = instances.size() - 1; i >= 0; i--) {
+			if (instances.get(i) == nodeInstance) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean containsIdentity(List<NodeInstance> instances, NodeInstance nodeInstance) {
+		return instances != null && indexOfIdentity(instances, nodeInstance) >= 0;
+	}
+
+	private void buildNodeInstanceIndex() {
+		nodeInstancesById = new HashMap<Long, NodeInstance>();
+		nodeInstancesByNodeId = new HashMap<Long, List<NodeInstance>>();
+		for (NodeInstance nodeInstance : nodeInstances) {
+			indexNodeInstance(nodeInstance);
+		}
+	}
+
+	/**
+	 * Called by node instance when its id is changed after it was added (e.g. when it is unmarshalled).
+	 */
+	void nodeInstanceIdChanged(NodeInstance nodeInstance, long previousId) {
+		if (nodeInstancesById != null && containsIdentity(nodeInstancesByNodeId.get(nodeInstance.getNodeId()), nodeInstance)) {
+			if (nodeInstancesById.get(previousId) == nodeInstance) {
+				nodeInstancesById.remove(previousId);
+			}
+			indexNodeInstanceId(nodeInstance);
+		}
+	}
+
+	/**
+	 * Called by node instance when its node id is changed after it was added (e.g. when the process instance is
+	 * migrated or upgraded to another process definition).
+	 */
+	void nodeInstanceNodeIdChanged(NodeInstance nodeInstance, long previousNodeId) {
+		if (nodeInstancesByNodeId == null) {
+			return;
+		}
+		List<NodeInstance> instances = nodeInstancesByNodeId.get(previousNodeId);
+		int index = instances == null ? -1 : indexOfIdentity(instances, nodeInstance);
+		if (index < 0) {
+			return;
+		}
+		instances.remove(index);
+		if (instances.isEmpty()) {
+			nodeInstancesByNodeId.remove(previousNodeId);
+		}
+		instances = nodeInstancesByNodeId.get(nodeInstance.getNodeId());
+		if (instances == null) {
+			instances = new ArrayList<NodeInstance>(1);
+			nodeInstancesByNodeId.put(nodeInstance.getNodeId(), instances);
+		}
+		instances.add(nodeInstance);
+	}
+
+	private Map<Long, NodeInstance> getNodeInstancesById() {
+		if (nodeInstancesById == null) {
+			buildNodeInstanceIndex();
+		}
+		return nodeInstancesById;
+	}
+
+	private List<NodeInstance> getNodeInstancesByNodeId(long nodeId) {
+		if (nodeInstancesByNodeId == null) {
+			buildNodeInstanceIndex();
+		}
+		List<NodeInstance> instances = nodeInstancesByNodeId.get(nodeId);
+		return instances == null ? Collections.<NodeInstance>emptyList() : instances;
 	}
 	
     @Override
@@ -130,7 +252,12 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 			getKnowledgeRuntime().delete(
 					getKnowledgeRuntime().getFactHandle(nodeInstance));
 		}
-		this.nodeInstances.remove(nodeInstance);
+		int index = indexOfIdentity(this.nodeInstances, nodeInstance);
+		if (index >= 0) {
+			this.nodeInstances.remove(index);
+			unindexNodeInstance(nodeInstance);
+		}
+		this.dirty = true;
 	}
 
 	public Collection<org.kie.api.runtime.process.NodeInstance> getNodeInstances() {
@@ -155,15 +282,14 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 	}
 	
 	public NodeInstance getNodeInstance(long nodeInstanceId) {
-		for (NodeInstance nodeInstance: nodeInstances) {
-			if (nodeInstance.getId() == nodeInstanceId) {
-				return nodeInstance;
-			}
-		}
-		return null;
+		return getNodeInstancesById().get(nodeInstanceId);
 	}
 	
 	public NodeInstance getNodeInstance(long nodeInstanceId, boolean recursive) {
+		NodeInstance result = getNodeInstance(nodeInstanceId);
+		if (result != null || !recursive) {
+			return result;
+		}
 		for (NodeInstance nodeInstance: getNodeInstances(recursive)) {
 			if (nodeInstance.getId() == nodeInstanceId) {
 				return nodeInstance;
@@ -188,10 +314,8 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 	}
 
 	public NodeInstance getFirstNodeInstance(final long nodeId) {
-		for (final Iterator<NodeInstance> iterator = this.nodeInstances
-				.iterator(); iterator.hasNext();) {
-			final NodeInstance nodeInstance = iterator.next();
-			if (nodeInstance.getNodeId() == nodeId && nodeInstance.getLevel() == getCurrentLevel()) {
+		for (final NodeInstance nodeInstance : getNodeInstancesByNodeId(nodeId)) {
+			if (nodeInstance.getLevel() == getCurrentLevel()) {
 				return nodeInstance;
 			}
 		}
@@ -199,15 +323,7 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 	}
 
 	public List<NodeInstance> getNodeInstances(final long nodeId) {
-		List<NodeInstance> result = new ArrayList<NodeInstance>();
-		for (final Iterator<NodeInstance> iterator = this.nodeInstances
-				.iterator(); iterator.hasNext();) {
-			final NodeInstance nodeInstance = iterator.next();
-			if (nodeInstance.getNodeId() == nodeId) {
-				result.add(nodeInstance);
-			}
-		}
-		return result;
+		return new ArrayList<NodeInstance>(getNodeInstancesByNodeId(nodeId));
 	}
 	
 	public List<NodeInstance> getNodeInstances(final long nodeId, final List<NodeInstance> currentView) {
@@ -346,6 +462,7 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 	}
 	
 	public void setState(final int state, String outcome) {
+	    this.dirty = true;
 	    super.setState(state, outcome);
         // TODO move most of this to ProcessInstanceImpl
         if (state == ProcessInstance.STATE_COMPLETED
@@ -394,10 +511,21 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
             }
         }
         super.disconnect();
+        this.disconnected = true;
     }
 
 	public void reconnect() {
+		// listeners registered again on reconnect restore the state the process instance was stored with
+		boolean wasDirty = this.dirty;
 		super.reconnect();
+		if (this.disconnected) {
+			// external listeners that were kept while disconnected must be registered with the signal manager again
+			for (String type : new ArrayList<String>(externalEventListeners.keySet())) {
+				((InternalProcessRuntime) getKnowledgeRuntime().getProcessRuntime())
+					.getSignalManager().addEventListener(type, this);
+			}
+			this.disconnected = false;
+		}
 		for (NodeInstance nodeInstance : nodeInstances) {
 			if (nodeInstance instanceof EventBasedNodeInstanceInterface) {
 				((EventBasedNodeInstanceInterface) nodeInstance)
@@ -405,6 +533,7 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 			}
 		}
 		registerExternalEventNodeListeners();
+		this.dirty = wasDirty;
 	}
 
 	public String toString() {
@@ -465,6 +594,25 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 				if ("external".equals(((EventNode) node).getScope())) {
 					externalEventListeners.remove(((EventNode) node).getType());
 				}
+			} else if (node instanceof EventSubProcessNode) {
+				for (String type : ((EventSubProcessNode) node).getEvents()) {
+					removeExternalEventListeners(type, ExternalEventListener.class);
+				}
+			}
+		}
+		removeExternalEventListeners("Compensation", CompensationEventListener.class);
+	}
+
+	private void removeExternalEventListeners(String type, Class<?> listenerType) {
+		List<EventListener> listeners = externalEventListeners.get(type);
+		if (listeners != null) {
+			for (EventListener listener : listeners) {
+				if (listenerType.isInstance(listener)) {
+					listeners.remove(listener);
+				}
+			}
+			if (listeners.isEmpty()) {
+				externalEventListeners.remove(type);
 			}
 		}
 	}
@@ -474,7 +622,18 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 			if (getState() != ProcessInstance.STATE_ACTIVE) {
 				return;
 			}
-			List<NodeInstance> currentView = new ArrayList<NodeInstance>(this.nodeInstances);
+			// any signal might change state of the node instances
+			this.dirty = true;
+			// node instances of event nodes as they were before the event was signalled
+			Map<Long, List<NodeInstance>> currentView = new HashMap<Long, List<NodeInstance>>();
+			for (Node node : getWorkflowProcess().getNodes()) {
+				if (node instanceof EventNodeInterface) {
+					List<NodeInstance> instances = getNodeInstancesByNodeId(node.getId());
+					if (!instances.isEmpty()) {
+						currentView.put(node.getId(), new ArrayList<NodeInstance>(instances));
+					}
+				}
+			}
 			
 			try {
 				this.activatingNodeIds = new ArrayList<String>(); 
@@ -500,7 +659,7 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 			                    EventSubProcessNodeInstance eventNodeInstance = (EventSubProcessNodeInstance) getNodeInstance(node);
 			                    eventNodeInstance.signalEvent(type, event);
 			                }  else {
-								List<NodeInstance> nodeInstances = getNodeInstances(node.getId(), currentView);
+								List<NodeInstance> nodeInstances = currentView.get(node.getId());
 			                    if (nodeInstances != null && !nodeInstances.isEmpty()) {
 			                        for (NodeInstance nodeInstance : nodeInstances) {
 										((EventNodeInstanceInterface) nodeInstance).signalEvent(type, event);
@@ -537,6 +696,8 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 			listeners = new CopyOnWriteArrayList<EventListener>();
 			eventListeners.put(type, listeners);
 			if (external) {
+				// event types of the process instance changed
+				this.dirty = true;
 				((InternalProcessRuntime) getKnowledgeRuntime().getProcessRuntime())
 					.getSignalManager().addEventListener(type, this);
 			}
@@ -553,6 +714,7 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 			if (listeners.isEmpty()) {
 				eventListeners.remove(type);
 				if (external) {
+					this.dirty = true;
 					((InternalProcessRuntime) getKnowledgeRuntime().getProcessRuntime())
 						.getSignalManager().removeEventListener(type, this);
 				}
@@ -629,6 +791,7 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 	
 	public void addCompletedNodeId(String uniqueId) { 
 	    this.completedNodeIds.add(uniqueId.intern());
+	    this.dirty = true;
 	}
 	
 	public List<String> getCompletedNodeIds() { 
@@ -654,6 +817,21 @@ public abstract class WorkflowProcessInstanceImpl extends ProcessInstanceImpl
 	public void setPersisted(boolean persisted) {
 		this.persisted = persisted;
 	}
+
+	/**
+	 * Returns true if process instance might have changed since it was last loaded or stored -
+	 * node instances were added or removed, variables were set, signal was received, event types
+	 * or state changed. Changes made in place to variable values (e.g. calling a setter on an object
+	 * held in a variable) are not tracked, such variables must be set again with <code>setVariable</code>
+	 * to mark the process instance as changed.
+	 */
+	public boolean isDirty() {
+		return dirty;
+	}
+
+	public void setDirty(boolean dirty) {
+		this.dirty = dirty;
+	}
 	
 	public void addActivatingNodeId(String uniqueId) { 
 		if (this.activatingNodeIds == null) {
@@ -194,10 +194,18 @@ public class CompositeNodeInstance extends StateBasedNodeInstance implements Nod
         }
         ((NodeInstanceImpl) nodeInstance).setId(id);
         this.nodeInstances.add(nodeInstance);
+        markDirty();
     }
 
     public void removeNodeInstance(final NodeInstance nodeInstance) {
         this.nodeInstances.remove(nodeInstance);
+        markDirty();
+    }
+
+    private void markDirty() {
+        if (getProcessInstance() instanceof WorkflowProcessInstanceImpl) {
+            ((WorkflowProcessInstanceImpl) getProcessInstance()).setDirty(true);
+        }
     }
 
     public Collection<org.kie.api.runtime.process.NodeInstance> getNodeInstances() {
@@ -17,9 +17,6 @@
 package org.jbpm.workflow.instance.node;
 
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.kie.api.runtime.process.EventListener;
@@ -28,6 +25,7 @@ import org.drools.core.util.MVELSafeHelper;
 import org.jbpm.process.core.context.variable.VariableScope;
 import org.jbpm.process.core.event.EventTransformer;
 import org.jbpm.process.instance.context.variable.VariableScopeInstance;
+import org.jbpm.workflow.core.impl.ParameterTemplate;
 import org.jbpm.workflow.core.node.EventNode;
 import org.jbpm.workflow.instance.impl.ExtendedNodeInstanceImpl;
 import org.jbpm.workflow.instance.impl.NodeInstanceResolverFactory;
@@ -143,38 +141,28 @@ public class EventNodeInstance extends ExtendedNodeInstanceImpl implements Event
 	    if (eventType == null ){
 	        return false;
 	    }
-	    Matcher matcher = PARAMETER_MATCHER.matcher(eventType);
-	    if (matcher.find()) {
-	        return true;
-	    }
-	    
-	    return false;
+	    return !getEventNode().getParameterTemplate(eventType).isConstant();
 	}
 	
 	private String resolveVariable(String s) {
         if (s == null) {
             return null;
         }
-        
-        Map<String, String> replacements = new HashMap<String, String>();
-        Matcher matcher = PARAMETER_MATCHER.matcher(s);
-        while (matcher.find()) {
-            String paramName = matcher.group(1);
-            if (replacements.get(paramName) == null) {
+        ParameterTemplate template = getEventNode().getParameterTemplate(s);
+        if (template.isConstant()) {
+            return s;
+        }
+        return template.render(new ParameterTemplate.Resolver() {
+            public String resolve(String paramName) {
                 VariableScopeInstance variableScopeInstance = (VariableScopeInstance)
                     resolveContextInstance(VariableScope.VARIABLE_SCOPE, paramName);
-                if (variableScopeInstance != null) {
-                    Object variableValue = variableScopeInstance.getVariable(paramName);
-                    String variableValueString = variableValue == null ? "" : variableValue.toString(); 
-                    replacements.put(paramName, variableValueString);
+                if (variableScopeInstance == null) {
+                    return null;
                 }
+                Object variableValue = variableScopeInstance.getVariable(paramName);
+                return variableValue == null ? "" : variableValue.toString();
             }
-        }
-        for (Map.Entry<String, String> replacement: replacements.entrySet()) {
-            s = s.replace("#{" + replacement.getKey() + "}", replacement.getValue());
-        }
-        
-        return s;
+        });
     }
 	
 	private void callSignal(String type, Object event) {
@@ -23,7 +23,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.drools.core.util.MVELSafeHelper;
 import org.jbpm.process.core.ContextContainer;
 import org.jbpm.process.core.context.variable.VariableScope;
 import org.jbpm.process.instance.ContextInstance;
@@ -105,7 +104,7 @@ public class ForEachNodeInstance extends CompositeContextNodeInstance {
             collection = variableScopeInstance.getVariable(collectionExpression);
         } else {
             try {
-                collection = MVELSafeHelper.getEvaluator().eval(collectionExpression, new NodeInstanceResolverFactory(this));
+                collection = evaluateExpression(collectionExpression, new NodeInstanceResolverFactory(this));
             } catch (Throwable t) {
                 throw new IllegalArgumentException(
                     "Could not find collection " + collectionExpression);
@@ -240,7 +239,7 @@ public class ForEachNodeInstance extends CompositeContextNodeInstance {
         		return false;
         	}
         	try {
-                Object result = MVELSafeHelper.getEvaluator().eval(expression, new ForEachNodeInstanceResolverFactory(this, tempVariables));
+                Object result = ForEachNodeInstance.this.evaluateExpression(expression, new ForEachNodeInstanceResolverFactory(this, tempVariables));
                 if ( !(result instanceof Boolean) ) {
                     throw new RuntimeException( "Completion condition expression must return boolean values: " + result 
                     		+ " for expression " + expression);
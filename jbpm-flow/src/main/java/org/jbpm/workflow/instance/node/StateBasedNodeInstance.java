@@ -17,11 +17,9 @@
 package org.jbpm.workflow.instance.node;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.drools.core.common.InternalAgenda;
@@ -43,6 +41,8 @@ import org.jbpm.process.instance.impl.Action;
 import org.jbpm.process.instance.timer.TimerInstance;
 import org.jbpm.process.instance.timer.TimerManager;
 import org.jbpm.workflow.core.DroolsAction;
+import org.jbpm.workflow.core.impl.NodeImpl;
+import org.jbpm.workflow.core.impl.ParameterTemplate;
 import org.jbpm.workflow.core.node.StateBasedNode;
 import org.jbpm.workflow.instance.WorkflowProcessInstance;
 import org.jbpm.workflow.instance.impl.ExtendedNodeInstanceImpl;
@@ -249,40 +249,58 @@ public abstract class StateBasedNodeInstance extends ExtendedNodeInstanceImpl im
     	}
     }
     
-    private String resolveVariable(String s) {
+    protected String resolveVariable(String s) {
     	if (s == null) {
     		return null;
     	}
-    	// cannot parse delay, trying to interpret it
-		Map<String, String> replacements = new HashMap<String, String>();
-		Matcher matcher = PARAMETER_MATCHER.matcher(s);
-        while (matcher.find()) {
-        	String paramName = matcher.group(1);
-        	if (replacements.get(paramName) == null) {
-            	VariableScopeInstance variableScopeInstance = (VariableScopeInstance)
-                	resolveContextInstance(VariableScope.VARIABLE_SCOPE, paramName);
+    	return resolveTemplate(((NodeImpl) getNode()).getParameterTemplate(s), "timer of node " + getNodeName());
+    }
+
+    /**
+     * Renders given template, parameters are resolved as process variables or, when there is no such variable,
+     * as MVEL expressions. Parameters that cannot be resolved are left unchanged.
+     *
+     * @param template template of the string to resolve
+     * @param target description of the resolved value used when logging unresolved parameters
+     */
+    protected String resolveTemplate(ParameterTemplate template, String target) {
+        return resolveTemplate(template, target, true);
+    }
+
+    /**
+     * Renders given template like {@link #resolveTemplate(ParameterTemplate, String)}.
+     *
+     * @param template template of the string to resolve
+     * @param target description of the resolved value used when logging unresolved parameters
+     * @param definition whether the template comes from the node definition, expressions of other templates
+     * (e.g. values mapped from process variables) are evaluated without caching their compiled form on the node
+     */
+    protected String resolveTemplate(ParameterTemplate template, final String target, final boolean definition) {
+        if (template.isConstant()) {
+            return template.getText();
+        }
+        return template.render(new ParameterTemplate.Resolver() {
+            public String resolve(String paramName) {
+                VariableScopeInstance variableScopeInstance = (VariableScopeInstance)
+                    resolveContextInstance(VariableScope.VARIABLE_SCOPE, paramName);
+                Object variableValue;
                 if (variableScopeInstance != null) {
-                    Object variableValue = variableScopeInstance.getVariable(paramName);
-                	String variableValueString = variableValue == null ? "" : variableValue.toString(); 
-	                replacements.put(paramName, variableValueString);
+                    variableValue = variableScopeInstance.getVariable(paramName);
                 } else {
-                	try {
-                		Object variableValue = MVELSafeHelper.getEvaluator().eval(paramName, new NodeInstanceResolverFactory(this));
-	                	String variableValueString = variableValue == null ? "" : variableValue.toString();
-	                	replacements.put(paramName, variableValueString);
-                	} catch (Throwable t) {
-                	    logger.error("Could not find variable scope for variable {}", paramName);
-                	    logger.error("when trying to replace variable in processId for sub process {}", getNodeName());
-                	    logger.error("Continuing without setting process id.");
-                	}
+                    try {
+                        NodeInstanceResolverFactory factory = new NodeInstanceResolverFactory(StateBasedNodeInstance.this);
+                        variableValue = definition ? evaluateExpression(paramName, factory)
+                            : MVELSafeHelper.getEvaluator().eval(paramName, factory);
+                    } catch (Throwable t) {
+                        logger.error("Could not find variable scope for variable {}", paramName);
+                        logger.error("when trying to replace variable in {}", target);
+                        logger.error("Continuing without replacing the variable.");
+                        return null;
+                    }
                 }
-        	}
-        }
-        for (Map.Entry<String, String> replacement: replacements.entrySet()) {
-        	s = s.replace("#{" + replacement.getKey() + "}", replacement.getValue());
-        }
-        
-        return s;
+                return variableValue == null ? "" : variableValue.toString();
+            }
+        });
     }
 
     public void signalEvent(String type, Object event) {
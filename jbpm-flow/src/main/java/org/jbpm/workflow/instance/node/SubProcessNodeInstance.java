@@ -25,7 +25,6 @@ import java.util.regex.Matcher;
 
 import org.drools.core.common.InternalKnowledgeRuntime;
 import org.drools.core.process.instance.WorkItem;
-import org.drools.core.util.MVELSafeHelper;
 import org.jbpm.process.core.Context;
 import org.jbpm.process.core.ContextContainer;
 import org.jbpm.process.core.context.exception.ExceptionScope;
@@ -111,7 +110,7 @@ public class SubProcessNodeInstance extends StateBasedNodeInstance implements Ev
 	                parameterValue = variableScopeInstance.getVariable(mapping.getSources().get(0));
 	            } else {
 	            	try {
-	            		parameterValue = MVELSafeHelper.getEvaluator().eval(mapping.getSources().get(0), new NodeInstanceResolverFactory(this));
+	            		parameterValue = evaluateExpression(mapping.getSources().get(0), new NodeInstanceResolverFactory(this));
 	            	} catch (Throwable t) {
 	            	    parameterValue = VariableUtil.resolveVariable(mapping.getSources().get(0), this);
 	                    if (parameterValue != null && !parameterValue.equals(mapping.getSources().get(0))) {
@@ -147,7 +146,7 @@ public class SubProcessNodeInstance extends StateBasedNodeInstance implements Ev
 	                replacements.put(paramName, variableValueString);
                 } else {
                 	try {
-                		Object variableValue = MVELSafeHelper.getEvaluator().eval(paramName, new NodeInstanceResolverFactory(this));
+                		Object variableValue = evaluateExpression(paramName, new NodeInstanceResolverFactory(this));
 	                	String variableValueString = variableValue == null ? "" : variableValue.toString();
 	                	replacements.put(paramName, variableValueString);
                 	} catch (Throwable t) {
@@ -319,7 +318,7 @@ public class SubProcessNodeInstance extends StateBasedNodeInstance implements Ev
 			        	Object value = subProcessVariableScopeInstance.getVariable(mapping.getSources().get(0));
 			        	if (value == null) {
 			        		try {
-			            		value = MVELSafeHelper.getEvaluator().eval(mapping.getSources().get(0), new VariableScopeResolverFactory(subProcessVariableScopeInstance));
+			            		value = evaluateExpression(mapping.getSources().get(0), new VariableScopeResolverFactory(subProcessVariableScopeInstance));
 			            	} catch (Throwable t) {
 			            		// do nothing
 			            	}
@@ -408,7 +407,7 @@ public class SubProcessNodeInstance extends StateBasedNodeInstance implements Ev
 	            parameterValue = variableScopeInstance.getVariable(sourceParam);
 	        } else {
 	            try {
-	                parameterValue = MVELSafeHelper.getEvaluator().eval(sourceParam, new NodeInstanceResolverFactory(this));
+	                parameterValue = evaluateExpression(sourceParam, new NodeInstanceResolverFactory(this));
 	            } catch (Throwable t) {
 	                logger.warn("Could not find variable scope for variable {}", sourceParam);
 	            }
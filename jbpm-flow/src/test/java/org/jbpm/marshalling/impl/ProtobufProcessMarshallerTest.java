@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.marshalling.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.drools.core.impl.EnvironmentFactory;
+import org.drools.core.marshalling.impl.MarshallerWriteContext;
+import org.jbpm.process.instance.context.variable.VariableScopeInstance;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.marshalling.ObjectMarshallingStrategy;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.EnvironmentName;
+
+public class ProtobufProcessMarshallerTest {
+
+    private CountingMarshallingStrategy strategy;
+    private Environment env;
+
+    @Before
+    public void setUp() {
+        strategy = new CountingMarshallingStrategy();
+        env = EnvironmentFactory.newEnvironment();
+        env.set(EnvironmentName.OBJECT_MARSHALLING_STRATEGIES, new ObjectMarshallingStrategy[] { strategy });
+        ProtobufProcessMarshaller.setMarshalledVariablesReuse(true);
+    }
+
+    @After
+    public void tearDown() {
+        ProtobufProcessMarshaller.setMarshalledVariablesReuse(false);
+    }
+
+    @Test
+    public void testUnchangedVariableNotMarshalledAgain() throws Exception {
+        VariableScopeInstance variableScopeInstance = new VariableScopeInstance();
+        String value = "large document";
+        variableScopeInstance.internalSetVariable("document", value);
+
+        JBPMMessages.Variable first = marshallVariable(variableScopeInstance, "document");
+        JBPMMessages.Variable second = marshallVariable(variableScopeInstance, "document");
+        assertEquals(1, strategy.accepted);
+        assertEquals(1, strategy.marshalled);
+        assertEquals(first.getValue(), second.getValue());
+        assertEquals(first.getStrategyIndex(), second.getStrategyIndex());
+
+        // setting the variable, even to the same value, forces it to be marshalled again
+        variableScopeInstance.internalSetVariable("document", value);
+        marshallVariable(variableScopeInstance, "document");
+        assertEquals(2, strategy.marshalled);
+        // strategy resolved for the class of the value is reused
+        assertEquals(1, strategy.accepted);
+    }
+
+    @Test
+    public void testVariableMarshalledEveryTimeWhenReuseDisabled() throws Exception {
+        ProtobufProcessMarshaller.setMarshalledVariablesReuse(false);
+        VariableScopeInstance variableScopeInstance = new VariableScopeInstance();
+        variableScopeInstance.internalSetVariable("document", "large document");
+
+        marshallVariable(variableScopeInstance, "document");
+        marshallVariable(variableScopeInstance, "document");
+        assertEquals(2, strategy.marshalled);
+    }
+
+    private JBPMMessages.Variable marshallVariable(VariableScopeInstance variableScopeInstance, String name) throws IOException {
+        MarshallerWriteContext context = new MarshallerWriteContext(new ByteArrayOutputStream(), null, null, null, null, env);
+        return ProtobufProcessMarshaller.marshallVariable(context, name, variableScopeInstance.getVariable(name), variableScopeInstance);
+    }
+
+    private static class CountingMarshallingStrategy implements ObjectMarshallingStrategy {
+
+        private int accepted;
+        private int marshalled;
+
+        @Override
+        public boolean accept(Object o) {
+            accepted++;
+            return o instanceof String;
+        }
+
+        @Override
+        public void write(ObjectOutputStream objectOutputStream, Object o) throws IOException {
+        }
+
+        @Override
+        public Object read(ObjectInputStream objectInputStream) throws IOException, ClassNotFoundException {
+            return null;
+        }
+
+        @Override
+        public byte[] marshal(Context context, ObjectOutputStream objectOutputStream, Object o) throws IOException {
+            marshalled++;
+            return ((String) o).getBytes();
+        }
+
+        @Override
+        public Object unmarshal(Context context, ObjectInputStream objectInputStream, byte[] bytes, ClassLoader classLoader) throws IOException, ClassNotFoundException {
+            return new String(bytes);
+        }
+
+        @Override
+        public Context createContext() {
+            return null;
+        }
+    }
+}
@@ -310,7 +310,64 @@ public class BusinessCalendarImplTest extends AbstractBaseTest {
 		Date result = businessCalendarImpl.calculateBusinessTimeAsDate("4d");
 		assertEquals(expectedDate, formatDate("yyyy-MM-dd HH:mm", result));
     }
-    
+
+    @Test
+    public void testCalculateManyHoursWithHolidayAfterwards() {
+        Properties config = new Properties();
+        config.setProperty(BusinessCalendarImpl.HOLIDAYS, "2012-07-04");
+        String expectedDate = "2012-05-18 13:45";
+
+        SessionPseudoClock clock = new StaticPseudoClock(parseToDateWithTime("2012-05-04 13:45").getTime());
+        BusinessCalendarImpl businessCal = new BusinessCalendarImpl(config, clock);
+
+        Date result = businessCal.calculateBusinessTimeAsDate("80h");
+        assertEquals(expectedDate, formatDate("yyyy-MM-dd HH:mm", result));
+        // parsed expression is cached
+        result = businessCal.calculateBusinessTimeAsDate("80h");
+        assertEquals(expectedDate, formatDate("yyyy-MM-dd HH:mm", result));
+    }
+
+    @Test
+    public void testCalculateManyHoursPassingOverHoliday() {
+        Properties config = new Properties();
+        config.setProperty(BusinessCalendarImpl.HOLIDAYS, "2012-05-10,2012-05-10");
+        String expectedDate = "2012-05-21 13:45";
+
+        SessionPseudoClock clock = new StaticPseudoClock(parseToDateWithTime("2012-05-04 13:45").getTime());
+        BusinessCalendarImpl businessCal = new BusinessCalendarImpl(config, clock);
+
+        Date result = businessCal.calculateBusinessTimeAsDate("80h");
+        assertEquals(expectedDate, formatDate("yyyy-MM-dd HH:mm", result));
+    }
+
+    @Test
+    public void testCalculateManyHoursWithCustomHolidayHandling() {
+        Properties config = new Properties();
+        String expectedDate = "2012-05-21 13:45";
+
+        SessionPseudoClock clock = new StaticPseudoClock(parseToDateWithTime("2012-05-04 13:45").getTime());
+        // holiday is known only to the subclass so every day must be passed to it
+        BusinessCalendarImpl businessCal = new BusinessCalendarImpl(config, clock) {
+
+            @Override
+            protected void handleHoliday(Calendar c) {
+                super.handleHoliday(c);
+                if ("2012-05-10".equals(formatDate("yyyy-MM-dd", c.getTime()))) {
+                    c.add(Calendar.DAY_OF_YEAR, 1);
+                    handleWeekend(c);
+                }
+            }
+
+            @Override
+            protected boolean isWeekSkippingEnabled() {
+                return false;
+            }
+        };
+
+        Date result = businessCal.calculateBusinessTimeAsDate("80h");
+        assertEquals(expectedDate, formatDate("yyyy-MM-dd HH:mm", result));
+    }
+
     private Date parseToDate(String dateString) {
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
         
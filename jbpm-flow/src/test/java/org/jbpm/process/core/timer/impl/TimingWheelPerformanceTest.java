@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.process.core.timer.impl;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares scheduling and cancelling of large number of pending timers (up to 1M) with the timing wheel
+ * used by <code>TimingWheelSchedulerService</code> and the <code>ScheduledThreadPoolExecutor</code> used
+ * by <code>ThreadPoolSchedulerService</code>.
+ */
+@Ignore
+public class TimingWheelPerformanceTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheelPerformanceTest.class);
+
+    private static final int[] PENDING_TIMERS = {10000, 100000, 1000000};
+    private static final Runnable NOOP = new Runnable() {
+        public void run() {
+        }
+    };
+
+    @Test
+    public void testTimingWheel() {
+        for (int count : PENDING_TIMERS) {
+            ExecutorService executor = Executors.newFixedThreadPool(3);
+            TimingWheel timingWheel = new TimingWheel(TimingWheelSchedulerService.DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS,
+                    TimingWheelSchedulerService.DEFAULT_WHEEL_SIZE, executor);
+            timingWheel.start();
+            try {
+                TimingWheel.Timeout[] timeouts = new TimingWheel.Timeout[count];
+                long usedBefore = usedMemory();
+                long start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    timeouts[i] = timingWheel.schedule(NOOP, delay(i), TimeUnit.MILLISECONDS);
+                }
+                long scheduled = System.nanoTime();
+                long used = usedMemory() - usedBefore;
+                for (int i = 0; i < count; i++) {
+                    timeouts[i].cancel();
+                }
+                long cancelled = System.nanoTime();
+                report("TimingWheel", count, start, scheduled, cancelled, used);
+            } finally {
+                timingWheel.stop();
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    public void testScheduledThreadPoolExecutor() {
+        for (int count : PENDING_TIMERS) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(3);
+            try {
+                ScheduledFuture<?>[] futures = new ScheduledFuture<?>[count];
+                long usedBefore = usedMemory();
+                long start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    futures[i] = executor.schedule(NOOP, delay(i), TimeUnit.MILLISECONDS);
+                }
+                long scheduled = System.nanoTime();
+                long used = usedMemory() - usedBefore;
+                // same as ThreadPoolSchedulerService.removeJob
+                for (int i = 0; i < count; i++) {
+                    executor.remove((Runnable) futures[i]);
+                }
+                long cancelled = System.nanoTime();
+                report("ScheduledThreadPoolExecutor", count, start, scheduled, cancelled, used);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static long delay(int i) {
+        // SLA like timers spread over the next day
+        return TimeUnit.HOURS.toMillis(1) + (i * 7919L) % TimeUnit.DAYS.toMillis(1);
+    }
+
+    private static long usedMemory() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void report(String name, int count, long start, long scheduled, long cancelled, long used) {
+        logger.info("{} with {} pending timers: schedule {} ms, cancel {} ms, ~{} bytes per timer",
+                name, count,
+                TimeUnit.NANOSECONDS.toMillis(scheduled - start),
+                TimeUnit.NANOSECONDS.toMillis(cancelled - scheduled),
+                used / count);
+    }
+}
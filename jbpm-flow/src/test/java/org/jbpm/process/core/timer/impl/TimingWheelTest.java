@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.process.core.timer.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimingWheelTest {
+
+    private ExecutorService executor;
+    private TimingWheel timingWheel;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(2);
+        // small wheel so timeouts span more rounds
+        timingWheel = new TimingWheel(10, TimeUnit.MILLISECONDS, 8, executor);
+        timingWheel.start();
+    }
+
+    @After
+    public void cleanup() {
+        timingWheel.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testTimeoutsFireAfterDeadline() throws Exception {
+        int count = 50;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final Queue<Long> early = new ConcurrentLinkedQueue<Long>();
+        final long start = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            final long delay = i * 7;
+            timingWheel.schedule(new Runnable() {
+                public void run() {
+                    if (System.currentTimeMillis() - start < delay) {
+                        early.add(delay);
+                    }
+                    latch.countDown();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue("Timeouts fired before deadline " + early, early.isEmpty());
+        assertEquals(0, timingWheel.getPendingCount());
+    }
+
+    @Test
+    public void testCancelledTimeout() throws Exception {
+        final CountDownLatch fired = new CountDownLatch(1);
+        TimingWheel.Timeout timeout = timingWheel.schedule(new Runnable() {
+            public void run() {
+                fired.countDown();
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+        assertEquals(1, timingWheel.getPendingCount());
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertEquals(0, timingWheel.getPendingCount());
+
+        assertFalse(fired.await(300, TimeUnit.MILLISECONDS));
+        assertTrue(timeout.isCancelled());
+        assertFalse(timeout.isExpired());
+    }
+}
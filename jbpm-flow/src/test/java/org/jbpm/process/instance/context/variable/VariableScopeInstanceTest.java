@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.process.instance.context.variable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class VariableScopeInstanceTest {
+
+    @Test
+    public void testLazyVariableResolvedOnFirstAccess() {
+        VariableScopeInstance variableScopeInstance = new VariableScopeInstance();
+        CountingLazyVariable lazyVariable = new CountingLazyVariable("value");
+        variableScopeInstance.setLazyVariable("name", lazyVariable);
+
+        assertSame(lazyVariable, variableScopeInstance.getVariables(false).get("name"));
+        assertEquals(0, lazyVariable.resolved);
+
+        assertEquals("value", variableScopeInstance.getVariable("name"));
+        assertEquals("value", variableScopeInstance.getVariables().get("name"));
+        assertEquals("value", variableScopeInstance.getVariables(false).get("name"));
+        assertEquals(1, lazyVariable.resolved);
+    }
+
+    @Test
+    public void testLazyVariableNotResolvedWhenSet() {
+        VariableScopeInstance variableScopeInstance = new VariableScopeInstance();
+        CountingLazyVariable lazyVariable = new CountingLazyVariable("value");
+        variableScopeInstance.setLazyVariable("name", lazyVariable);
+        variableScopeInstance.setLazyVariable("other", new CountingLazyVariable("other value"));
+
+        variableScopeInstance.internalSetVariable("name", "new value");
+        assertEquals("new value", variableScopeInstance.getVariable("name"));
+        assertEquals(0, lazyVariable.resolved);
+        assertTrue(variableScopeInstance.getVariables(false).get("other") instanceof CountingLazyVariable);
+        assertEquals(2, variableScopeInstance.getVariables().size());
+    }
+
+    private static class CountingLazyVariable implements VariableScopeInstance.LazyVariable {
+
+        private final Object value;
+        private int resolved;
+
+        CountingLazyVariable(Object value) {
+            this.value = value;
+        }
+
+        public Object resolve() {
+            resolved++;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.process.instance.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import org.drools.core.common.InternalKnowledgeRuntime;
+import org.drools.core.process.core.datatype.DataType;
+import org.drools.core.process.core.datatype.impl.type.ObjectDataType;
+import org.drools.core.process.core.datatype.impl.type.StringDataType;
+import org.drools.core.spi.ProcessContext;
+import org.jbpm.process.core.context.variable.Variable;
+import org.jbpm.process.core.context.variable.VariableScope;
+import org.jbpm.process.instance.ProcessInstance;
+import org.jbpm.process.instance.context.variable.VariableScopeInstance;
+import org.jbpm.ruleflow.core.RuleFlowProcess;
+import org.jbpm.ruleflow.instance.RuleFlowProcessInstance;
+import org.jbpm.test.util.AbstractBaseTest;
+import org.junit.Test;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.slf4j.LoggerFactory;
+
+public class JavaScriptEngineSupportTest extends AbstractBaseTest {
+
+    public void addLogger() {
+        logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    @Test
+    public void testNoStateSharedBetweenEvaluations() throws Exception {
+        ProcessContext context = new ProcessContext(null);
+
+        // single threaded evaluations reuse the same pooled engine
+        assertEquals("number", JavaScriptEngineSupport.eval("var declared = 1; implicit = 2; function fn() { return 3; } typeof declared", context));
+
+        assertEquals("undefined", JavaScriptEngineSupport.eval("typeof declared", context));
+        assertEquals("undefined", JavaScriptEngineSupport.eval("typeof implicit", context));
+        assertEquals("undefined", JavaScriptEngineSupport.eval("typeof fn", context));
+    }
+
+    @Test
+    public void testProcessContextAvailable() throws Exception {
+        ProcessContext context = new ProcessContext(null);
+
+        assertEquals(Boolean.TRUE, JavaScriptEngineSupport.eval("kcontext != null", context));
+    }
+
+    @Test
+    public void testProcessVariablesAndGlobalsResolved() throws Exception {
+        KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        ksession.getGlobals().set("limit", 10);
+        ksession.getGlobals().set("name", "global");
+
+        RuleFlowProcess process = new RuleFlowProcess();
+        process.setId("org.jbpm.javascript");
+        process.getVariableScope().getVariables().add(createVariable("name", new StringDataType()));
+        process.getVariableScope().getVariables().add(createVariable("approved", new ObjectDataType()));
+
+        RuleFlowProcessInstance processInstance = new RuleFlowProcessInstance();
+        processInstance.setState(ProcessInstance.STATE_ACTIVE);
+        processInstance.setProcess(process);
+        processInstance.setKnowledgeRuntime((InternalKnowledgeRuntime) ksession);
+        VariableScopeInstance variableScope = (VariableScopeInstance) processInstance.getContextInstance(VariableScope.VARIABLE_SCOPE);
+        variableScope.setVariable("name", "john");
+
+        ProcessContext context = new ProcessContext(ksession);
+        context.setProcessInstance(processInstance);
+
+        // process variable takes precedence over global with the same name
+        assertEquals("john", JavaScriptEngineSupport.eval("name", context));
+        assertEquals(Boolean.TRUE, JavaScriptEngineSupport.eval("limit == 10", context));
+        // declared variable without value is bound so it can be compared with null
+        assertEquals(Boolean.TRUE, JavaScriptEngineSupport.eval("approved == null", context));
+        assertEquals("undefined", JavaScriptEngineSupport.eval("typeof undeclared", context));
+
+        JavaScriptEngineSupport.eval("kcontext.setVariable('approved', name == 'john')", context);
+        assertEquals(Boolean.TRUE, variableScope.getVariable("approved"));
+        assertEquals(Boolean.TRUE, JavaScriptEngineSupport.eval("approved", context));
+    }
+
+    private static Variable createVariable(String name, DataType type) {
+        Variable variable = new Variable();
+        variable.setName(name);
+        variable.setType(type);
+        return variable;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.workflow.core.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.drools.core.util.MVELSafeHelper;
+import org.jbpm.workflow.instance.node.MockNode;
+import org.junit.Test;
+
+public class NodeCompiledExpressionTest {
+
+    @Test
+    public void testExpressionCompiledOnce() {
+        MockNode node = new MockNode();
+        Serializable compiled = node.getCompiledExpression("person.name + ' ' + count");
+        assertSame(compiled, node.getCompiledExpression("person.name + ' ' + count"));
+        assertNotSame(compiled, node.getCompiledExpression("count"));
+
+        Map<String, Object> person = new HashMap<String, Object>();
+        person.put("name", "john");
+        Map<String, Object> vars = new HashMap<String, Object>();
+        vars.put("person", person);
+        vars.put("count", 1);
+        assertEquals("john 1", MVELSafeHelper.getEvaluator().executeExpression(compiled, vars));
+
+        person.put("name", "mary");
+        vars.put("count", 2);
+        assertEquals("mary 2", MVELSafeHelper.getEvaluator().executeExpression(compiled, vars));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testInvalidExpression() {
+        new MockNode().getCompiledExpression("person.name +");
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.workflow.core.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jbpm.workflow.instance.node.MockNode;
+import org.junit.Test;
+
+public class ParameterTemplateTest {
+
+    @Test
+    public void testConstantTemplate() {
+        ParameterTemplate template = ParameterTemplate.compile("PT5S");
+        assertTrue(template.isConstant());
+        assertEquals("PT5S", template.render(new MapResolver(new HashMap<String, String>())));
+
+        // not a valid parameter
+        assertTrue(ParameterTemplate.compile("#{ x }").isConstant());
+    }
+
+    @Test
+    public void testRenderTemplate() {
+        ParameterTemplate template = ParameterTemplate.compile("Message-#{type}-#{person.name}-#{type}#{unknown}");
+        assertFalse(template.isConstant());
+        assertArrayEquals(new String[] {"type", "person.name", "type", "unknown"}, template.getExpressions());
+
+        Map<String, String> values = new HashMap<String, String>();
+        values.put("type", "order");
+        values.put("person.name", "john");
+        MapResolver resolver = new MapResolver(values);
+        assertEquals("Message-order-john-order#{unknown}", template.render(resolver));
+        // each distinct expression is resolved once
+        assertEquals(3, resolver.resolved.size());
+    }
+
+    @Test
+    public void testTemplateCachedOnNode() {
+        MockNode node = new MockNode();
+        ParameterTemplate template = node.getParameterTemplate("#{delay}s");
+        assertSame(template, node.getParameterTemplate("#{delay}s"));
+    }
+
+    private static class MapResolver implements ParameterTemplate.Resolver {
+
+        private final Map<String, String> values;
+        private final List<String> resolved = new ArrayList<String>();
+
+        MapResolver(Map<String, String> values) {
+            this.values = values;
+        }
+
+        public String resolve(String expression) {
+            resolved.add(expression);
+            return values.get(expression);
+        }
+    }
+}
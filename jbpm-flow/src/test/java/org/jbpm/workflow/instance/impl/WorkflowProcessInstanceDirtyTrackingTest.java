@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workflow.instance.impl;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.drools.core.common.InternalKnowledgeRuntime;
+import org.jbpm.process.core.context.variable.VariableScope;
+import org.jbpm.process.instance.ProcessInstance;
+import org.jbpm.process.instance.context.variable.VariableScopeInstance;
+import org.jbpm.ruleflow.core.RuleFlowProcess;
+import org.jbpm.ruleflow.instance.RuleFlowProcessInstance;
+import org.jbpm.test.util.AbstractBaseTest;
+import org.jbpm.workflow.instance.node.MockNode;
+import org.jbpm.workflow.instance.node.MockNodeInstance;
+import org.jbpm.workflow.instance.node.MockNodeInstanceFactory;
+import org.junit.Test;
+import org.kie.api.runtime.process.EventListener;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.slf4j.LoggerFactory;
+
+public class WorkflowProcessInstanceDirtyTrackingTest extends AbstractBaseTest {
+
+    public void addLogger() {
+        logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    @Test
+    public void testNodeInstanceChangesMarkDirty() {
+        KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+
+        MockNode mockNode = new MockNode();
+        mockNode.setId( 1 );
+        MockNodeInstanceFactory factory = new MockNodeInstanceFactory( new MockNodeInstance( mockNode ) );
+        NodeInstanceFactoryRegistry.getInstance(ksession.getEnvironment()).register( mockNode.getClass(), factory );
+
+        RuleFlowProcess process = new RuleFlowProcess();
+        process.addNode( mockNode );
+
+        RuleFlowProcessInstance processInstance = new RuleFlowProcessInstance();
+        processInstance.setState( ProcessInstance.STATE_ACTIVE );
+        processInstance.setProcess( process );
+        processInstance.setKnowledgeRuntime( (InternalKnowledgeRuntime) ksession );
+        // new process instance is always dirty
+        assertTrue( processInstance.isDirty() );
+
+        processInstance.setDirty( false );
+        MockNodeInstance nodeInstance = (MockNodeInstance) processInstance.getNodeInstance( mockNode );
+        assertTrue( processInstance.isDirty() );
+
+        processInstance.setDirty( false );
+        processInstance.removeNodeInstance( nodeInstance );
+        assertTrue( processInstance.isDirty() );
+
+        processInstance.setDirty( false );
+        processInstance.getNodeInstances();
+        processInstance.getVariables();
+        assertFalse( processInstance.isDirty() );
+    }
+
+    @Test
+    public void testVariableChangesMarkDirty() {
+        KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+
+        RuleFlowProcess process = new RuleFlowProcess();
+
+        RuleFlowProcessInstance processInstance = new RuleFlowProcessInstance();
+        processInstance.setState( ProcessInstance.STATE_ACTIVE );
+        processInstance.setProcess( process );
+        processInstance.setKnowledgeRuntime( (InternalKnowledgeRuntime) ksession );
+
+        VariableScopeInstance variableScopeInstance = (VariableScopeInstance) processInstance.getContextInstance( VariableScope.VARIABLE_SCOPE );
+        processInstance.setDirty( false );
+        variableScopeInstance.getVariable( "test" );
+        assertFalse( processInstance.isDirty() );
+
+        variableScopeInstance.setVariable( "test", "value" );
+        assertTrue( processInstance.isDirty() );
+    }
+
+    @Test
+    public void testEventTypeChangesMarkDirty() {
+        KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+
+        RuleFlowProcess process = new RuleFlowProcess();
+
+        RuleFlowProcessInstance processInstance = new RuleFlowProcessInstance();
+        processInstance.setState( ProcessInstance.STATE_ACTIVE );
+        processInstance.setProcess( process );
+        processInstance.setKnowledgeRuntime( (InternalKnowledgeRuntime) ksession );
+
+        EventListener listener = new EventListener() {
+            public void signalEvent(String type, Object event) {
+            }
+            public String[] getEventTypes() {
+                return null;
+            }
+        };
+
+        // internal listeners are not part of the stored event types
+        processInstance.setDirty( false );
+        processInstance.addEventListener( "internal", listener, false );
+        assertFalse( processInstance.isDirty() );
+
+        processInstance.addEventListener( "external", listener, true );
+        assertTrue( processInstance.isDirty() );
+
+        processInstance.setDirty( false );
+        processInstance.removeEventListener( "external", listener, true );
+        assertTrue( processInstance.isDirty() );
+    }
+}
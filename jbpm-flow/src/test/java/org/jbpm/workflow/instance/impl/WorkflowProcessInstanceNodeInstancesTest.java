@@ -0,0 +1,172 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.workflow.instance.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.drools.core.common.InternalKnowledgeRuntime;
+import org.jbpm.process.instance.ProcessInstance;
+import org.jbpm.ruleflow.core.RuleFlowProcess;
+import org.jbpm.ruleflow.instance.RuleFlowProcessInstance;
+import org.jbpm.test.util.AbstractBaseTest;
+import org.jbpm.workflow.instance.node.MockNode;
+import org.jbpm.workflow.instance.node.MockNodeInstance;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+import org.slf4j.LoggerFactory;
+
+public class WorkflowProcessInstanceNodeInstancesTest extends AbstractBaseTest {
+
+    public void addLogger() {
+        logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    @Test
+    public void testNodeInstancesLookup() {
+        MockNode first = newMockNode( 1 );
+        MockNode second = newMockNode( 2 );
+        RuleFlowProcessInstance processInstance = newProcessInstance( first, second );
+
+        MockNodeInstance a = addNodeInstance( processInstance, first );
+        MockNodeInstance b = addNodeInstance( processInstance, second );
+        MockNodeInstance c = addNodeInstance( processInstance, first );
+
+        assertSame( a, processInstance.getNodeInstance( a.getId() ) );
+        assertSame( b, processInstance.getNodeInstance( b.getId() ) );
+        assertSame( a, processInstance.getFirstNodeInstance( 1 ) );
+        assertEquals( 2, processInstance.getNodeInstances( 1 ).size() );
+        assertSame( c, processInstance.getNodeInstances( 1 ).get( 1 ) );
+
+        processInstance.removeNodeInstance( a );
+        assertNull( processInstance.getNodeInstance( a.getId() ) );
+        assertSame( c, processInstance.getFirstNodeInstance( 1 ) );
+        assertEquals( 1, processInstance.getNodeInstances( 1 ).size() );
+        assertTrue( processInstance.getNodeInstances( 3 ).isEmpty() );
+    }
+
+    @Test
+    public void testNodeInstanceIdChangedAfterAdded() {
+        MockNode node = newMockNode( 1 );
+        RuleFlowProcessInstance processInstance = newProcessInstance( node );
+
+        // ids are assigned when node instances are added and replaced with stored ones when unmarshalled
+        MockNodeInstance a = addNodeInstance( processInstance, node );
+        a.setId( 1 );
+        MockNodeInstance b = addNodeInstance( processInstance, node );
+        b.setId( 0 );
+
+        assertSame( a, processInstance.getNodeInstance( 1 ) );
+        assertSame( b, processInstance.getNodeInstance( 0 ) );
+
+        processInstance.removeNodeInstance( b );
+        assertNull( processInstance.getNodeInstance( 0 ) );
+        assertSame( a, processInstance.getNodeInstance( 1 ) );
+    }
+
+    @Test
+    public void testNodeInstanceNodeIdChangedAfterAdded() {
+        MockNode first = newMockNode( 1 );
+        MockNode second = newMockNode( 2 );
+        RuleFlowProcessInstance processInstance = newProcessInstance( first, second );
+
+        MockNodeInstance a = addNodeInstance( processInstance, first );
+        MockNodeInstance b = addNodeInstance( processInstance, first );
+        assertEquals( 2, processInstance.getNodeInstances( 1 ).size() );
+
+        // node ids are changed when process instance is migrated or upgraded
+        a.setNodeId( 2 );
+        assertEquals( 1, processInstance.getNodeInstances( 1 ).size() );
+        assertSame( b, processInstance.getFirstNodeInstance( 1 ) );
+        assertSame( a, processInstance.getFirstNodeInstance( 2 ) );
+
+        processInstance.removeNodeInstance( a );
+        assertTrue( processInstance.getNodeInstances( 2 ).isEmpty() );
+        assertSame( b, processInstance.getFirstNodeInstance( 1 ) );
+    }
+
+    /**
+     * Prints cost of signals and of completing node instances (lookup by id and removal) for growing number
+     * of active node instances.
+     */
+    @Test
+    @Ignore
+    public void testSignalAndCompletionCost() {
+        for ( int count : new int[] { 100, 1000, 10000 } ) {
+            MockNode node = newMockNode( 1 );
+            RuleFlowProcessInstance processInstance = newProcessInstance( node );
+            List<Long> ids = new ArrayList<Long>();
+            for ( int i = 0; i < count; i++ ) {
+                ids.add( addNodeInstance( processInstance, node ).getId() );
+            }
+
+            long start = System.nanoTime();
+            for ( int i = 0; i < count; i++ ) {
+                processInstance.signalEvent( "test", null );
+            }
+            long signal = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for ( Long id : ids ) {
+                processInstance.removeNodeInstance( processInstance.getNodeInstance( id ) );
+            }
+            long completion = System.nanoTime() - start;
+
+            assertTrue( processInstance.getNodeInstances().isEmpty() );
+            logger.info( "{} node instances: {} signals took {} ms, completing all node instances took {} ms",
+                         count, count, signal / 1000000, completion / 1000000 );
+        }
+    }
+
+    private MockNode newMockNode(long id) {
+        MockNode node = new MockNode();
+        node.setId( id );
+        return node;
+    }
+
+    private RuleFlowProcessInstance newProcessInstance(MockNode... nodes) {
+        KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+
+        RuleFlowProcess process = new RuleFlowProcess();
+        for ( MockNode node : nodes ) {
+            process.addNode( node );
+        }
+
+        RuleFlowProcessInstance processInstance = new RuleFlowProcessInstance();
+        processInstance.setState( ProcessInstance.STATE_ACTIVE );
+        processInstance.setProcess( process );
+        processInstance.setKnowledgeRuntime( (InternalKnowledgeRuntime) ksession );
+        return processInstance;
+    }
+
+    private MockNodeInstance addNodeInstance(RuleFlowProcessInstance processInstance, MockNode node) {
+        MockNodeInstance nodeInstance = new MockNodeInstance( node );
+        nodeInstance.setNodeId( node.getId() );
+        nodeInstance.setProcessInstance( processInstance );
+        nodeInstance.setNodeInstanceContainer( processInstance );
+        return nodeInstance;
+    }
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.services.task.audit;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.drools.persistence.OrderedTransactionSynchronization;
+import org.drools.persistence.TransactionManager;
+import org.drools.persistence.TransactionManagerHelper;
+import org.jbpm.services.task.audit.impl.model.AuditTaskImpl;
+import org.jbpm.services.task.audit.impl.model.TaskEventImpl;
+import org.jbpm.services.task.persistence.JPATaskPersistenceContext;
+import org.kie.api.runtime.EnvironmentName;
+import org.kie.api.task.TaskEvent;
+import org.kie.api.task.model.Task;
+import org.kie.internal.task.api.TaskContext;
+import org.kie.internal.task.api.TaskPersistenceContext;
+import org.kie.internal.task.api.model.TaskEvent.TaskEventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Audit listener producing the same task events and audit tasks as <code>JPATaskLifeCycleEventListener</code>
+ * but writing them once per transaction instead of once per event. Events are collected in a buffer bound to
+ * the transaction and when the transaction is about to commit:</p>
+ * <ul>
+ *  <li>every touched task gets its audit task row written with single insert (task added within the transaction)
+ *  or single update by task id - no lookup of the audit task and no merge is performed</li>
+ *  <li>all task events are inserted together so they can be batched when <code>hibernate.jdbc.batch_size</code>
+ *  is set</li>
+ * </ul>
+ * <p>Audit task row reflects state of the task at commit. Task updates (name, description, priority, due date)
+ * are described against the values last seen by the listener - taken when the task was added within the
+ * transaction or read once from the audit task row on its first update. When there is no active transaction
+ * the listener behaves exactly as <code>JPATaskLifeCycleEventListener</code>.</p>
+ */
+public class CoalescingTaskLifeCycleEventListener extends JPATaskLifeCycleEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingTaskLifeCycleEventListener.class);
+
+    private final String bufferKey = "local:" + getClass().getName() + "@" + System.identityHashCode(this);
+
+    public CoalescingTaskLifeCycleEventListener(boolean flag) {
+        super(flag);
+    }
+
+    public CoalescingTaskLifeCycleEventListener(EntityManagerFactory emf) {
+        super(emf);
+    }
+
+    @Override
+    public void afterTaskActivatedEvent(TaskEvent event) {
+        if (!record(event, TaskEventType.ACTIVATED)) {
+            super.afterTaskActivatedEvent(event);
+        }
+    }
+
+    @Override
+    public void afterTaskClaimedEvent(TaskEvent event) {
+        if (!record(event, TaskEventType.CLAIMED)) {
+            super.afterTaskClaimedEvent(event);
+        }
+    }
+
+    @Override
+    public void afterTaskSkippedEvent(TaskEvent event) {
+        if (!record(event, TaskEventType.SKIPPED)) {
+            super.afterTaskSkippedEvent(event);
+        }
+    }
+
+    @Override
+    public void afterTaskStartedEvent(TaskEvent event) {
+        if (!record(event, TaskEventType.STARTED)) {
+            super.afterTaskStartedEvent(event);
+        }
+    }
+
+    @Override
+    public void afterTaskStoppedEvent(TaskEvent event) {
+        if (!record(event, TaskEventType.STOPPED)) {
+            super.afterTaskStoppedEvent(event);
+        }
+    }
+
+    @Override
+    public void afterTaskCompletedEvent(TaskEvent event) {
+        if (!record(event, TaskEventType.COMPLETED)) {
+            super.afterTaskCompletedEvent(event);
+        }
+    }
+
+    @Override
+    public void afterTaskFailedEvent(TaskEvent event) {
+        if (!record(event, TaskEventType.FAILED)) {
+            super.afterTaskFailedEvent(event);
+        }
+    }
+
+    @Override
+    public void afterTaskAddedEvent(TaskEvent event) {
+        if (!record(event, TaskEventType.ADDED)) {
+            super.afterTaskAddedEvent(event);
+        }
+    }
+
+    @Override
+    public void afterTaskExitedEvent(TaskEvent event) {
+        if (!record(event, TaskEventType.EXITED)) {
+            super.afterTaskExitedEvent(event);
+        }
+    }
+
+    @Override
+    public void beforeTaskReleasedEvent(TaskEvent event) {
+        // released event carries the owner the task is released by
+        if (!record(event, TaskEventType.RELEASED)) {
+            super.beforeTaskReleasedEvent(event);
+        }
+    }
+
+    @Override
+    public void afterTaskReleasedEvent(TaskEvent event) {
+        if (!record(event, null)) {
+            super.afterTaskReleasedEvent(event);
+        }
+    }
+
+    @Override
+    public void afterTaskResumedEvent(TaskEvent event) {
+        if (!record(event, TaskEventType.RESUMED)) {
+            super.afterTaskResumedEvent(event);
+        }
+    }
+
+    @Override
+    public void afterTaskSuspendedEvent(TaskEvent event) {
+        if (!record(event, TaskEventType.SUSPENDED)) {
+            super.afterTaskSuspendedEvent(event);
+        }
+    }
+
+    @Override
+    public void afterTaskForwardedEvent(TaskEvent event) {
+        if (!record(event, TaskEventType.FORWARDED)) {
+            super.afterTaskForwardedEvent(event);
+        }
+    }
+
+    @Override
+    public void afterTaskDelegatedEvent(TaskEvent event) {
+        if (!record(event, TaskEventType.DELEGATED)) {
+            super.afterTaskDelegatedEvent(event);
+        }
+    }
+
+    @Override
+    public void afterTaskNominatedEvent(TaskEvent event) {
+        if (!record(event, TaskEventType.NOMINATED)) {
+            super.afterTaskNominatedEvent(event);
+        }
+    }
+
+    @Override
+    public void afterTaskUpdatedEvent(TaskEvent event) {
+        AuditBuffer buffer = getBuffer((TaskContext) event.getTaskContext());
+        if (buffer == null) {
+            super.afterTaskUpdatedEvent(event);
+            return;
+        }
+        Task ti = event.getTask();
+        TouchedTask touched = buffer.tasks.get(ti.getId());
+        AuditedValues previous = touched != null ? touched.audited : null;
+        if (previous == null) {
+            previous = loadAuditedValues(event, buffer, ti);
+            if (previous == null) {
+                logger.warn("Unable find audit task entry for task id {} '{}', skipping audit task update", ti.getId(), ti.getName());
+                return;
+            }
+        }
+        String userId = "";
+        if (ti.getTaskData().getActualOwner() != null) {
+            userId = ti.getTaskData().getActualOwner().getId();
+        }
+        for (String message : previous.describeChanges(ti)) {
+            buffer.events.add(new TaskEventImpl(ti.getId(), TaskEventType.UPDATED,
+                    ti.getTaskData().getProcessInstanceId(), ti.getTaskData().getWorkItemId(), userId, message));
+        }
+        record(event, null);
+        buffer.tasks.get(ti.getId()).audited = new AuditedValues(ti);
+    }
+
+    /**
+     * Adds task event of given type (if any) to the buffer of current transaction and marks the task as touched.
+     * @return false if there is no active transaction and the event must be written immediately
+     */
+    protected boolean record(TaskEvent event, TaskEventType type) {
+        AuditBuffer buffer = getBuffer((TaskContext) event.getTaskContext());
+        if (buffer == null) {
+            return false;
+        }
+        Task ti = event.getTask();
+        boolean added = type == TaskEventType.ADDED;
+        if (type != null) {
+            buffer.events.add(createTaskEvent(ti, type));
+        }
+        if (added || !buffer.tasks.containsKey(ti.getId())) {
+            buffer.tasks.put(ti.getId(), new TouchedTask(ti, added));
+        } else {
+            // keep the added flag but refer to the latest instance of the task
+            buffer.tasks.get(ti.getId()).task = ti;
+        }
+        return true;
+    }
+
+    protected AuditedValues loadAuditedValues(TaskEvent event, AuditBuffer buffer, Task ti) {
+        TaskPersistenceContext persistenceContext = getPersistenceContext(buffer.persistenceContext);
+        try {
+            AuditTaskImpl auditTaskImpl = getAuditTask(event, persistenceContext, ti);
+            if (auditTaskImpl == null) {
+                return null;
+            }
+            return new AuditedValues(auditTaskImpl.getName(), auditTaskImpl.getDescription(),
+                    auditTaskImpl.getPriority(), auditTaskImpl.getDueDate());
+        } finally {
+            cleanup(persistenceContext);
+        }
+    }
+
+    protected TaskEventImpl createTaskEvent(Task ti, TaskEventType type) {
+        String userId = "";
+        if (type == TaskEventType.ADDED && ti.getTaskData().getProcessId() != null) {
+            userId = ti.getTaskData().getProcessId();
+        } else if (ti.getTaskData().getActualOwner() != null) {
+            userId = ti.getTaskData().getActualOwner().getId();
+        }
+        if (type == TaskEventType.NOMINATED) {
+            return new TaskEventImpl(ti.getId(), type, userId, new Date());
+        }
+        return new TaskEventImpl(ti.getId(), type, ti.getTaskData().getProcessInstanceId(), ti.getTaskData().getWorkItemId(), userId);
+    }
+
+    protected AuditBuffer getBuffer(TaskContext context) {
+        Object txm = context.get(EnvironmentName.TRANSACTION_MANAGER);
+        if (!(txm instanceof TransactionManager) || ((TransactionManager) txm).getStatus() != TransactionManager.STATUS_ACTIVE
+                || !(context.getPersistenceContext() instanceof JPATaskPersistenceContext)) {
+            return null;
+        }
+        AuditBuffer buffer = (AuditBuffer) context.get(bufferKey);
+        if (buffer == null) {
+            buffer = new AuditBuffer();
+            TransactionManagerHelper.registerTransactionSyncInContainer((TransactionManager) txm, new AuditSynchronization(buffer));
+            context.set(bufferKey, buffer);
+        }
+        buffer.persistenceContext = context.getPersistenceContext();
+        return buffer;
+    }
+
+    protected void write(AuditBuffer buffer) {
+        if (buffer.tasks.isEmpty() && buffer.events.isEmpty()) {
+            return;
+        }
+        TaskPersistenceContext persistenceContext = getPersistenceContext(buffer.persistenceContext);
+        try {
+            for (TouchedTask touched : buffer.tasks.values()) {
+                Task ti = touched.task;
+                if (touched.added) {
+                    persistenceContext.persist(createAuditTask(ti));
+                    continue;
+                }
+                int updated = ((JPATaskPersistenceContext) persistenceContext).executeUpdate("updateAuditTaskByTaskId",
+                        persistenceContext.addParametersToMap(
+                            "taskId", ti.getId(),
+                            "status", ti.getTaskData().getStatus().name(),
+                            "actualOwner", ti.getTaskData().getActualOwner() != null ? ti.getTaskData().getActualOwner().getId() : "",
+                            "name", ti.getName(),
+                            "description", ti.getDescription(),
+                            "priority", ti.getPriority(),
+                            "activationTime", ti.getTaskData().getActivationTime(),
+                            "dueDate", ti.getTaskData().getExpirationTime()));
+                if (updated == 0) {
+                    logger.warn("Unable find audit task entry for task id {} '{}', skipping audit task update", ti.getId(), ti.getName());
+                }
+            }
+            for (TaskEventImpl taskEvent : buffer.events) {
+                persistenceContext.persist(taskEvent);
+            }
+            // transaction is being completed, make sure the changes are written before it is
+            ((JPATaskPersistenceContext) persistenceContext).flush();
+        } finally {
+            buffer.tasks.clear();
+            buffer.events.clear();
+            cleanup(persistenceContext);
+        }
+    }
+
+    protected static class AuditBuffer {
+
+        private final Map<Long, TouchedTask> tasks = new LinkedHashMap<Long, TouchedTask>();
+        private final List<TaskEventImpl> events = new ArrayList<TaskEventImpl>();
+        private TaskPersistenceContext persistenceContext;
+    }
+
+    private static class TouchedTask {
+
+        private Task task;
+        private final boolean added;
+        // values of the audit task the next update is described against, null until known
+        private AuditedValues audited;
+
+        TouchedTask(Task task, boolean added) {
+            this.task = task;
+            this.added = added;
+            if (added) {
+                this.audited = new AuditedValues(task);
+            }
+        }
+    }
+
+    protected static class AuditedValues {
+
+        private final String name;
+        private final String description;
+        private final int priority;
+        private final Date dueDate;
+
+        AuditedValues(Task ti) {
+            this(ti.getName(), ti.getDescription(), ti.getPriority(), ti.getTaskData().getExpirationTime());
+        }
+
+        AuditedValues(String name, String description, int priority, Date dueDate) {
+            this.name = name;
+            this.description = description;
+            this.priority = priority;
+            this.dueDate = dueDate;
+        }
+
+        /**
+         * @return messages of UPDATED task events in the same form and order as <code>JPATaskLifeCycleEventListener</code>
+         */
+        List<String> describeChanges(Task ti) {
+            List<String> messages = new ArrayList<String>();
+            if ((ti.getDescription() != null && !ti.getDescription().equals(description))
+                    || (ti.getDescription() == null && description != null)) {
+                messages.add("Updated Description {From: " + description + ", to: " + ti.getDescription() + "}");
+            }
+            if ((ti.getName() != null && !ti.getName().equals(name))
+                    || (ti.getName() == null && name != null)) {
+                messages.add("Updated Name {From: " + name + ", to: " + ti.getName() + "}");
+            }
+            if (priority != ti.getPriority()) {
+                messages.add("Updated Priority {From: " + priority + ", to: " + ti.getPriority() + "}");
+            }
+            Date expirationTime = ti.getTaskData().getExpirationTime();
+            if ((dueDate != null && expirationTime != null && dueDate.getTime() != expirationTime.getTime())
+                    || (dueDate == null && expirationTime != null)
+                    || (dueDate != null && expirationTime == null)) {
+                messages.add("Updated DueDate {From: " + dueDate + ", to: " + expirationTime + "}");
+            }
+            return messages;
+        }
+    }
+
+    private class AuditSynchronization extends OrderedTransactionSynchronization {
+
+        private final AuditBuffer buffer;
+
+        AuditSynchronization(AuditBuffer buffer) {
+            super(2, "TaskAudit-" + System.identityHashCode(buffer));
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void beforeCompletion() {
+            write(buffer);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            // buffer is bound to the transaction and goes away with it
+        }
+    }
+}
@@ -249,18 +249,7 @@ public class JPATaskLifeCycleEventListener extends PersistableEventListener impl
 	        }else if(ti.getTaskData().getActualOwner() != null){
 	            userId = ti.getTaskData().getActualOwner().getId();
 	        }
-	        AuditTaskImpl auditTaskImpl = new AuditTaskImpl( ti.getId(),ti.getName(),  ti.getTaskData().getStatus().name(),
-	                                                                                ti.getTaskData().getActivationTime() ,
-	                                                                                (ti.getTaskData().getActualOwner() != null)?ti.getTaskData().getActualOwner().getId():"",
-	                                                                                ti.getDescription(), ti.getPriority(),
-	                                                                                (ti.getTaskData().getCreatedBy() != null)?ti.getTaskData().getCreatedBy().getId():"",
-	                                                                                ti.getTaskData().getCreatedOn(), 
-	                                                                                ti.getTaskData().getExpirationTime(), ti.getTaskData().getProcessInstanceId(), 
-	                                                                                ti.getTaskData().getProcessId(), ti.getTaskData().getProcessSessionId(),
-	                                                                                ti.getTaskData().getDeploymentId(),
-	                                                                                ti.getTaskData().getParentId(),
-	                                                                                ti.getTaskData().getWorkItemId());
-                
+	        AuditTaskImpl auditTaskImpl = createAuditTask(ti);
 
                 persistenceContext.persist(auditTaskImpl);
 	        
@@ -501,6 +490,20 @@ public class JPATaskLifeCycleEventListener extends PersistableEventListener impl
         return auditTaskImpl;
     }
 
+    protected AuditTaskImpl createAuditTask(Task ti) {
+        return new AuditTaskImpl(ti.getId(), ti.getName(), ti.getTaskData().getStatus().name(),
+                ti.getTaskData().getActivationTime(),
+                (ti.getTaskData().getActualOwner() != null) ? ti.getTaskData().getActualOwner().getId() : "",
+                ti.getDescription(), ti.getPriority(),
+                (ti.getTaskData().getCreatedBy() != null) ? ti.getTaskData().getCreatedBy().getId() : "",
+                ti.getTaskData().getCreatedOn(),
+                ti.getTaskData().getExpirationTime(), ti.getTaskData().getProcessInstanceId(),
+                ti.getTaskData().getProcessId(), ti.getTaskData().getProcessSessionId(),
+                ti.getTaskData().getDeploymentId(),
+                ti.getTaskData().getParentId(),
+                ti.getTaskData().getWorkItemId());
+    }
+
 	/*
      * helper methods - end
      */
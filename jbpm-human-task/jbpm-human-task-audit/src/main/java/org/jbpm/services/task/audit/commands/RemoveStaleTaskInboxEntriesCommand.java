@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.services.task.audit.commands;
+
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSchemaType;
+
+import org.jbpm.services.task.commands.TaskCommand;
+import org.jbpm.services.task.lifecycle.listeners.TaskInboxEventListener;
+import org.jbpm.services.task.utils.ClassUtil;
+import org.kie.internal.command.Context;
+import org.kie.internal.task.api.TaskContext;
+import org.kie.internal.task.api.TaskPersistenceContext;
+
+/**
+ * Finds (and optionally removes) task inbox rows of tasks that are archived, in a final state or no longer exist.
+ * Returns ids of such tasks, at most given number of them.
+ */
+@XmlRootElement(name="remove-stale-task-inbox-entries-command")
+@XmlAccessorType(XmlAccessType.NONE)
+public class RemoveStaleTaskInboxEntriesCommand extends TaskCommand<List<Long>> {
+
+    private static final long serialVersionUID = -3117498262613049113L;
+
+    @XmlElement
+    @XmlSchemaType(name="int")
+    private int maxResults;
+
+    @XmlElement
+    @XmlSchemaType(name="boolean")
+    private boolean repair;
+
+    public RemoveStaleTaskInboxEntriesCommand() {
+    }
+
+    public RemoveStaleTaskInboxEntriesCommand(int maxResults, boolean repair) {
+        this.maxResults = maxResults;
+        this.repair = repair;
+    }
+
+    @Override
+    public List<Long> execute(Context context) {
+        TaskPersistenceContext persistenceContext = ((TaskContext) context).getPersistenceContext();
+        List<Long> taskIds = persistenceContext.queryWithParametersInTransaction("getStaleTaskInboxTaskIds",
+                persistenceContext.addParametersToMap("status", TaskInboxEventListener.ACTIVE_STATUSES, "maxResults", maxResults),
+                ClassUtil.<List<Long>>castClass(List.class));
+
+        if (repair && !taskIds.isEmpty()) {
+            StringBuilder ids = new StringBuilder();
+            for (Long id : taskIds) {
+                if (ids.length() > 0) {
+                    ids.append(", ");
+                }
+                ids.append(id);
+            }
+            persistenceContext.executeUpdateString("delete from TaskInboxEntryImpl t where t.taskId in (" + ids + ")");
+        }
+        return taskIds;
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.services.task.audit.commands;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSchemaType;
+
+import org.jbpm.services.task.commands.TaskCommand;
+import org.jbpm.services.task.lifecycle.listeners.TaskInboxEventListener;
+import org.jbpm.services.task.utils.ClassUtil;
+import org.kie.api.task.model.Task;
+import org.kie.internal.command.Context;
+import org.kie.internal.task.api.TaskContext;
+import org.kie.internal.task.api.TaskPersistenceContext;
+
+/**
+ * Checks (and optionally repairs) task inbox rows of one batch of active tasks with id greater than given task id.
+ * Returns consistency of inbox rows of every processed task keyed by task id in ascending order, empty map
+ * means there are no more tasks.
+ */
+@XmlRootElement(name="synchronize-task-inbox-command")
+@XmlAccessorType(XmlAccessType.NONE)
+public class SynchronizeTaskInboxCommand extends TaskCommand<Map<Long, Boolean>> {
+
+    private static final long serialVersionUID = 2467734364946380233L;
+
+    @XmlElement
+    @XmlSchemaType(name="int")
+    private int batchSize;
+
+    @XmlElement
+    @XmlSchemaType(name="boolean")
+    private boolean repair;
+
+    public SynchronizeTaskInboxCommand() {
+    }
+
+    public SynchronizeTaskInboxCommand(long afterTaskId, int batchSize, boolean repair) {
+        this.taskId = afterTaskId;
+        this.batchSize = batchSize;
+        this.repair = repair;
+    }
+
+    @Override
+    public Map<Long, Boolean> execute(Context context) {
+        TaskPersistenceContext persistenceContext = ((TaskContext) context).getPersistenceContext();
+        List<Task> tasks = persistenceContext.queryWithParametersInTransaction("getTasksForTaskInbox",
+                persistenceContext.addParametersToMap("taskId", taskId, "status", TaskInboxEventListener.ACTIVE_STATUSES,
+                        "maxResults", batchSize),
+                ClassUtil.<List<Task>>castClass(List.class));
+
+        Map<Long, Boolean> result = new LinkedHashMap<Long, Boolean>();
+        for (Task task : tasks) {
+            result.put(task.getId(), TaskInboxEventListener.synchronize(persistenceContext, task, repair));
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.services.task.audit.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.jbpm.services.task.audit.commands.RemoveStaleTaskInboxEntriesCommand;
+import org.jbpm.services.task.audit.commands.SynchronizeTaskInboxCommand;
+import org.kie.api.task.TaskService;
+import org.kie.internal.task.api.InternalTaskService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rebuilds and checks consistency of the task inbox maintained by <code>TaskInboxEventListener</code>.
+ * Active tasks are processed in batches, each batch in its own transaction, so both operations can be
+ * executed while the task service is in use.
+ */
+public class TaskInboxMaintenance {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskInboxMaintenance.class);
+
+    private final InternalTaskService taskService;
+    private final int batchSize;
+
+    public TaskInboxMaintenance(TaskService taskService) {
+        this(taskService, 500);
+    }
+
+    public TaskInboxMaintenance(TaskService taskService, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than zero, got " + batchSize);
+        }
+        this.taskService = (InternalTaskService) taskService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Populates the inbox with rows of all active tasks and removes rows of tasks that are not active anymore.
+     * @return report of inconsistencies that were repaired
+     */
+    public Report rebuild() {
+        return process(true);
+    }
+
+    /**
+     * Compares the inbox with active tasks without modifying it.
+     * @return report of inconsistencies found
+     */
+    public Report check() {
+        return process(false);
+    }
+
+    protected Report process(boolean repair) {
+        Report report = new Report();
+        List<Long> stale;
+        do {
+            stale = taskService.execute(new RemoveStaleTaskInboxEntriesCommand(repair ? batchSize : -1, repair));
+            report.staleTaskIds.addAll(stale);
+        } while (repair && stale.size() == batchSize);
+
+        long lastTaskId = 0;
+        Map<Long, Boolean> batch;
+        do {
+            batch = taskService.execute(new SynchronizeTaskInboxCommand(lastTaskId, batchSize, repair));
+            for (Entry<Long, Boolean> entry : batch.entrySet()) {
+                lastTaskId = entry.getKey();
+                report.checkedTasks++;
+                if (!entry.getValue()) {
+                    report.inconsistentTaskIds.add(entry.getKey());
+                }
+            }
+        } while (batch.size() == batchSize);
+
+        logger.info("Task inbox {}: {} active tasks checked, {} inconsistent, {} stale", repair ? "rebuilt" : "checked",
+                report.checkedTasks, report.inconsistentTaskIds.size(), report.staleTaskIds.size());
+        return report;
+    }
+
+    public static class Report {
+
+        private int checkedTasks;
+        private final List<Long> inconsistentTaskIds = new ArrayList<Long>();
+        private final List<Long> staleTaskIds = new ArrayList<Long>();
+
+        /**
+         * Number of active tasks which inbox rows were checked.
+         */
+        public int getCheckedTasks() {
+            return checkedTasks;
+        }
+
+        /**
+         * Ids of active tasks which inbox rows were missing or did not match the task.
+         */
+        public List<Long> getInconsistentTaskIds() {
+            return inconsistentTaskIds;
+        }
+
+        /**
+         * Ids of tasks that have inbox rows although they are archived, in a final state or do not exist.
+         */
+        public List<Long> getStaleTaskIds() {
+            return staleTaskIds;
+        }
+
+        public boolean isConsistent() {
+            return inconsistentTaskIds.isEmpty() && staleTaskIds.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.services.task.lifecycle.listeners;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.jbpm.services.task.impl.model.TaskInboxEntryImpl;
+import org.jbpm.services.task.persistence.PersistableEventListener;
+import org.jbpm.services.task.utils.ClassUtil;
+import org.kie.api.task.TaskEvent;
+import org.kie.api.task.model.OrganizationalEntity;
+import org.kie.api.task.model.Status;
+import org.kie.api.task.model.Task;
+import org.kie.internal.task.api.TaskContext;
+import org.kie.internal.task.api.TaskPersistenceContext;
+import org.kie.internal.task.api.model.InternalPeopleAssignments;
+import org.kie.internal.task.api.model.InternalTask;
+
+/**
+ * <p>This listener keeps the task inbox (table TASKINBOX) in sync with tasks - every task that is neither archived
+ * nor in a final state has one row per potential owner and one row per excluded owner holding the columns of
+ * task summary. Potential owner queries of active tasks of <code>TaskQueryService</code> read only the inbox when
+ * <code>org.jbpm.ht.inbox.enabled</code> system property is set to true, in which case <code>HumanTaskConfigurator</code>
+ * registers this listener on every task service it builds.</p>
+ *
+ * <p>Rows of a task are compared with the task after every change and only rows that differ are inserted,
+ * updated or deleted. Inbox of tasks created before the listener was registered can be populated with
+ * <code>TaskInboxMaintenance</code> that also checks consistency of the inbox.</p>
+ */
+public class TaskInboxEventListener extends PersistableEventListener implements TaskLifeCycleEventListener {
+
+    public static final List<Status> ACTIVE_STATUSES = Collections.unmodifiableList(Arrays.asList(
+            Status.Created, Status.Ready, Status.Reserved, Status.InProgress, Status.Suspended));
+
+    public TaskInboxEventListener(boolean flag) {
+        super(null);
+    }
+
+    public TaskInboxEventListener(EntityManagerFactory emf) {
+        super(emf);
+    }
+
+    /**
+     * Brings inbox rows of given task in line with the task.
+     * @param persistenceContext persistence context to be used
+     * @param task task which inbox rows should be checked
+     * @param repair if true rows that differ from the task are fixed, otherwise they are only reported
+     * @return true if inbox rows were consistent with the task
+     */
+    public static boolean synchronize(TaskPersistenceContext persistenceContext, Task task, boolean repair) {
+        List<TaskInboxEntryImpl> entries = persistenceContext.queryWithParametersInTransaction("getTaskInboxEntriesByTaskId",
+                persistenceContext.addParametersToMap("taskId", task.getId()),
+                ClassUtil.<List<TaskInboxEntryImpl>>castClass(List.class));
+
+        Set<String> missing = new LinkedHashSet<String>();
+        if (isActive(task)) {
+            for (OrganizationalEntity entity : task.getPeopleAssignments().getPotentialOwners()) {
+                missing.add(key(entity.getId(), false));
+            }
+            List<OrganizationalEntity> excludedOwners = ((InternalPeopleAssignments) task.getPeopleAssignments()).getExcludedOwners();
+            if (excludedOwners != null) {
+                for (OrganizationalEntity entity : excludedOwners) {
+                    missing.add(key(entity.getId(), true));
+                }
+            }
+        }
+
+        boolean consistent = true;
+        for (TaskInboxEntryImpl entry : entries) {
+            if (!missing.remove(key(entry.getEntityId(), entry.isExcluded()))) {
+                // entity no longer assigned, duplicate row or task no longer active
+                consistent = false;
+                if (repair) {
+                    persistenceContext.remove(entry);
+                }
+            } else if (!entry.matches(task)) {
+                consistent = false;
+                if (repair) {
+                    entry.update(task);
+                    persistenceContext.merge(entry);
+                }
+            }
+        }
+        for (String key : missing) {
+            consistent = false;
+            if (repair) {
+                persistenceContext.persist(new TaskInboxEntryImpl(task, key.substring(2), key.charAt(0) == 'E'));
+            }
+        }
+        return consistent;
+    }
+
+    public static boolean isActive(Task task) {
+        return !Boolean.TRUE.equals(((InternalTask) task).isArchived())
+                && ACTIVE_STATUSES.contains(task.getTaskData().getStatus());
+    }
+
+    private static String key(String entityId, boolean excluded) {
+        return (excluded ? "E:" : "P:") + entityId;
+    }
+
+    protected void synchronize(TaskEvent event) {
+        TaskPersistenceContext persistenceContext = getPersistenceContext(((TaskContext) event.getTaskContext()).getPersistenceContext());
+        try {
+            synchronize(persistenceContext, event.getTask(), true);
+        } finally {
+            cleanup(persistenceContext);
+        }
+    }
+
+    @Override
+    public void afterTaskActivatedEvent(TaskEvent event) {
+        synchronize(event);
+    }
+
+    @Override
+    public void afterTaskClaimedEvent(TaskEvent event) {
+        synchronize(event);
+    }
+
+    @Override
+    public void afterTaskSkippedEvent(TaskEvent event) {
+        synchronize(event);
+    }
+
+    @Override
+    public void afterTaskStartedEvent(TaskEvent event) {
+        synchronize(event);
+    }
+
+    @Override
+    public void afterTaskStoppedEvent(TaskEvent event) {
+        synchronize(event);
+    }
+
+    @Override
+    public void afterTaskCompletedEvent(TaskEvent event) {
+        synchronize(event);
+    }
+
+    @Override
+    public void afterTaskFailedEvent(TaskEvent event) {
+        synchronize(event);
+    }
+
+    @Override
+    public void afterTaskAddedEvent(TaskEvent event) {
+        synchronize(event);
+    }
+
+    @Override
+    public void afterTaskExitedEvent(TaskEvent event) {
+        synchronize(event);
+    }
+
+    @Override
+    public void afterTaskReleasedEvent(TaskEvent event) {
+        synchronize(event);
+    }
+
+    @Override
+    public void afterTaskResumedEvent(TaskEvent event) {
+        synchronize(event);
+    }
+
+    @Override
+    public void afterTaskSuspendedEvent(TaskEvent event) {
+        synchronize(event);
+    }
+
+    @Override
+    public void afterTaskForwardedEvent(TaskEvent event) {
+        synchronize(event);
+    }
+
+    @Override
+    public void afterTaskDelegatedEvent(TaskEvent event) {
+        synchronize(event);
+    }
+
+    @Override
+    public void afterTaskNominatedEvent(TaskEvent event) {
+        synchronize(event);
+    }
+
+    @Override
+    public void afterTaskUpdatedEvent(TaskEvent event) {
+        synchronize(event);
+    }
+
+    @Override
+    public void beforeTaskActivatedEvent(TaskEvent event) {
+    }
+
+    @Override
+    public void beforeTaskClaimedEvent(TaskEvent event) {
+    }
+
+    @Override
+    public void beforeTaskSkippedEvent(TaskEvent event) {
+    }
+
+    @Override
+    public void beforeTaskStartedEvent(TaskEvent event) {
+    }
+
+    @Override
+    public void beforeTaskStoppedEvent(TaskEvent event) {
+    }
+
+    @Override
+    public void beforeTaskCompletedEvent(TaskEvent event) {
+    }
+
+    @Override
+    public void beforeTaskFailedEvent(TaskEvent event) {
+    }
+
+    @Override
+    public void beforeTaskAddedEvent(TaskEvent event) {
+    }
+
+    @Override
+    public void beforeTaskExitedEvent(TaskEvent event) {
+    }
+
+    @Override
+    public void beforeTaskReleasedEvent(TaskEvent event) {
+    }
+
+    @Override
+    public void beforeTaskResumedEvent(TaskEvent event) {
+    }
+
+    @Override
+    public void beforeTaskSuspendedEvent(TaskEvent event) {
+    }
+
+    @Override
+    public void beforeTaskForwardedEvent(TaskEvent event) {
+    }
+
+    @Override
+    public void beforeTaskDelegatedEvent(TaskEvent event) {
+    }
+
+    @Override
+    public void beforeTaskNominatedEvent(TaskEvent event) {
+    }
+
+    @Override
+    public void beforeTaskUpdatedEvent(TaskEvent event) {
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.services.task.audit.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import javax.naming.InitialContext;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import javax.transaction.UserTransaction;
+
+import org.jbpm.services.task.HumanTaskServiceFactory;
+import org.jbpm.services.task.HumanTaskServicesBaseTest;
+import org.jbpm.services.task.audit.CoalescingTaskLifeCycleEventListener;
+import org.jbpm.services.task.audit.JPATaskLifeCycleEventListener;
+import org.jbpm.services.task.audit.impl.model.AuditTaskImpl;
+import org.jbpm.services.task.audit.impl.model.TaskEventImpl;
+import org.jbpm.services.task.utils.TaskFluent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.task.TaskLifeCycleEventListener;
+import org.kie.api.task.model.Task;
+import org.kie.internal.task.api.InternalTaskService;
+
+import bitronix.tm.resource.jdbc.PoolingDataSource;
+
+/**
+ * Compares audit written by <code>CoalescingTaskLifeCycleEventListener</code> with audit written by
+ * <code>JPATaskLifeCycleEventListener</code> for the same task operations.
+ */
+public class CoalescingTaskAuditTest extends HumanTaskServicesBaseTest {
+
+    private PoolingDataSource pds;
+    private EntityManagerFactory emf;
+
+    @Before
+    public void setup() {
+        pds = setupPoolingDataSource();
+    }
+
+    @After
+    public void clean() {
+        if (emf != null) {
+            emf.close();
+        }
+        if (pds != null) {
+            pds.close();
+        }
+    }
+
+    @Test
+    public void testCoalescedAuditMatchesDefaultAudit() throws Exception {
+        List<String> expected = runTaskOperations(new JPATaskLifeCycleEventListener(true));
+        List<String> coalesced = runTaskOperations(new CoalescingTaskLifeCycleEventListener(true));
+
+        assertEquals(expected, coalesced);
+    }
+
+    protected List<String> runTaskOperations(TaskLifeCycleEventListener listener) throws Exception {
+        if (emf != null) {
+            emf.close();
+        }
+        emf = Persistence.createEntityManagerFactory("org.jbpm.services.task");
+        this.taskService = (InternalTaskService) HumanTaskServiceFactory.newTaskServiceConfigurator()
+                                                .entityManagerFactory(emf)
+                                                .listener(listener)
+                                                .getTaskService();
+
+        UserTransaction ut = InitialContext.doLookup("java:comp/UserTransaction");
+        ut.begin();
+        Task task = new TaskFluent().setName("This is my task name")
+                .addPotentialGroup("Knights Templer")
+                .setAdminUser("Administrator")
+                .getTask();
+        long taskId = taskService.addTask(task, new HashMap<String, Object>());
+        // task added within the transaction has no audit task row yet
+        taskService.setPriority(taskId, 5);
+        taskService.claim(taskId, "salaboy");
+        taskService.release(taskId, "salaboy");
+        taskService.claim(taskId, "salaboy");
+        taskService.start(taskId, "salaboy");
+        taskService.complete(taskId, "salaboy", null);
+        ut.commit();
+
+        // update described against audit task row written by previous transaction
+        ut.begin();
+        taskService.setPriority(taskId, 8);
+        ut.commit();
+
+        return describeAudit(taskId);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected List<String> describeAudit(long taskId) {
+        List<String> rows = new ArrayList<String>();
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<AuditTaskImpl> auditTasks = em.createQuery("select t from AuditTaskImpl t where t.taskId = :taskId")
+                    .setParameter("taskId", taskId).getResultList();
+            for (AuditTaskImpl auditTask : auditTasks) {
+                rows.add("task " + auditTask.getName() + " " + auditTask.getStatus() + " " + auditTask.getActualOwner()
+                        + " " + auditTask.getPriority() + " " + auditTask.getCreatedBy());
+            }
+            List<TaskEventImpl> events = em.createQuery("select e from TaskEventImpl e where e.taskId = :taskId order by e.id")
+                    .setParameter("taskId", taskId).getResultList();
+            for (TaskEventImpl event : events) {
+                rows.add("event " + event.getType() + " " + event.getUserId() + " " + event.getMessage());
+            }
+        } finally {
+            em.close();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.services.task.audit.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import org.jbpm.services.task.HumanTaskServiceFactory;
+import org.jbpm.services.task.HumanTaskServicesBaseTest;
+import org.jbpm.services.task.impl.TaskQueryServiceImpl;
+import org.jbpm.services.task.utils.TaskFluent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.task.model.Status;
+import org.kie.api.task.model.Task;
+import org.kie.api.task.model.TaskSummary;
+import org.kie.internal.task.api.InternalTaskService;
+
+import bitronix.tm.resource.jdbc.PoolingDataSource;
+
+public class TaskInboxTest extends HumanTaskServicesBaseTest {
+
+    private PoolingDataSource pds;
+    private EntityManagerFactory emf;
+
+    @Before
+    public void setup() {
+        pds = setupPoolingDataSource();
+        emf = Persistence.createEntityManagerFactory( "org.jbpm.services.task" );
+
+        // configurator registers the inbox listener when the inbox is enabled
+        TaskQueryServiceImpl.setTaskInboxEnabled(true);
+        this.taskService = (InternalTaskService) HumanTaskServiceFactory.newTaskServiceConfigurator()
+                                                .entityManagerFactory(emf)
+                                                .getTaskService();
+    }
+
+    @After
+    public void clean() {
+        TaskQueryServiceImpl.setTaskInboxEnabled(false);
+        if (emf != null) {
+            emf.close();
+        }
+        if (pds != null) {
+            pds.close();
+        }
+    }
+
+    @Test
+    public void testInboxFollowsTaskLifecycle() {
+        Task task = new TaskFluent().setName("This is my task name")
+                .addPotentialGroup("Knights Templer")
+                .addPotentialUser("Darth Vader")
+                .setAdminUser("Administrator")
+                .getTask();
+        taskService.addTask(task, new HashMap<String, Object>());
+        long taskId = task.getId();
+
+        List<TaskSummary> tasks = taskService.getTasksAssignedAsPotentialOwner("salaboy", null, null, null);
+        assertEquals(1, tasks.size());
+        assertEquals(taskId, tasks.get(0).getId().longValue());
+        assertEquals(Status.Ready, tasks.get(0).getStatus());
+
+        taskService.claim(taskId, "Darth Vader");
+        assertTrue(taskService.getTasksAssignedAsPotentialOwner("salaboy", null, null, null).isEmpty());
+        tasks = taskService.getTasksAssignedAsPotentialOwner("Darth Vader", null, null, null);
+        assertEquals(1, tasks.size());
+        assertEquals(Status.Reserved, tasks.get(0).getStatus());
+        assertEquals("Darth Vader", tasks.get(0).getActualOwnerId());
+
+        taskService.release(taskId, "Darth Vader");
+        assertEquals(1, taskService.getTasksAssignedAsPotentialOwner("salaboy", null, null, null).size());
+
+        taskService.start(taskId, "Darth Vader");
+        taskService.complete(taskId, "Darth Vader", null);
+        assertTrue(taskService.getTasksAssignedAsPotentialOwner("Darth Vader", null, null, null).isEmpty());
+
+        // inbox holds active tasks only, other statuses are read from tasks
+        tasks = taskService.getTasksAssignedAsPotentialOwner("Darth Vader", null, Collections.singletonList(Status.Completed), null);
+        assertEquals(1, tasks.size());
+        assertEquals(Status.Completed, tasks.get(0).getStatus());
+
+        TaskInboxMaintenance.Report report = new TaskInboxMaintenance(taskService).check();
+        assertTrue(report.isConsistent());
+    }
+
+    @Test
+    public void testInboxRebuild() {
+        // tasks added without the listener have no inbox rows
+        TaskQueryServiceImpl.setTaskInboxEnabled(false);
+        InternalTaskService plainTaskService = (InternalTaskService) HumanTaskServiceFactory.newTaskServiceConfigurator()
+                .entityManagerFactory(emf)
+                .getTaskService();
+        TaskQueryServiceImpl.setTaskInboxEnabled(true);
+        Task task = new TaskFluent().setName("This is my task name")
+                .addPotentialGroup("Knights Templer")
+                .setAdminUser("Administrator")
+                .getTask();
+        plainTaskService.addTask(task, new HashMap<String, Object>());
+        assertTrue(taskService.getTasksAssignedAsPotentialOwner("salaboy", null, null, null).isEmpty());
+
+        TaskInboxMaintenance maintenance = new TaskInboxMaintenance(taskService, 1);
+        TaskInboxMaintenance.Report report = maintenance.check();
+        assertFalse(report.isConsistent());
+        assertEquals(Collections.singletonList(task.getId()), report.getInconsistentTaskIds());
+
+        maintenance.rebuild();
+        assertTrue(maintenance.check().isConsistent());
+        assertEquals(1, taskService.getTasksAssignedAsPotentialOwner("salaboy", null, null, null).size());
+
+        // completed without the listener, inbox rows are stale
+        plainTaskService.claim(task.getId(), "salaboy");
+        plainTaskService.start(task.getId(), "salaboy");
+        plainTaskService.complete(task.getId(), "salaboy", null);
+        report = maintenance.check();
+        assertEquals(Collections.singletonList(task.getId()), report.getStaleTaskIds());
+
+        maintenance.rebuild();
+        assertTrue(maintenance.check().isConsistent());
+    }
+
+    @Test
+    public void testInboxFollowsArchiveAndRemove() {
+        Task task = new TaskFluent().setName("This is my task name")
+                .addPotentialGroup("Knights Templer")
+                .setAdminUser("Administrator")
+                .getTask();
+        taskService.addTask(task, new HashMap<String, Object>());
+        Task other = new TaskFluent().setName("This is my other task name")
+                .addPotentialGroup("Knights Templer")
+                .setAdminUser("Administrator")
+                .getTask();
+        taskService.addTask(other, new HashMap<String, Object>());
+        List<TaskSummary> tasks = taskService.getTasksAssignedAsPotentialOwner("salaboy", null, null, null);
+        assertEquals(2, tasks.size());
+
+        // archiving does not fire task events, inbox rows are removed by the admin service
+        assertEquals(1, taskService.archiveTasks(Collections.singletonList(tasks.get(0))));
+        assertEquals(1, taskService.getTasksAssignedAsPotentialOwner("salaboy", null, null, null).size());
+        TaskInboxMaintenance maintenance = new TaskInboxMaintenance(taskService);
+        assertTrue(maintenance.check().isConsistent());
+
+        assertEquals(1, taskService.removeTasks(taskService.getArchivedTasks()));
+        assertEquals(1, taskService.getTasksAssignedAsPotentialOwner("salaboy", null, null, null).size());
+        assertTrue(maintenance.check().isConsistent());
+
+        assertEquals(1, taskService.removeAllTasks());
+        assertTrue(taskService.getTasksAssignedAsPotentialOwner("salaboy", null, null, null).isEmpty());
+        assertTrue(maintenance.check().isConsistent());
+    }
+}
@@ -30,6 +30,7 @@ import org.jbpm.services.task.events.TaskEventSupport;
 import org.jbpm.services.task.identity.DefaultUserInfo;
 import org.jbpm.services.task.identity.MvelUserGroupCallbackImpl;
 import org.jbpm.services.task.impl.TaskDeadlinesServiceImpl;
+import org.jbpm.services.task.impl.TaskQueryServiceImpl;
 import org.jbpm.services.task.impl.command.CommandBasedTaskService;
 import org.kie.api.runtime.Environment;
 import org.kie.api.runtime.EnvironmentName;
@@ -63,6 +64,7 @@ public class HumanTaskConfigurator {
 	private static final String DEFAULT_INTERCEPTOR = "org.jbpm.services.task.persistence.TaskTransactionInterceptor";
 	private static final String TX_LOCK_INTERCEPTOR = "org.drools.persistence.jta.TransactionLockInterceptor";
 	private static final String OPTIMISTIC_LOCK_INTERCEPTOR = "org.drools.persistence.jpa.OptimisticLockRetryInterceptor";
+	private static final String TASK_INBOX_LISTENER = "org.jbpm.services.task.lifecycle.listeners.TaskInboxEventListener";
 
     private TaskService service;
     private TaskCommandExecutorImpl commandExecutor;
@@ -148,6 +150,7 @@ public class HumanTaskConfigurator {
         	}        	
         	
             service = new CommandBasedTaskService(this.commandExecutor, taskEventSupport); 
+            addTaskInboxListener();
             // register listeners
             for (TaskLifeCycleEventListener listener : listeners) {
             	((EventService<TaskLifeCycleEventListener>) service).registerTaskEventListener(listener);
@@ -204,6 +207,29 @@ public class HumanTaskConfigurator {
     				OPTIMISTIC_LOCK_INTERCEPTOR, e.getMessage(), e);
     	}
     }
+    
+    @SuppressWarnings("unchecked")
+	protected void addTaskInboxListener() {
+    	// potential owner queries read the task inbox only when it is maintained by this task service
+    	if (!TaskQueryServiceImpl.isTaskInboxEnabled()) {
+    		return;
+    	}
+    	for (TaskLifeCycleEventListener listener : listeners) {
+    		if (listener.getClass().getName().equals(TASK_INBOX_LISTENER)) {
+    			return;
+    		}
+    	}
+    	try {
+    		Class<TaskLifeCycleEventListener> inboxListenerClass = (Class<TaskLifeCycleEventListener>) Class.forName(TASK_INBOX_LISTENER);
+    		Constructor<TaskLifeCycleEventListener> constructor = inboxListenerClass.getConstructor(new Class[] {boolean.class});
+    		
+    		listener(constructor.newInstance(true));
+    	} catch (Exception e) {
+    		logger.warn("No task inbox listener found of type {} might be missing jbpm-human-task-audit module on classpath, task inbox is disabled (error {}",
+    				TASK_INBOX_LISTENER, e.getMessage(), e);
+    		TaskQueryServiceImpl.setTaskInboxEnabled(false);
+    	}
+    }
    
     private static class PriorityInterceptor implements Comparable<PriorityInterceptor> {
     	private Integer priority;
@@ -101,6 +101,10 @@ public class ExecuteDeadlinesCommand extends TaskCommand<Void> {
 	        if (task == null || deadline == null) {
 	        	return null;
 	        }
+	        if (deadline.isEscalated()) {
+	        	// overlapping deadline scans may schedule the same deadline more than once
+	        	return null;
+	        }
 	        TaskData taskData = task.getTaskData();
 	        
 	        
@@ -15,12 +15,16 @@
 
 package org.jbpm.services.task.commands;
 
+import java.util.Date;
 import java.util.List;
 
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSchemaType;
 
+import org.jbpm.services.task.impl.TaskDeadlinesServiceImpl;
 import org.jbpm.services.task.utils.ClassUtil;
 import org.kie.internal.command.Context;
 import org.kie.internal.task.api.TaskDeadlinesService;
@@ -37,9 +41,25 @@ public class InitDeadlinesCommand extends TaskCommand<Void> {
 	private static final long serialVersionUID = -8095766991770311489L;
 	private static final Logger logger = LoggerFactory.getLogger(InitDeadlinesCommand.class);
 
+	@XmlElement
+	@XmlSchemaType(name="long")
+	private Long from;
+	@XmlElement
+	@XmlSchemaType(name="long")
+	private Long until;
+
 	public InitDeadlinesCommand() {		
 	}
 
+	/**
+	 * Schedules only unescalated deadlines due after <code>from</code> and not later than <code>until</code>
+	 * (both in milliseconds), loading them with single query per deadline type.
+	 */
+	public InitDeadlinesCommand(long from, long until) {
+		this.from = from;
+		this.until = until;
+	}
+
 	@Override
 	public Void execute(Context context) {
 		TaskContext ctx = (TaskContext) context;
@@ -49,6 +69,18 @@ public class InitDeadlinesCommand extends TaskCommand<Void> {
 		
         try {
 	        long now = System.currentTimeMillis();
+	        if (until != null && deadlineService instanceof TaskDeadlinesServiceImpl) {
+	        	// from may be missing when the command was sent without it, scan from the beginning then
+	        	long fromTime = from == null ? 0 : from;
+	        	for (DeadlineType type : new DeadlineType[] {DeadlineType.START, DeadlineType.END}) {
+	        		List<Object[]> deadlines = persistenceContext.queryWithParametersInTransaction(
+	        				type == DeadlineType.START ? "UnescalatedStartDeadlinesDue" : "UnescalatedEndDeadlinesDue",
+	        				persistenceContext.addParametersToMap("from", new Date(fromTime), "until", new Date(until)),
+	        				ClassUtil.<List<Object[]>>castClass(List.class));
+	        		((TaskDeadlinesServiceImpl) deadlineService).schedule(deadlines, type, now);
+	        	}
+	        	return null;
+	        }
 	        List<DeadlineSummary> resultList = persistenceContext.queryInTransaction("UnescalatedStartDeadlines",
 	        										ClassUtil.<List<DeadlineSummary>>castClass(List.class));
 	        for (DeadlineSummary summary : resultList) {
@@ -16,6 +16,7 @@
 package org.jbpm.services.task.commands;
 
 import org.jbpm.services.task.events.TaskEventSupport;
+import org.jbpm.services.task.identity.PersistedEntityCache;
 import org.jbpm.services.task.impl.TaskAdminServiceImpl;
 import org.jbpm.services.task.impl.TaskAttachmentServiceImpl;
 import org.jbpm.services.task.impl.TaskCommentServiceImpl;
@@ -94,7 +95,7 @@ public class TaskContext implements org.kie.internal.task.api.TaskContext {
     }
 
     public TaskIdentityService getTaskIdentityService() {
-        return new TaskIdentityServiceImpl(persistenceContext);
+        return new TaskIdentityServiceImpl(persistenceContext, getPersistedEntityCache());
     }
     
     public TaskAdminService getTaskAdminService() {
@@ -145,6 +146,10 @@ public class TaskContext implements org.kie.internal.task.api.TaskContext {
 		return (UserGroupCallback) get(EnvironmentName.TASK_USER_GROUP_CALLBACK);
 	}
 
+	private PersistedEntityCache getPersistedEntityCache() {
+		return PersistedEntityCache.get(environment == null ? null : environment.get(EnvironmentName.ENTITY_MANAGER_FACTORY));
+	}
+
 	private LifeCycleManager getMvelLifeCycleManager() { 
         return new MVELLifeCycleManager(this, persistenceContext, getTaskContentService(), taskEventSupport);
 	}
@@ -31,6 +31,9 @@ import javax.xml.bind.annotation.XmlTransient;
 
 import org.drools.core.util.StringUtils;
 import org.jbpm.services.task.exception.CannotAddTaskException;
+import org.jbpm.services.task.identity.PersistedEntityCache;
+import org.jbpm.services.task.identity.UserGroupCallbackCache;
+import org.kie.api.runtime.EnvironmentName;
 import org.kie.api.task.model.Attachment;
 import org.kie.api.task.model.Comment;
 import org.kie.api.task.model.Group;
@@ -92,7 +95,7 @@ public class UserGroupCallbackTaskCommand<T> extends TaskCommand<T> {
 
     protected boolean doCallbackUserOperation(String userId, TaskContext context) {
 
-        if (userId != null && context.getUserGroupCallback().existsUser(userId)) {
+        if (userId != null && getCallbackCache(context).existsUser(userId)) {
             addUserFromCallbackOperation(userId, context);
             return true;
         }
@@ -102,7 +105,7 @@ public class UserGroupCallbackTaskCommand<T> extends TaskCommand<T> {
 
     protected boolean doCallbackGroupOperation(String groupId, TaskContext context) {
 
-        if (groupId != null && context.getUserGroupCallback().existsGroup(groupId) && !restrictedGroups.contains(groupId)) {
+        if (groupId != null && getCallbackCache(context).existsGroup(groupId) && !restrictedGroups.contains(groupId)) {
             addGroupFromCallbackOperation(groupId, context);
             return true;
         }
@@ -111,9 +114,15 @@ public class UserGroupCallbackTaskCommand<T> extends TaskCommand<T> {
     }
 
     protected void addUserFromCallbackOperation(String userId, TaskContext context) {
+        PersistedEntityCache cache = getPersistedEntityCache(context);
+        if (cache.isUserPersisted(userId)) {
+            return;
+        }
     	User user = context.getPersistenceContext().findUser(userId);
         boolean userExists = user != null;
-        if (!StringUtils.isEmpty(userId) && !userExists) {
+        if (userExists) {
+            cache.markUserPersisted(userId);
+        } else if (!StringUtils.isEmpty(userId)) {
             user = TaskModelProvider.getFactory().newUser();
             ((InternalOrganizationalEntity) user).setId(userId);
             
@@ -137,16 +146,17 @@ public class UserGroupCallbackTaskCommand<T> extends TaskCommand<T> {
 
             if (groupIds != null && groupIds.size() > 0) {
 
-                List<String> userGroups = filterGroups(context.getUserGroupCallback().getGroupsForUser(userId, groupIds, null));
+                UserGroupCallbackCache cache = getCallbackCache(context);
+                List<String> userGroups = filterGroups(cache.getGroupsForUser(userId, groupIds));
                 for (String groupId : groupIds) {
 
-                    if (context.getUserGroupCallback().existsGroup(groupId) && userGroups != null && userGroups.contains(groupId)) {
+                    if (cache.existsGroup(groupId) && userGroups != null && userGroups.contains(groupId)) {
                         addGroupFromCallbackOperation(groupId, context);
                     }
                 }
             } else {
                 if (!(userGroupsMap.containsKey(userId) && userGroupsMap.get(userId).booleanValue())) {
-                    List<String> userGroups = filterGroups(context.getUserGroupCallback().getGroupsForUser(userId, null, null));
+                    List<String> userGroups = filterGroups(getCallbackCache(context).getGroupsForUser(userId, null));
                     if (userGroups != null && userGroups.size() > 0) {
                         for (String group : userGroups) {
                             addGroupFromCallbackOperation(group, context);
@@ -169,9 +179,15 @@ public class UserGroupCallbackTaskCommand<T> extends TaskCommand<T> {
     }
 
     protected void addGroupFromCallbackOperation(String groupId, TaskContext context) {
+        PersistedEntityCache cache = getPersistedEntityCache(context);
+        if (cache.isGroupPersisted(groupId)) {
+            return;
+        }
     	Group group = context.getPersistenceContext().findGroup(groupId);
     	boolean groupExists = group != null;
-        if (!StringUtils.isEmpty(groupId) && !groupExists) {
+        if (groupExists) {
+            cache.markGroupPersisted(groupId);
+        } else if (!StringUtils.isEmpty(groupId)) {
         	group = TaskModelProvider.getFactory().newGroup();
             ((InternalOrganizationalEntity) group).setId(groupId);
             persistIfNotExists(group, context);
@@ -479,6 +495,14 @@ public class UserGroupCallbackTaskCommand<T> extends TaskCommand<T> {
          }
      }
      
+     protected UserGroupCallbackCache getCallbackCache(TaskContext context) {
+         return UserGroupCallbackCache.get(context.getUserGroupCallback());
+     }
+
+     protected PersistedEntityCache getPersistedEntityCache(TaskContext context) {
+         return PersistedEntityCache.get(context.get(EnvironmentName.ENTITY_MANAGER_FACTORY));
+     }
+
      protected List<String> filterGroups(List<String> groups) {
          if (groups != null) {
              groups.removeAll(restrictedGroups);
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.services.task.identity;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of users and groups known to be stored in the data base behind given
+ * <code>EntityManagerFactory</code>, so they don't have to be looked up before every task operation.
+ * <br/>
+ * Entries don't expire, they are evicted when the user or group is removed through the task service
+ * (see <code>TaskIdentityServiceImpl</code>). Cache is enabled together with <code>UserGroupCallbackCache</code>
+ * (<code>org.jbpm.ht.callback.cache.ttl</code>) and its size is limited by <code>org.jbpm.ht.callback.cache.size</code>.
+ * <br/>
+ * Only users and groups that were found in the data base are remembered - entities persisted by the
+ * current transaction are not, as the transaction can still be rolled back.
+ */
+public class PersistedEntityCache {
+
+    private static final Map<Object, PersistedEntityCache> caches =
+            Collections.synchronizedMap(new WeakHashMap<Object, PersistedEntityCache>());
+
+    private static final PersistedEntityCache DISABLED = new PersistedEntityCache(0);
+
+    private static int defaultMaxSize = UserGroupCallbackCache.isEnabledByDefault() ? UserGroupCallbackCache.getDefaultMaxSize() : 0;
+
+    private final int maxSize;
+
+    private final Set<String> users = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final Set<String> groups = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public PersistedEntityCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns cache of given entity manager factory, or a disabled cache when there is no
+     * entity manager factory or caching is not enabled.
+     */
+    public static PersistedEntityCache get(Object entityManagerFactory) {
+        if (entityManagerFactory == null || defaultMaxSize <= 0) {
+            return DISABLED;
+        }
+        synchronized (caches) {
+            PersistedEntityCache cache = caches.get(entityManagerFactory);
+            if (cache == null) {
+                cache = new PersistedEntityCache(defaultMaxSize);
+                caches.put(entityManagerFactory, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Sets size of caches created from now on, 0 disables caching.
+     */
+    public static void setDefaultMaxSize(int maxSize) {
+        defaultMaxSize = maxSize;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    public boolean isUserPersisted(String userId) {
+        return isEnabled() && lookup(users, userId);
+    }
+
+    public void markUserPersisted(String userId) {
+        if (isEnabled()) {
+            store(users, userId);
+        }
+    }
+
+    public boolean isGroupPersisted(String groupId) {
+        return isEnabled() && lookup(groups, groupId);
+    }
+
+    public void markGroupPersisted(String groupId) {
+        if (isEnabled()) {
+            store(groups, groupId);
+        }
+    }
+
+    /**
+     * Evicts given user or group, must be called whenever it is removed from the data base.
+     */
+    public void evict(String entityId) {
+        users.remove(entityId);
+        groups.remove(entityId);
+    }
+
+    public void evictAll() {
+        users.clear();
+        groups.clear();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns ratio of data base lookups of users and groups avoided thanks to the cache.
+     */
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private boolean lookup(Set<String> entries, String id) {
+        if (entries.contains(id)) {
+            hits.incrementAndGet();
+            return true;
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    private void store(Set<String> entries, String id) {
+        if (entries.size() >= maxSize) {
+            entries.clear();
+        }
+        entries.add(id);
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.services.task.identity;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.kie.api.task.UserGroupCallback;
+
+/**
+ * Time based cache of <code>UserGroupCallback</code> results (existsUser, existsGroup and getGroupsForUser)
+ * shared by all task commands that use the same callback. Users and groups known to be stored in the data base
+ * are tracked separately per entity manager factory by <code>PersistedEntityCache</code>.
+ * <br/>
+ * Cache is disabled by default, it is enabled by setting time to live in milliseconds with system property
+ * <code>org.jbpm.ht.callback.cache.ttl</code>. Number of entries per cache is limited by
+ * <code>org.jbpm.ht.callback.cache.size</code> (10000 by default).
+ * <br/>
+ * Cached entries can be removed with invalidate methods when users or groups change in the identity store.
+ */
+public class UserGroupCallbackCache {
+
+    private static final Map<UserGroupCallback, UserGroupCallbackCache> caches =
+            Collections.synchronizedMap(new WeakHashMap<UserGroupCallback, UserGroupCallbackCache>());
+
+    private static final long DEFAULT_TTL = Long.parseLong(System.getProperty("org.jbpm.ht.callback.cache.ttl", "0"));
+    private static final int DEFAULT_MAX_SIZE = Integer.parseInt(System.getProperty("org.jbpm.ht.callback.cache.size", "10000"));
+
+    // callback is the key of the shared caches so it must not be held strongly by the cache
+    private final WeakReference<UserGroupCallback> callback;
+    private final long ttl;
+    private final int maxSize;
+
+    private final ConcurrentMap<String, Entry<Boolean>> users = new ConcurrentHashMap<String, Entry<Boolean>>();
+    private final ConcurrentMap<String, Entry<Boolean>> groups = new ConcurrentHashMap<String, Entry<Boolean>>();
+    private final ConcurrentMap<String, Entry<List<String>>> groupsForUser = new ConcurrentHashMap<String, Entry<List<String>>>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public UserGroupCallbackCache(UserGroupCallback callback, long ttl, int maxSize) {
+        this.callback = new WeakReference<UserGroupCallback>(callback);
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns cache shared by all users of given callback.
+     */
+    public static UserGroupCallbackCache get(UserGroupCallback callback) {
+        synchronized (caches) {
+            UserGroupCallbackCache cache = caches.get(callback);
+            if (cache == null) {
+                cache = new UserGroupCallbackCache(callback, DEFAULT_TTL, DEFAULT_MAX_SIZE);
+                caches.put(callback, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Removes given user or group from all caches, e.g. when it was removed from identity store.
+     */
+    public static void invalidateEntity(String entityId) {
+        synchronized (caches) {
+            for (UserGroupCallbackCache cache : caches.values()) {
+                cache.invalidateUser(entityId);
+                cache.invalidateGroup(entityId);
+            }
+        }
+    }
+
+    static boolean isEnabledByDefault() {
+        return DEFAULT_TTL > 0;
+    }
+
+    static int getDefaultMaxSize() {
+        return DEFAULT_MAX_SIZE;
+    }
+
+    public boolean isEnabled() {
+        return ttl > 0;
+    }
+
+    public boolean existsUser(String userId) {
+        if (!isEnabled()) {
+            return getCallback().existsUser(userId);
+        }
+        Boolean exists = lookup(users, userId);
+        if (exists == null) {
+            exists = getCallback().existsUser(userId);
+            store(users, userId, exists);
+        }
+        return exists;
+    }
+
+    public boolean existsGroup(String groupId) {
+        if (!isEnabled()) {
+            return getCallback().existsGroup(groupId);
+        }
+        Boolean exists = lookup(groups, groupId);
+        if (exists == null) {
+            exists = getCallback().existsGroup(groupId);
+            store(groups, groupId, exists);
+        }
+        return exists;
+    }
+
+    /**
+     * Returns groups of given user, the returned list is a copy that can be modified by the caller.
+     */
+    public List<String> getGroupsForUser(String userId, List<String> groupIds) {
+        if (!isEnabled()) {
+            return getCallback().getGroupsForUser(userId, groupIds, null);
+        }
+        String key = groupIds == null ? userId : userId + "|" + groupIds;
+        List<String> userGroups = lookup(groupsForUser, key);
+        if (userGroups == null) {
+            userGroups = getCallback().getGroupsForUser(userId, groupIds, null);
+            if (userGroups == null) {
+                return null;
+            }
+            store(groupsForUser, key, Collections.unmodifiableList(new ArrayList<String>(userGroups)));
+        }
+        return new ArrayList<String>(userGroups);
+    }
+
+    public void invalidateUser(String userId) {
+        users.remove(userId);
+        for (Iterator<String> it = groupsForUser.keySet().iterator(); it.hasNext();) {
+            String key = it.next();
+            if (key.equals(userId) || key.startsWith(userId + "|")) {
+                it.remove();
+            }
+        }
+    }
+
+    public void invalidateGroup(String groupId) {
+        groups.remove(groupId);
+        // group membership might have changed as well
+        groupsForUser.clear();
+    }
+
+    public void invalidateAll() {
+        users.clear();
+        groups.clear();
+        groupsForUser.clear();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns ratio of callback lookups answered from the cache.
+     */
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    private UserGroupCallback getCallback() {
+        UserGroupCallback userGroupCallback = callback.get();
+        if (userGroupCallback == null) {
+            throw new IllegalStateException("User group callback of this cache is no longer available");
+        }
+        return userGroupCallback;
+    }
+
+    private <V> V lookup(ConcurrentMap<String, Entry<V>> entries, String key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            if (entry.expiresAt > System.currentTimeMillis()) {
+                hits.incrementAndGet();
+                return entry.value;
+            }
+            entries.remove(key, entry);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    private <V> void store(ConcurrentMap<String, Entry<V>> entries, String key, V value) {
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxSize) {
+            for (Iterator<Entry<V>> it = entries.values().iterator(); it.hasNext();) {
+                if (it.next().expiresAt <= now) {
+                    it.remove();
+                }
+            }
+            if (entries.size() >= maxSize) {
+                entries.clear();
+            }
+        }
+        entries.put(key, new Entry<V>(value, now + ttl));
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+        private final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -106,6 +106,7 @@ public class TaskAdminServiceImpl implements TaskAdminService {
             if (task != null) {
 	            ((InternalTask) task).setArchived(true);
 	            persistenceContext.merge(task);
+	            removeTaskInboxEntries(taskId);
 	            archivedTasks++;
             }
         }
@@ -129,6 +130,7 @@ public class TaskAdminServiceImpl implements TaskAdminService {
 	            Content content = persistenceContext.findContent(task.getTaskData().getDocumentContentId());
 	            Content outputContent = persistenceContext.findContent(task.getTaskData().getOutputContentId());
 	            if (((InternalTask) task).isArchived()) {
+	                removeTaskInboxEntries(taskId);
 	                persistenceContext.remove(task);
 	                if (content != null) {
 	                    persistenceContext.remove(content);
@@ -154,6 +156,29 @@ public class TaskAdminServiceImpl implements TaskAdminService {
             persistenceContext.removeTask(t);
             count++;
         }
+        if (TaskQueryServiceImpl.isTaskInboxEnabled()) {
+            List<Object> entries = persistenceContext.queryStringInTransaction("select e from TaskInboxEntryImpl e",
+                    ClassUtil.<List<Object>>castClass(List.class));
+            for (Object entry : entries) {
+                persistenceContext.remove(entry);
+            }
+        }
         return count;
     }
+
+    /**
+     * Archived and removed tasks do not fire any task events so their inbox rows are removed here
+     * instead of by the inbox listener.
+     */
+    protected void removeTaskInboxEntries(long taskId) {
+        if (!TaskQueryServiceImpl.isTaskInboxEnabled()) {
+            return;
+        }
+        List<Object> entries = persistenceContext.queryWithParametersInTransaction("getTaskInboxEntriesByTaskId",
+                persistenceContext.addParametersToMap("taskId", taskId),
+                ClassUtil.<List<Object>>castClass(List.class));
+        for (Object entry : entries) {
+            persistenceContext.remove(entry);
+        }
+    }
 }
@@ -16,12 +16,12 @@
 package org.jbpm.services.task.impl;
 
 import java.io.Serializable;
-import java.util.Iterator;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -61,10 +61,21 @@ public class TaskDeadlinesServiceImpl implements TaskDeadlinesService {
 
 	// use single ThreadPoolExecutor for all instances of task services within same JVM
     private volatile static ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(3);
-    private volatile static Map<Long, List<ScheduledFuture<ScheduledTaskDeadline>>> startScheduledTaskDeadlines = new ConcurrentHashMap<Long, List<ScheduledFuture<ScheduledTaskDeadline>>>();
-    private volatile static Map<Long, List<ScheduledFuture<ScheduledTaskDeadline>>> endScheduledTaskDeadlines = new ConcurrentHashMap<Long, List<ScheduledFuture<ScheduledTaskDeadline>>>();
+    // scheduled deadlines by task id and deadline id, removed when executed or unscheduled
+    private volatile static Map<Long, Map<Long, ScheduledFuture<ScheduledTaskDeadline>>> startScheduledTaskDeadlines = new HashMap<Long, Map<Long, ScheduledFuture<ScheduledTaskDeadline>>>();
+    private volatile static Map<Long, Map<Long, ScheduledFuture<ScheduledTaskDeadline>>> endScheduledTaskDeadlines = new HashMap<Long, Map<Long, ScheduledFuture<ScheduledTaskDeadline>>>();
     private volatile static Map<String, JobHandle> jobHandles = new ConcurrentHashMap<String, JobHandle>();
 
+    // when greater than zero only deadlines due within this window (in milliseconds) are kept in memory by the
+    // internal scheduler, later ones stay in the data base and are loaded by scan repeated every half of the window
+    private static long scheduleWindow = Long.parseLong(System.getProperty("org.jbpm.ht.deadlines.window", "0"));
+    // deadlines due later than this are left to the scan
+    private volatile static long scheduledUntil = Long.MAX_VALUE;
+
+    public static void setScheduleWindow(long window) {
+        scheduleWindow = window;
+    }
+
     private TaskPersistenceContext persistenceContext;
 
     
@@ -82,11 +93,32 @@ public class TaskDeadlinesServiceImpl implements TaskDeadlinesService {
 
     public void schedule(long taskId, long deadlineId, long delay, DeadlineType type) {
         Task task = persistenceContext.findTask(taskId);
-        String deploymentId = task.getTaskData().getDeploymentId();
+        schedule(taskId, deadlineId, delay, type, task.getTaskData().getDeploymentId(), task.getTaskData().getProcessInstanceId());
+    }
 
+    /**
+     * Schedules deadlines loaded by <code>UnescalatedStartDeadlinesDue</code> or <code>UnescalatedEndDeadlinesDue</code>
+     * query without loading their tasks.
+     * @param deadlines rows of task id, deadline id, deadline date, deployment id and process instance id
+     * @param type type of the deadlines
+     * @param now time the delays are computed from
+     */
+    public void schedule(List<Object[]> deadlines, DeadlineType type, long now) {
+        for (Object[] deadline : deadlines) {
+            schedule((Long) deadline[0], (Long) deadline[1], ((Date) deadline[2]).getTime() - now, type,
+                    (String) deadline[3], (Long) deadline[4]);
+        }
+        logger.debug("{} {} deadlines loaded for scheduling", deadlines.size(), type);
+    }
+
+    protected void schedule(long taskId, long deadlineId, long delay, DeadlineType type, String deploymentId, Long processInstanceId) {
         TimerService timerService = TimerServiceRegistry.getInstance().get(deploymentId + TimerServiceRegistry.TIMER_SERVICE_SUFFIX);
         if (timerService != null && timerService instanceof GlobalTimerService) {
             TaskDeadlineJob deadlineJob = new TaskDeadlineJob(taskId, deadlineId, type);
+            if (scheduleWindow > 0 && jobHandles.containsKey(deadlineJob.getId())) {
+                // already scheduled, found again by deadline scan
+                return;
+            }
             Trigger trigger = new IntervalTrigger( timerService.getCurrentTime(),
                     null,
                     null,
@@ -95,32 +127,46 @@ public class TaskDeadlinesServiceImpl implements TaskDeadlinesService {
                     0,
                     null,
                     null ) ;
-            JobHandle handle = timerService.scheduleJob(deadlineJob, new TaskDeadlineJobContext(deadlineJob.getId(), task.getTaskData().getProcessInstanceId()), trigger);
+            JobHandle handle = timerService.scheduleJob(deadlineJob, new TaskDeadlineJobContext(deadlineJob.getId(), processInstanceId), trigger);
             logger.debug( "scheduling timer job for deadline {} and task {}  using timer service {}", deadlineJob.getId(), taskId, timerService);
             jobHandles.put(deadlineJob.getId(), handle);
 
         } else {
-            ScheduledFuture<ScheduledTaskDeadline> scheduled = scheduler.schedule(new ScheduledTaskDeadline(taskId, deadlineId, type), delay, TimeUnit.MILLISECONDS);
-            
-            List<ScheduledFuture<ScheduledTaskDeadline>> knownFutures = null;
-            if (type == DeadlineType.START) {
-                knownFutures = startScheduledTaskDeadlines.get(taskId);
-            } else if (type == DeadlineType.END) {
-                knownFutures = endScheduledTaskDeadlines.get(taskId);
+            if (System.currentTimeMillis() + delay > scheduledUntil) {
+                logger.debug("deadline {} of task {} is due after {}, leaving it to deadline scan", deadlineId, taskId, scheduledUntil);
+                return;
             }
-            if (knownFutures == null) {
-                knownFutures = new CopyOnWriteArrayList<ScheduledFuture<ScheduledTaskDeadline>>();
+            Map<Long, Map<Long, ScheduledFuture<ScheduledTaskDeadline>>> scheduledTaskDeadlines = getScheduledTaskDeadlines(type);
+            synchronized (scheduledTaskDeadlines) {
+                Map<Long, ScheduledFuture<ScheduledTaskDeadline>> knownFutures = scheduledTaskDeadlines.get(taskId);
+                if (knownFutures == null) {
+                    knownFutures = new HashMap<Long, ScheduledFuture<ScheduledTaskDeadline>>();
+                    scheduledTaskDeadlines.put(taskId, knownFutures);
+                } else if (knownFutures.containsKey(deadlineId)) {
+                    // already scheduled, e.g. found again by deadline scan
+                    return;
+                }
+                knownFutures.put(deadlineId, scheduler.schedule(new ScheduledTaskDeadline(taskId, deadlineId, type), delay, TimeUnit.MILLISECONDS));
             }
+        }
 
-            knownFutures.add(scheduled);
-                        
-            if (type == DeadlineType.START) {
-                startScheduledTaskDeadlines.put(taskId, knownFutures);
-            } else if (type == DeadlineType.END) {
-                endScheduledTaskDeadlines.put(taskId, knownFutures);
+    }
+
+    private static Map<Long, Map<Long, ScheduledFuture<ScheduledTaskDeadline>>> getScheduledTaskDeadlines(DeadlineType type) {
+        return type == DeadlineType.START ? startScheduledTaskDeadlines : endScheduledTaskDeadlines;
+    }
+
+    private static void removeScheduledTaskDeadline(long taskId, long deadlineId, DeadlineType type) {
+        Map<Long, Map<Long, ScheduledFuture<ScheduledTaskDeadline>>> scheduledTaskDeadlines = getScheduledTaskDeadlines(type);
+        synchronized (scheduledTaskDeadlines) {
+            Map<Long, ScheduledFuture<ScheduledTaskDeadline>> knownFutures = scheduledTaskDeadlines.get(taskId);
+            if (knownFutures != null) {
+                knownFutures.remove(deadlineId);
+                if (knownFutures.isEmpty()) {
+                    scheduledTaskDeadlines.remove(taskId);
+                }
             }
         }
-
     }
 
     public void unschedule(long taskId, DeadlineType type) {
@@ -176,18 +222,15 @@ public class TaskDeadlinesServiceImpl implements TaskDeadlinesService {
             }
             
         } else {
-            List<ScheduledFuture<ScheduledTaskDeadline>> knownFutures = null;
-            if (type == DeadlineType.START) {
-                knownFutures = startScheduledTaskDeadlines.get(taskId);
-            } else if (type == DeadlineType.END) {
-                knownFutures = endScheduledTaskDeadlines.get(taskId);
+            Map<Long, Map<Long, ScheduledFuture<ScheduledTaskDeadline>>> scheduledTaskDeadlines = getScheduledTaskDeadlines(type);
+            Map<Long, ScheduledFuture<ScheduledTaskDeadline>> knownFutures = null;
+            synchronized (scheduledTaskDeadlines) {
+                knownFutures = scheduledTaskDeadlines.remove(taskId);
             }
             if (knownFutures == null) {
                 return;
             }
-            Iterator<ScheduledFuture<ScheduledTaskDeadline>> it = knownFutures.iterator();
-            while (it.hasNext()) {
-                ScheduledFuture<ScheduledTaskDeadline> scheduled = it.next();
+            for (ScheduledFuture<ScheduledTaskDeadline> scheduled : knownFutures.values()) {
                 try {
                     if (!scheduled.isDone() && !scheduled.isCancelled()) {
                         scheduled.cancel(true);
@@ -229,12 +272,16 @@ public class TaskDeadlinesServiceImpl implements TaskDeadlinesService {
         }
 
         public ScheduledTaskDeadline call() throws Exception {
-        	CommandExecutor executor = TaskDeadlinesServiceImpl.getInstance();
-            if (executor != null) {
-                executor.execute(new ExecuteDeadlinesCommand(taskId, deadlineId, type, notificationListener));
-            } else {
-                logger.error("TaskDeadlineService instance is not available, most likely was not properly initialized - Job did not run!");
-            }
+        	try {
+	        	CommandExecutor executor = TaskDeadlinesServiceImpl.getInstance();
+	            if (executor != null) {
+	                executor.execute(new ExecuteDeadlinesCommand(taskId, deadlineId, type, notificationListener));
+	            } else {
+	                logger.error("TaskDeadlineService instance is not available, most likely was not properly initialized - Job did not run!");
+	            }
+        	} finally {
+        		removeScheduledTaskDeadline(taskId, deadlineId, type);
+        	}
             return null;
         }
 
@@ -369,9 +416,46 @@ public class TaskDeadlinesServiceImpl implements TaskDeadlinesService {
     public static synchronized void initialize(CommandExecutor instance) {
     	if (instance != null) {
     	    TaskDeadlinesServiceImpl.instance = instance;
-	        getInstance().execute(new InitDeadlinesCommand());
+    	    if (scheduleWindow > 0) {
+    	    	long window = scheduleWindow;
+    	    	scheduledUntil = System.currentTimeMillis() + window;
+    	    	getInstance().execute(new InitDeadlinesCommand(0, scheduledUntil));
+    	    	scheduler.scheduleWithFixedDelay(new DeadlineScan(window), window / 2, window / 2, TimeUnit.MILLISECONDS);
+    	    } else {
+    	    	getInstance().execute(new InitDeadlinesCommand());
+    	    }
     	}        
     }
+
+    /**
+     * Moves the end of the window of deadlines kept in memory and schedules deadlines that entered it. Deadlines
+     * overdue by less than the window are loaded again to cover deadlines added while the previous scan was running,
+     * the ones already scheduled are skipped.
+     */
+    private static class DeadlineScan implements Runnable {
+
+        private final long window;
+
+        DeadlineScan(long window) {
+            this.window = window;
+        }
+
+        @Override
+        public void run() {
+            try {
+                CommandExecutor executor = TaskDeadlinesServiceImpl.getInstance();
+                if (executor == null) {
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                scheduledUntil = now + window;
+                executor.execute(new InitDeadlinesCommand(now - window, now + window));
+            } catch (Exception e) {
+                // do not let the exception cancel next scans
+                logger.error("Error while scanning deadlines", e);
+            }
+        }
+    }
     
     public static synchronized void reset() {
     	dispose();
@@ -383,8 +467,13 @@ public class TaskDeadlinesServiceImpl implements TaskDeadlinesService {
             if (scheduler != null) {
                 scheduler.shutdownNow();
             }        
-            startScheduledTaskDeadlines.clear();
-            endScheduledTaskDeadlines.clear();
+            synchronized (startScheduledTaskDeadlines) {
+                startScheduledTaskDeadlines.clear();
+            }
+            synchronized (endScheduledTaskDeadlines) {
+                endScheduledTaskDeadlines.clear();
+            }
+            scheduledUntil = Long.MAX_VALUE;
             jobHandles.clear();
             notificationListener = null;
             TaskDeadlinesServiceImpl.instance = null;
@@ -21,6 +21,8 @@ package org.jbpm.services.task.impl;
 
 import java.util.List;
 
+import org.jbpm.services.task.identity.PersistedEntityCache;
+import org.jbpm.services.task.identity.UserGroupCallbackCache;
 import org.jbpm.services.task.utils.ClassUtil;
 import org.kie.api.task.model.Group;
 import org.kie.api.task.model.OrganizationalEntity;
@@ -35,6 +37,7 @@ import org.kie.internal.task.api.TaskPersistenceContext;
 public class TaskIdentityServiceImpl implements TaskIdentityService {
 
     private TaskPersistenceContext persistenceContext;
+    private PersistedEntityCache persistedEntityCache;
 
     public TaskIdentityServiceImpl() {
     }
@@ -43,6 +46,11 @@ public class TaskIdentityServiceImpl implements TaskIdentityService {
     	this.persistenceContext = persistenceContext;
     }
 
+    public TaskIdentityServiceImpl(TaskPersistenceContext persistenceContext, PersistedEntityCache persistedEntityCache) {
+    	this.persistenceContext = persistenceContext;
+    	this.persistedEntityCache = persistedEntityCache;
+    }
+
     public void setPersistenceContext(TaskPersistenceContext persistenceContext) {
         this.persistenceContext = persistenceContext;
     }
@@ -59,11 +67,20 @@ public class TaskIdentityServiceImpl implements TaskIdentityService {
     public void removeGroup(String groupId) {
         Group group = persistenceContext.findGroup(groupId);
         persistenceContext.remove(group);
+        evict(groupId);
     }
     
     public void removeUser(String userId) {
         User user = persistenceContext.findUser(userId);
         persistenceContext.remove(user);
+        evict(userId);
+    }
+
+    protected void evict(String entityId) {
+        if (persistedEntityCache != null) {
+            persistedEntityCache.evict(entityId);
+        }
+        UserGroupCallbackCache.invalidateEntity(entityId);
     }
 
     public List<User> getUsers() {
@@ -381,19 +381,34 @@ public class TaskInstanceServiceImpl implements TaskInstanceService {
     @Override
     public void setName(long taskId, String name) {
         Task task = persistenceContext.findTask(taskId);
+        
+        taskEventSupport.fireBeforeTaskUpdated(task, context);
+        
         ((InternalTask) task).setName(name);
+        
+        taskEventSupport.fireAfterTaskUpdated(task, context);
     }
 
     @Override
     public void setDescription(long taskId, String description) {
         Task task = persistenceContext.findTask(taskId);
+        
+        taskEventSupport.fireBeforeTaskUpdated(task, context);
+        
         ((InternalTask) task).setDescription(description);
+        
+        taskEventSupport.fireAfterTaskUpdated(task, context);
     }
 
     @Override
     public void setSubject(long taskId, String subject) {
         Task task = persistenceContext.findTask(taskId);
+        
+        taskEventSupport.fireBeforeTaskUpdated(task, context);
+        
         ((InternalTask) task).setSubject(subject);
+        
+        taskEventSupport.fireAfterTaskUpdated(task, context);
     }
    
     @Override
@@ -16,6 +16,7 @@
 
 package org.jbpm.services.task.impl;
 
+import static org.jbpm.query.jpa.data.SeekQueryFilter.SEEK_KEY;
 import static org.kie.internal.query.QueryParameterIdentifiers.ACTUAL_OWNER_ID_LIST;
 import static org.kie.internal.query.QueryParameterIdentifiers.ASCENDING_VALUE;
 import static org.kie.internal.query.QueryParameterIdentifiers.BUSINESS_ADMIN_ID_LIST;
@@ -43,6 +44,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import org.jbpm.query.jpa.data.QueryWhere;
+import org.jbpm.query.jpa.data.SeekQueryFilter;
 import org.jbpm.services.task.utils.ClassUtil;
 import org.kie.api.task.UserGroupCallback;
 import org.kie.api.task.model.OrganizationalEntity;
@@ -64,6 +66,10 @@ public class TaskQueryServiceImpl implements TaskQueryService {
 
     private static final Logger logger = LoggerFactory.getLogger(TaskQueryServiceImpl.class);
     
+    // potential owner queries of active tasks read the task inbox maintained by TaskInboxEventListener
+    // (jbpm-human-task-audit), the listener is registered by HumanTaskConfigurator
+    private static boolean useTaskInbox = Boolean.parseBoolean(System.getProperty("org.jbpm.ht.inbox.enabled", "false"));
+    
     private TaskPersistenceContext persistenceContext;
     private UserGroupCallback userGroupCallback;
     
@@ -95,7 +101,13 @@ public class TaskQueryServiceImpl implements TaskQueryService {
     protected void applyQueryContext(Map<String, Object> params, QueryContext queryContext) {
     	if (queryContext != null) {
     	    Integer offset = queryContext.getOffset(); 
-    	    if( offset != null && offset > 0 ) { 
+    	    if (queryContext instanceof SeekQueryFilter) {
+    	        // keyset pagination replaces offset with predicate on the last seen task
+    	        ((SeekQueryFilter) queryContext).applySeek(params, "t.id");
+    	        if (queryContext.isAscending() != null && !queryContext.isAscending()) {
+    	            params.put(ORDER_TYPE, DESCENDING_VALUE);
+    	        }
+    	    } else if( offset != null && offset > 0 ) { 
     	        params.put(FIRST_RESULT, offset);
     	    }
     	    Integer count = queryContext.getCount();
@@ -128,6 +140,14 @@ public class TaskQueryServiceImpl implements TaskQueryService {
     public TaskQueryServiceImpl() {
     }
     
+    public static void setTaskInboxEnabled(boolean enabled) {
+        useTaskInbox = enabled;
+    }
+
+    public static boolean isTaskInboxEnabled() {
+        return useTaskInbox;
+    }
+    
     public TaskQueryServiceImpl(TaskPersistenceContext persistenceContext, UserGroupCallback userGroupCallback) {
     	this.persistenceContext = persistenceContext;
     	this.userGroupCallback = userGroupCallback;
@@ -360,12 +380,19 @@ public class TaskQueryServiceImpl implements TaskQueryService {
     public List<TaskSummary> getTasksAssignedAsPotentialOwner(String userId, List<String> groupIds, List<Status> status, QueryFilter filter) {
         Map<String, Object> params = new HashMap<String, Object>();
         params.put("userId", userId);
-        params.put("status", adoptList(status, allActiveStatus));        
+        List<?> statuses = adoptList(status, allActiveStatus);
+        params.put("status", statuses);        
         params.put("groupIds", adoptList(groupIds, Collections.singletonList("")));
         
         applyQueryFilter(params, filter);
 
-        return (List<TaskSummary>) persistenceContext.queryWithParametersInTransaction("NewTasksAssignedAsPotentialOwner", 
+        String queryName = "NewTasksAssignedAsPotentialOwner";
+        // the inbox holds active tasks only and supports paging only, custom filters and ordering refer to the task entity
+        if (useTaskInbox && allActiveStatus.containsAll(statuses)
+                && !params.containsKey(FILTER) && !params.containsKey(ORDER_BY) && !params.containsKey(SEEK_KEY)) {
+            queryName = "TasksAssignedAsPotentialOwnerFromInbox";
+        }
+        return (List<TaskSummary>) persistenceContext.queryWithParametersInTransaction(queryName, 
                                         params,
                                         ClassUtil.<List<TaskSummary>>castClass(List.class));
                 
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.services.task.internals.lifecycle;
+
+import java.util.List;
+import java.util.Map;
+
+import org.kie.api.task.model.Status;
+import org.kie.internal.task.api.model.Operation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Immutable state transition table compiled from the operations DSL. Commands are indexed
+ * by operation and (previous) status so finding the command that applies to a task is an array
+ * lookup instead of walking command and status lists on every operation.
+ * <br/>
+ * As with the DSL evaluation, a command is selected by current status first and by previous
+ * status second, in case more commands of an operation list the same status the first one wins.
+ */
+public class LifeCycleTransitionTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LifeCycleTransitionTable.class);
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final Transition[][] byStatus = new Transition[OPERATIONS.length][STATUSES.length];
+    private final Transition[][] byPreviousStatus = new Transition[OPERATIONS.length][STATUSES.length];
+    private final boolean[] groupTargetEntityAllowed = new boolean[OPERATIONS.length];
+
+    public LifeCycleTransitionTable(Map<Operation, List<OperationCommand>> operations) {
+        for (Operation operation : OPERATIONS) {
+            groupTargetEntityAllowed[operation.ordinal()] = true;
+            List<OperationCommand> commands = operations.get(operation);
+            if (commands == null) {
+                continue;
+            }
+            for (OperationCommand command : commands) {
+                Transition transition = new Transition(command);
+                index(byStatus[operation.ordinal()], command.getStatus(), transition, operation);
+                index(byPreviousStatus[operation.ordinal()], command.getPreviousStatus(), transition, operation);
+                if (!command.isGroupTargetEntityAllowed()) {
+                    groupTargetEntityAllowed[operation.ordinal()] = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns transition of given operation for task in given status and previous status or null if
+     * the operation cannot be executed in that state.
+     */
+    public Transition getTransition(Operation operation, Status status, Status previousStatus) {
+        Transition transition = null;
+        if (status != null) {
+            transition = byStatus[operation.ordinal()][status.ordinal()];
+        }
+        if (transition == null && previousStatus != null) {
+            transition = byPreviousStatus[operation.ordinal()][previousStatus.ordinal()];
+        }
+        return transition;
+    }
+
+    public boolean isGroupTargetEntityAllowed(Operation operation) {
+        return groupTargetEntityAllowed[operation.ordinal()];
+    }
+
+    private static void index(Transition[] table, List<Status> statuses, Transition transition, Operation operation) {
+        if (statuses == null) {
+            return;
+        }
+        for (Status status : statuses) {
+            if (table[status.ordinal()] == null) {
+                table[status.ordinal()] = transition;
+            } else {
+                logger.warn("Operation {} defines more commands for status {}, only the first one is used", operation, status);
+            }
+        }
+    }
+
+    /**
+     * Command of the DSL with the roles allowed to execute it copied to an array.
+     */
+    public static class Transition {
+
+        private final OperationCommand command;
+        private final Allowed[] allowed;
+
+        Transition(OperationCommand command) {
+            this.command = command;
+            List<Allowed> allowedList = command.getAllowed();
+            this.allowed = allowedList == null ? new Allowed[0] : allowedList.toArray(new Allowed[allowedList.size()]);
+        }
+
+        public OperationCommand getCommand() {
+            return command;
+        }
+
+        public Allowed[] getAllowed() {
+            return allowed;
+        }
+    }
+}
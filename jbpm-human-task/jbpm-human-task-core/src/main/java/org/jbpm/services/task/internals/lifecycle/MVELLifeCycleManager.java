@@ -33,6 +33,7 @@ import java.util.Map;
 import org.drools.core.util.MVELSafeHelper;
 import org.jbpm.services.task.events.TaskEventSupport;
 import org.jbpm.services.task.exception.PermissionDeniedException;
+import org.jbpm.services.task.internals.lifecycle.LifeCycleTransitionTable.Transition;
 import org.jbpm.services.task.utils.ContentMarshallerHelper;
 import org.kie.api.task.model.Content;
 import org.kie.api.task.model.Group;
@@ -74,6 +75,7 @@ public class MVELLifeCycleManager implements LifeCycleManager {
     private TaskContentService taskContentService;
     private TaskEventSupport taskEventSupport;
     private static Map<Operation, List<OperationCommand>> operations = initMVELOperations();
+    private static LifeCycleTransitionTable transitions = new LifeCycleTransitionTable(operations);
 
     public MVELLifeCycleManager() {
     }
@@ -100,74 +102,39 @@ public class MVELLifeCycleManager implements LifeCycleManager {
     }
     
 
-    void evalCommand(final Operation operation, final List<OperationCommand> commands, final Task task,
+    void evalCommand(final Operation operation, final Task task,
             final User user, final OrganizationalEntity targetEntity,
             List<String> groupIds, OrganizationalEntity...entities) throws PermissionDeniedException {
 
-        boolean statusMatched = false;
         final TaskData taskData = task.getTaskData();
-        for (OperationCommand command : commands) {
-            // first find out if we have a matching status
-            if (command.getStatus() != null) {
-                for (Status status : command.getStatus()) {
-                    if (task.getTaskData().getStatus() == status) {
-                        statusMatched = true;
-                        // next find out if the user can execute this doOperation
-                        if (!isAllowed(command, task, user, groupIds)) {
-                            String errorMessage = "User '" + user + "' does not have permissions to execute operation '" + operation + "' on task id " + task.getId();
-
-                            throw new PermissionDeniedException(errorMessage);
-                        }
-
-                        commands(command, task, user, targetEntity, entities);
-                    } else {
-                        logger.debug("No match on status for task {} :status {}  != {}", task.getId(), task.getTaskData().getStatus(), status);
-                    }
-                }
-            }
-
-            if (command.getPreviousStatus() != null) {
-                for (Status status : command.getPreviousStatus()) {
-                    if (taskData.getPreviousStatus() == status) {
-                        statusMatched = true;
-
-                        // next find out if the user can execute this doOperation
-                        if (!isAllowed(command, task, user, groupIds)) {
-                            String errorMessage = "User '" + user + "' does not have permissions to execute operation '" + operation + "' on task id " + task.getId();
-                            throw new PermissionDeniedException(errorMessage);
-                        }
-
-                        commands(command, task, user, targetEntity, entities);
-                    } else {
-                        logger.debug("No match on previous status for task {} :status {}  != {}", task.getId(), task.getTaskData().getStatus(), status);
-                    }
-                }
-            }
-            
-
-            if (!command.isGroupTargetEntityAllowed() && targetEntity instanceof Group) {
-                String errorMessage = "User '" + user + "' was unable to execute operation '" + operation + "' on task id " + task.getId() + " due to 'target entity cannot be group'";
-                throw new PermissionDeniedException(errorMessage); 
-            }
-        }
-        if (!statusMatched) {
+        // single array lookup in the table compiled from the DSL instead of walking its command lists
+        final Transition transition = transitions.getTransition(operation, taskData.getStatus(), taskData.getPreviousStatus());
+        if (transition == null) {
+            logger.debug("No match on status for task {} :status {} previous status {}", task.getId(), taskData.getStatus(), taskData.getPreviousStatus());
             String errorMessage = "User '" + user + "' was unable to execute operation '" + operation + "' on task id " + task.getId() + " due to a no 'current status' match";
             throw new PermissionDeniedException(errorMessage);
         }
-        
+        if (!transitions.isGroupTargetEntityAllowed(operation) && targetEntity instanceof Group) {
+            String errorMessage = "User '" + user + "' was unable to execute operation '" + operation + "' on task id " + task.getId() + " due to 'target entity cannot be group'";
+            throw new PermissionDeniedException(errorMessage); 
+        }
+        // next find out if the user can execute this doOperation
+        if (!isAllowed(transition, task, user, groupIds)) {
+            String errorMessage = "User '" + user + "' does not have permissions to execute operation '" + operation + "' on task id " + task.getId();
+            throw new PermissionDeniedException(errorMessage);
+        }
 
+        commands(transition.getCommand(), task, user, targetEntity, entities);
     }
 
-    private boolean isAllowed(final OperationCommand command, final Task task, final User user,
+    private boolean isAllowed(final Transition transition, final Task task, final User user,
             List<String> groupIds) {
 
-
+        final OperationCommand command = transition.getCommand();
+        final Allowed[] allowedRoles = transition.getAllowed();
         boolean operationAllowed = false;
-        for (Allowed allowed : command.getAllowed()) {
-            if (operationAllowed) {
-                break;
-            }
-            switch (allowed) {
+        for (int i = 0; i < allowedRoles.length && !operationAllowed; i++) {
+            switch (allowedRoles[i]) {
                 case Owner: {
                     operationAllowed = (task.getTaskData().getActualOwner() != null && task.getTaskData().getActualOwner().equals(user));
                     break;
@@ -212,7 +179,9 @@ public class MVELLifeCycleManager implements LifeCycleManager {
 
     private boolean isAllowed(final User user, final List<String> groupIds, final List<OrganizationalEntity> entities) {
         // for now just do a contains, I'll figure out group membership later.
-        for (OrganizationalEntity entity : entities) {
+        // indexed loop avoids creating an iterator on each check
+        for (int i = 0; i < entities.size(); i++) {
+            OrganizationalEntity entity = entities.get(i);
             if (entity instanceof User && entity.equals(user)) {
                 return true;
             }
@@ -282,8 +251,6 @@ public class MVELLifeCycleManager implements LifeCycleManager {
             List<String> groupIds, OrganizationalEntity...entities) throws TaskException {
 
         try {
-            final List<OperationCommand> commands = operations.get(operation);
-
             Task task = persistenceContext.findTask(taskId);
             if (task == null) {
             	String errorMessage = "Task '" + taskId + "' not found";
@@ -366,7 +333,7 @@ public class MVELLifeCycleManager implements LifeCycleManager {
 
             }
             
-            evalCommand(operation, commands, task, user, targetEntity, groupIds, entities);
+            evalCommand(operation, task, user, targetEntity, groupIds, entities);
 
             switch (operation) {
                 case Activate: {
@@ -17,9 +17,14 @@ package org.jbpm.services.task.utils;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.WeakHashMap;
 
 import org.drools.core.marshalling.impl.ClassObjectMarshallingStrategyAcceptor;
 import org.drools.core.marshalling.impl.MarshallerReaderContext;
@@ -51,6 +56,44 @@ public class ContentMarshallerHelper {
     private static final Logger logger = LoggerFactory.getLogger(ContentMarshallerHelper.class);
     private static final String SINGLE_VAR_KEY = "_results_";
 
+    // maps holding only strings and primitive wrappers are written in compact encoding instead of protobuf,
+    // compact encoding is always understood when reading
+    private static boolean compactContent = Boolean.parseBoolean(System.getProperty("org.jbpm.ht.content.compact", "false"));
+
+    public static void setCompactContent(boolean turnOn) {
+        compactContent = turnOn;
+    }
+
+    // values of content maps are unmarshalled on first access instead of when the content is read
+    private static boolean lazyContent = Boolean.parseBoolean(System.getProperty("org.jbpm.ht.content.lazy", "false"));
+
+    public static void setLazyContent(boolean turnOn) {
+        lazyContent = turnOn;
+    }
+
+    // protobuf messages never start with field tag 0
+    private static final byte COMPACT_MARKER = 0;
+    private static final byte COMPACT_VERSION = 1;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INTEGER = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_BOOLEAN = 4;
+    private static final byte TYPE_DOUBLE = 5;
+    private static final byte TYPE_FLOAT = 6;
+    private static final byte TYPE_SHORT = 7;
+    private static final byte TYPE_BYTE = 8;
+    private static final byte TYPE_CHARACTER = 9;
+
+    private static final ObjectMarshallingStrategyStore defaultStrategyStore = new MarshallingConfigurationImpl(
+            new ObjectMarshallingStrategy[]{new SerializablePlaceholderResolverStrategy(ClassObjectMarshallingStrategyAcceptor.DEFAULT)}, false, false)
+            .getObjectMarshallingStrategyStore();
+
+    // strategy stores keyed by strategies of environments, environments keep the same array for their lifetime
+    private static final Map<ObjectMarshallingStrategy[], ObjectMarshallingStrategyStore> strategyStores =
+            Collections.synchronizedMap(new WeakHashMap<ObjectMarshallingStrategy[], ObjectMarshallingStrategyStore>());
+
     public static ContentData marshal(Object o, Environment env) {
         if (o == null) {
             return null;
@@ -87,14 +130,11 @@ public class ContentMarshallerHelper {
     public static Object unmarshall(byte[] content, Environment env, ClassLoader classloader) {
         MarshallerReaderContext context = null;
         try {
-            ByteArrayInputStream stream = new ByteArrayInputStream(content);
-            MarshallingConfigurationImpl marshallingConfigurationImpl = null;
-            if (env != null) {
-                marshallingConfigurationImpl = new MarshallingConfigurationImpl((ObjectMarshallingStrategy[]) env.get(EnvironmentName.OBJECT_MARSHALLING_STRATEGIES), false, false);
-            } else {
-                marshallingConfigurationImpl = new MarshallingConfigurationImpl(new ObjectMarshallingStrategy[]{new SerializablePlaceholderResolverStrategy(ClassObjectMarshallingStrategyAcceptor.DEFAULT)}, false, false);
+            if (isCompact(content)) {
+                return readCompact(content);
             }
-            ObjectMarshallingStrategyStore objectMarshallingStrategyStore = marshallingConfigurationImpl.getObjectMarshallingStrategyStore();
+            ByteArrayInputStream stream = new ByteArrayInputStream(content);
+            ObjectMarshallingStrategyStore objectMarshallingStrategyStore = getStrategyStore(env);
             context = new MarshallerReaderContext(stream, null, null, objectMarshallingStrategyStore, null, env);
             if (classloader != null) {
                 context.classLoader = classloader;
@@ -106,6 +146,9 @@ public class ContentMarshallerHelper {
             
             try {
 	            VariableContainer parseFrom = JBPMMessages.VariableContainer.parseFrom(_header.getPayload(), registry);
+	            if (lazyContent && !isSingleVariable(parseFrom)) {
+	            	return new LazyContentMap(context, parseFrom);
+	            }
 	            Map<String, Object> value = ProtobufProcessMarshaller.unmarshallVariableContainerValue(context, parseFrom);
 	            // in case there was single variable stored return only that variable and not map
 	            if (value.containsKey(SINGLE_VAR_KEY) && value.size() == 1) {
@@ -127,16 +170,7 @@ public class ContentMarshallerHelper {
 	public static byte[] marshallContent(Object o, Environment env) {
         MarshallerWriteContext context;
         try {
-            MarshallingConfigurationImpl marshallingConfigurationImpl = null;
-            if (env != null) {
-                marshallingConfigurationImpl = new MarshallingConfigurationImpl((ObjectMarshallingStrategy[]) env.get(EnvironmentName.OBJECT_MARSHALLING_STRATEGIES), false, false);
-            } else {
-                marshallingConfigurationImpl = new MarshallingConfigurationImpl(new ObjectMarshallingStrategy[]{new SerializablePlaceholderResolverStrategy(ClassObjectMarshallingStrategyAcceptor.DEFAULT)}, false, false);
-            }
-            ObjectMarshallingStrategyStore objectMarshallingStrategyStore = marshallingConfigurationImpl.getObjectMarshallingStrategyStore();
-            ByteArrayOutputStream stream = new ByteArrayOutputStream();
-
-            context = new MarshallerWriteContext(stream, null, null, null, objectMarshallingStrategyStore, env);
+            ObjectMarshallingStrategyStore objectMarshallingStrategyStore = getStrategyStore(env);
             Map<String, Object> input = null;
             if (o instanceof Map) {
             	input = (Map<String, Object>) o;
@@ -145,6 +179,12 @@ public class ContentMarshallerHelper {
             	input = new HashMap<String, Object>();
             	input.put(SINGLE_VAR_KEY, o);
             }
+            if (compactContent && isCompactable(input, objectMarshallingStrategyStore)) {
+            	return writeCompact(input);
+            }
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+            context = new MarshallerWriteContext(stream, null, null, null, objectMarshallingStrategyStore, env);
             Message marshallVariable = ProtobufProcessMarshaller.marshallVariablesContainer(context, input);
             PersisterHelper.writeToStreamWithHeader(context, marshallVariable);
 
@@ -156,6 +196,186 @@ public class ContentMarshallerHelper {
         }
         return null;
     }
+
+    protected static ObjectMarshallingStrategyStore getStrategyStore(Environment env) {
+        ObjectMarshallingStrategy[] strategies = null;
+        if (env != null) {
+            strategies = (ObjectMarshallingStrategy[]) env.get(EnvironmentName.OBJECT_MARSHALLING_STRATEGIES);
+        }
+        if (strategies == null) {
+            return defaultStrategyStore;
+        }
+        ObjectMarshallingStrategyStore store = strategyStores.get(strategies);
+        if (store == null) {
+            // store is built on a copy so that it does not keep the key of the weak map reachable
+            store = new MarshallingConfigurationImpl(strategies.clone(), false, false).getObjectMarshallingStrategyStore();
+            strategyStores.put(strategies, store);
+        }
+        return store;
+    }
+
+    private static boolean isSingleVariable(VariableContainer container) {
+        return container.getVariableCount() == 1 && SINGLE_VAR_KEY.equals(container.getVariable(0).getName());
+    }
+
+    private static boolean isCompact(byte[] content) {
+        return content != null && content.length > 1 && content[0] == COMPACT_MARKER && content[1] == COMPACT_VERSION;
+    }
+
+    /*
+     * compact encoding is used only for values that would be serialized by the default strategy anyway
+     */
+    private static boolean isCompactable(Map<String, Object> input, ObjectMarshallingStrategyStore store) {
+        for (Entry<String, Object> entry : input.entrySet()) {
+            if (entry.getKey() == null) {
+                return false;
+            }
+            Object value = entry.getValue();
+            if (value == null) {
+                continue;
+            }
+            if (getCompactType(value) < 0
+                    || !(store.getStrategyObject(value) instanceof SerializablePlaceholderResolverStrategy)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte getCompactType(Object value) {
+        if (value == null) {
+            return TYPE_NULL;
+        }
+        Class<?> type = value.getClass();
+        if (type == String.class) {
+            return TYPE_STRING;
+        } else if (type == Integer.class) {
+            return TYPE_INTEGER;
+        } else if (type == Long.class) {
+            return TYPE_LONG;
+        } else if (type == Boolean.class) {
+            return TYPE_BOOLEAN;
+        } else if (type == Double.class) {
+            return TYPE_DOUBLE;
+        } else if (type == Float.class) {
+            return TYPE_FLOAT;
+        } else if (type == Short.class) {
+            return TYPE_SHORT;
+        } else if (type == Byte.class) {
+            return TYPE_BYTE;
+        } else if (type == Character.class) {
+            return TYPE_CHARACTER;
+        }
+        return -1;
+    }
+
+    private static byte[] writeCompact(Map<String, Object> input) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeByte(COMPACT_MARKER);
+        out.writeByte(COMPACT_VERSION);
+        out.writeInt(input.size());
+        for (Entry<String, Object> entry : input.entrySet()) {
+            writeString(out, entry.getKey());
+            Object value = entry.getValue();
+            byte type = getCompactType(value);
+            out.writeByte(type);
+            switch (type) {
+                case TYPE_STRING:
+                    writeString(out, (String) value);
+                    break;
+                case TYPE_INTEGER:
+                    out.writeInt((Integer) value);
+                    break;
+                case TYPE_LONG:
+                    out.writeLong((Long) value);
+                    break;
+                case TYPE_BOOLEAN:
+                    out.writeBoolean((Boolean) value);
+                    break;
+                case TYPE_DOUBLE:
+                    out.writeDouble((Double) value);
+                    break;
+                case TYPE_FLOAT:
+                    out.writeFloat((Float) value);
+                    break;
+                case TYPE_SHORT:
+                    out.writeShort((Short) value);
+                    break;
+                case TYPE_BYTE:
+                    out.writeByte((Byte) value);
+                    break;
+                case TYPE_CHARACTER:
+                    out.writeChar((Character) value);
+                    break;
+                default:
+                    break;
+            }
+        }
+        out.close();
+        return stream.toByteArray();
+    }
+
+    private static Object readCompact(byte[] content) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(content, 2, content.length - 2));
+        int size = in.readInt();
+        Map<String, Object> value = new HashMap<String, Object>();
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            byte type = in.readByte();
+            switch (type) {
+                case TYPE_NULL:
+                    value.put(key, null);
+                    break;
+                case TYPE_STRING:
+                    value.put(key, readString(in));
+                    break;
+                case TYPE_INTEGER:
+                    value.put(key, in.readInt());
+                    break;
+                case TYPE_LONG:
+                    value.put(key, in.readLong());
+                    break;
+                case TYPE_BOOLEAN:
+                    value.put(key, in.readBoolean());
+                    break;
+                case TYPE_DOUBLE:
+                    value.put(key, in.readDouble());
+                    break;
+                case TYPE_FLOAT:
+                    value.put(key, in.readFloat());
+                    break;
+                case TYPE_SHORT:
+                    value.put(key, in.readShort());
+                    break;
+                case TYPE_BYTE:
+                    value.put(key, in.readByte());
+                    break;
+                case TYPE_CHARACTER:
+                    value.put(key, in.readChar());
+                    break;
+                default:
+                    throw new IOException("Unknown type " + type + " of content variable " + key);
+            }
+        }
+        // in case there was single variable stored return only that variable and not map
+        if (value.containsKey(SINGLE_VAR_KEY) && value.size() == 1) {
+            return value.get(SINGLE_VAR_KEY);
+        }
+        return value;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
     
     @SuppressWarnings({ "unchecked", "rawtypes" })
 	private static Object fallbackParse(MarshallerReaderContext context, Header header, ExtensionRegistry registry) throws Exception {
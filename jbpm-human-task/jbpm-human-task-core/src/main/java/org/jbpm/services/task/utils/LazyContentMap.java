@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.services.task.utils;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.drools.core.marshalling.impl.MarshallerReaderContext;
+import org.drools.core.marshalling.impl.SerializablePlaceholderResolverStrategy;
+import org.jbpm.marshalling.impl.JBPMMessages.Variable;
+import org.jbpm.marshalling.impl.JBPMMessages.VariableContainer;
+import org.jbpm.marshalling.impl.ProtobufProcessMarshaller;
+import org.kie.api.marshalling.ObjectMarshallingStrategy;
+
+/**
+ * Content map which values are unmarshalled on first access. Only values of <code>SerializablePlaceholderResolverStrategy</code>
+ * without context are unmarshalled lazily, as they need nothing but their bytes and class loader - others (e.g. entities)
+ * are unmarshalled right away, within the reading transaction. Looking up a key unmarshals only its value while
+ * iterating over entries or values unmarshals all of them. The map is serialized as plain <code>HashMap</code>.
+ */
+class LazyContentMap extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, Object> values = new HashMap<String, Object>();
+
+    private final transient ClassLoader classLoader;
+    private transient Map<String, PendingValue> pending = new HashMap<String, PendingValue>();
+
+    LazyContentMap(MarshallerReaderContext context, VariableContainer container) throws IOException, ClassNotFoundException {
+        this.classLoader = context.classLoader;
+        for (Variable _variable : container.getVariableList()) {
+            if (_variable.getValue() != null && !_variable.getValue().isEmpty()) {
+                ObjectMarshallingStrategy strategy = context.usedStrategies.get(_variable.getStrategyIndex());
+                if (strategy instanceof SerializablePlaceholderResolverStrategy && context.strategyContexts.get(strategy) == null) {
+                    values.put(_variable.getName(), null);
+                    pending.put(_variable.getName(), new PendingValue(strategy, _variable.getValue().toByteArray()));
+                    continue;
+                }
+            }
+            values.put(_variable.getName(), ProtobufProcessMarshaller.unmarshallVariableValue(context, _variable));
+        }
+    }
+
+    private void resolve(Object key) {
+        PendingValue pendingValue = pending.remove(key);
+        if (pendingValue != null && values.containsKey(key)) {
+            try {
+                // strategy has no context and does not read from the stream
+                values.put((String) key, pendingValue.strategy.unmarshal(null, null, pendingValue.bytes, classLoader));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Could not unmarshal content variable " + key, e);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Could not unmarshal content variable " + key, e);
+            }
+        }
+    }
+
+    private void resolveAll() {
+        for (Object key : pending.keySet().toArray()) {
+            resolve(key);
+        }
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return values.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        resolveAll();
+        return values.containsValue(value);
+    }
+
+    @Override
+    public Object get(Object key) {
+        resolve(key);
+        return values.get(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        resolve(key);
+        return values.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        resolve(key);
+        return values.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        pending.clear();
+        values.clear();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return values.keySet();
+    }
+
+    @Override
+    public Collection<Object> values() {
+        resolveAll();
+        return values.values();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        resolveAll();
+        return values.entrySet();
+    }
+
+    private Object writeReplace() {
+        resolveAll();
+        return new HashMap<String, Object>(values);
+    }
+
+    private static class PendingValue {
+
+        private final ObjectMarshallingStrategy strategy;
+        private final byte[] bytes;
+
+        PendingValue(ObjectMarshallingStrategy strategy, byte[] bytes) {
+            this.strategy = strategy;
+            this.bytes = bytes;
+        }
+    }
+}
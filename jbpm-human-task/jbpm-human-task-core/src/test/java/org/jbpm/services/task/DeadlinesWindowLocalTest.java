@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.services.task;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jbpm.services.task.deadlines.notifications.impl.MockNotificationListener;
+import org.jbpm.services.task.impl.TaskDeadlinesServiceImpl;
+import org.jbpm.services.task.impl.factories.TaskFactory;
+import org.jbpm.services.task.utils.ContentMarshallerHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.task.model.Task;
+import org.kie.internal.task.api.TaskModelProvider;
+import org.kie.internal.task.api.model.ContentData;
+import org.kie.internal.task.api.model.InternalContent;
+
+/**
+ * Runs deadline tests with only deadlines due within schedule window kept in memory. The window is shorter
+ * than the deadlines of the tests so they are scheduled by the deadline scan.
+ */
+public class DeadlinesWindowLocalTest extends DeadlinesLocalTest {
+
+    @Before
+    @Override
+    public void setup() {
+        TaskDeadlinesServiceImpl.setScheduleWindow(1000);
+        super.setup();
+    }
+
+    @After
+    @Override
+    public void clean() {
+        super.clean();
+        TaskDeadlinesServiceImpl.setScheduleWindow(0);
+    }
+
+    @Test
+    public void testDeadlineBeyondWindowScheduledOnceByScan() throws Exception {
+        Map<String, Object> vars = new HashMap<String, Object>();
+        vars.put("now", new Date());
+
+        // deadline is due in 4 seconds, every scan until then loads it again with overlap
+        Reader reader = new InputStreamReader(getClass().getResourceAsStream(MvelFilePath.DeadlineWithNotification));
+        Task task = (Task) TaskFactory.evalTask(reader, vars);
+        taskService.addTask(task, new HashMap<String, Object>());
+
+        InternalContent content = (InternalContent) TaskModelProvider.getFactory().newContent();
+        ContentData marshalledObject = ContentMarshallerHelper.marshal(fillMarshalSubjectAndBodyParams(), null);
+        content.setContent(marshalledObject.getContent());
+        taskService.addContent(task.getId(), content);
+
+        assertEquals(0, ((MockNotificationListener) notificationListener).getEventsRecieved().size());
+
+        long time = 0;
+        while (((MockNotificationListener) notificationListener).getEventsRecieved().size() == 0 && time < 6000) {
+            Thread.sleep(500);
+            time += 500;
+        }
+        assertEquals(1, ((MockNotificationListener) notificationListener).getEventsRecieved().size());
+
+        // let few more scans run, deadline must not be executed again
+        Thread.sleep(2000);
+        assertEquals(1, ((MockNotificationListener) notificationListener).getEventsRecieved().size());
+    }
+
+}
@@ -23,13 +23,18 @@ import static org.junit.Assert.assertTrue;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.naming.InitialContext;
 import javax.transaction.UserTransaction;
 
+import org.jbpm.query.jpa.data.SeekQueryFilter;
+import org.jbpm.services.task.commands.GetTaskAssignedAsPotentialOwnerCommand;
 import org.jbpm.services.task.impl.factories.TaskFactory;
 import org.jbpm.services.task.impl.model.TaskDataImpl;
 import org.jbpm.services.task.impl.model.TaskImpl;
@@ -906,4 +911,60 @@ public abstract class TaskQueryServiceBaseTest extends HumanTaskServicesBaseTest
         assertEquals("Bobba Fet", tasks.get(0).getActualOwnerId());
         assertEquals(true, tasks.get(0).isSkipable());
     }
+
+    @Test
+    public void testGetTasksAssignedAsPotentialOwnerSeekPages() {
+        // priorities with ties, tasks of the same priority are ordered by id
+        int[] priorities = new int[] {3, 1, 2, 1, 3};
+        final Map<Long, Integer> taskPriorities = new HashMap<Long, Integer>();
+        for (int priority : priorities) {
+            String str = "(with (new Task()) { priority = " + priority + ", taskData = (with( new TaskData()) { } ), ";
+            str += "peopleAssignments = (with ( new PeopleAssignments() ) { potentialOwners = [new User('Bobba Fet')  ],businessAdministrators = [ new User('Administrator') ], }),";
+            str += "name = 'This is my task name' })";
+            Task task = TaskFactory.evalTask(new StringReader(str));
+            taskService.addTask(task, new HashMap<String, Object>());
+            taskPriorities.put(task.getId(), priority);
+        }
+        List<Long> expected = new ArrayList<Long>(taskPriorities.keySet());
+        Collections.sort(expected, new Comparator<Long>() {
+
+            @Override
+            public int compare(Long o1, Long o2) {
+                int result = taskPriorities.get(o1).compareTo(taskPriorities.get(o2));
+                return result != 0 ? result : o1.compareTo(o2);
+            }
+        });
+
+        List<Integer> pageSizes = new ArrayList<Integer>();
+        assertEquals(expected, seekAllTasks(new SeekQueryFilter(2, "Priority", true), pageSizes));
+        // last page is the partial one, the one after it is empty
+        assertEquals(Arrays.asList(2, 2, 1), pageSizes);
+
+        Collections.reverse(expected);
+        pageSizes.clear();
+        assertEquals(expected, seekAllTasks(new SeekQueryFilter(2, "Priority", false), pageSizes));
+        assertEquals(Arrays.asList(2, 2, 1), pageSizes);
+
+        // without sort column tasks are ordered by id only
+        Collections.sort(expected);
+        pageSizes.clear();
+        assertEquals(expected, seekAllTasks(new SeekQueryFilter(5), pageSizes));
+        assertEquals(Arrays.asList(5), pageSizes);
+    }
+
+    private List<Long> seekAllTasks(SeekQueryFilter filter, List<Integer> pageSizes) {
+        List<Long> taskIds = new ArrayList<Long>();
+        List<TaskSummary> page = taskService.execute(new GetTaskAssignedAsPotentialOwnerCommand("Bobba Fet", null, null, filter));
+        while (!page.isEmpty()) {
+            assertTrue("Too many pages, seek does not move forward", pageSizes.size() < 10);
+            pageSizes.add(page.size());
+            for (TaskSummary task : page) {
+                taskIds.add(task.getId());
+            }
+            TaskSummary last = page.get(page.size() - 1);
+            filter.after(last.getPriority(), last.getId());
+            page = taskService.execute(new GetTaskAssignedAsPotentialOwnerCommand("Bobba Fet", null, null, filter));
+        }
+        return taskIds;
+    }
 }
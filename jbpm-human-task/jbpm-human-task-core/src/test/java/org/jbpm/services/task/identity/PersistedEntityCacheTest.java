@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.services.task.identity;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.jbpm.services.task.impl.TaskIdentityServiceImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.internal.task.api.TaskPersistenceContext;
+
+public class PersistedEntityCacheTest {
+
+    @Before
+    public void setUp() {
+        PersistedEntityCache.setDefaultMaxSize(100);
+    }
+
+    @After
+    public void tearDown() {
+        PersistedEntityCache.setDefaultMaxSize(0);
+    }
+
+    @Test
+    public void testCacheScopedToEntityManagerFactory() {
+        Object emf = new Object();
+        Object otherEmf = new Object();
+
+        PersistedEntityCache cache = PersistedEntityCache.get(emf);
+        assertSame(cache, PersistedEntityCache.get(emf));
+        assertNotSame(cache, PersistedEntityCache.get(otherEmf));
+        assertFalse(PersistedEntityCache.get(null).isEnabled());
+
+        cache.markUserPersisted("john");
+        cache.markGroupPersisted("HR");
+        assertTrue(cache.isUserPersisted("john"));
+        assertTrue(cache.isGroupPersisted("HR"));
+        assertFalse(PersistedEntityCache.get(otherEmf).isUserPersisted("john"));
+    }
+
+    @Test
+    public void testRemovalEvictsEntity() {
+        PersistedEntityCache cache = PersistedEntityCache.get(new Object());
+        cache.markUserPersisted("john");
+        cache.markGroupPersisted("HR");
+
+        TaskIdentityServiceImpl identityService = new TaskIdentityServiceImpl(newPersistenceContext(), cache);
+        identityService.removeUser("john");
+        assertFalse(cache.isUserPersisted("john"));
+        assertTrue(cache.isGroupPersisted("HR"));
+
+        identityService.removeGroup("HR");
+        assertFalse(cache.isGroupPersisted("HR"));
+    }
+
+    @Test
+    public void testDisabledCache() {
+        PersistedEntityCache.setDefaultMaxSize(0);
+        PersistedEntityCache cache = PersistedEntityCache.get(new Object());
+
+        cache.markGroupPersisted("HR");
+        assertFalse(cache.isGroupPersisted("HR"));
+    }
+
+    private TaskPersistenceContext newPersistenceContext() {
+        return (TaskPersistenceContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{TaskPersistenceContext.class}, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                return null;
+            }
+        });
+    }
+}
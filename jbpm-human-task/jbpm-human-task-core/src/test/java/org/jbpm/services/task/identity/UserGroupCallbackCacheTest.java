@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.services.task.identity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+
+public class UserGroupCallbackCacheTest {
+
+    @Test
+    public void testCachedCallbackResults() {
+        CountingCallback callback = new CountingCallback();
+        UserGroupCallbackCache cache = new UserGroupCallbackCache(callback, 60000, 100);
+
+        assertTrue(cache.existsUser("john"));
+        assertTrue(cache.existsUser("john"));
+        assertFalse(cache.existsUser("mary"));
+        assertFalse(cache.existsUser("mary"));
+        assertTrue(cache.existsGroup("HR"));
+        assertTrue(cache.existsGroup("HR"));
+        assertEquals(3, callback.calls);
+        assertEquals(3, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate(), 0.001);
+
+        // returned groups are a copy that can be modified by the caller
+        List<String> groups = cache.getGroupsForUser("john", null);
+        groups.remove("HR");
+        assertEquals(2, cache.getGroupsForUser("john", null).size());
+        assertEquals(4, callback.calls);
+
+        cache.invalidateUser("john");
+        assertTrue(cache.existsUser("john"));
+        assertEquals(2, cache.getGroupsForUser("john", null).size());
+        assertEquals(6, callback.calls);
+    }
+
+    @Test
+    public void testExpiredEntries() throws Exception {
+        CountingCallback callback = new CountingCallback();
+        UserGroupCallbackCache cache = new UserGroupCallbackCache(callback, 10, 100);
+
+        assertTrue(cache.existsUser("john"));
+        assertTrue(cache.existsUser("john"));
+        assertEquals(1, callback.calls);
+
+        Thread.sleep(50);
+        assertTrue(cache.existsUser("john"));
+        assertEquals(2, callback.calls);
+    }
+
+    @Test
+    public void testDisabledCache() {
+        CountingCallback callback = new CountingCallback();
+        UserGroupCallbackCache cache = new UserGroupCallbackCache(callback, 0, 100);
+
+        assertTrue(cache.existsUser("john"));
+        assertTrue(cache.existsUser("john"));
+        assertEquals(2, callback.calls);
+    }
+
+    @Test(timeout=30000)
+    public void testSharedCacheDoesNotKeepCallback() throws Exception {
+        CountingCallback callback = new CountingCallback();
+        UserGroupCallbackCache.get(callback).existsUser("john");
+        WeakReference<CountingCallback> reference = new WeakReference<CountingCallback>(callback);
+
+        callback = null;
+        while (reference.get() != null) {
+            System.gc();
+            Thread.sleep(10);
+        }
+    }
+
+    private static class CountingCallback extends JBossUserGroupCallbackImpl {
+
+        private int calls;
+
+        CountingCallback() {
+            super(users());
+        }
+
+        private static Properties users() {
+            Properties users = new Properties();
+            users.setProperty("john", "HR,IT");
+            return users;
+        }
+
+        @Override
+        public boolean existsUser(String userId) {
+            calls++;
+            return super.existsUser(userId);
+        }
+
+        @Override
+        public boolean existsGroup(String groupId) {
+            calls++;
+            return super.existsGroup(groupId);
+        }
+
+        @Override
+        public List<String> getGroupsForUser(String userId, List<String> groupIds, List<String> allExistingGroupIds) {
+            calls++;
+            return super.getGroupsForUser(userId, groupIds, allExistingGroupIds);
+        }
+    }
+}
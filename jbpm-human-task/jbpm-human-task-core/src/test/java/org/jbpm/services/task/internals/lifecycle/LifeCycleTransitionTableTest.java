@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.services.task.internals.lifecycle;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.jbpm.services.task.internals.lifecycle.LifeCycleTransitionTable.Transition;
+import org.junit.Test;
+import org.kie.api.task.model.Status;
+import org.kie.internal.task.api.model.Operation;
+
+public class LifeCycleTransitionTableTest {
+
+    private LifeCycleTransitionTable table = new LifeCycleTransitionTable(MVELLifeCycleManager.initMVELOperations());
+
+    @Test
+    public void testTransitionByStatus() {
+        Transition start = table.getTransition(Operation.Start, Status.Ready, null);
+        assertNotNull(start);
+        assertEquals(Status.InProgress, start.getCommand().getNewStatus());
+        assertTrue(start.getCommand().isSetNewOwnerToUser());
+        assertArrayEquals(new Allowed[] {Allowed.PotentialOwner, Allowed.BusinessAdministrator}, start.getAllowed());
+
+        Transition startReserved = table.getTransition(Operation.Start, Status.Reserved, null);
+        assertNotNull(startReserved);
+        assertArrayEquals(new Allowed[] {Allowed.Owner}, startReserved.getAllowed());
+
+        assertNull(table.getTransition(Operation.Complete, Status.Reserved, null));
+        assertNull(table.getTransition(Operation.Claim, Status.Completed, Status.InProgress));
+    }
+
+    @Test
+    public void testTransitionByPreviousStatus() {
+        Transition resume = table.getTransition(Operation.Resume, Status.Suspended, Status.InProgress);
+        assertNotNull(resume);
+        assertTrue(resume.getCommand().isSetToPreviousStatus());
+        assertArrayEquals(new Allowed[] {Allowed.Owner, Allowed.BusinessAdministrator}, resume.getAllowed());
+
+        assertNull(table.getTransition(Operation.Resume, Status.Suspended, Status.Completed));
+    }
+
+    @Test
+    public void testGroupTargetEntity() {
+        assertFalse(table.isGroupTargetEntityAllowed(Operation.Forward));
+        assertTrue(table.isGroupTargetEntityAllowed(Operation.Delegate));
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.services.task.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.drools.core.impl.EnvironmentFactory;
+import org.drools.core.marshalling.impl.ClassObjectMarshallingStrategyAcceptor;
+import org.drools.core.marshalling.impl.SerializablePlaceholderResolverStrategy;
+import org.junit.After;
+import org.junit.Test;
+import org.kie.api.marshalling.ObjectMarshallingStrategy;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.EnvironmentName;
+
+public class ContentMarshallerHelperTest {
+
+    @After
+    public void tearDown() {
+        ContentMarshallerHelper.setCompactContent(false);
+        ContentMarshallerHelper.setLazyContent(false);
+    }
+
+    @Test
+    public void testCompactContentRoundTrip() {
+        ContentMarshallerHelper.setCompactContent(true);
+        Map<String, Object> input = new HashMap<String, Object>();
+        input.put("name", "John");
+        input.put("age", 42);
+        input.put("id", 42L);
+        input.put("approved", true);
+        input.put("amount", 10.5d);
+        input.put("ratio", 0.5f);
+        input.put("level", (short) 3);
+        input.put("flag", (byte) 1);
+        input.put("grade", 'A');
+        input.put("comment", null);
+        input.put("unicode", "žluťoučký kůň");
+
+        byte[] content = ContentMarshallerHelper.marshallContent(input, null);
+        assertEquals(0, content[0]);
+        assertEquals(input, ContentMarshallerHelper.unmarshall(content, null));
+
+        byte[] single = ContentMarshallerHelper.marshallContent("single value", null);
+        assertEquals(0, single[0]);
+        assertEquals("single value", ContentMarshallerHelper.unmarshall(single, null));
+    }
+
+    @Test
+    public void testCompactContentNotUsedForOtherTypes() {
+        ContentMarshallerHelper.setCompactContent(true);
+        Map<String, Object> input = new HashMap<String, Object>();
+        input.put("name", "John");
+        input.put("date", new Date());
+
+        byte[] content = ContentMarshallerHelper.marshallContent(input, null);
+        assertFalse(content[0] == 0);
+        assertEquals(input, ContentMarshallerHelper.unmarshall(content, null));
+    }
+
+    @Test
+    public void testProtobufContentReadWhenCompactEnabled() {
+        Map<String, Object> input = new HashMap<String, Object>();
+        input.put("name", "John");
+        byte[] content = ContentMarshallerHelper.marshallContent(input, null);
+
+        ContentMarshallerHelper.setCompactContent(true);
+        assertEquals(input, ContentMarshallerHelper.unmarshall(content, null));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLazyContent() {
+        ContentMarshallerHelper.setLazyContent(true);
+        Map<String, Object> input = new HashMap<String, Object>();
+        input.put("name", "John");
+        input.put("date", new Date());
+        input.put("comment", null);
+        byte[] content = ContentMarshallerHelper.marshallContent(input, null);
+
+        Map<String, Object> output = (Map<String, Object>) ContentMarshallerHelper.unmarshall(content, null);
+        assertTrue(output instanceof LazyContentMap);
+        assertEquals(3, output.size());
+        assertEquals("John", output.get("name"));
+        assertTrue(output.containsKey("comment"));
+        assertEquals(input, output);
+
+        output.put("name", "Mary");
+        assertEquals("Mary", output.get("name"));
+
+        assertEquals("single value", ContentMarshallerHelper.unmarshall(
+                ContentMarshallerHelper.marshallContent("single value", null), null));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLazyContentOnlyForSerializableStrategy() {
+        ContentMarshallerHelper.setLazyContent(true);
+        CountingStrategy countingStrategy = new CountingStrategy();
+        Environment env = EnvironmentFactory.newEnvironment();
+        env.set(EnvironmentName.OBJECT_MARSHALLING_STRATEGIES, new ObjectMarshallingStrategy[] {
+                countingStrategy, new SerializablePlaceholderResolverStrategy(ClassObjectMarshallingStrategyAcceptor.DEFAULT) });
+        Map<String, Object> input = new HashMap<String, Object>();
+        input.put("name", "John");
+        input.put("date", new Date());
+        byte[] content = ContentMarshallerHelper.marshallContent(input, env);
+
+        // values of other strategies are unmarshalled right away, e.g. within the transaction of the reader
+        Map<String, Object> output = (Map<String, Object>) ContentMarshallerHelper.unmarshall(content, env);
+        assertTrue(output instanceof LazyContentMap);
+        assertEquals(1, countingStrategy.unmarshalled);
+        assertEquals(input, output);
+        assertEquals(1, countingStrategy.unmarshalled);
+    }
+
+    @Test
+    public void testStrategyStoreCachedPerEnvironment() {
+        Environment env = EnvironmentFactory.newEnvironment();
+        env.set(EnvironmentName.OBJECT_MARSHALLING_STRATEGIES, new ObjectMarshallingStrategy[] {
+                new SerializablePlaceholderResolverStrategy(ClassObjectMarshallingStrategyAcceptor.DEFAULT) });
+
+        assertSame(ContentMarshallerHelper.getStrategyStore(env), ContentMarshallerHelper.getStrategyStore(env));
+        assertSame(ContentMarshallerHelper.getStrategyStore(null), ContentMarshallerHelper.getStrategyStore(null));
+        assertFalse(ContentMarshallerHelper.getStrategyStore(env) == ContentMarshallerHelper.getStrategyStore(null));
+    }
+
+    private static class CountingStrategy implements ObjectMarshallingStrategy {
+
+        private int unmarshalled;
+
+        public boolean accept(Object object) {
+            return object instanceof String;
+        }
+
+        public void write(ObjectOutputStream os, Object object) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        public Object read(ObjectInputStream os) throws IOException, ClassNotFoundException {
+            throw new UnsupportedOperationException();
+        }
+
+        public byte[] marshal(Context context, ObjectOutputStream os, Object object) throws IOException {
+            return ((String) object).getBytes("UTF-8");
+        }
+
+        public Object unmarshal(Context context, ObjectInputStream is, byte[] object, ClassLoader classloader) throws IOException, ClassNotFoundException {
+            unmarshalled++;
+            return new String(object, "UTF-8");
+        }
+
+        public Context createContext() {
+            return null;
+        }
+    }
+}
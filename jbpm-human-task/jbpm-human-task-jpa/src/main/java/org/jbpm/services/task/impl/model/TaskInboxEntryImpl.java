@@ -0,0 +1,293 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.services.task.impl.model;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import org.kie.api.task.model.OrganizationalEntity;
+import org.kie.api.task.model.Status;
+import org.kie.api.task.model.Task;
+import org.kie.api.task.model.TaskData;
+
+/**
+ * Denormalized row of the task inbox - one row per task and potential (or excluded) owner holding
+ * the columns of task summary so potential owner queries do not need to join people assignments.
+ * Rows are maintained by <code>TaskInboxEventListener</code> and exist only for tasks that are neither
+ * archived nor in a final state.
+ */
+@Entity
+@Table(name = "TaskInbox")
+@SequenceGenerator(name = "taskInboxIdSeq", sequenceName = "TASK_INBOX_ID_SEQ", allocationSize = 1)
+public class TaskInboxEntryImpl implements Serializable {
+
+    private static final long serialVersionUID = -2286416536880345337L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO, generator = "taskInboxIdSeq")
+    private Long id;
+
+    private long taskId;
+
+    private String entityId;
+
+    private boolean excluded;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    private String name;
+    private String description;
+    private int priority;
+    private String actualOwner;
+    private String createdBy;
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdOn;
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date activationTime;
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date expirationTime;
+    private String processId;
+    private long processInstanceId;
+    private long parentId;
+    private String deploymentId;
+    private boolean skipable;
+
+    public TaskInboxEntryImpl() {
+    }
+
+    public TaskInboxEntryImpl(Task task, String entityId, boolean excluded) {
+        this.taskId = task.getId();
+        this.entityId = entityId;
+        this.excluded = excluded;
+        update(task);
+    }
+
+    /**
+     * Returns true if summary columns of this entry are the same as of given task.
+     */
+    public boolean matches(Task task) {
+        TaskData taskData = task.getTaskData();
+        return status == taskData.getStatus()
+                && equal(actualOwner, id(taskData.getActualOwner()))
+                && equal(name, task.getName())
+                && equal(description, task.getDescription())
+                && priority == task.getPriority()
+                && equal(expirationTime, taskData.getExpirationTime())
+                && equal(activationTime, taskData.getActivationTime())
+                && equal(createdBy, id(taskData.getCreatedBy()))
+                && equal(createdOn, taskData.getCreatedOn())
+                && equal(processId, taskData.getProcessId())
+                && processInstanceId == taskData.getProcessInstanceId()
+                && parentId == taskData.getParentId()
+                && equal(deploymentId, taskData.getDeploymentId())
+                && skipable == taskData.isSkipable();
+    }
+
+    /**
+     * Copies summary columns of given task.
+     */
+    public void update(Task task) {
+        TaskData taskData = task.getTaskData();
+        this.status = taskData.getStatus();
+        this.actualOwner = id(taskData.getActualOwner());
+        this.name = task.getName();
+        this.description = task.getDescription();
+        this.priority = task.getPriority();
+        this.expirationTime = taskData.getExpirationTime();
+        this.activationTime = taskData.getActivationTime();
+        this.createdBy = id(taskData.getCreatedBy());
+        this.createdOn = taskData.getCreatedOn();
+        this.processId = taskData.getProcessId();
+        this.processInstanceId = taskData.getProcessInstanceId();
+        this.parentId = taskData.getParentId();
+        this.deploymentId = taskData.getDeploymentId();
+        this.skipable = taskData.isSkipable();
+    }
+
+    private static String id(OrganizationalEntity entity) {
+        return entity == null ? null : entity.getId();
+    }
+
+    private static boolean equal(Object first, Object second) {
+        if (first instanceof Date && second instanceof Date) {
+            // values read from database might be java.sql.Timestamp
+            return ((Date) first).getTime() == ((Date) second).getTime();
+        }
+        return first == null ? second == null : first.equals(second);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public long getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(long taskId) {
+        this.taskId = taskId;
+    }
+
+    public String getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(String entityId) {
+        this.entityId = entityId;
+    }
+
+    public boolean isExcluded() {
+        return excluded;
+    }
+
+    public void setExcluded(boolean excluded) {
+        this.excluded = excluded;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    public String getActualOwner() {
+        return actualOwner;
+    }
+
+    public void setActualOwner(String actualOwner) {
+        this.actualOwner = actualOwner;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public Date getCreatedOn() {
+        return createdOn;
+    }
+
+    public void setCreatedOn(Date createdOn) {
+        this.createdOn = createdOn;
+    }
+
+    public Date getActivationTime() {
+        return activationTime;
+    }
+
+    public void setActivationTime(Date activationTime) {
+        this.activationTime = activationTime;
+    }
+
+    public Date getExpirationTime() {
+        return expirationTime;
+    }
+
+    public void setExpirationTime(Date expirationTime) {
+        this.expirationTime = expirationTime;
+    }
+
+    public String getProcessId() {
+        return processId;
+    }
+
+    public void setProcessId(String processId) {
+        this.processId = processId;
+    }
+
+    public long getProcessInstanceId() {
+        return processInstanceId;
+    }
+
+    public void setProcessInstanceId(long processInstanceId) {
+        this.processInstanceId = processInstanceId;
+    }
+
+    public long getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(long parentId) {
+        this.parentId = parentId;
+    }
+
+    public String getDeploymentId() {
+        return deploymentId;
+    }
+
+    public void setDeploymentId(String deploymentId) {
+        this.deploymentId = deploymentId;
+    }
+
+    public boolean isSkipable() {
+        return skipable;
+    }
+
+    public void setSkipable(boolean skipable) {
+        this.skipable = skipable;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskInboxEntryImpl{taskId=" + taskId + ", entityId=" + entityId + ", excluded=" + excluded
+                + ", status=" + status + ", actualOwner=" + actualOwner + "}";
+    }
+}
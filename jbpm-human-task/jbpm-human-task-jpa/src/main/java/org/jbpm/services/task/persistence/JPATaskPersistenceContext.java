@@ -15,6 +15,7 @@
 
 package org.jbpm.services.task.persistence;
 
+import static org.jbpm.query.jpa.data.SeekQueryFilter.SEEK_KEY;
 import static org.jbpm.query.jpa.impl.QueryCriteriaUtil.convertListToInterfaceList;
 import static org.jbpm.services.task.persistence.TaskQueryManager.adaptQueryString;
 import static org.kie.internal.query.QueryParameterIdentifiers.FILTER;
@@ -481,6 +482,29 @@ public class JPATaskPersistenceContext implements TaskPersistenceContext {
 		return query.executeUpdate();
 	}
 
+	/**
+	 * Executes named update (or delete) query with given parameters.
+	 * @return number of affected rows
+	 */
+	public int executeUpdate(String queryName, Map<String, Object> params) {
+		check();
+		Query query = getQueryByName(queryName, params);
+		if (params != null) {
+			for (Entry<String,Object> paramEntry : params.entrySet()) {
+				query.setParameter(paramEntry.getKey(), paramEntry.getValue());
+			}
+		}
+		return query.executeUpdate();
+	}
+
+	/**
+	 * Writes pending changes of the underlying entity manager to the data base.
+	 */
+	public void flush() {
+		check();
+		this.em.flush();
+	}
+
 	private TaskQueryCriteriaUtil queryUtil = new TaskQueryCriteriaUtil(this);
 	
     @Override   
@@ -572,7 +596,8 @@ public class JPATaskPersistenceContext implements TaskPersistenceContext {
 				// skip control parameters
 				else if ( ORDER_TYPE.equals(name)
 				        || ORDER_BY.equals(name)
-						|| FILTER.equals(name)) {
+						|| FILTER.equals(name)
+						|| SEEK_KEY.equals(name)) {
 					continue;
 				}
 				query.setParameter(name, params.get(name));
@@ -16,6 +16,9 @@
 
 package org.jbpm.services.task.persistence;
 
+import static org.jbpm.query.jpa.data.SeekQueryFilter.SEEK_ID;
+import static org.jbpm.query.jpa.data.SeekQueryFilter.SEEK_KEY;
+import static org.jbpm.query.jpa.data.SeekQueryFilter.SEEK_VALUE;
 import static org.kie.internal.query.QueryParameterIdentifiers.*;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -70,6 +73,10 @@ public class TaskQueryManager {
             buf.append(" and " + params.get(FILTER));
             query = buf;
         }
+        if (params != null && params.containsKey(SEEK_KEY)) {
+            appendSeek(buf, params);
+            return buf.toString();
+        }
         if (params != null && params.containsKey(ORDER_BY)) {
             buf.append(" ORDER BY " + adaptOrderBy((String) params.get(ORDER_BY)));
             Object orderTypeObj = params.get(ORDER_TYPE);
@@ -123,6 +130,35 @@ public class TaskQueryManager {
 		}
 	}
 	
+	/*
+	 * Keyset pagination - tasks following the last seen one are selected by a predicate on sort column
+	 * and id column instead of skipping them with offset, id column is used as tie breaker in order by
+	 */
+	private static void appendSeek(StringBuilder buf, Map<String, Object> params) {
+	    String idColumn = (String) params.get(SEEK_KEY);
+	    String orderBy = null;
+	    if (params.containsKey(ORDER_BY)) {
+	        orderBy = adaptOrderBy((String) params.get(ORDER_BY));
+	    }
+	    boolean descending = DESCENDING_VALUE.equals(params.get(ORDER_TYPE));
+	    String comparator = descending ? " < " : " > ";
+	    String direction = descending ? " DESC" : " ASC";
+
+	    if (params.containsKey(SEEK_ID)) {
+	        if (orderBy == null) {
+	            buf.append(" and " + idColumn + comparator + ":" + SEEK_ID);
+	        } else {
+	            buf.append(" and (" + orderBy + comparator + ":" + SEEK_VALUE
+	                    + " or (" + orderBy + " = :" + SEEK_VALUE + " and " + idColumn + comparator + ":" + SEEK_ID + "))");
+	        }
+	    }
+	    buf.append(" ORDER BY ");
+	    if (orderBy != null && !orderBy.equals(idColumn)) {
+	        buf.append(orderBy + direction + ", ");
+	    }
+	    buf.append(idColumn + direction);
+	}
+
 	private static String adaptOrderBy(String orderBy) {
 		if (orderBy != null) {
 			if (orderBy.equals("Task")) {
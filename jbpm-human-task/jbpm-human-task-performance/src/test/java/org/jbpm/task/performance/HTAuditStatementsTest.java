@@ -0,0 +1,160 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.task.performance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.naming.InitialContext;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import javax.transaction.UserTransaction;
+
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.jbpm.services.task.HumanTaskServiceFactory;
+import org.jbpm.services.task.HumanTaskServicesBaseTest;
+import org.jbpm.services.task.audit.CoalescingTaskLifeCycleEventListener;
+import org.jbpm.services.task.audit.JPATaskLifeCycleEventListener;
+import org.jbpm.services.task.utils.TaskFluent;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.task.TaskLifeCycleEventListener;
+import org.kie.api.task.model.Task;
+import org.kie.internal.task.api.InternalTaskService;
+
+import bitronix.tm.resource.jdbc.PoolingDataSource;
+
+/**
+ * Prints number of SQL statements issued per lifecycle operation without audit, with
+ * <code>JPATaskLifeCycleEventListener</code> and with <code>CoalescingTaskLifeCycleEventListener</code>.
+ */
+public class HTAuditStatementsTest extends HumanTaskServicesBaseTest {
+
+    private static final int AMOUNT = 200;
+
+    private PoolingDataSource pds;
+    private EntityManagerFactory emf;
+
+    @Before
+    public void setup() {
+        pds = setupPoolingDataSource();
+    }
+
+    @After
+    public void clean() {
+        closeTaskService();
+        if (pds != null) {
+            pds.close();
+        }
+    }
+
+    @Test
+    public void testStatementsPerLifecycleOperation() throws Exception {
+        System.out.println("Starting testStatementsPerLifecycleOperation ...");
+        Map<String, double[]> results = new HashMap<String, double[]>();
+        results.put("no audit", measure(null));
+        results.put("default audit", measure(new JPATaskLifeCycleEventListener(true)));
+        results.put("coalescing audit", measure(new CoalescingTaskLifeCycleEventListener(true)));
+
+        System.out.println("Statements per operation (claim / start / complete / claim+start+complete in one transaction):");
+        for (String mode : new String[] {"no audit", "default audit", "coalescing audit"}) {
+            double[] result = results.get(mode);
+            System.out.println(" " + mode + "... " + result[0] + " / " + result[1] + " / " + result[2] + " / " + result[3]);
+        }
+        Assert.assertTrue(results.get("coalescing audit")[3] < results.get("default audit")[3]);
+    }
+
+    protected double[] measure(TaskLifeCycleEventListener listener) throws Exception {
+        createTaskService(listener);
+        Statistics statistics = ((HibernateEntityManagerFactory) emf).getSessionFactory().getStatistics();
+        double[] result = new double[4];
+
+        List<Long> taskIds = addTasks(AMOUNT);
+        statistics.clear();
+        for (Long taskId : taskIds) {
+            taskService.claim(taskId, "salaboy");
+        }
+        result[0] = (double) statistics.getPrepareStatementCount() / AMOUNT;
+        statistics.clear();
+        for (Long taskId : taskIds) {
+            taskService.start(taskId, "salaboy");
+        }
+        result[1] = (double) statistics.getPrepareStatementCount() / AMOUNT;
+        statistics.clear();
+        for (Long taskId : taskIds) {
+            taskService.complete(taskId, "salaboy", null);
+        }
+        result[2] = (double) statistics.getPrepareStatementCount() / AMOUNT;
+
+        taskIds = addTasks(AMOUNT);
+        UserTransaction ut = InitialContext.doLookup("java:comp/UserTransaction");
+        statistics.clear();
+        for (Long taskId : taskIds) {
+            ut.begin();
+            taskService.claim(taskId, "salaboy");
+            taskService.start(taskId, "salaboy");
+            taskService.complete(taskId, "salaboy", null);
+            ut.commit();
+        }
+        result[3] = (double) statistics.getPrepareStatementCount() / AMOUNT;
+
+        closeTaskService();
+        return result;
+    }
+
+    protected List<Long> addTasks(int amount) {
+        List<Long> taskIds = new ArrayList<Long>();
+        for (int i = 0; i < amount; i++) {
+            Task task = new TaskFluent()
+                                        .setName("Task #" + i)
+                                        .addPotentialGroup("Knights Templer")
+                                        .setAdminUser("Administrator")
+                                        .getTask();
+            taskIds.add(taskService.addTask(task, new HashMap<String, Object>()));
+        }
+        return taskIds;
+    }
+
+    protected void createTaskService(TaskLifeCycleEventListener listener) {
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put("hibernate.generate_statistics", "true");
+        properties.put("hibernate.jdbc.batch_size", "20");
+        emf = Persistence.createEntityManagerFactory("org.jbpm.services.task", properties);
+
+        if (listener == null) {
+            this.taskService = (InternalTaskService) HumanTaskServiceFactory.newTaskServiceConfigurator()
+                                                    .entityManagerFactory(emf)
+                                                    .getTaskService();
+        } else {
+            this.taskService = (InternalTaskService) HumanTaskServiceFactory.newTaskServiceConfigurator()
+                                                    .entityManagerFactory(emf)
+                                                    .listener(listener)
+                                                    .getTaskService();
+        }
+    }
+
+    protected void closeTaskService() {
+        if (emf != null) {
+            emf.close();
+            emf = null;
+        }
+    }
+}
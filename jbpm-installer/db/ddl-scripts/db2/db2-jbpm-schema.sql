@@ -348,6 +348,28 @@
         primary key (id)
     );
 
+    create table TaskInbox (
+        id bigint generated by default as identity,
+        activationTime timestamp,
+        actualOwner varchar(255),
+        createdBy varchar(255),
+        createdOn timestamp,
+        deploymentId varchar(255),
+        description varchar(255),
+        entityId varchar(255),
+        excluded smallint not null,
+        expirationTime timestamp,
+        name varchar(255),
+        parentId bigint not null,
+        priority integer not null,
+        processId varchar(255),
+        processInstanceId bigint not null,
+        skipable smallint not null,
+        status varchar(255),
+        taskId bigint not null,
+        primary key (id)
+    );
+
     create table VariableInstanceLog (
         id bigint generated by default as identity,
         log_date timestamp,
@@ -628,6 +650,7 @@
     create index IDX_CorrPropInfo_Id ON CorrelationPropertyInfo(correlationKey_keyId);
     create index IDX_Deadline_StartId ON Deadline(Deadlines_StartDeadLine_Id);
     create index IDX_Deadline_EndId ON Deadline(Deadlines_EndDeadLine_Id);
+    create index IDX_Deadline_Date ON Deadline(escalated, deadline_date);
     create index IDX_Delegation_EntityId ON Delegation_delegates(entity_id);
     create index IDX_Delegation_TaskId ON Delegation_delegates(task_id);
     create index IDX_ErrorInfo_Id ON ErrorInfo(REQUEST_ID);
@@ -671,6 +694,8 @@
     create index IDX_Task_status on Task(status);
     create index IDX_Task_archived on Task(archived);
     create index IDX_Task_workItemId on Task(workItemId);
+    create index IDX_TaskInbox_Entity on TaskInbox(entityId, status, excluded, taskId);
+    create index IDX_TaskInbox_TaskId on TaskInbox(taskId, entityId);
     
     create index IDX_EventTypes_element ON EventTypes(element);
 
@@ -348,6 +348,28 @@
         primary key (id)
     );
 
+    create table TaskInbox (
+        id number(19,0) not null,
+        activationTime timestamp,
+        actualOwner varchar2(255 char),
+        createdBy varchar2(255 char),
+        createdOn timestamp,
+        deploymentId varchar2(255 char),
+        description varchar2(255 char),
+        entityId varchar2(255 char),
+        excluded number(1,0) not null,
+        expirationTime timestamp,
+        name varchar2(255 char),
+        parentId number(19,0) not null,
+        priority number(10,0) not null,
+        processId varchar2(255 char),
+        processInstanceId number(19,0) not null,
+        skipable number(1,0) not null,
+        status varchar2(255 char),
+        taskId number(19,0) not null,
+        primary key (id)
+    );
+
     create table VariableInstanceLog (
         id number(19,0) not null,
         log_date timestamp,
@@ -670,6 +692,8 @@
 
     create sequence TASK_EVENT_ID_SEQ;
 
+    create sequence TASK_INBOX_ID_SEQ;
+
     create sequence TASK_ID_SEQ;
 
     create sequence VAR_INST_LOG_ID_SEQ;
@@ -683,6 +707,7 @@
     create index IDX_CorrPropInfo_Id ON CorrelationPropertyInfo(correlationKey_keyId);
     create index IDX_Deadline_StartId ON Deadline(Deadlines_StartDeadLine_Id);
     create index IDX_Deadline_EndId ON Deadline(Deadlines_EndDeadLine_Id);
+    create index IDX_Deadline_Date ON Deadline(escalated, deadline_date);
     create index IDX_Delegation_EntityId ON Delegation_delegates(entity_id);
     create index IDX_Delegation_TaskId ON Delegation_delegates(task_id);
     create index IDX_ErrorInfo_Id ON ErrorInfo(REQUEST_ID);
@@ -726,6 +751,8 @@
     create index IDX_Task_status on Task(status);
     create index IDX_Task_archived on Task(archived);
     create index IDX_Task_workItemId on Task(workItemId);
+    create index IDX_TaskInbox_Entity on TaskInbox(entityId, status, excluded, taskId);
+    create index IDX_TaskInbox_TaskId on TaskInbox(taskId, entityId);
     
     create index IDX_EventTypes_element ON EventTypes(element);
 
@@ -348,6 +348,28 @@
         primary key (id)
     );
 
+    create table TaskInbox (
+        id int8 not null,
+        activationTime timestamp,
+        actualOwner varchar(255),
+        createdBy varchar(255),
+        createdOn timestamp,
+        deploymentId varchar(255),
+        description varchar(255),
+        entityId varchar(255),
+        excluded boolean not null,
+        expirationTime timestamp,
+        name varchar(255),
+        parentId int8 not null,
+        priority int4 not null,
+        processId varchar(255),
+        processInstanceId int8 not null,
+        skipable boolean not null,
+        status varchar(255),
+        taskId int8 not null,
+        primary key (id)
+    );
+
     create table VariableInstanceLog (
         id int8 not null,
         log_date timestamp,
@@ -670,6 +692,8 @@
 
     create sequence TASK_EVENT_ID_SEQ;
 
+    create sequence TASK_INBOX_ID_SEQ;
+
     create sequence TASK_ID_SEQ;
 
     create sequence VAR_INST_LOG_ID_SEQ;
@@ -683,6 +707,7 @@
     create index IDX_CorrPropInfo_Id ON CorrelationPropertyInfo(correlationKey_keyId);
     create index IDX_Deadline_StartId ON Deadline(Deadlines_StartDeadLine_Id);
     create index IDX_Deadline_EndId ON Deadline(Deadlines_EndDeadLine_Id);
+    create index IDX_Deadline_Date ON Deadline(escalated, deadline_date);
     create index IDX_Delegation_EntityId ON Delegation_delegates(entity_id);
     create index IDX_Delegation_TaskId ON Delegation_delegates(task_id);
     create index IDX_ErrorInfo_Id ON ErrorInfo(REQUEST_ID);
@@ -727,6 +752,8 @@
     create index IDX_Task_status on Task(status);
     create index IDX_Task_archived on Task(archived);
     create index IDX_Task_workItemId on Task(workItemId);
+    create index IDX_TaskInbox_Entity on TaskInbox(entityId, status, excluded, taskId);
+    create index IDX_TaskInbox_TaskId on TaskInbox(taskId, entityId);
     
     create index IDX_EventTypes_element ON EventTypes(element);
 
@@ -348,6 +348,28 @@
         primary key (id)
     );
 
+    create table TaskInbox (
+        id numeric(19,0) identity not null,
+        activationTime datetime null,
+        actualOwner varchar(255) null,
+        createdBy varchar(255) null,
+        createdOn datetime null,
+        deploymentId varchar(255) null,
+        description varchar(255) null,
+        entityId varchar(255) null,
+        excluded boolean not null,
+        expirationTime datetime null,
+        name varchar(255) null,
+        parentId numeric(19,0) not null,
+        priority int not null,
+        processId varchar(255) null,
+        processInstanceId numeric(19,0) not null,
+        skipable boolean not null,
+        status varchar(255) null,
+        taskId numeric(19,0) not null,
+        primary key (id)
+    );
+
     create table VariableInstanceLog (
         id numeric(19,0) identity not null,
         log_date datetime null,
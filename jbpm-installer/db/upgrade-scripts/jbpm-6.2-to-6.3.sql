@@ -4,6 +4,7 @@ alter table ProcessInstanceLog add correlationKey varchar(255);
 alter table TaskEvent add column message varchar(255); 
 
 create index IDX_PInstLog_correlation on ProcessInstanceLog(correlationKey);
+create index IDX_Deadline_Date ON Deadline(escalated, deadline_date);
 
 
 --derby
@@ -11,45 +12,53 @@ alter table ProcessInstanceLog add column correlationKey varchar(255);
 alter table TaskEvent add column message varchar(255); 
 
 create index IDX_PInstLog_correlation on ProcessInstanceLog(correlationKey);
+create index IDX_Deadline_Date ON Deadline(escalated, deadline_date);
 -- h2
 
 ALTER TABLE ProcessInstanceLog ADD correlationKey varchar(255);
 ALTER TABLE TaskEvent ADD message varchar(255); 
 
 create index IDX_PInstLog_correlation on ProcessInstanceLog(correlationKey);
+create index IDX_Deadline_Date ON Deadline(escalated, deadline_date);
 -- hsqldb
       
 ALTER TABLE ProcessInstanceLog ADD COLUMN correlationKey VARCHAR(255);
 ALTER TABLE TaskEvent ADD COLUMN message VARCHAR(255); 
 
 create index IDX_PInstLog_correlation on ProcessInstanceLog(correlationKey);
+create index IDX_Deadline_Date ON Deadline(escalated, deadline_date);
 -- mysql
 
 ALTER TABLE ProcessInstanceLog ADD COLUMN correlationKey VARCHAR(255);
 ALTER TABLE TaskEvent ADD COLUMN message varchar(255); 
 
 create index IDX_PInstLog_correlation on ProcessInstanceLog(correlationKey);
+create index IDX_Deadline_Date ON Deadline(escalated, deadline_date);
 -- oracle
 
 alter table ProcessInstanceLog add correlationKey varchar2(255 char);
 alter table TaskEvent add message varchar2(255 char); 
         
 create index IDX_PInstLog_correlation on ProcessInstanceLog(correlationKey);
+create index IDX_Deadline_Date ON Deadline(escalated, deadline_date);
 -- postgres
 
 ALTER TABLE ProcessInstanceLog ADD COLUMN correlationKey varchar(255);
 ALTER TABLE TaskEvent ADD COLUMN message varchar(255); 
 
 create index IDX_PInstLog_correlation on ProcessInstanceLog(correlationKey);
+create index IDX_Deadline_Date ON Deadline(escalated, deadline_date);
 -- sql server
 
 ALTER TABLE ProcessInstanceLog ADD correlationKey varchar(255);
 ALTER TABLE TaskEvent ADD message varchar(255); 
 
 create index IDX_PInstLog_correlation on ProcessInstanceLog(correlationKey);
+create index IDX_Deadline_Date ON Deadline(escalated, deadline_date);
 
 -- sybase
 ALTER TABLE ProcessInstanceLog ADD correlationKey VARCHAR(255);
 ALTER TABLE TaskEvent ADD message VARCHAR(255);
 
-CREATE INDEX IDX_PInstLog_correlation on ProcessInstanceLog(correlationKey);
\ No newline at end of file
+CREATE INDEX IDX_PInstLog_correlation on ProcessInstanceLog(correlationKey);
+CREATE INDEX IDX_Deadline_Date on Deadline(escalated, deadline_date);
\ No newline at end of file
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.persistence;
+
+import java.util.List;
+
+import org.jbpm.persistence.processinstance.ProcessInstanceInfo;
+
+/**
+ * Process persistence context that allows to deliver signals to process instances in chunks.
+ * Callers check for it with <code>instanceof</code> and fall back to loading all process instances
+ * waiting for the event at once when given context does not implement it.
+ */
+public interface ChunkedProcessPersistenceContext
+    extends
+    ProcessPersistenceContext {
+
+    /**
+     * Returns single page of ids of process instances waiting for given event type, ordered by id.
+     * @param type event type
+     * @param afterProcessInstanceId only ids greater than this one are returned, null for the first page
+     * @param maxResults maximum number of ids returned
+     */
+    List<Long> getProcessInstancesWaitingForEvent(String type, Long afterProcessInstanceId, int maxResults);
+
+    /**
+     * Writes current state of given process instance info and releases it from the persistence context
+     * before the transaction ends, so it does not have to be kept in memory until then.
+     * @return true if process instance info was released, false if it is kept until the transaction ends
+     */
+    boolean release(ProcessInstanceInfo processInstanceInfo);
+}
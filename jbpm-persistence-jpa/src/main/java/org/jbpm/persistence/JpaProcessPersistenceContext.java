@@ -38,7 +38,7 @@ import org.kie.internal.process.CorrelationProperty;
 
 public class JpaProcessPersistenceContext extends JpaPersistenceContext
     implements
-    ProcessPersistenceContext {
+    ChunkedProcessPersistenceContext {
     
     public JpaProcessPersistenceContext(EntityManager em, TransactionManager txm) {
         super( em, txm );
@@ -79,6 +79,15 @@ public class JpaProcessPersistenceContext extends JpaPersistenceContext
         }
     }
 
+    public boolean release(ProcessInstanceInfo processInstanceInfo) {
+        EntityManager em = getEntityManager();
+        processInstanceInfo.transform();
+        em.flush();
+        em.detach(processInstanceInfo);
+        TransactionManagerHelper.removeFromUpdatableSet(txm, processInstanceInfo);
+        return true;
+    }
+
     /**
      * This method is used by the {@link JPASignalManager} in order to load {@link ProcessInstance} instances
      * into the {@link ProcessInstanceManager} cache so that they can then be signalled. 
@@ -111,6 +120,24 @@ public class JpaProcessPersistenceContext extends JpaPersistenceContext
     	}
     }
 
+    /**
+     * Keyset paged variant of {@link #getProcessInstancesWaitingForEvent(String)} used by chunked
+     * signal delivery, pages are ordered by process instance id so the last id of a page
+     * is used as start of the next one.
+     */
+    public List<Long> getProcessInstancesWaitingForEvent(String type, Long afterProcessInstanceId, int maxResults) {
+        EntityManager entityManager = getEntityManager();
+        if (entityManager != null) {
+            Query processInstancesForEvent = entityManager.createNamedQuery( "ProcessInstancesWaitingForEventAfter" );
+            processInstancesForEvent.setParameter( "type", type );
+            processInstancesForEvent.setParameter( "lastId", afterProcessInstanceId == null ? -1L : afterProcessInstanceId );
+            processInstancesForEvent.setMaxResults( maxResults );
+            return (List<Long>) processInstancesForEvent.getResultList();
+        } else {
+            return new ArrayList<Long>();
+        }
+    }
+
     public CorrelationKeyInfo persist(CorrelationKeyInfo correlationKeyInfo) {
         Long processInstanceId = getProcessInstanceByCorrelationKey(correlationKeyInfo);
         if (processInstanceId != null) {
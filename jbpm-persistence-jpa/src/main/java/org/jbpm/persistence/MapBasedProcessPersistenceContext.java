@@ -28,7 +28,7 @@ import org.kie.internal.process.CorrelationKey;
 
 public class MapBasedProcessPersistenceContext extends MapBasedPersistenceContext
     implements
-    ProcessPersistenceContext,
+    ChunkedProcessPersistenceContext,
     NonTransactionalProcessPersistentSession{
     
     private ProcessStorage storage;
@@ -77,6 +77,26 @@ public class MapBasedProcessPersistenceContext extends MapBasedPersistenceContex
         return storage.getProcessInstancesWaitingForEvent( type );
     }
 
+    public List<Long> getProcessInstancesWaitingForEvent(String type, Long afterProcessInstanceId, int maxResults) {
+        List<Long> waiting = new ArrayList<Long>( storage.getProcessInstancesWaitingForEvent( type ) );
+        Collections.sort( waiting );
+        List<Long> page = new ArrayList<Long>();
+        for ( Long id : waiting ) {
+            if ( page.size() >= maxResults ) {
+                break;
+            }
+            if ( afterProcessInstanceId == null || id > afterProcessInstanceId ) {
+                page.add( id );
+            }
+        }
+        return page;
+    }
+
+    public boolean release(ProcessInstanceInfo processInstanceInfo) {
+        // process instance infos are kept until they are saved to the storage on commit
+        return false;
+    }
+
     public void clearStoredProcessInstances() {
         processes.clear();
     }
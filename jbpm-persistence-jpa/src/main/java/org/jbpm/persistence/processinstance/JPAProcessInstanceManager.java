@@ -24,19 +24,28 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.drools.core.common.InternalKnowledgeRuntime;
+import org.drools.core.marshalling.impl.SerializablePlaceholderResolverStrategy;
 import org.drools.persistence.TransactionManager;
 import org.drools.persistence.TransactionManagerHelper;
+import org.jbpm.persistence.ChunkedProcessPersistenceContext;
 import org.jbpm.persistence.ProcessPersistenceContext;
 import org.jbpm.persistence.ProcessPersistenceContextManager;
 import org.jbpm.persistence.correlation.CorrelationKeyInfo;
+import org.jbpm.process.core.context.variable.VariableScope;
+import org.jbpm.process.instance.ContextInstance;
+import org.jbpm.process.instance.ContextInstanceContainer;
 import org.jbpm.process.instance.InternalProcessRuntime;
 import org.jbpm.process.instance.ProcessInstanceManager;
+import org.jbpm.process.instance.context.variable.VariableScopeInstance;
 import org.jbpm.process.instance.impl.ProcessInstanceImpl;
 import org.jbpm.process.instance.timer.TimerManager;
+import org.jbpm.workflow.instance.NodeInstance;
 import org.jbpm.workflow.instance.impl.WorkflowProcessInstanceImpl;
 import org.jbpm.workflow.instance.node.StateBasedNodeInstance;
 import org.jbpm.workflow.instance.node.TimerNodeInstance;
+import org.jbpm.workflow.instance.node.WorkItemNodeInstance;
 import org.kie.api.definition.process.Process;
+import org.kie.api.marshalling.ObjectMarshallingStrategy;
 import org.kie.api.runtime.EnvironmentName;
 import org.kie.api.runtime.KieSession;
 import org.kie.api.runtime.process.ProcessInstance;
@@ -62,6 +71,9 @@ public class JPAProcessInstanceManager
     //   lazy initialization is more costly than eager initialization
     // Added volatile so that if something happens, we can figure out what
     private volatile transient Map<Long, ProcessInstance> processInstances = new ConcurrentHashMap<Long, ProcessInstance>();
+    // process instance infos of the process instances loaded or created by this manager, used to
+    // put process instances into the second level cache (if enabled) once they are disconnected
+    private transient Map<Long, ProcessInstanceInfo> processInstanceInfos = new ConcurrentHashMap<Long, ProcessInstanceInfo>();
 
     
     public void setKnowledgeRuntime(InternalKnowledgeRuntime kruntime) {
@@ -85,6 +97,7 @@ public class JPAProcessInstanceManager
             context.persist(correlationKeyInfo);
         }
         internalAddProcessInstance(processInstance);
+        processInstanceInfos.put(processInstanceInfo.getId(), processInstanceInfo);
     }
     
     public void internalAddProcessInstance(ProcessInstance processInstance) {
@@ -121,7 +134,7 @@ public class JPAProcessInstanceManager
                 }                
                 TransactionManagerHelper.addToUpdatableSet(txm, processInstanceInfo);
                 processInstanceInfo.updateLastReadDate();
-  
+                processInstanceInfos.put(id, processInstanceInfo);
             }
         	return processInstance;
         }
@@ -136,11 +149,20 @@ public class JPAProcessInstanceManager
         if ( processInstanceInfo == null ) {
             return null;
         }
+        ProcessInstanceCache cache = getProcessInstanceCache();
+        if (cache != null && !readOnly) {
+            ProcessInstance cached = cache.checkout(id, processInstanceInfo.getVersion(),
+                    kruntime.getKieBase().getProcess(processInstanceInfo.getProcessId()));
+            if (cached != null && ((ProcessInstanceImpl) cached).getKnowledgeRuntime() == null) {
+                processInstanceInfo.internalSetProcessInstance(cached, this.kruntime.getEnvironment());
+            }
+        }
         processInstance = (org.jbpm.process.instance.ProcessInstance)
         	processInstanceInfo.getProcessInstance(kruntime, this.kruntime.getEnvironment());
         if (!readOnly) {
             processInstanceInfo.updateLastReadDate();
             TransactionManagerHelper.addToUpdatableSet(txm, processInstanceInfo);
+            processInstanceInfos.put(id, processInstanceInfo);
         }
         if (((ProcessInstanceImpl) processInstance).getProcessXml() == null) {
 	        Process process = kruntime.getKieBase().getProcess( processInstance.getProcessId() );
@@ -172,6 +194,37 @@ public class JPAProcessInstanceManager
             context.remove( processInstanceInfo );
         }
         internalRemoveProcessInstance(processInstance);
+        processInstanceInfos.remove(processInstance.getId());
+        ProcessInstanceCache cache = getProcessInstanceCache();
+        if (cache != null) {
+            cache.invalidate(processInstance.getId());
+        }
+    }
+
+    boolean isProcessInstanceLoaded(long id) {
+        return processInstances.containsKey(id);
+    }
+
+    /**
+     * Stores given process instance and releases it from this manager and from the persistence context
+     * before the transaction ends, it is loaded again if it is accessed later on within the same transaction.
+     * @return true if process instance was released
+     */
+    boolean releaseProcessInstance(long id) {
+        ProcessInstance processInstance = processInstances.get(id);
+        ProcessInstanceInfo processInstanceInfo = processInstanceInfos.get(id);
+        if (processInstance == null || processInstanceInfo == null) {
+            return false;
+        }
+        ProcessPersistenceContext context = ((ProcessPersistenceContextManager) this.kruntime.getEnvironment()
+                .get( EnvironmentName.PERSISTENCE_CONTEXT_MANAGER )).getProcessPersistenceContext();
+        if (!(context instanceof ChunkedProcessPersistenceContext)
+                || !((ChunkedProcessPersistenceContext) context).release(processInstanceInfo)) {
+            return false;
+        }
+        ((ProcessInstanceImpl) processInstance).disconnect();
+        processInstanceInfos.remove(id);
+        return true;
     }
 
     public void internalRemoveProcessInstance(ProcessInstance processInstance) {
@@ -179,9 +232,83 @@ public class JPAProcessInstanceManager
     }
     
     public void clearProcessInstances() {
+        ProcessInstanceCache cache = getProcessInstanceCache();
         for (ProcessInstance processInstance: new ArrayList<ProcessInstance>(processInstances.values())) {
             ((ProcessInstanceImpl) processInstance).disconnect();
+            ProcessInstanceInfo processInstanceInfo = processInstanceInfos.remove(processInstance.getId());
+            // only process instances that were stored can be cached, version guards against rolled back changes
+            if (cache != null && processInstanceInfo != null
+                    && processInstance.getState() == ProcessInstance.STATE_ACTIVE
+                    && !((WorkflowProcessInstanceImpl) processInstance).isDirty()
+                    && hasContextFreeVariables((WorkflowProcessInstanceImpl) processInstance)) {
+                releaseWorkItems((WorkflowProcessInstanceImpl) processInstance);
+                cache.put(processInstance.getId(), processInstanceInfo.getVersion(), processInstance);
+            }
+        }
+        processInstanceInfos.clear();
+    }
+
+    /**
+     * Cached process instance keeps its variable values when it is used by another transaction/entity manager,
+     * so it can be cached only if all its variables are self-contained - marshalled by
+     * <code>SerializablePlaceholderResolverStrategy</code> or not unmarshalled yet. Values of other
+     * strategies (e.g. JPA entities) are bound to the context they were loaded in.
+     */
+    protected boolean hasContextFreeVariables(WorkflowProcessInstanceImpl processInstance) {
+        ObjectMarshallingStrategy[] strategies = (ObjectMarshallingStrategy[])
+                kruntime.getEnvironment().get(EnvironmentName.OBJECT_MARSHALLING_STRATEGIES);
+        if (!hasContextFreeVariables(processInstance.getContextInstances(VariableScope.VARIABLE_SCOPE), strategies)) {
+            return false;
+        }
+        for (NodeInstance nodeInstance : processInstance.getNodeInstances(true)) {
+            if (nodeInstance instanceof ContextInstanceContainer
+                    && !hasContextFreeVariables(((ContextInstanceContainer) nodeInstance).getContextInstances(VariableScope.VARIABLE_SCOPE), strategies)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Work items are stored on their own and their changes do not change version of the process instance,
+     * so cached process instance must not keep them - they are loaded again from the work item manager.
+     */
+    protected void releaseWorkItems(WorkflowProcessInstanceImpl processInstance) {
+        for (NodeInstance nodeInstance : processInstance.getNodeInstances(true)) {
+            if (nodeInstance instanceof WorkItemNodeInstance
+                    && ((WorkItemNodeInstance) nodeInstance).getWorkItemId() >= 0) {
+                ((WorkItemNodeInstance) nodeInstance).internalSetWorkItem(null);
+            }
+        }
+    }
+
+    private boolean hasContextFreeVariables(List<ContextInstance> variableScopeInstances, ObjectMarshallingStrategy[] strategies) {
+        if (variableScopeInstances == null) {
+            return true;
+        }
+        for (ContextInstance contextInstance : variableScopeInstances) {
+            for (Object value : ((VariableScopeInstance) contextInstance).getVariables(false).values()) {
+                if (value == null || value instanceof VariableScopeInstance.LazyVariable || strategies == null) {
+                    continue;
+                }
+                for (ObjectMarshallingStrategy strategy : strategies) {
+                    if (strategy.accept(value)) {
+                        if (!(strategy instanceof SerializablePlaceholderResolverStrategy)) {
+                            return false;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    protected ProcessInstanceCache getProcessInstanceCache() {
+        if (kruntime == null) {
+            return null;
         }
+        return ProcessInstanceCache.get(kruntime.getKieBase());
     }
 
     public void clearProcessInstancesState() {
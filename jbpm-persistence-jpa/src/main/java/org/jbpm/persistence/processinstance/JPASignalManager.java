@@ -15,12 +15,18 @@
 
 package org.jbpm.persistence.processinstance;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.drools.core.common.InternalKnowledgeRuntime;
+import org.jbpm.persistence.ChunkedProcessPersistenceContext;
 import org.jbpm.persistence.ProcessPersistenceContext;
 import org.jbpm.persistence.ProcessPersistenceContextManager;
 import org.jbpm.process.core.async.AsyncSignalEventCommand;
+import org.jbpm.process.instance.InternalProcessRuntime;
+import org.jbpm.process.instance.ProcessInstanceManager;
 import org.jbpm.process.instance.event.DefaultSignalManager;
 import org.kie.api.executor.CommandContext;
 import org.kie.api.executor.ExecutorService;
@@ -29,10 +35,23 @@ import org.kie.api.runtime.manager.RuntimeManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Signal manager that makes sure process instances waiting for an event are loaded from data base
+ * before the event is delivered.
+ * <br/>
+ * By default all waiting process instances are looked up and loaded at once. When chunk size
+ * (system property org.jbpm.signal.chunk.size) is greater than 0 waiting process instances are
+ * paged through (ordered by id) and signaled chunk by chunk instead of running single unbounded query.
+ * Process instances loaded for a chunk are stored and released once signaled, so at most one chunk of them
+ * is kept in memory within the transaction. Number of signaled instances and delivery rate are logged once
+ * the signal is delivered.
+ */
 public class JPASignalManager extends DefaultSignalManager {
     private static final String ASYNC_SIGNAL_PREFIX = "ASYNC-";
     private static final Logger logger = LoggerFactory.getLogger(JPASignalManager.class);
 
+    private int chunkSize = Integer.parseInt(System.getProperty("org.jbpm.signal.chunk.size", "0"));
+
     public JPASignalManager(InternalKnowledgeRuntime kruntime) {
         super(kruntime);
     }
@@ -43,6 +62,10 @@ public class JPASignalManager extends DefaultSignalManager {
         ProcessPersistenceContextManager contextManager 
             = (ProcessPersistenceContextManager) getKnowledgeRuntime().getEnvironment().get( EnvironmentName.PERSISTENCE_CONTEXT_MANAGER );
         ProcessPersistenceContext context = contextManager.getProcessPersistenceContext();
+        if (chunkSize > 0 && !type.startsWith(ASYNC_SIGNAL_PREFIX) && context instanceof ChunkedProcessPersistenceContext) {
+            signalEventInChunks((ChunkedProcessPersistenceContext) context, actualSignalType, event);
+            return;
+        }
         List<Long> processInstancesToSignalList = context.getProcessInstancesWaitingForEvent(actualSignalType);
         // handle signal asynchronously
         if (type.startsWith(ASYNC_SIGNAL_PREFIX)) {
@@ -82,4 +105,63 @@ public class JPASignalManager extends DefaultSignalManager {
                            event );
     }
 
+    protected void signalEventInChunks(ChunkedProcessPersistenceContext context, String type, Object event) {
+        long start = System.nanoTime();
+        ProcessInstanceManager processInstanceManager = ((InternalProcessRuntime) getKnowledgeRuntime().getProcessRuntime()).getProcessInstanceManager();
+        JPAProcessInstanceManager jpaProcessInstanceManager = processInstanceManager instanceof JPAProcessInstanceManager
+                ? (JPAProcessInstanceManager) processInstanceManager : null;
+        // signaled process instances that are still attached, released ones no longer listen for the event
+        Set<Long> signaledProcessInstanceIds = new HashSet<Long>();
+        Long lastProcessInstanceId = null;
+        int chunks = 0;
+        int signaled = 0;
+        List<Long> chunk = context.getProcessInstancesWaitingForEvent(type, null, chunkSize);
+        while (!chunk.isEmpty()) {
+            chunks++;
+            for (Long id : chunk) {
+                boolean loaded = jpaProcessInstanceManager == null || jpaProcessInstanceManager.isProcessInstanceLoaded(id);
+                try {
+                    signalEvent(id, type, event);
+                    signaled++;
+                    if (loaded) {
+                        signaledProcessInstanceIds.add(id);
+                    } else if (jpaProcessInstanceManager.isProcessInstanceLoaded(id)
+                            && !jpaProcessInstanceManager.releaseProcessInstance(id)) {
+                        // process instances loaded only for this signal are stored and released once signaled
+                        // so they are not kept in memory until the transaction ends
+                        signaledProcessInstanceIds.add(id);
+                    }
+                } catch (IllegalStateException e) {
+                    // IllegalStateException can be thrown when using RuntimeManager
+                    // and invalid ksession was used for given context
+                } catch (RuntimeException e) {
+                    logger.warn("Exception when loading process instance for signal '{}', instance with id {} will not be signaled",
+                            e.getMessage(), id);
+                }
+            }
+            lastProcessInstanceId = chunk.get(chunk.size() - 1);
+            logger.debug("Signal '{}' delivered to chunk {} of {} process instances", type, chunks, chunk.size());
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+            chunk = context.getProcessInstancesWaitingForEvent(type, lastProcessInstanceId, chunkSize);
+        }
+        // remaining listeners - e.g. start events or process instances not yet stored
+        getKnowledgeRuntime().queueWorkingMemoryAction(new SignalAction(type, event, signaledProcessInstanceIds));
+        getKnowledgeRuntime().executeQueuedActions();
+
+        long elapsed = System.nanoTime() - start;
+        double rate = elapsed > 0 ? signaled / ((double) elapsed / TimeUnit.SECONDS.toNanos(1)) : 0;
+        logger.debug("Signal '{}' delivered to {} process instances in {} chunks within {} ms ({} instances/s)",
+                type, signaled, chunks, TimeUnit.NANOSECONDS.toMillis(elapsed), rate);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
 }
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.persistence.processinstance;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.kie.api.definition.process.Process;
+import org.kie.api.runtime.process.ProcessInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded (LRU) second level cache of unmarshalled process instances that survives
+ * single command/transaction. Entries are keyed by process instance id and are valid
+ * only for the version of <code>ProcessInstanceInfo</code> they were stored with and only
+ * as long as the knowledge base still holds the same process definition.
+ * <br/>
+ * Process instances are checked out of the cache - removed on every lookup - so single
+ * process instance object is never used by more than one session at a time. They are
+ * put back once they were stored and disconnected from the session.
+ * <br/>
+ * Cache is disabled by default, it can be enabled by setting the maximum number of cached
+ * process instances with system property <code>org.jbpm.pi.cache.size</code>.
+ * Only process instances whose variables do not depend on the context they were loaded in
+ * (see <code>JPAProcessInstanceManager.hasContextFreeVariables</code>) are cached.
+ */
+public class ProcessInstanceCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessInstanceCache.class);
+
+    private static int defaultMaxSize = Integer.parseInt(System.getProperty("org.jbpm.pi.cache.size", "0"));
+
+    private static final Map<Object, ProcessInstanceCache> caches = Collections.synchronizedMap(new WeakHashMap<Object, ProcessInstanceCache>());
+
+    private final int maxSize;
+    private final Map<Long, CachedProcessInstance> cache;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleEntries = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ProcessInstanceCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.cache = new LinkedHashMap<Long, CachedProcessInstance>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedProcessInstance> eldest) {
+                if (size() > ProcessInstanceCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns cache shared by all process instance managers that use the same owner
+     * (knowledge base) or null if the cache is disabled. Cache is released together with its owner.
+     */
+    public static ProcessInstanceCache get(Object owner) {
+        if (defaultMaxSize <= 0 || owner == null) {
+            return null;
+        }
+        synchronized (caches) {
+            ProcessInstanceCache processInstanceCache = caches.get(owner);
+            if (processInstanceCache == null) {
+                processInstanceCache = new ProcessInstanceCache(defaultMaxSize);
+                caches.put(owner, processInstanceCache);
+            }
+            return processInstanceCache;
+        }
+    }
+
+    /**
+     * Sets maximum size of caches created from now on, 0 disables the cache.
+     */
+    public static void setDefaultMaxSize(int maxSize) {
+        defaultMaxSize = maxSize;
+    }
+
+    /**
+     * Removes process instance from the cache and returns it if it was cached for given version.
+     * @param processInstanceId id of the process instance
+     * @param version current version of the process instance info
+     * @param process current definition of the process
+     * @return cached process instance or null if not found or stale
+     */
+    public synchronized ProcessInstance checkout(Long processInstanceId, int version, Process process) {
+        CachedProcessInstance cached = cache.remove(processInstanceId);
+        if (cached == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (cached.version != version) {
+            misses.incrementAndGet();
+            staleEntries.incrementAndGet();
+            logger.debug("Cached process instance {} is stale (version {} expected {})", processInstanceId, cached.version, version);
+            return null;
+        }
+        if (cached.processInstance.getProcess() != process) {
+            misses.incrementAndGet();
+            staleEntries.incrementAndGet();
+            logger.debug("Cached process instance {} is stale (process definition was updated)", processInstanceId);
+            return null;
+        }
+        hits.incrementAndGet();
+        return cached.processInstance;
+    }
+
+    public synchronized void put(Long processInstanceId, int version, ProcessInstance processInstance) {
+        cache.put(processInstanceId, new CachedProcessInstance(version, processInstance));
+    }
+
+    public synchronized void invalidate(Long processInstanceId) {
+        cache.remove(processInstanceId);
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getStaleEntries() {
+        return staleEntries.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        if (total == 0) {
+            return 0;
+        }
+        return (double) hits.get() / total;
+    }
+
+    @Override
+    public String toString() {
+        return "ProcessInstanceCache [size=" + size() + ", maxSize=" + maxSize + ", hits=" + hits
+                + ", misses=" + misses + ", stale=" + staleEntries + ", evictions=" + evictions + "]";
+    }
+
+    private static class CachedProcessInstance {
+
+        private final int version;
+        private final ProcessInstance processInstance;
+
+        CachedProcessInstance(int version, ProcessInstance processInstance) {
+            this.version = version;
+            this.processInstance = processInstance;
+        }
+    }
+}
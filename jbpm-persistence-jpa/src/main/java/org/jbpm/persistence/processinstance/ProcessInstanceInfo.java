@@ -89,6 +89,21 @@ public class ProcessInstanceInfo implements Transformable {
     @Transient
     Environment                               env;
 
+    /*
+     * When enabled unchanged process instances (see WorkflowProcessInstanceImpl.isDirty()) are not marshalled
+     * on transform. Variable values changed in place are not detected so it is only safe when variables are
+     * always changed with setVariable, therefore it is disabled by default and every process instance is
+     * marshalled and compared with stored bytes.
+     */
+    private static final boolean DIRTY_TRACKING = Boolean.parseBoolean(System.getProperty("org.jbpm.pi.dirty.tracking", "false"));
+
+    private static final ThreadLocal<ReusableByteArrayOutputStream> OUTPUT_BUFFER = new ThreadLocal<ReusableByteArrayOutputStream>() {
+        @Override
+        protected ReusableByteArrayOutputStream initialValue() {
+            return new ReusableByteArrayOutputStream();
+        }
+    };
+
     protected ProcessInstanceInfo() {
     }
 
@@ -183,6 +198,8 @@ public class ProcessInstanceInfo implements Transformable {
             	context.wm = ((StatefulKnowledgeSessionImpl) kruntime).getInternalWorkingMemory();
                 processInstance = marshaller.readProcessInstance(context);
                 ((WorkflowProcessInstanceImpl) processInstance).setPersisted(false);
+                // freshly loaded process instance is in sync with stored byte array
+                ((WorkflowProcessInstanceImpl) processInstance).setDirty(false);
                 if (readOnly) {
                     ((WorkflowProcessInstanceImpl) processInstance).disconnect();
                 }
@@ -196,6 +213,17 @@ public class ProcessInstanceInfo implements Transformable {
         return processInstance;
     }
    
+    /**
+     * Sets already unmarshalled process instance (e.g. taken from <code>ProcessInstanceCache</code>) 
+     * that is in sync with stored byte array so it does not need to be unmarshalled again.
+     */
+    void internalSetProcessInstance(ProcessInstance processInstance, Environment env) {
+        this.env = env;
+        this.processInstance = processInstance;
+        ((WorkflowProcessInstanceImpl) processInstance).setPersisted(false);
+        ((WorkflowProcessInstanceImpl) processInstance).setDirty(false);
+    }
+
     private ProcessInstanceMarshaller getMarshallerFromContext(MarshallerReaderContext context) throws IOException {
         ObjectInputStream stream = context.stream;
         String processInstanceType = stream.readUTF();
@@ -214,7 +242,15 @@ public class ProcessInstanceInfo implements Transformable {
 //    	if (processInstance == null) {
 //    		return;
 //    	}
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        WorkflowProcessInstanceImpl workflowProcessInstance = (WorkflowProcessInstanceImpl) processInstance;
+        if (DIRTY_TRACKING && processInstanceByteArray != null && !workflowProcessInstance.isDirty()
+                && processInstance.getProcessId().equals(this.processId)) {
+            // nothing has changed since process instance was loaded or stored, skip marshalling
+            workflowProcessInstance.setPersisted(true);
+            return;
+        }
+        ReusableByteArrayOutputStream baos = OUTPUT_BUFFER.get();
+        baos.reset();
         boolean variablesChanged = false;
         try {
             MarshallerWriteContext context = new MarshallerWriteContext( baos,
@@ -241,23 +277,55 @@ public class ProcessInstanceInfo implements Transformable {
             throw new IllegalArgumentException( "IOException while storing process instance "
         		+ processInstance.getId() + ": " + e.getMessage(), e );
         }
-        byte[] newByteArray = baos.toByteArray();
-        if ( variablesChanged || !Arrays.equals( newByteArray,
-                                                 processInstanceByteArray ) ) {
+        if ( variablesChanged || !baos.contentEquals( processInstanceByteArray ) ) {
             this.state = processInstance.getState();
             this.lastModificationDate = new Date();
-            this.processInstanceByteArray = newByteArray;
+            this.processInstanceByteArray = baos.toByteArray();
             this.eventTypes.clear();
             for ( String type : processInstance.getEventTypes() ) {
                 eventTypes.add( type );
             }
         }
+        baos.release();
         if (!processInstance.getProcessId().equals(this.processId)) {
     		this.processId = processInstance.getProcessId();
     	}
-        ((WorkflowProcessInstanceImpl) processInstance).setPersisted(true);
+        workflowProcessInstance.setPersisted(true);
+        workflowProcessInstance.setDirty(false);
     }
 
+    /**
+     * Output stream reused by transform on the same thread to avoid allocating and growing new buffer
+     * for every marshalled process instance. Buffers larger than <code>MAX_POOLED_BUFFER_SIZE</code>
+     * are not kept to not hold on to memory after storing large process instances.
+     */
+    private static class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+
+        private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+        ReusableByteArrayOutputStream() {
+            super(1024);
+        }
+
+        boolean contentEquals(byte[] other) {
+            if (other == null || other.length != count) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                if (buf[i] != other[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void release() {
+            if (buf.length > MAX_POOLED_BUFFER_SIZE) {
+                buf = new byte[1024];
+            }
+            reset();
+        }
+    }
 
     @Override
     public boolean equals(Object obj) {
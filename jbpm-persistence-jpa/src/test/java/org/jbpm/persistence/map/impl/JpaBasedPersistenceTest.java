@@ -19,22 +19,31 @@ import static org.jbpm.persistence.util.PersistenceUtil.*;
 import static org.kie.api.runtime.EnvironmentName.ENTITY_MANAGER_FACTORY;
 import static org.kie.api.runtime.EnvironmentName.USE_PESSIMISTIC_LOCKING;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 
 import javax.persistence.EntityManagerFactory;
 
 import org.drools.persistence.jta.JtaTransactionManager;
 import org.jbpm.persistence.util.PersistenceUtil;
+import org.drools.core.process.instance.WorkItemHandler;
 import org.junit.After;
+import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 import org.kie.api.KieBase;
+import org.kie.api.event.process.DefaultProcessEventListener;
+import org.kie.api.event.process.ProcessNodeTriggeredEvent;
 import org.kie.api.runtime.Environment;
 import org.kie.api.runtime.EnvironmentName;
+import org.kie.api.runtime.process.WorkItem;
+import org.kie.api.runtime.process.WorkItemManager;
 import org.kie.internal.persistence.jpa.JPAKnowledgeService;
 import org.kie.internal.runtime.StatefulKnowledgeSession;
 
@@ -76,6 +85,51 @@ public class JpaBasedPersistenceTest extends MapPersistenceTest {
        cleanUp(context); 
     }
     
+    @Test
+    public void signalEventInChunksReleasesProcessInstancesTest() {
+        String processId = "signalProcessTest";
+        String eventType = "myEvent";
+        String workName = "MyWork";
+        KieBase kbase = createKieBase(ProcessCreatorForHelp.newEventProcessWithOneWork( processId, eventType, workName ));
+
+        StatefulKnowledgeSession ksession = createSession(kbase);
+        long[] processInstanceIds = new long[5];
+        for ( int i = 0; i < processInstanceIds.length; i++ ) {
+            processInstanceIds[i] = ksession.startProcess( processId ).getId();
+        }
+
+        System.setProperty( "org.jbpm.signal.chunk.size", "2" );
+        try {
+            ksession = createSession(kbase);
+        } finally {
+            System.clearProperty( "org.jbpm.signal.chunk.size" );
+        }
+        final CountingWorkItemHandler handler = new CountingWorkItemHandler();
+        ksession.getWorkItemManager().registerWorkItemHandler( workName, handler );
+        // number of process instances attached to the session whenever a signaled one reaches the work item
+        final List<Integer> loadedProcessInstances = new ArrayList<Integer>();
+        ksession.addEventListener( new DefaultProcessEventListener() {
+            @Override
+            public void beforeNodeTriggered(ProcessNodeTriggeredEvent event) {
+                if ( "workItemNode".equals( event.getNodeInstance().getNodeName() ) ) {
+                    loadedProcessInstances.add( event.getKieRuntime().getProcessInstances().size() );
+                }
+            }
+        });
+
+        ksession.signalEvent( eventType, null );
+
+        Assert.assertEquals( 5, handler.getCount() );
+        Assert.assertEquals( 5, loadedProcessInstances.size() );
+        for ( Integer loaded : loadedProcessInstances ) {
+            // process instances of previous chunks were released
+            Assert.assertTrue( "Process instances of previous chunks were not released: " + loadedProcessInstances, loaded <= 2 );
+        }
+        for ( long processInstanceId : processInstanceIds ) {
+            Assert.assertNotNull( ksession.getProcessInstance( processInstanceId ) );
+        }
+    }
+
     @Override
     protected StatefulKnowledgeSession createSession(KieBase kbase) {
         Environment env = createEnvironment(context);
@@ -118,4 +172,20 @@ public class JpaBasedPersistenceTest extends MapPersistenceTest {
         return size;
     }
 
+    private static class CountingWorkItemHandler implements WorkItemHandler {
+
+        private int count;
+
+        public void executeWorkItem(WorkItem workItem, WorkItemManager manager) {
+            count++;
+        }
+
+        public void abortWorkItem(WorkItem workItem, WorkItemManager manager) {
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
 }
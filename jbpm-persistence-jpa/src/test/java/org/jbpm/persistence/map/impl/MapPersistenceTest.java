@@ -96,7 +96,37 @@ public abstract class MapPersistenceTest extends AbstractBaseTest {
 
         Assert.assertNull( processInstance );
     }
-    
+
+    @Test
+    public void signalEventInChunksTest() {
+        String processId = "signalProcessTest";
+        String eventType = "myEvent";
+        RuleFlowProcess process = ProcessCreatorForHelp.newSimpleEventProcess( processId,
+                                                         eventType );
+
+        KieBase kbase = createKieBase(process);
+
+        StatefulKnowledgeSession crmPersistentSession = createSession(kbase);
+
+        long[] processInstanceIds = new long[5];
+        for ( int i = 0; i < processInstanceIds.length; i++ ) {
+            processInstanceIds[i] = crmPersistentSession.startProcess( processId ).getId();
+        }
+
+        System.setProperty( "org.jbpm.signal.chunk.size", "2" );
+        try {
+            crmPersistentSession = createSession(kbase);
+        } finally {
+            System.clearProperty( "org.jbpm.signal.chunk.size" );
+        }
+
+        crmPersistentSession.signalEvent( eventType,
+                              null );
+        for ( long processInstanceId : processInstanceIds ) {
+            Assert.assertNull( crmPersistentSession.getProcessInstance( processInstanceId ) );
+        }
+    }
+
     @Test
     public void executeMultipleProcessTest() {
         String processId = "minimalProcess";
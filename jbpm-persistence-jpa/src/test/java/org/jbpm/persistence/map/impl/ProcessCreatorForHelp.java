@@ -61,6 +61,44 @@ public class ProcessCreatorForHelp {
     }
 
 
+    public static RuleFlowProcess newEventProcessWithOneWork(String processId, String eventType, String workName) {
+        RuleFlowProcess process = new RuleFlowProcess();
+        process.setId(processId);
+
+        StartNode startNode = new StartNode();
+        startNode.setName("Start");
+        startNode.setId(1);
+
+        EventNode eventNode = new EventNode();
+        eventNode.setName("EventNode");
+        eventNode.setId(2);
+        eventNode.setScope("external");
+        EventTypeFilter eventFilter = new EventTypeFilter();
+        eventFilter.setType(eventType);
+        eventNode.addEventFilter(eventFilter);
+
+        WorkItemNode workItemNode = new WorkItemNode();
+        workItemNode.setName( "workItemNode" );
+        workItemNode.setId( 3 );
+        Work work = new WorkImpl();
+        work.setName( workName );
+        workItemNode.setWork( work );
+
+        EndNode endNode = new EndNode();
+        endNode.setName("End");
+        endNode.setId(4);
+
+        connect(startNode, eventNode);
+        connect(eventNode, workItemNode);
+        connect(workItemNode, endNode);
+
+        process.addNode(startNode);
+        process.addNode(eventNode);
+        process.addNode(workItemNode);
+        process.addNode(endNode);
+        return process;
+    }
+
     public static RuleFlowProcess newProcessWithOneVariableAndOneWork(String processId, String variableName, String workName) {
         RuleFlowProcess process = new RuleFlowProcess();
         process.setId(processId);
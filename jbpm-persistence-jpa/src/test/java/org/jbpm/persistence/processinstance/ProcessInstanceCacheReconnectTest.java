@@ -0,0 +1,277 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.persistence.processinstance;
+
+import static org.jbpm.persistence.util.PersistenceUtil.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.naming.InitialContext;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.transaction.UserTransaction;
+
+import org.drools.core.impl.KnowledgeBaseImpl;
+import org.drools.core.marshalling.impl.ClassObjectMarshallingStrategyAcceptor;
+import org.drools.core.marshalling.impl.SerializablePlaceholderResolverStrategy;
+import org.drools.core.process.core.Work;
+import org.drools.core.process.core.datatype.impl.type.ObjectDataType;
+import org.drools.core.process.core.impl.WorkImpl;
+import org.drools.persistence.jpa.marshaller.JPAPlaceholderResolverStrategy;
+import org.jbpm.persistence.session.objects.MyEntity;
+import org.jbpm.persistence.session.objects.MyVariableSerializable;
+import org.jbpm.persistence.session.objects.TestWorkItemHandler;
+import org.jbpm.persistence.util.PersistenceUtil;
+import org.jbpm.process.core.context.variable.Variable;
+import org.jbpm.ruleflow.core.RuleFlowProcess;
+import org.jbpm.test.util.AbstractBaseTest;
+import org.jbpm.workflow.core.Node;
+import org.jbpm.workflow.core.impl.ConnectionImpl;
+import org.jbpm.workflow.core.node.EndNode;
+import org.jbpm.workflow.core.node.StartNode;
+import org.jbpm.workflow.core.node.WorkItemNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.jbpm.workflow.instance.node.WorkItemNodeInstance;
+import org.kie.api.marshalling.ObjectMarshallingStrategy;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.EnvironmentName;
+import org.kie.api.runtime.process.ProcessInstance;
+import org.kie.api.runtime.process.WorkItem;
+import org.kie.api.runtime.process.WorkflowProcessInstance;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.persistence.jpa.JPAKnowledgeService;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+/**
+ * Process instances taken from the <code>ProcessInstanceCache</code> are reconnected to
+ * sessions of other transactions, only those with self-contained variables may be cached.
+ */
+public class ProcessInstanceCacheReconnectTest extends AbstractBaseTest {
+
+    private static final String PROCESS_ID = "org.jbpm.processinstance.cache";
+
+    private HashMap<String, Object> context;
+    private EntityManagerFactory emf;
+    private Environment env;
+    private KnowledgeBase kbase;
+
+    @Before
+    public void setUp() throws Exception {
+        ProcessInstanceCache.setDefaultMaxSize(10);
+        context = setupWithPoolingDataSource(JBPM_PERSISTENCE_UNIT_NAME);
+        emf = (EntityManagerFactory) context.get(EnvironmentName.ENTITY_MANAGER_FACTORY);
+        env = PersistenceUtil.createEnvironment(context);
+        env.set(EnvironmentName.OBJECT_MARSHALLING_STRATEGIES, new ObjectMarshallingStrategy[]{
+                new JPAPlaceholderResolverStrategy(env),
+                new SerializablePlaceholderResolverStrategy(ClassObjectMarshallingStrategyAcceptor.DEFAULT)
+        });
+        kbase = createKnowledgeBase();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        ProcessInstanceCache.setDefaultMaxSize(0);
+        cleanUp(context);
+    }
+
+    @Test
+    public void testCachedProcessInstanceReconnects() throws Exception {
+        StatefulKnowledgeSession ksession = JPAKnowledgeService.newStatefulKnowledgeSession(kbase, null, env);
+        Map<String, Object> parameters = new HashMap<String, Object>();
+        parameters.put("x", new MyVariableSerializable("cached"));
+        long processInstanceId = ksession.startProcess(PROCESS_ID, parameters).getId();
+        WorkItem workItem = TestWorkItemHandler.getInstance().getWorkItem();
+        assertNotNull(workItem);
+
+        ProcessInstanceCache cache = ProcessInstanceCache.get(kbase);
+        assertEquals(1, cache.size());
+
+        ksession = reloadSession(ksession);
+        WorkflowProcessInstance processInstance = (WorkflowProcessInstance) ksession.getProcessInstance(processInstanceId);
+        assertNotNull(processInstance);
+        assertEquals(1, cache.getHits());
+        assertEquals("cached", ((MyVariableSerializable) processInstance.getVariable("x")).getText());
+
+        // cached process instance continues in the session of another transaction
+        ksession.getWorkItemManager().completeWorkItem(workItem.getId(), null);
+        workItem = TestWorkItemHandler.getInstance().getWorkItem();
+        assertNotNull(workItem);
+        assertTrue(cache.getHits() > 1);
+
+        ksession = reloadSession(ksession);
+        ksession.getWorkItemManager().completeWorkItem(workItem.getId(), null);
+        assertNull(TestWorkItemHandler.getInstance().getWorkItem());
+        assertNull(ksession.getProcessInstance(processInstanceId));
+        assertEquals(0, cache.size());
+        ksession.dispose();
+    }
+
+    @Test
+    public void testCachedProcessInstanceLoadsWorkItemAgain() throws Exception {
+        StatefulKnowledgeSession ksession = JPAKnowledgeService.newStatefulKnowledgeSession(kbase, null, env);
+        Map<String, Object> parameters = new HashMap<String, Object>();
+        parameters.put("x", new MyVariableSerializable("cached"));
+        long processInstanceId = ksession.startProcess(PROCESS_ID, parameters).getId();
+        WorkItem workItem = TestWorkItemHandler.getInstance().getWorkItem();
+        assertNotNull(workItem);
+
+        ProcessInstanceCache cache = ProcessInstanceCache.get(kbase);
+        assertEquals(1, cache.size());
+
+        // work item changes do not change version of the process instance so it must not be cached with it
+        ksession = reloadSession(ksession);
+        WorkflowProcessInstance processInstance = (WorkflowProcessInstance) ksession.getProcessInstance(processInstanceId);
+        assertEquals(1, cache.getHits());
+        WorkItem cachedWorkItem = ((WorkItemNodeInstance) processInstance.getNodeInstances().iterator().next()).getWorkItem();
+        assertNotSame(workItem, cachedWorkItem);
+        assertEquals(workItem.getId(), cachedWorkItem.getId());
+        assertEquals(workItem.getState(), cachedWorkItem.getState());
+        ksession.dispose();
+    }
+
+    @Test
+    public void testCachedProcessInstanceOfUpdatedProcessIsStale() throws Exception {
+        StatefulKnowledgeSession ksession = JPAKnowledgeService.newStatefulKnowledgeSession(kbase, null, env);
+        Map<String, Object> parameters = new HashMap<String, Object>();
+        parameters.put("x", new MyVariableSerializable("cached"));
+        long processInstanceId = ksession.startProcess(PROCESS_ID, parameters).getId();
+
+        ProcessInstanceCache cache = ProcessInstanceCache.get(kbase);
+        assertEquals(1, cache.size());
+
+        // process definition is replaced within the same knowledge base
+        ((KnowledgeBaseImpl) kbase).removeProcess(PROCESS_ID);
+        ((KnowledgeBaseImpl) kbase).addProcess(createProcess());
+
+        ksession = reloadSession(ksession);
+        ProcessInstance processInstance = (ProcessInstance) ksession.getProcessInstance(processInstanceId);
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getStaleEntries());
+        assertSame(kbase.getProcess(PROCESS_ID), processInstance.getProcess());
+        ksession.dispose();
+    }
+
+    @Test
+    public void testProcessInstanceWithEntityIsNotCached() throws Exception {
+        MyEntity myEntity = new MyEntity("not cached");
+        EntityManager em = emf.createEntityManager();
+        UserTransaction ut = (UserTransaction) new InitialContext().lookup( "java:comp/UserTransaction" );
+        ut.begin();
+        em.joinTransaction();
+        em.persist(myEntity);
+        ut.commit();
+        em.close();
+
+        StatefulKnowledgeSession ksession = JPAKnowledgeService.newStatefulKnowledgeSession(kbase, null, env);
+        Map<String, Object> parameters = new HashMap<String, Object>();
+        parameters.put("x", new MyVariableSerializable("cached"));
+        parameters.put("y", myEntity);
+        long processInstanceId = ksession.startProcess(PROCESS_ID, parameters).getId();
+        WorkItem workItem = TestWorkItemHandler.getInstance().getWorkItem();
+        assertNotNull(workItem);
+
+        // entity is bound to the entity manager it was loaded with
+        ProcessInstanceCache cache = ProcessInstanceCache.get(kbase);
+        assertEquals(0, cache.size());
+
+        ksession = reloadSession(ksession);
+        WorkflowProcessInstance processInstance = (WorkflowProcessInstance) ksession.getProcessInstance(processInstanceId);
+        assertEquals("not cached", ((MyEntity) processInstance.getVariable("y")).getTest());
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.size());
+
+        ksession.getWorkItemManager().completeWorkItem(workItem.getId(), null);
+        workItem = TestWorkItemHandler.getInstance().getWorkItem();
+        assertNotNull(workItem);
+        ksession.getWorkItemManager().completeWorkItem(workItem.getId(), null);
+        assertNull(ksession.getProcessInstance(processInstanceId));
+        ksession.dispose();
+    }
+
+    private StatefulKnowledgeSession reloadSession(StatefulKnowledgeSession ksession) {
+        long sessionId = ksession.getIdentifier();
+        ksession.dispose();
+        return JPAKnowledgeService.loadStatefulKnowledgeSession(sessionId, kbase, null, env);
+    }
+
+    private KnowledgeBase createKnowledgeBase() {
+        KnowledgeBase kbase = KnowledgeBaseFactory.newKnowledgeBase();
+        ((KnowledgeBaseImpl) kbase).addProcess(createProcess());
+        return kbase;
+    }
+
+    private RuleFlowProcess createProcess() {
+        RuleFlowProcess process = new RuleFlowProcess();
+        process.setId(PROCESS_ID);
+
+        List<Variable> variables = new ArrayList<Variable>();
+        Variable x = new Variable();
+        x.setName("x");
+        ObjectDataType serializableDataType = new ObjectDataType();
+        serializableDataType.setClassName(MyVariableSerializable.class.getName());
+        x.setType(serializableDataType);
+        variables.add(x);
+        Variable y = new Variable();
+        y.setName("y");
+        ObjectDataType entityDataType = new ObjectDataType();
+        entityDataType.setClassName(MyEntity.class.getName());
+        y.setType(entityDataType);
+        variables.add(y);
+        process.getVariableScope().setVariables(variables);
+
+        StartNode startNode = new StartNode();
+        startNode.setName("Start");
+        startNode.setId(1);
+
+        WorkItemNode first = createWorkItemNode(2);
+        WorkItemNode second = createWorkItemNode(3);
+
+        EndNode endNode = new EndNode();
+        endNode.setName("End");
+        endNode.setId(4);
+
+        connect(startNode, first);
+        connect(first, second);
+        connect(second, endNode);
+
+        process.addNode(startNode);
+        process.addNode(first);
+        process.addNode(second);
+        process.addNode(endNode);
+        return process;
+    }
+
+    private WorkItemNode createWorkItemNode(long id) {
+        WorkItemNode workItemNode = new WorkItemNode();
+        workItemNode.setName("workItemNode" + id);
+        workItemNode.setId(id);
+        Work work = new WorkImpl();
+        work.setName("MyWork");
+        workItemNode.setWork(work);
+        return workItemNode;
+    }
+
+    private void connect(Node sourceNode, Node targetNode) {
+        new ConnectionImpl(sourceNode, Node.CONNECTION_DEFAULT_TYPE, targetNode, Node.CONNECTION_DEFAULT_TYPE);
+    }
+}
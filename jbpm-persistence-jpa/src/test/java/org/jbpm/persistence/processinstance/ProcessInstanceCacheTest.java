@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.persistence.processinstance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.jbpm.ruleflow.core.RuleFlowProcess;
+import org.jbpm.ruleflow.instance.RuleFlowProcessInstance;
+import org.junit.Test;
+import org.kie.api.runtime.process.ProcessInstance;
+
+public class ProcessInstanceCacheTest {
+
+    private RuleFlowProcess process = new RuleFlowProcess();
+
+    @Test
+    public void testCheckoutRemovesEntry() {
+        ProcessInstanceCache cache = new ProcessInstanceCache(10);
+        ProcessInstance processInstance = newProcessInstance();
+
+        cache.put(1L, 3, processInstance);
+        assertEquals(1, cache.size());
+
+        assertSame(processInstance, cache.checkout(1L, 3, process));
+        assertEquals(0, cache.size());
+        // already checked out
+        assertNull(cache.checkout(1L, 3, process));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testStaleVersionIsMiss() {
+        ProcessInstanceCache cache = new ProcessInstanceCache(10);
+        cache.put(1L, 3, newProcessInstance());
+
+        assertNull(cache.checkout(1L, 4, process));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getStaleEntries());
+    }
+
+    @Test
+    public void testUpdatedProcessDefinitionIsMiss() {
+        ProcessInstanceCache cache = new ProcessInstanceCache(10);
+        cache.put(1L, 3, newProcessInstance());
+
+        // process definition was replaced in the knowledge base (e.g. redeployed)
+        assertNull(cache.checkout(1L, 3, new RuleFlowProcess()));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getStaleEntries());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        ProcessInstanceCache cache = new ProcessInstanceCache(2);
+        ProcessInstance first = newProcessInstance();
+        ProcessInstance second = newProcessInstance();
+        ProcessInstance third = newProcessInstance();
+
+        cache.put(1L, 0, first);
+        cache.put(2L, 0, second);
+        cache.put(3L, 0, third);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.checkout(1L, 0, process));
+        assertSame(second, cache.checkout(2L, 0, process));
+        assertSame(third, cache.checkout(3L, 0, process));
+    }
+
+    private ProcessInstance newProcessInstance() {
+        RuleFlowProcessInstance processInstance = new RuleFlowProcessInstance();
+        processInstance.setProcess(process);
+        return processInstance;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.query.jpa.data;
+
+import java.util.Map;
+
+import org.kie.internal.query.QueryFilter;
+
+/**
+ * Query filter for keyset (seek) pagination. Instead of skipping <code>offset</code> rows
+ * the next page is selected with a predicate on the last seen sort value and id:
+ * <pre>
+ * (sortColumn &gt; :seekValue or (sortColumn = :seekValue and idColumn &gt; :seekId))
+ * </pre>
+ * so the cost of a page does not depend on how deep it is. Results are always ordered by the
+ * sort column (if any) and the id column as tie breaker.
+ * <br/>
+ * First page is requested with a new filter, following pages by calling {@link #after(Object, Long)}
+ * with the sort value and id of the last element of the previous page. The id is:
+ * <ul>
+ *  <li>process instance id for process instance queries</li>
+ *  <li>log id for node instance and variable queries</li>
+ *  <li>task id for task queries</li>
+ * </ul>
+ * Offset is ignored and the sort column must not contain null values.
+ */
+public class SeekQueryFilter extends QueryFilter {
+
+    private static final long serialVersionUID = 7806497324393578208L;
+
+    /**
+     * Control parameter holding the id column used as tie breaker, set by the query service
+     */
+    public static final String SEEK_KEY = "seek";
+    public static final String SEEK_VALUE = "seekValue";
+    public static final String SEEK_ID = "seekId";
+
+    private Object lastValue;
+    private Long lastId;
+
+    public SeekQueryFilter(int count) {
+        super(0, count);
+    }
+
+    public SeekQueryFilter(int count, String orderBy, boolean ascending) {
+        super(0, count);
+        setOrderBy(orderBy);
+        setAscending(ascending);
+    }
+
+    /**
+     * Moves this filter to the page following the element with given sort value and id.
+     * @param lastValue value of the sort column of the last element, ignored when there is no order by
+     * @param lastId id of the last element
+     * @return this filter
+     */
+    public SeekQueryFilter after(Object lastValue, Long lastId) {
+        if (lastId == null) {
+            throw new IllegalArgumentException("Id of the last element is required");
+        }
+        if (hasOrderBy() && lastValue == null) {
+            throw new IllegalArgumentException("Sort value of the last element is required when ordering by " + getOrderBy());
+        }
+        this.lastValue = lastValue;
+        this.lastId = lastId;
+        return this;
+    }
+
+    public Object getLastValue() {
+        return lastValue;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    public boolean isFirstPage() {
+        return lastId == null;
+    }
+
+    /**
+     * Puts seek parameters into given query parameters.
+     * @param params query parameters
+     * @param idColumn unique column of the queried entity, used as tie breaker
+     */
+    public void applySeek(Map<String, Object> params, String idColumn) {
+        params.put(SEEK_KEY, idColumn);
+        if (!isFirstPage()) {
+            params.put(SEEK_ID, lastId);
+            if (hasOrderBy()) {
+                params.put(SEEK_VALUE, lastValue);
+            }
+        }
+    }
+
+    private boolean hasOrderBy() {
+        return getOrderBy() != null && !getOrderBy().isEmpty();
+    }
+}
@@ -77,6 +77,10 @@ public abstract class AbstractRuntimeManager implements InternalRuntimeManager {
 	protected CacheManager cacheManager = new CacheManagerImpl();
     
     protected boolean engineInitEager = Boolean.parseBoolean(System.getProperty("org.jbpm.rm.engine.eager", "false"));
+    
+    protected int enginePoolSize = Integer.parseInt(System.getProperty("org.jbpm.rm.engine.pool.size", "0"));
+    protected long enginePoolWait = Long.parseLong(System.getProperty("org.jbpm.rm.engine.pool.wait", "0"));
+    protected RuntimeEnginePool enginePool;
 
 	protected String identifier;
     
@@ -97,6 +101,10 @@ public abstract class AbstractRuntimeManager implements InternalRuntimeManager {
         if (eagerInit != null) {
         	engineInitEager = Boolean.parseBoolean(eagerInit);
         }
+        Object poolSize = ((SimpleRuntimeEnvironment)environment).getEnvironmentTemplate().get("RuntimeEnginePoolSize");
+        if (poolSize != null) {
+        	enginePoolSize = Integer.parseInt(poolSize.toString());
+        }
     }
     
     private void internalSetDeploymentDescriptor() {
@@ -113,9 +121,15 @@ public abstract class AbstractRuntimeManager implements InternalRuntimeManager {
 	public abstract void init();
     
 	protected void registerItems(RuntimeEngine runtime) {
+        registerItems(runtime, environment.getRegisterableItemsFactory().getWorkItemHandlers(runtime));
+    }
+
+    /**
+     * Registers given work item handlers and globals and listeners of the registerable items factory.
+     */
+    protected void registerItems(RuntimeEngine runtime, Map<String, WorkItemHandler> handlers) {
         RegisterableItemsFactory factory = environment.getRegisterableItemsFactory();
         // process handlers
-        Map<String, WorkItemHandler> handlers = factory.getWorkItemHandlers(runtime);
         for (Entry<String, WorkItemHandler> entry : handlers.entrySet()) {
             runtime.getKieSession().getWorkItemManager().registerWorkItemHandler(entry.getKey(), entry.getValue());
         }
@@ -158,6 +172,28 @@ public abstract class AbstractRuntimeManager implements InternalRuntimeManager {
         }
     }
     
+    /**
+     * Destroys ksessions of all idle engines of the pool, engines still in use are disposed of when returned.
+     */
+    protected void closeEnginePool() {
+        if (enginePool == null) {
+            return;
+        }
+        for (RuntimeEngine runtime : enginePool.close()) {
+            try {
+                RuntimeEngineImpl.disposeAuditLoggers(runtime.getKieSession());
+                runtime.getKieSession().destroy();
+            } catch (Exception e) {
+                // do nothing most likely ksession was already disposed
+            }
+            ((Disposable) runtime).dispose();
+        }
+    }
+    
+    public RuntimeEnginePool getEnginePool() {
+        return enginePool;
+    }
+    
     protected boolean canDispose(RuntimeEngine runtime) {
         if (hasEnvironmentEntry("IS_JTA_TRANSACTION", false)) {
             return true;
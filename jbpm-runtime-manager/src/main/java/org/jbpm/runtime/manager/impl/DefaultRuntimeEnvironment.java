@@ -21,6 +21,7 @@ import javax.persistence.EntityManagerFactory;
 import org.jbpm.process.core.timer.GlobalSchedulerService;
 import org.jbpm.process.core.timer.impl.QuartzSchedulerService;
 import org.jbpm.process.core.timer.impl.ThreadPoolSchedulerService;
+import org.jbpm.process.core.timer.impl.TimingWheelSchedulerService;
 import org.jbpm.runtime.manager.impl.identity.UserDataServiceProvider;
 import org.jbpm.runtime.manager.impl.jpa.EntityManagerFactoryManager;
 import org.jbpm.runtime.manager.impl.mapper.InMemoryMapper;
@@ -87,6 +88,8 @@ public class DefaultRuntimeEnvironment extends SimpleRuntimeEnvironment {
     protected static GlobalSchedulerService discoverSchedulerService() {
         if (System.getProperty("org.quartz.properties") != null) {
             return new QuartzSchedulerService();
+        } else if ("true".equalsIgnoreCase(System.getProperty("org.jbpm.timer.wheel"))) {
+            return new TimingWheelSchedulerService(3);
         } else {
         	// if there is ejb scheduler service available make use of it unless it's disabled
         	if (!"true".equalsIgnoreCase(System.getProperty("org.kie.timer.ejb.disabled"))) {
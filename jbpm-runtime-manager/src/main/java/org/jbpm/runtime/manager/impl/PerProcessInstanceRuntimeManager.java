@@ -15,6 +15,7 @@
  */
 package org.jbpm.runtime.manager.impl;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,6 +45,7 @@ import org.kie.api.runtime.KieSession;
 import org.kie.api.runtime.manager.Context;
 import org.kie.api.runtime.manager.RuntimeEngine;
 import org.kie.api.runtime.manager.RuntimeEnvironment;
+import org.kie.api.runtime.process.WorkItemHandler;
 import org.kie.api.task.TaskService;
 import org.kie.internal.runtime.manager.Disposable;
 import org.kie.internal.runtime.manager.InternalRuntimeManager;
@@ -69,6 +71,15 @@ import org.slf4j.LoggerFactory;
  * <br/>
  * This manager will ensure that as soon as the process instance completes, the ksession will be disposed of and destroyed.
  * <br/>
+ * When engine pool is enabled (see <code>RuntimeEnginePool</code>) new ksessions are taken from the pool and those that
+ * did not get bound to any process instance are returned to it, instead of being created for every new context.
+ * <br/>
+ * Signals to process instances waiting for an event can be delivered by a pool of worker threads in chunks
+ * (see <code>SignalFanOut</code> and <code>signalEventAsync</code>) when <code>org.jbpm.rm.signal.parallelism</code>
+ * system property is set, chunk size and retries are configured with <code>org.jbpm.rm.signal.chunk.size</code>
+ * and <code>org.jbpm.rm.signal.retries</code>. <code>signalEvent</code> always signals sequentially within the
+ * caller's transaction.
+ * <br/>
  * This implementation supports the following <code>Context</code> implementations:
  * <ul>
  *  <li>ProcessInstanceIdContext</li>
@@ -87,6 +98,8 @@ public class PerProcessInstanceRuntimeManager extends AbstractRuntimeManager {
     
     private Mapper mapper;
     
+    private SignalFanOut signalFanOut;
+    
     public PerProcessInstanceRuntimeManager(RuntimeEnvironment environment, SessionFactory factory, TaskServiceFactory taskServiceFactory, String identifier) {
         super(environment, identifier);
         this.factory = factory;
@@ -108,6 +121,16 @@ public class PerProcessInstanceRuntimeManager extends AbstractRuntimeManager {
     		logger.warn("ProcessInstanceIdContext or CorrelationKeyContext shall be used when interacting with PerProcessInstance runtime manager");
     	}
     	
+    	if (enginePool != null && (contextId == null || context instanceof EmptyContext)) {
+    		runtime = enginePool.acquire();
+    		if (runtime != null) {
+    			// bind requested context, it is replaced with process instance id once a process is started
+    			((RuntimeEngineImpl) runtime).setContext(context);
+    			registerDisposeCallback(runtime, new DisposeSessionTransactionSynchronization(this, runtime));
+    			return runtime;
+    		}
+    	}
+    	
     	if (engineInitEager) {
 			KieSession ksession = null;
 			Long ksessionId = null;
@@ -152,7 +175,6 @@ public class PerProcessInstanceRuntimeManager extends AbstractRuntimeManager {
     
     @Override
     public void signalEvent(String type, Object event) {
-        
         // first signal with new context in case there are start event with signal
         RuntimeEngine runtimeEngine = getRuntimeEngine(ProcessInstanceIdContext.get());        
         runtimeEngine.getKieSession().signalEvent(type, event);  
@@ -162,13 +184,77 @@ public class PerProcessInstanceRuntimeManager extends AbstractRuntimeManager {
         // next find out all instances waiting for given event type
         List<String> processInstances = ((InternalMapper) mapper).findContextIdForEvent(type, getIdentifier());
         for (String piId : processInstances) {
-            runtimeEngine = getRuntimeEngine(ProcessInstanceIdContext.get(Long.parseLong(piId)));        
-            runtimeEngine.getKieSession().signalEvent(type, event);        
-            if (canDispose(runtimeEngine)) {
-                disposeRuntimeEngine(runtimeEngine);
+            signalProcessInstance(type, event, piId);
+        }
+        
+        signalActiveEngines(type, event);
+    }
+    
+    /**
+     * Signals given event the same way as <code>signalEvent</code> does, but process instances waiting for the event
+     * are signaled in chunks by worker threads - each chunk in its own transaction. Process instances that are active
+     * within current thread are still signaled by the caller. Requires signal fan-out to be enabled with
+     * <code>org.jbpm.rm.signal.parallelism</code> system property.
+     * @return handle to track progress of the signal delivery
+     */
+    public SignalFanOut.Handle signalEventAsync(final String type, final Object event) {
+        if (signalFanOut == null) {
+            throw new IllegalStateException("Signal fan-out is not enabled for runtime manager " + identifier);
+        }
+        // first signal with new context in case there are start event with signal
+        RuntimeEngine runtimeEngine = getRuntimeEngine(ProcessInstanceIdContext.get());        
+        runtimeEngine.getKieSession().signalEvent(type, event);  
+        if (canDispose(runtimeEngine)) {
+            disposeRuntimeEngine(runtimeEngine);
+        }
+        List<String> processInstances = ((InternalMapper) mapper).findContextIdForEvent(type, getIdentifier());
+        List<String> remaining = new ArrayList<String>(processInstances.size());
+        for (String piId : processInstances) {
+            if (findLocalRuntime(Long.parseLong(piId)) != null) {
+                signalProcessInstance(type, event, piId);
+            } else {
+                remaining.add(piId);
             }
         }
+        SignalFanOut.Handle handle = signalFanOut.dispatch(remaining, new SignalFanOut.ChunkProcessor() {
+            
+            @Override
+            public void process(List<String> contextIds) throws Exception {
+                TransactionManager tm = getEnvironment().usePersistence() ? getTransactionManager(null) : null;
+                boolean txOwner = tm != null && tm.begin();
+                try {
+                    for (String piId : contextIds) {
+                        signalProcessInstance(type, event, piId);
+                    }
+                    if (tm != null) {
+                        tm.commit(txOwner);
+                    }
+                } catch (Exception e) {
+                    if (tm != null) {
+                        try {
+                            tm.rollback(txOwner);
+                        } catch (Exception re) {
+                            logger.warn("Unable to rollback transaction of signal {}", type, re);
+                        }
+                    }
+                    throw e;
+                }
+            }
+        });
         
+        signalActiveEngines(type, event);
+        return handle;
+    }
+    
+    private void signalProcessInstance(String type, Object event, String piId) {
+        RuntimeEngine runtimeEngine = getRuntimeEngine(ProcessInstanceIdContext.get(Long.parseLong(piId)));        
+        runtimeEngine.getKieSession().signalEvent(type, event);        
+        if (canDispose(runtimeEngine)) {
+            disposeRuntimeEngine(runtimeEngine);
+        }
+    }
+    
+    private void signalActiveEngines(String type, Object event) {
         // process currently active runtime engines
         Map<Object, RuntimeEngine> currentlyActive = local.get();
         if (currentlyActive != null && !currentlyActive.isEmpty()) {
@@ -214,6 +300,19 @@ public class PerProcessInstanceRuntimeManager extends AbstractRuntimeManager {
     		throw new IllegalStateException("Runtime manager " + identifier + " is already closed");
     	}
     	removeLocalRuntime(runtime);
+    	if (enginePool != null && enginePool.contains(runtime)) {
+    		if (!enginePool.isInUse(runtime)) {
+    			// already returned to the pool
+    			return;
+    		}
+    		// only ksessions that were not bound to any process instance can be reused
+    		Context<?> context = ((RuntimeEngineImpl) runtime).getContext();
+    		if ((context == null || context.getContextId() == null) 
+    				&& RuntimeEnginePool.isClean(runtime) && enginePool.restore(runtime) && enginePool.release(runtime)) {
+    			return;
+    		}
+    		enginePool.remove(runtime);
+    	}
     	if (runtime instanceof Disposable) {
         	// special handling for in memory to not allow to dispose if there is any context in the mapper
         	if (mapper instanceof InMemoryMapper && ((InMemoryMapper)mapper).hasContext(runtime.getKieSession().getIdentifier())){
@@ -234,6 +333,10 @@ public class PerProcessInstanceRuntimeManager extends AbstractRuntimeManager {
         } catch(Exception e) {
            // do nothing 
         }
+        closeEnginePool();
+        if (signalFanOut != null) {
+            signalFanOut.shutdown();
+        }
         super.close();
         factory.close();
     }
@@ -376,6 +479,33 @@ public class PerProcessInstanceRuntimeManager extends AbstractRuntimeManager {
         		}
         	}
         }
+        int signalParallelism = Integer.parseInt(System.getProperty("org.jbpm.rm.signal.parallelism", "0"));
+        if (signalParallelism > 0) {
+        	signalFanOut = new SignalFanOut(signalParallelism, 
+        			Integer.parseInt(System.getProperty("org.jbpm.rm.signal.chunk.size", "100")), 
+        			Integer.parseInt(System.getProperty("org.jbpm.rm.signal.retries", "2")), identifier);
+        }
+        if (enginePoolSize > 0) {
+        	enginePool = new RuntimeEnginePool(enginePoolSize, enginePoolWait, new RuntimeEnginePool.EngineFactory() {
+				
+				@Override
+				public RuntimeEngineImpl newRuntimeEngine() {
+					KieSession ksession = factory.newKieSession();
+					InternalTaskService internalTaskService = (InternalTaskService) taskServiceFactory.newTaskService();
+					RuntimeEngineImpl runtime = new RuntimeEngineImpl(ksession, internalTaskService);
+					runtime.setManager(PerProcessInstanceRuntimeManager.this);
+					runtime.setContext(ProcessInstanceIdContext.get());
+					
+					configureRuntimeOnTaskService(internalTaskService, runtime);
+					Map<String, WorkItemHandler> handlers = environment.getRegisterableItemsFactory().getWorkItemHandlers(runtime);
+					registerItems(runtime, handlers);
+					attachManager(runtime);
+					ksession.addEventListener(new MaintainMappingListener(ksession.getIdentifier(), runtime, identifier));
+					enginePool.recordInitialState(runtime, handlers);
+					return runtime;
+				}
+			});
+        }
     }
 
     
@@ -392,6 +522,7 @@ public class PerProcessInstanceRuntimeManager extends AbstractRuntimeManager {
         
         @Override
         public Void execute(org.kie.internal.command.Context context) {
+        	RuntimeEngineImpl.disposeAuditLoggers(((KnowledgeCommandContext) context).getKieSession());
         	TransactionManager tm = (TransactionManager) initialKsession.getEnvironment().get(EnvironmentName.TRANSACTION_MANAGER);
             if (manager.hasEnvironmentEntry("IS_JTA_TRANSACTION", false)) {
             	if (initialKsession instanceof CommandBasedStatefulKnowledgeSession) {
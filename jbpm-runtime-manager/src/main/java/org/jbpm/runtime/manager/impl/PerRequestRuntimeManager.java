@@ -15,6 +15,8 @@
  */
 package org.jbpm.runtime.manager.impl;
 
+import java.util.Map;
+
 import org.jbpm.runtime.manager.impl.factory.LocalTaskServiceFactory;
 import org.jbpm.runtime.manager.impl.tx.DestroySessionTransactionSynchronization;
 import org.jbpm.runtime.manager.impl.tx.DisposeSessionTransactionSynchronization;
@@ -23,6 +25,7 @@ import org.kie.api.runtime.KieSession;
 import org.kie.api.runtime.manager.Context;
 import org.kie.api.runtime.manager.RuntimeEngine;
 import org.kie.api.runtime.manager.RuntimeEnvironment;
+import org.kie.api.runtime.process.WorkItemHandler;
 import org.kie.api.task.TaskService;
 import org.kie.internal.runtime.manager.Disposable;
 import org.kie.internal.runtime.manager.InternalRuntimeManager;
@@ -40,6 +43,9 @@ import org.kie.internal.task.api.InternalTaskService;
  * Disposing of the runtime engine manager will ensure that it is destroyed as well, so that it will get removed from 
  * the database to avoid outdated data.  
  * <br/>
+ * When engine pool is enabled (see <code>RuntimeEnginePool</code>) clean KieSessions are not destroyed but returned
+ * to the pool and handed out to next requests, so they do not have to be created and configured every time.
+ * <br/>
  * This implementation does not require any special <code>Context</code> to proceed.
  *
  */
@@ -73,6 +79,15 @@ public class PerRequestRuntimeManager extends AbstractRuntimeManager {
         	
         	return engine;
         }
+    	if (enginePool != null) {
+    		runtime = enginePool.acquire();
+    		if (runtime != null) {
+    			((RuntimeEngineImpl) runtime).setContext(context);
+    			registerDisposeCallback(runtime, new DisposeSessionTransactionSynchronization(this, runtime));
+    			local.set(runtime);
+    			return runtime;
+    		}
+    	}
     	if (engineInitEager) {
 	        InternalTaskService internalTaskService = (InternalTaskService) taskServiceFactory.newTaskService();	        
 	        runtime = new RuntimeEngineImpl(factory.newKieSession(), internalTaskService);
@@ -120,8 +135,19 @@ public class PerRequestRuntimeManager extends AbstractRuntimeManager {
     		throw new IllegalStateException("Runtime manager " + identifier + " is already closed");
     	}
         local.set(null);
+        if (enginePool != null && enginePool.contains(runtime)) {
+            if (!enginePool.isInUse(runtime)) {
+                // already returned to the pool
+                return;
+            }
+            if (RuntimeEnginePool.isClean(runtime) && enginePool.restore(runtime) && enginePool.release(runtime)) {
+                return;
+            }
+            enginePool.remove(runtime);
+        }
         try {
             if (canDestroy(runtime)) {
+                RuntimeEngineImpl.disposeAuditLoggers(runtime.getKieSession());
                 runtime.getKieSession().destroy();
             } else {
                 if (runtime instanceof Disposable) {
@@ -146,6 +172,7 @@ public class PerRequestRuntimeManager extends AbstractRuntimeManager {
         } catch(Exception e) {
            // do nothing 
         }
+        closeEnginePool();
         super.close();
         factory.close();
     }
@@ -171,6 +198,24 @@ public class PerRequestRuntimeManager extends AbstractRuntimeManager {
     	TaskContentRegistry.get().addMarshallerContext(getIdentifier(), 
     			new ContentMarshallerContext(environment.getEnvironment(), environment.getClassLoader()));
         configureRuntimeOnTaskService((InternalTaskService) taskServiceFactory.newTaskService(), null);
+        if (enginePoolSize > 0) {
+        	enginePool = new RuntimeEnginePool(enginePoolSize, enginePoolWait, new RuntimeEnginePool.EngineFactory() {
+				
+				@Override
+				public RuntimeEngineImpl newRuntimeEngine() {
+					InternalTaskService internalTaskService = (InternalTaskService) taskServiceFactory.newTaskService();
+					RuntimeEngineImpl runtime = new RuntimeEngineImpl(factory.newKieSession(), internalTaskService);
+					runtime.setManager(PerRequestRuntimeManager.this);
+					
+					configureRuntimeOnTaskService(internalTaskService, runtime);
+					Map<String, WorkItemHandler> handlers = environment.getRegisterableItemsFactory().getWorkItemHandlers(runtime);
+					registerItems(runtime, handlers);
+					attachManager(runtime);
+					enginePool.recordInitialState(runtime, handlers);
+					return runtime;
+				}
+			});
+        }
     }
     
     private class PerRequestInitializer implements RuntimeEngineInitlializer {
@@ -18,7 +18,9 @@ package org.jbpm.runtime.manager.impl;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.jbpm.process.audit.BufferedAuditLogger;
 import org.jbpm.process.audit.JPAAuditLogService;
+import org.kie.api.event.process.ProcessEventListener;
 import org.kie.api.runtime.KieSession;
 import org.kie.api.runtime.manager.Context;
 import org.kie.api.runtime.manager.RuntimeEngine;
@@ -96,6 +98,7 @@ public class RuntimeEngineImpl implements RuntimeEngine, Disposable {
                 listener.onDispose(this);
             }
             if (ksession != null) {
+                disposeAuditLoggers(ksession);
 	            try {
 	                ksession.dispose();
 	            } catch(IllegalStateException e){
@@ -111,6 +114,22 @@ public class RuntimeEngineImpl implements RuntimeEngine, Disposable {
         }
     }
 
+    /**
+     * Disposes buffered audit loggers registered on given ksession so they release their shared writer,
+     * must be called before the ksession is disposed or destroyed.
+     */
+    static void disposeAuditLoggers(KieSession ksession) {
+        try {
+            for (ProcessEventListener listener : ksession.getProcessEventListeners()) {
+                if (listener instanceof BufferedAuditLogger) {
+                    ((BufferedAuditLogger) listener).dispose();
+                }
+            }
+        } catch (IllegalStateException e) {
+            // do nothing most likely ksession was already disposed
+        }
+    }
+
     @Override
     public void addDisposeListener(DisposeListener listener) {
         if (this.disposed) {
@@ -0,0 +1,453 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.runtime.manager.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.drools.core.command.CommandService;
+import org.drools.core.command.impl.AbstractInterceptor;
+import org.drools.core.command.impl.CommandBasedStatefulKnowledgeSession;
+import org.drools.core.command.impl.KnowledgeCommandContext;
+import org.drools.core.command.runtime.process.RegisterWorkItemHandlerCommand;
+import org.drools.persistence.SingleSessionCommandService;
+import org.kie.api.command.Command;
+import org.kie.api.event.process.ProcessEventListener;
+import org.kie.api.event.rule.AgendaEventListener;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+import org.kie.api.runtime.Globals;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.manager.RuntimeEngine;
+import org.kie.api.runtime.process.WorkItemHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of fully initialized runtime engines - the ksession of a pooled engine has work item handlers,
+ * globals and listeners registered only once, when the engine is created. Engines are handed out exclusively
+ * and are returned to the pool on dispose when their ksession is clean (no facts and no process instances
+ * held in memory), otherwise they are removed from the pool and disposed as usual.
+ * <br/>
+ * Listeners, globals and work item handlers of a pooled ksession are recorded once it is initialized and restored
+ * before it is returned to the pool, so whatever a request registered is not visible to the next one. Ksessions
+ * with globals that were not set initially, or with work item handlers registered for new work item names, are not
+ * returned to the pool. New work item names can only be detected on persistent ksessions.
+ * <br/>
+ * When all engines are in use <code>acquire</code> waits up to configured time for an engine to be returned
+ * and then gives up, so the manager falls back to create a regular, not pooled engine.
+ * <br/>
+ * Pool is disabled by default and can be enabled with system property <code>org.jbpm.rm.engine.pool.size</code>
+ * (or <code>RuntimeEnginePoolSize</code> environment entry), maximum wait time in milliseconds is given with
+ * <code>org.jbpm.rm.engine.pool.wait</code>.
+ */
+public class RuntimeEnginePool {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuntimeEnginePool.class);
+
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final EngineFactory engineFactory;
+
+    private final LinkedBlockingQueue<RuntimeEngineImpl> idle = new LinkedBlockingQueue<RuntimeEngineImpl>();
+    // all engines of the pool, value tells if the engine is in use
+    private final ConcurrentHashMap<RuntimeEngine, Boolean> engines = new ConcurrentHashMap<RuntimeEngine, Boolean>();
+    private final ConcurrentHashMap<RuntimeEngine, EngineState> states = new ConcurrentHashMap<RuntimeEngine, EngineState>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong removed = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private volatile boolean closed = false;
+
+    public RuntimeEnginePool(int maxSize, long maxWaitMillis, EngineFactory engineFactory) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be greater than 0");
+        }
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.engineFactory = engineFactory;
+    }
+
+    /**
+     * Returns idle engine of the pool or creates new one if the pool is not full yet.
+     * @return engine exclusively owned by the caller or null when the pool is exhausted or closed
+     */
+    public RuntimeEngineImpl acquire() {
+        if (closed) {
+            return null;
+        }
+        RuntimeEngineImpl engine = idle.poll();
+        if (engine == null) {
+            engine = create();
+        }
+        if (engine == null && maxWaitMillis > 0) {
+            long start = System.nanoTime();
+            try {
+                engine = idle.poll(maxWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            recordWait(System.nanoTime() - start);
+            if (engine == null) {
+                // some engines might have been removed in the meantime
+                engine = create();
+            }
+        }
+        if (engine == null) {
+            overflows.incrementAndGet();
+            return null;
+        }
+        if (engines.replace(engine, Boolean.FALSE, Boolean.TRUE)) {
+            reused.incrementAndGet();
+        }
+        engine.setAfterCompletion(false);
+        return engine;
+    }
+
+    /**
+     * Returns given engine back to the pool.
+     * @return false if the engine was not in use
+     */
+    public boolean release(RuntimeEngine engine) {
+        if (!engines.replace(engine, Boolean.TRUE, Boolean.FALSE)) {
+            return false;
+        }
+        if (closed) {
+            remove(engine);
+            return false;
+        }
+        idle.offer((RuntimeEngineImpl) engine);
+        return true;
+    }
+
+    /**
+     * Removes given engine from the pool, it is up to the caller to dispose it.
+     */
+    public void remove(RuntimeEngine engine) {
+        states.remove(engine);
+        if (engines.remove(engine) != null) {
+            idle.remove(engine);
+            size.decrementAndGet();
+            removed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records listeners, globals and given work item handlers of fully initialized engine, they are restored
+     * with <code>restore</code> before the engine is returned to the pool.
+     */
+    public void recordInitialState(RuntimeEngine engine, Map<String, WorkItemHandler> handlers) {
+        states.put(engine, new EngineState(((RuntimeEngineImpl) engine).internalGetKieSession(), handlers));
+    }
+
+    /**
+     * Restores listeners, globals and work item handlers of given engine's ksession to the recorded ones.
+     * @return false if the state cannot be restored and the engine must not be returned to the pool
+     */
+    public boolean restore(RuntimeEngine engine) {
+        EngineState state = states.get(engine);
+        if (state == null) {
+            return false;
+        }
+        try {
+            return state.restore(getKieSession(engine));
+        } catch (Exception e) {
+            logger.debug("Unable to restore ksession of runtime engine {}, it won't be reused", engine, e);
+            return false;
+        }
+    }
+
+    public boolean contains(RuntimeEngine engine) {
+        return engines.containsKey(engine);
+    }
+
+    public boolean isInUse(RuntimeEngine engine) {
+        return Boolean.TRUE.equals(engines.get(engine));
+    }
+
+    /**
+     * Closes the pool and returns its idle engines, engines in use are removed from the pool when returned.
+     */
+    public List<RuntimeEngine> close() {
+        closed = true;
+        List<RuntimeEngine> result = new ArrayList<RuntimeEngine>();
+        RuntimeEngineImpl engine;
+        while ((engine = idle.poll()) != null) {
+            remove(engine);
+            result.add(engine);
+        }
+        return result;
+    }
+
+    /**
+     * Checks if ksession of given engine can be handed out to another request - it does not hold any facts
+     * nor process instances in memory. Persistent ksessions are inspected directly, without executing commands.
+     */
+    public static boolean isClean(RuntimeEngine engine) {
+        RuntimeEngineImpl runtime = (RuntimeEngineImpl) engine;
+        if (runtime.isDisposed() || runtime.internalGetKieSession() == null) {
+            return false;
+        }
+        try {
+            KieSession ksession = getKieSession(engine);
+            return ksession.getFactCount() == 0 && ksession.getProcessInstances().isEmpty();
+        } catch (Exception e) {
+            logger.debug("Unable to inspect ksession of runtime engine {}, it won't be reused", engine, e);
+            return false;
+        }
+    }
+
+    /**
+     * Returns ksession of given engine, persistent ksessions are unwrapped so they can be used without executing commands.
+     */
+    private static KieSession getKieSession(RuntimeEngine engine) {
+        return unwrap(((RuntimeEngineImpl) engine).internalGetKieSession());
+    }
+
+    private static KieSession unwrap(KieSession ksession) {
+        if (ksession instanceof CommandBasedStatefulKnowledgeSession) {
+            CommandService commandService = ((CommandBasedStatefulKnowledgeSession) ksession).getCommandService();
+            ksession = ((KnowledgeCommandContext) commandService.getContext()).getKieSession();
+        }
+        return ksession;
+    }
+
+    private RuntimeEngineImpl create() {
+        while (true) {
+            int current = size.get();
+            if (current >= maxSize) {
+                return null;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+        try {
+            RuntimeEngineImpl engine = engineFactory.newRuntimeEngine();
+            engines.put(engine, Boolean.TRUE);
+            created.incrementAndGet();
+            return engine;
+        } catch (RuntimeException e) {
+            size.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void recordWait(long nanos) {
+        waits.incrementAndGet();
+        totalWaitNanos.addAndGet(nanos);
+        long max = maxWaitNanos.get();
+        while (nanos > max && !maxWaitNanos.compareAndSet(max, nanos)) {
+            max = maxWaitNanos.get();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getSize() {
+        return size.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getInUseCount() {
+        return Math.max(0, size.get() - idle.size());
+    }
+
+    public long getCreatedCount() {
+        return created.get();
+    }
+
+    public long getReusedCount() {
+        return reused.get();
+    }
+
+    public long getRemovedCount() {
+        return removed.get();
+    }
+
+    /**
+     * Number of times the pool was exhausted and a not pooled engine had to be used.
+     */
+    public long getOverflowCount() {
+        return overflows.get();
+    }
+
+    public long getWaitCount() {
+        return waits.get();
+    }
+
+    /**
+     * Total time spent waiting for an engine to be returned, in milliseconds.
+     */
+    public long getTotalWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get());
+    }
+
+    /**
+     * The longest time spent waiting for an engine to be returned, in milliseconds.
+     */
+    public long getMaxWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    /**
+     * Listeners, globals and work item handlers of a pooled ksession as they were when it was initialized.
+     */
+    private static class EngineState {
+
+        private final List<ProcessEventListener> processListeners;
+        private final List<AgendaEventListener> agendaListeners;
+        private final List<RuleRuntimeEventListener> ruleRuntimeListeners;
+        private final Map<String, Object> globals = new HashMap<String, Object>();
+        private final Map<String, WorkItemHandler> handlers;
+        // null when work item handler registrations cannot be observed
+        private final RegisteredHandlersInterceptor registrations;
+
+        EngineState(KieSession ksession, Map<String, WorkItemHandler> handlers) {
+            this.handlers = new HashMap<String, WorkItemHandler>(handlers);
+            if (ksession instanceof CommandBasedStatefulKnowledgeSession
+                    && ((CommandBasedStatefulKnowledgeSession) ksession).getCommandService() instanceof SingleSessionCommandService) {
+                registrations = new RegisteredHandlersInterceptor();
+                ((SingleSessionCommandService) ((CommandBasedStatefulKnowledgeSession) ksession).getCommandService())
+                        .addInterceptor(registrations);
+            } else {
+                registrations = null;
+            }
+            KieSession session = unwrap(ksession);
+            processListeners = new ArrayList<ProcessEventListener>(session.getProcessEventListeners());
+            agendaListeners = new ArrayList<AgendaEventListener>(session.getAgendaEventListeners());
+            ruleRuntimeListeners = new ArrayList<RuleRuntimeEventListener>(session.getRuleRuntimeEventListeners());
+            Globals sessionGlobals = session.getGlobals();
+            for (String name : sessionGlobals.getGlobalKeys()) {
+                globals.put(name, sessionGlobals.get(name));
+            }
+        }
+
+        boolean restore(KieSession ksession) {
+            Globals sessionGlobals = ksession.getGlobals();
+            for (String name : sessionGlobals.getGlobalKeys()) {
+                // globals cannot be removed from a ksession
+                if (!globals.containsKey(name)) {
+                    return false;
+                }
+            }
+            Set<String> registered = null;
+            if (registrations != null) {
+                registered = registrations.drain();
+                if (!handlers.keySet().containsAll(registered)) {
+                    return false;
+                }
+            }
+
+            for (ProcessEventListener listener : new ArrayList<ProcessEventListener>(ksession.getProcessEventListeners())) {
+                if (!processListeners.contains(listener)) {
+                    ksession.removeEventListener(listener);
+                }
+            }
+            for (ProcessEventListener listener : processListeners) {
+                if (!ksession.getProcessEventListeners().contains(listener)) {
+                    ksession.addEventListener(listener);
+                }
+            }
+            for (AgendaEventListener listener : new ArrayList<AgendaEventListener>(ksession.getAgendaEventListeners())) {
+                if (!agendaListeners.contains(listener)) {
+                    ksession.removeEventListener(listener);
+                }
+            }
+            for (AgendaEventListener listener : agendaListeners) {
+                if (!ksession.getAgendaEventListeners().contains(listener)) {
+                    ksession.addEventListener(listener);
+                }
+            }
+            for (RuleRuntimeEventListener listener : new ArrayList<RuleRuntimeEventListener>(ksession.getRuleRuntimeEventListeners())) {
+                if (!ruleRuntimeListeners.contains(listener)) {
+                    ksession.removeEventListener(listener);
+                }
+            }
+            for (RuleRuntimeEventListener listener : ruleRuntimeListeners) {
+                if (!ksession.getRuleRuntimeEventListeners().contains(listener)) {
+                    ksession.addEventListener(listener);
+                }
+            }
+
+            for (Entry<String, Object> global : globals.entrySet()) {
+                if (global.getValue() != sessionGlobals.get(global.getKey())) {
+                    ksession.setGlobal(global.getKey(), global.getValue());
+                }
+            }
+            // registrations of in memory ksessions are not known so all handlers are registered again
+            for (Entry<String, WorkItemHandler> handler : handlers.entrySet()) {
+                if (registered == null || registered.contains(handler.getKey())) {
+                    ksession.getWorkItemManager().registerWorkItemHandler(handler.getKey(), handler.getValue());
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Collects names of work items whose handlers were registered through the command service of a ksession.
+     */
+    private static class RegisteredHandlersInterceptor extends AbstractInterceptor {
+
+        private final Set<String> workItemNames = Collections.synchronizedSet(new HashSet<String>());
+
+        @Override
+        public <T> T execute(Command<T> command) {
+            if (command instanceof RegisterWorkItemHandlerCommand) {
+                workItemNames.add(((RegisterWorkItemHandlerCommand) command).getWorkItemName());
+            }
+            return executeNext(command);
+        }
+
+        Set<String> drain() {
+            synchronized (workItemNames) {
+                Set<String> result = new HashSet<String>(workItemNames);
+                workItemNames.clear();
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Creates fully initialized engines for the pool.
+     */
+    public interface EngineFactory {
+
+        RuntimeEngineImpl newRuntimeEngine();
+    }
+}
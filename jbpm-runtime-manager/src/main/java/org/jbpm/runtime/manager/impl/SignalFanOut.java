@@ -0,0 +1,206 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.runtime.manager.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Splits context ids (process instance ids) that should receive a signal into chunks and processes them
+ * on a bounded pool of worker threads. Every chunk is given to <code>ChunkProcessor</code> that is expected
+ * to process the whole chunk in single transaction, failed chunks are retried configured number of times.
+ * <br/>
+ * Progress of the fan-out is reported by returned <code>Handle</code>.
+ */
+public class SignalFanOut {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignalFanOut.class);
+
+    private final int chunkSize;
+    private final int retries;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param parallelism number of worker threads
+     * @param chunkSize maximum number of context ids processed in one chunk (transaction)
+     * @param retries number of times a failed chunk is retried
+     * @param name name used for worker threads
+     */
+    public SignalFanOut(int parallelism, int chunkSize, int retries, final String name) {
+        if (parallelism <= 0 || chunkSize <= 0 || retries < 0) {
+            throw new IllegalArgumentException("Invalid signal fan-out configuration: parallelism " + parallelism
+                    + ", chunk size " + chunkSize + ", retries " + retries);
+        }
+        this.chunkSize = chunkSize;
+        this.retries = retries;
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "jBPM-signal-" + name + "-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public Handle dispatch(List<String> contextIds, ChunkProcessor processor) {
+        List<List<String>> chunks = new ArrayList<List<String>>();
+        for (int i = 0; i < contextIds.size(); i += chunkSize) {
+            chunks.add(new ArrayList<String>(contextIds.subList(i, Math.min(i + chunkSize, contextIds.size()))));
+        }
+        Handle handle = new Handle(contextIds.size(), chunks.size());
+        for (List<String> chunk : chunks) {
+            executor.execute(new ChunkTask(chunk, processor, handle));
+        }
+        return handle;
+    }
+
+    /**
+     * Stops the workers, chunks that were not processed yet are reported as failed.
+     */
+    public void shutdown() {
+        for (Runnable task : executor.shutdownNow()) {
+            if (task instanceof ChunkTask) {
+                ((ChunkTask) task).handle.chunkCompleted(((ChunkTask) task).chunk, false);
+            }
+        }
+    }
+
+    private void processChunk(List<String> chunk, ChunkProcessor processor, Handle handle) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                processor.process(chunk);
+                handle.chunkCompleted(chunk, true);
+                return;
+            } catch (Throwable e) {
+                if (attempt >= retries || Thread.currentThread().isInterrupted()) {
+                    logger.error("Signal was not delivered to {} after {} attempt(s)", chunk, attempt + 1, e);
+                    handle.chunkCompleted(chunk, false);
+                    return;
+                }
+                logger.warn("Signal delivery to {} failed, retrying ({}/{})", chunk, attempt + 1, retries, e);
+            }
+        }
+    }
+
+    private class ChunkTask implements Runnable {
+
+        private final List<String> chunk;
+        private final ChunkProcessor processor;
+        private final Handle handle;
+
+        ChunkTask(List<String> chunk, ChunkProcessor processor, Handle handle) {
+            this.chunk = chunk;
+            this.processor = processor;
+            this.handle = handle;
+        }
+
+        @Override
+        public void run() {
+            processChunk(chunk, processor, handle);
+        }
+    }
+
+    /**
+     * Processes all context ids of given chunk, preferably in single transaction so the chunk can be retried.
+     */
+    public interface ChunkProcessor {
+
+        void process(List<String> contextIds) throws Exception;
+    }
+
+    /**
+     * Completion handle of a signal fan-out.
+     */
+    public static class Handle {
+
+        private final int total;
+        private final CountDownLatch remainingChunks;
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final List<String> failedContextIds = Collections.synchronizedList(new ArrayList<String>());
+
+        Handle(int total, int chunks) {
+            this.total = total;
+            this.remainingChunks = new CountDownLatch(chunks);
+        }
+
+        void chunkCompleted(List<String> chunk, boolean success) {
+            if (success) {
+                processed.addAndGet(chunk.size());
+            } else {
+                failed.addAndGet(chunk.size());
+                failedContextIds.addAll(chunk);
+            }
+            remainingChunks.countDown();
+        }
+
+        /**
+         * Number of context ids the signal is being delivered to.
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        public int getProcessedCount() {
+            return processed.get();
+        }
+
+        public int getFailedCount() {
+            return failed.get();
+        }
+
+        public List<String> getFailedContextIds() {
+            synchronized (failedContextIds) {
+                return new ArrayList<String>(failedContextIds);
+            }
+        }
+
+        public int getRemainingChunks() {
+            return (int) remainingChunks.getCount();
+        }
+
+        public boolean isDone() {
+            return remainingChunks.getCount() == 0;
+        }
+
+        public void await() throws InterruptedException {
+            remainingChunks.await();
+        }
+
+        /**
+         * @return true if all chunks were processed within given time
+         */
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            return remainingChunks.await(timeout, unit);
+        }
+    }
+}
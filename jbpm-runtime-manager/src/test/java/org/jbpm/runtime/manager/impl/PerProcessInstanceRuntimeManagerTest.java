@@ -18,20 +18,30 @@ package org.jbpm.runtime.manager.impl;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.naming.InitialContext;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.Transaction;
 import javax.transaction.UserTransaction;
 
 import org.jbpm.runtime.manager.impl.AbstractRuntimeManager;
@@ -51,6 +61,7 @@ import org.kie.api.event.process.DefaultProcessEventListener;
 import org.kie.api.event.process.ProcessCompletedEvent;
 import org.kie.api.event.process.ProcessEventListener;
 import org.kie.api.event.process.ProcessNodeLeftEvent;
+import org.kie.api.event.process.ProcessNodeTriggeredEvent;
 import org.kie.api.event.process.ProcessStartedEvent;
 import org.kie.api.io.ResourceType;
 import org.kie.api.runtime.KieSession;
@@ -77,6 +88,7 @@ import org.kie.internal.runtime.manager.context.CorrelationKeyContext;
 import org.kie.internal.runtime.manager.context.EmptyContext;
 import org.kie.internal.runtime.manager.context.ProcessInstanceIdContext;
 
+import bitronix.tm.TransactionManagerServices;
 import bitronix.tm.resource.jdbc.PoolingDataSource;
 
 public class PerProcessInstanceRuntimeManagerTest extends AbstractBaseTest {
@@ -220,6 +232,57 @@ public class PerProcessInstanceRuntimeManagerTest extends AbstractBaseTest {
         manager.close();
     }
     
+    @Test
+    public void testSessionReusedFromEnginePoolWithPersistence() {
+        RuntimeEnvironment environment = RuntimeEnvironmentBuilder.Factory.get()
+    			.newDefaultBuilder()
+                .userGroupCallback(userGroupCallback)
+                .addEnvironmentEntry("RuntimeEnginePoolSize", "1")
+                .addAsset(ResourceFactory.newClassPathResource("BPMN2-UserTask.bpmn2"), ResourceType.BPMN2)
+                .get();
+        
+        manager = RuntimeManagerFactory.Factory.get().newPerProcessInstanceRuntimeManager(environment);        
+        assertNotNull(manager);
+        RuntimeEnginePool pool = ((PerProcessInstanceRuntimeManager) manager).getEnginePool();
+        assertNotNull(pool);
+        
+        // pooled engine is bound to the requested context
+        ProcessInstanceIdContext context = ProcessInstanceIdContext.get();
+        RuntimeEngine runtime = manager.getRuntimeEngine(context);
+        assertSame(context, ((RuntimeEngineImpl) runtime).getContext());
+        long ksessionId = runtime.getKieSession().getIdentifier();
+        manager.disposeRuntimeEngine(runtime);
+        assertEquals(1, pool.getIdleCount());
+        
+        context = ProcessInstanceIdContext.get();
+        runtime = manager.getRuntimeEngine(context);
+        assertSame(context, ((RuntimeEngineImpl) runtime).getContext());
+        KieSession ksession = runtime.getKieSession();
+        assertEquals(ksessionId, ksession.getIdentifier());
+        assertEquals(1, pool.getReusedCount());
+        
+        // once bound to a process instance the ksession leaves the pool
+        ProcessInstance processInstance = ksession.startProcess("UserTask");
+        assertEquals(ProcessInstance.STATE_ACTIVE, processInstance.getState());
+        assertEquals(processInstance.getId(), ((RuntimeEngineImpl) runtime).getContext().getContextId());
+        manager.disposeRuntimeEngine(runtime);
+        assertEquals(0, pool.getSize());
+        assertEquals(1, pool.getRemovedCount());
+        
+        runtime = manager.getRuntimeEngine(ProcessInstanceIdContext.get(processInstance.getId()));
+        ksession = runtime.getKieSession();
+        assertEquals(ksessionId, ksession.getIdentifier());
+        ksession.abortProcessInstance(processInstance.getId());
+        manager.disposeRuntimeEngine(runtime);
+        
+        // new ksession is created for the next new context
+        runtime = manager.getRuntimeEngine(ProcessInstanceIdContext.get());
+        assertTrue(ksessionId != runtime.getKieSession().getIdentifier());
+        manager.disposeRuntimeEngine(runtime);
+        assertEquals(2, pool.getCreatedCount());
+        assertEquals(1, pool.getIdleCount());
+    }
+    
     @Test
     public void testCreationOfSessionWithPersistenceByCorrelationKey() {
         RuntimeEnvironment environment = RuntimeEnvironmentBuilder.Factory.get()
@@ -1243,4 +1306,109 @@ public class PerProcessInstanceRuntimeManagerTest extends AbstractBaseTest {
         // close manager which will close session maintained by the manager
         manager.close();
     }
+    
+    @Test
+    public void testSignalEventAsyncInChunks() throws Exception {
+        System.setProperty("org.jbpm.rm.signal.parallelism", "2");
+        System.setProperty("org.jbpm.rm.signal.chunk.size", "2");
+        System.setProperty("org.jbpm.rm.signal.retries", "1");
+        
+        final Map<Long, Transaction> transactions = new ConcurrentHashMap<Long, Transaction>();
+        final Map<Long, AtomicInteger> attempts = new ConcurrentHashMap<Long, AtomicInteger>();
+        final Map<Long, AtomicInteger> committed = new ConcurrentHashMap<Long, AtomicInteger>();
+        final AtomicLong failOnce = new AtomicLong(-1);
+        try {
+            RuntimeEnvironment environment = RuntimeEnvironmentBuilder.Factory.get()
+                    .newDefaultBuilder()
+                    .userGroupCallback(userGroupCallback)
+                    .addAsset(ResourceFactory.newClassPathResource("BPM2-MultiEventProcess.bpmn2"), ResourceType.BPMN2)
+                    .registerableItemsFactory(new DefaultRegisterableItemsFactory(){
+    
+                        @Override
+                        public List<ProcessEventListener> getProcessEventListeners(RuntimeEngine runtime) {
+                            List<ProcessEventListener> listeners = super.getProcessEventListeners(runtime);
+                            listeners.add(new DefaultProcessEventListener(){
+    
+                                @Override
+                                public void beforeNodeTriggered(ProcessNodeTriggeredEvent event) {
+                                    // Task 2 is reached only when the signal is delivered
+                                    final long id = event.getProcessInstance().getId();
+                                    if (!"Task 2".equals(event.getNodeInstance().getNodeName()) || !attempts.containsKey(id)) {
+                                        return;
+                                    }
+                                    attempts.get(id).incrementAndGet();
+                                    try {
+                                        Transaction tx = TransactionManagerServices.getTransactionManager().getTransaction();
+                                        transactions.put(id, tx);
+                                        tx.registerSynchronization(new Synchronization() {
+                                            
+                                            @Override
+                                            public void beforeCompletion() {
+                                            }
+                                            
+                                            @Override
+                                            public void afterCompletion(int status) {
+                                                if (status == Status.STATUS_COMMITTED) {
+                                                    committed.get(id).incrementAndGet();
+                                                }
+                                            }
+                                        });
+                                    } catch (Exception e) {
+                                        throw new RuntimeException(e);
+                                    }
+                                    if (failOnce.compareAndSet(id, -1)) {
+                                        throw new RuntimeException("Signal delivery to " + id + " failed");
+                                    }
+                                }
+                                
+                            });
+                            return listeners;
+                        }
+
+                    })
+                    .get();
+            
+            manager = RuntimeManagerFactory.Factory.get().newPerProcessInstanceRuntimeManager(environment);        
+            assertNotNull(manager);
+            
+            List<Long> ids = new ArrayList<Long>();
+            for (int i = 0; i < 5; i++) {
+                RuntimeEngine runtime = manager.getRuntimeEngine(ProcessInstanceIdContext.get());
+                ProcessInstance processInstance = runtime.getKieSession().startProcess("signalbroadcast");
+                assertEquals(ProcessInstance.STATE_ACTIVE, processInstance.getState());
+                ids.add(processInstance.getId());
+                attempts.put(processInstance.getId(), new AtomicInteger());
+                committed.put(processInstance.getId(), new AtomicInteger());
+                manager.disposeRuntimeEngine(runtime);
+            }
+            // first delivery to the third process instance fails so its chunk is rolled back and retried
+            failOnce.set(ids.get(2));
+            
+            SignalFanOut.Handle handle = ((PerProcessInstanceRuntimeManager) manager).signalEventAsync("signal", null);
+            assertTrue(handle.await(30, TimeUnit.SECONDS));
+            assertEquals(5, handle.getTotal());
+            assertEquals(5, handle.getProcessedCount());
+            assertEquals(0, handle.getFailedCount());
+            
+            assertEquals(2, attempts.get(ids.get(2)).get());
+            // each chunk of two process instances is signaled in its own transaction
+            Set<Transaction> chunkTransactions = new HashSet<Transaction>(transactions.values());
+            assertEquals(3, chunkTransactions.size());
+            // signal is committed exactly once for every process instance, retry included
+            for (Long id : ids) {
+                assertEquals(1, committed.get(id).get());
+            }
+            
+            RuntimeEngine runtime = manager.getRuntimeEngine(ProcessInstanceIdContext.get(ids.get(0)));
+            for (Long id : ids) {
+                // Task 2 and Task 3 are created by the signal
+                assertEquals(2, runtime.getTaskService().getTasksByProcessInstanceId(id).size());
+            }
+            manager.disposeRuntimeEngine(runtime);
+        } finally {
+            System.clearProperty("org.jbpm.rm.signal.parallelism");
+            System.clearProperty("org.jbpm.rm.signal.chunk.size");
+            System.clearProperty("org.jbpm.rm.signal.retries");
+        }
+    }
 }
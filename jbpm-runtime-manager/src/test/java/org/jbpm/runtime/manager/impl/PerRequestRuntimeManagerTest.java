@@ -16,6 +16,7 @@
 package org.jbpm.runtime.manager.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -31,6 +32,7 @@ import java.util.Properties;
 import javax.naming.InitialContext;
 import javax.transaction.UserTransaction;
 
+import org.jbpm.process.instance.impl.demo.DoNothingWorkItemHandler;
 import org.jbpm.runtime.manager.util.TestUtil;
 import org.jbpm.services.task.identity.JBossUserGroupCallbackImpl;
 import org.jbpm.test.util.AbstractBaseTest;
@@ -205,6 +207,138 @@ public class PerRequestRuntimeManagerTest extends AbstractBaseTest {
         System.clearProperty("jbpm.tm.jndi.lookup");
     }
     
+    @Test
+    public void testSessionReusedFromEnginePool() {
+        RuntimeEnvironment environment = RuntimeEnvironmentBuilder.Factory.get()
+    			.newEmptyBuilder()
+                .userGroupCallback(userGroupCallback)
+                .addEnvironmentEntry("RuntimeEnginePoolSize", "1")
+                .addAsset(ResourceFactory.newClassPathResource("BPMN2-ScriptTask.bpmn2"), ResourceType.BPMN2)
+                .get();
+        
+        manager = RuntimeManagerFactory.Factory.get().newPerRequestRuntimeManager(environment);        
+        assertNotNull(manager);
+        RuntimeEnginePool pool = ((PerRequestRuntimeManager) manager).getEnginePool();
+        assertNotNull(pool);
+        
+        RuntimeEngine runtime = manager.getRuntimeEngine(EmptyContext.get());
+        KieSession ksession = runtime.getKieSession();
+        long sessionId = ksession.getIdentifier();
+        ProcessInstance processInstance = ksession.startProcess("ScriptTask");
+        assertEquals(ProcessInstance.STATE_COMPLETED, processInstance.getState());
+        manager.disposeRuntimeEngine(runtime);
+        assertEquals(1, pool.getIdleCount());
+        
+        // clean session is reused
+        runtime = manager.getRuntimeEngine(EmptyContext.get());
+        ksession = runtime.getKieSession();
+        assertEquals(sessionId, ksession.getIdentifier());
+        assertEquals(1, pool.getCreatedCount());
+        assertEquals(1, pool.getReusedCount());
+        assertEquals(1, pool.getInUseCount());
+        
+        ksession.insert("fact");
+        manager.disposeRuntimeEngine(runtime);
+        assertEquals(0, pool.getSize());
+        assertEquals(1, pool.getRemovedCount());
+        
+        // session with facts is not reused
+        runtime = manager.getRuntimeEngine(EmptyContext.get());
+        ksession = runtime.getKieSession();
+        assertTrue(sessionId != ksession.getIdentifier());
+        assertEquals(0, ksession.getFactCount());
+        manager.disposeRuntimeEngine(runtime);
+        assertEquals(2, pool.getCreatedCount());
+    }
+    
+    @Test
+    public void testPersistentSessionReusedFromEnginePool() {
+        RuntimeEnvironment environment = RuntimeEnvironmentBuilder.Factory.get()
+    			.newDefaultBuilder()
+                .userGroupCallback(userGroupCallback)
+                .addEnvironmentEntry("RuntimeEnginePoolSize", "1")
+                .addAsset(ResourceFactory.newClassPathResource("BPMN2-ScriptTask.bpmn2"), ResourceType.BPMN2)
+                .get();
+        
+        manager = RuntimeManagerFactory.Factory.get().newPerRequestRuntimeManager(environment);        
+        assertNotNull(manager);
+        RuntimeEnginePool pool = ((PerRequestRuntimeManager) manager).getEnginePool();
+        assertNotNull(pool);
+        
+        RuntimeEngine runtime = manager.getRuntimeEngine(EmptyContext.get());
+        KieSession ksession = runtime.getKieSession();
+        long sessionId = ksession.getIdentifier();
+        ProcessInstance processInstance = ksession.startProcess("ScriptTask");
+        assertEquals(ProcessInstance.STATE_COMPLETED, processInstance.getState());
+        manager.disposeRuntimeEngine(runtime);
+        assertEquals(1, pool.getIdleCount());
+        
+        // persistent session without process instances is reused
+        runtime = manager.getRuntimeEngine(EmptyContext.get());
+        ksession = runtime.getKieSession();
+        assertEquals(sessionId, ksession.getIdentifier());
+        assertEquals(1, pool.getReusedCount());
+        processInstance = ksession.startProcess("ScriptTask");
+        assertEquals(ProcessInstance.STATE_COMPLETED, processInstance.getState());
+        manager.disposeRuntimeEngine(runtime);
+        assertEquals(1, pool.getIdleCount());
+        assertEquals(1, pool.getCreatedCount());
+    }
+    
+    @Test
+    public void testEnginePoolRestoresSessionState() {
+        RuntimeEnvironment environment = RuntimeEnvironmentBuilder.Factory.get()
+    			.newDefaultBuilder()
+                .userGroupCallback(userGroupCallback)
+                .addEnvironmentEntry("RuntimeEnginePoolSize", "1")
+                .addAsset(ResourceFactory.newClassPathResource("BPMN2-ScriptTask.bpmn2"), ResourceType.BPMN2)
+                .get();
+        
+        manager = RuntimeManagerFactory.Factory.get().newPerRequestRuntimeManager(environment);        
+        assertNotNull(manager);
+        RuntimeEnginePool pool = ((PerRequestRuntimeManager) manager).getEnginePool();
+        assertNotNull(pool);
+        
+        final List<Long> started = new ArrayList<Long>();
+        ProcessEventListener listener = new DefaultProcessEventListener() {
+            @Override
+            public void beforeProcessStarted(ProcessStartedEvent event) {
+                started.add(event.getProcessInstance().getId());
+            }
+        };
+        
+        RuntimeEngine runtime = manager.getRuntimeEngine(EmptyContext.get());
+        KieSession ksession = runtime.getKieSession();
+        long sessionId = ksession.getIdentifier();
+        int listenerCount = ksession.getProcessEventListeners().size();
+        // listener registered by this request only
+        ksession.addEventListener(listener);
+        ksession.startProcess("ScriptTask");
+        assertEquals(1, started.size());
+        manager.disposeRuntimeEngine(runtime);
+        assertEquals(1, pool.getIdleCount());
+        
+        runtime = manager.getRuntimeEngine(EmptyContext.get());
+        ksession = runtime.getKieSession();
+        assertEquals(sessionId, ksession.getIdentifier());
+        assertEquals(listenerCount, ksession.getProcessEventListeners().size());
+        assertFalse(ksession.getProcessEventListeners().contains(listener));
+        ksession.startProcess("ScriptTask");
+        assertEquals(1, started.size());
+        
+        // work item handler of a new work item name cannot be removed so the session is not reused
+        ksession.getWorkItemManager().registerWorkItemHandler("Custom", new DoNothingWorkItemHandler());
+        manager.disposeRuntimeEngine(runtime);
+        assertEquals(0, pool.getIdleCount());
+        assertEquals(1, pool.getRemovedCount());
+        
+        runtime = manager.getRuntimeEngine(EmptyContext.get());
+        ksession = runtime.getKieSession();
+        assertTrue(sessionId != ksession.getIdentifier());
+        manager.disposeRuntimeEngine(runtime);
+        assertEquals(2, pool.getCreatedCount());
+    }
+    
     @Test
     public void testExecuteReusableSubprocess() {
         RuntimeEnvironment environment = RuntimeEnvironmentBuilder.Factory.get()
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.runtime.manager.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class SignalFanOutTest {
+
+    private SignalFanOut fanOut;
+
+    @After
+    public void teardown() {
+        if (fanOut != null) {
+            fanOut.shutdown();
+        }
+    }
+
+    @Test
+    public void testChunksProcessedInParallel() throws Exception {
+        fanOut = new SignalFanOut(3, 4, 0, "test");
+        final List<String> processed = Collections.synchronizedList(new ArrayList<String>());
+        final ConcurrentHashMap<String, Boolean> threads = new ConcurrentHashMap<String, Boolean>();
+
+        List<String> ids = new ArrayList<String>();
+        for (int i = 0; i < 10; i++) {
+            ids.add(String.valueOf(i));
+        }
+        SignalFanOut.Handle handle = fanOut.dispatch(ids, new SignalFanOut.ChunkProcessor() {
+
+            @Override
+            public void process(List<String> contextIds) throws Exception {
+                assertTrue(contextIds.size() <= 4);
+                threads.put(Thread.currentThread().getName(), Boolean.TRUE);
+                processed.addAll(contextIds);
+            }
+        });
+        assertTrue(handle.await(10, TimeUnit.SECONDS));
+        assertTrue(handle.isDone());
+        assertEquals(10, handle.getTotal());
+        assertEquals(10, handle.getProcessedCount());
+        assertEquals(0, handle.getFailedCount());
+        assertEquals(10, processed.size());
+        assertTrue(threads.size() <= 3);
+    }
+
+    @Test
+    public void testFailedChunkRetried() throws Exception {
+        fanOut = new SignalFanOut(2, 2, 1, "test");
+        final AtomicInteger attempts = new AtomicInteger();
+
+        SignalFanOut.Handle handle = fanOut.dispatch(Arrays.asList("1", "2", "3", "4", "5"), new SignalFanOut.ChunkProcessor() {
+
+            @Override
+            public void process(List<String> contextIds) throws Exception {
+                if (contextIds.contains("1") && attempts.incrementAndGet() == 1) {
+                    throw new IllegalStateException("first attempt fails");
+                }
+                if (contextIds.contains("5")) {
+                    throw new IllegalStateException("always fails");
+                }
+            }
+        });
+        assertTrue(handle.await(10, TimeUnit.SECONDS));
+        assertEquals(2, attempts.get());
+        assertEquals(4, handle.getProcessedCount());
+        assertEquals(1, handle.getFailedCount());
+        assertEquals(Arrays.asList("5"), handle.getFailedContextIds());
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.executor;
+
+import java.util.List;
+
+import org.kie.api.executor.RequestInfo;
+
+public interface BatchProcessingAware {
+
+	/**
+	 * Locks and marks as running up to <code>batchSize</code> pending requests in single transaction
+	 * so they can be handed over to the caller for processing.
+	 * @param batchSize maximum number of requests to be claimed
+	 * @return list of claimed requests, empty list if there are no pending requests
+	 */
+	List<RequestInfo> getRequestsForProcessing(int batchSize);
+}
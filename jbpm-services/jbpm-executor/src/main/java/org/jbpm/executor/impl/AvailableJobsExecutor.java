@@ -16,7 +16,15 @@
 
 package org.jbpm.executor.impl;
 
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jbpm.executor.BatchProcessingAware;
 import org.jbpm.executor.entities.RequestInfo;
+import org.kie.api.executor.STATUS;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,23 +32,175 @@ import org.slf4j.LoggerFactory;
  * Heart of the executor component - executes the actual tasks.
  * Handles retries and error management. Based on results of execution notifies
  * defined callbacks about the execution results.
- *
+ * <br/>
+ * When batch size (system property org.kie.executor.batch.size) is greater than 1 and
+ * query service supports it, requests are claimed in batches - single transaction locks
+ * and marks as running up to batch size requests that are then executed from local work queue.
  */
 public class AvailableJobsExecutor extends AbstractAvailableJobsExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger(AvailableJobsExecutor.class);
-    
+
+    protected int batchSize = Integer.parseInt(System.getProperty("org.kie.executor.batch.size", "1"));
+
+    // batch processing statistics
+    private AtomicLong claims = new AtomicLong();
+    private AtomicLong claimedCount = new AtomicLong();
+    private AtomicLong claimTime = new AtomicLong();
+    private AtomicLong executedCount = new AtomicLong();
+    private AtomicLong drainTime = new AtomicLong();
+
     public void executeJob() {
+        executeAvailableJobs();
+    }
+
+    /**
+     * Executes available jobs same way as <code>executeJob</code> does but always in the calling thread.
+     * @return true if at least one job was executed, false when there was nothing to execute
+     */
+    public boolean executeAvailableJobs() {
         logger.debug("Executor Thread {} Waking Up!!!", this.toString());
         try {
+            if (batchSize > 1 && queryService instanceof BatchProcessingAware) {
+                return executeJobs();
+            }
             RequestInfo request = (RequestInfo) queryService.getRequestForProcessing();
             if (request != null) {
             	executeGivenJob(request);
+            	return true;
             }
         } catch (Exception e) {
             logger.warn("Unexpected error while processin executor's job {}", e.getMessage(), e);
         }
+        return false;
+    }
+
+    protected boolean executeJobs() {
+        // claimed requests are local to the calling thread as the executor might be shared by many threads
+        Queue<RequestInfo> claimedRequests = new ArrayDeque<RequestInfo>();
+        try {
+            return claimAndExecuteJobs(claimedRequests) > 0;
+        } finally {
+            // requests left over on interrupt or failure would otherwise stay running forever
+            requeueClaimedRequests(claimedRequests);
+        }
     }
 
+    protected int claimAndExecuteJobs(Queue<RequestInfo> claimedRequests) {
+        int total = 0;
+        boolean fullBatch = true;
+        while (fullBatch && !Thread.currentThread().isInterrupted()) {
+            fullBatch = false;
+            if (claimedRequests.isEmpty()) {
+                long start = System.nanoTime();
+                List<org.kie.api.executor.RequestInfo> requests = ((BatchProcessingAware) queryService).getRequestsForProcessing(batchSize);
+                claimTime.addAndGet(System.nanoTime() - start);
+                claims.incrementAndGet();
+
+                if (requests == null || requests.isEmpty()) {
+                    return total;
+                }
+                claimedCount.addAndGet(requests.size());
+                for (org.kie.api.executor.RequestInfo request : requests) {
+                    claimedRequests.offer((RequestInfo) request);
+                }
+                // there might be more requests waiting so claim next batch right after this one is done
+                fullBatch = requests.size() >= batchSize;
+                logger.debug("Executor Thread {} claimed {} requests", this.toString(), requests.size());
+            }
+
+            long start = System.nanoTime();
+            int executed = 0;
+            RequestInfo request = null;
+            while (!Thread.currentThread().isInterrupted() && (request = claimedRequests.poll()) != null) {
+                executeGivenJob(request);
+                executed++;
+            }
+            drainTime.addAndGet(System.nanoTime() - start);
+            executedCount.addAndGet(executed);
+            total += executed;
+
+            logger.debug("Executor Thread {} executed {} requests, claim throughput {} req/s, drain throughput {} req/s",
+                    this.toString(), executed, getClaimThroughput(), getDrainThroughput());
+        }
+        return total;
+    }
+
+    /**
+     * Puts requests claimed but not executed back to the queue so they can be picked up again.
+     */
+    protected void requeueClaimedRequests(Queue<RequestInfo> claimedRequests) {
+        if (claimedRequests.isEmpty()) {
+            return;
+        }
+        // clear the interrupted flag while updating the requests so the transaction is not affected by it
+        boolean interrupted = Thread.interrupted();
+        try {
+            RequestInfo request = null;
+            while ((request = claimedRequests.poll()) != null) {
+                try {
+                    request.setStatus(STATUS.QUEUED);
+                    executorStoreService.updateRequest(request);
+                    logger.debug("Executor Thread {} requeued request {}", this.toString(), request.getId());
+                } catch (Exception e) {
+                    logger.warn("Unable to requeue request {} due to {}", request.getId(), e.getMessage());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns number of claim round trips (batches) made to the data base.
+     */
+    public long getClaims() {
+        return claims.get();
+    }
+
+    /**
+     * Returns number of requests claimed for processing in batch mode.
+     */
+    public long getClaimedCount() {
+        return claimedCount.get();
+    }
+
+    /**
+     * Returns number of requests executed from local work queue in batch mode.
+     */
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    /**
+     * Returns number of requests claimed per second of time spent on claiming.
+     */
+    public double getClaimThroughput() {
+        return throughput(claimedCount.get(), claimTime.get());
+    }
+
+    /**
+     * Returns number of requests executed per second of time spent on draining local work queue.
+     */
+    public double getDrainThroughput() {
+        return throughput(executedCount.get(), drainTime.get());
+    }
+
+    private double throughput(long count, long nanos) {
+        if (nanos <= 0) {
+            return 0;
+        }
+        return count / ((double) nanos / TimeUnit.SECONDS.toNanos(1));
+    }
 
 }
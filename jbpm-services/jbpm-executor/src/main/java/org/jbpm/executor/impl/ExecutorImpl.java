@@ -38,6 +38,9 @@ import javax.jms.TextMessage;
 import javax.naming.InitialContext;
 
 import org.drools.core.time.TimeUtils;
+import org.drools.persistence.TransactionManager;
+import org.drools.persistence.TransactionSynchronization;
+import org.drools.persistence.jta.JtaTransactionManager;
 import org.jbpm.executor.ExecutorNotStartedException;
 import org.jbpm.executor.entities.RequestInfo;
 import org.kie.api.executor.CommandContext;
@@ -55,6 +58,7 @@ import org.slf4j.LoggerFactory;
  *  <li>thread pool size - default 1 - use system property org.kie.executor.pool.size</li>
  *  <li>retry count - default 3 retries - use system property org.kie.executor.retry.count</li>
  *  <li>execution interval - default 3 seconds - use system property org.kie.executor.interval</li>
+ *  <li>batch size - default 1 (no batching) - use system property org.kie.executor.batch.size</li>
  * </ul>
  * Additionally executor can be disable to not start at all when system property org.kie.executor.disabled is 
  * set to true
@@ -68,6 +72,14 @@ import org.slf4j.LoggerFactory;
  *  <li>org.kie.executor.jms.cf - JNDI name of connection factory to be used for sending messages</li>
  *  <li>org.kie.executor.jms.queue - JNDI name for destination (usually a queue) to be used to send messages to</li>
  * </ul>
+ * When JMS is not available, executor can be notified about new jobs with in JVM signal instead. Executor threads
+ * are woken up as soon as the transaction that scheduled the request is committed and when idle they poll with
+ * adaptive back-off, starting at minimum interval and doubling up to the configured execution interval.
+ * Configuration parameters for in JVM signal support:
+ * <ul>
+ *  <li>org.kie.executor.signal - allows to enable in JVM signal support - default set to false</li>
+ *  <li>org.kie.executor.signal.min.interval - minimum poll interval in milliseconds used after signal - default 10</li>
+ * </ul>
  */
 public class ExecutorImpl implements Executor {
 
@@ -91,6 +103,12 @@ public class ExecutorImpl implements Executor {
     private ConnectionFactory connectionFactory;
     private Queue queue;
 
+    // in JVM signal related instances
+    private boolean useSignal = Boolean.parseBoolean(System.getProperty("org.kie.executor.signal", "false"));
+    private long signalMinInterval = Long.parseLong(System.getProperty("org.kie.executor.signal.min.interval", "10"));
+    private ExecutorSignal signal = new ExecutorSignal();
+    private TransactionManager transactionManager;
+
 	private ScheduledExecutorService scheduler;
 
     public ExecutorImpl() {
@@ -216,7 +234,7 @@ public class ExecutorImpl implements Executor {
                 long delay = 2000 + delayIncremental;
                 long interval = TimeUnit.MILLISECONDS.convert(this.interval, timeunit);
                 logger.debug("Starting executor thread with initial delay {} interval {} and time unit {}", delay, interval, TimeUnit.MILLISECONDS);
-                handle.add(scheduler.scheduleAtFixedRate(executorStoreService.buildExecutorRunnable(), delay, interval, TimeUnit.MILLISECONDS));
+                handle.add(scheduleExecutorRunnable(delay, interval));
                                
                 delayIncremental += this.initialDelay;
                 
@@ -258,7 +276,7 @@ public class ExecutorImpl implements Executor {
                 long delay = 2000 + delayIncremental;
                 long interval = TimeUnit.MILLISECONDS.convert(this.interval, timeunit);
                 logger.debug("Starting executor thread with initial delay {} interval {} and time unit {}", delay, interval, TimeUnit.MILLISECONDS);
-                handle.add(scheduler.scheduleAtFixedRate(executorStoreService.buildExecutorRunnable(), delay, interval, TimeUnit.MILLISECONDS));
+                handle.add(scheduleExecutorRunnable(delay, interval));
                 
                 delayIncremental += this.initialDelay;
             }
@@ -267,6 +285,27 @@ public class ExecutorImpl implements Executor {
         }
     }
     
+    public boolean isUseSignal() {
+        return useSignal;
+    }
+
+    public void setUseSignal(boolean useSignal) {
+        this.useSignal = useSignal;
+    }
+
+    public ExecutorSignal getSignal() {
+        return signal;
+    }
+
+    protected ScheduledFuture<?> scheduleExecutorRunnable(long delay, long interval) {
+        if (useSignal) {
+            Runnable runnable = new SignalAwareExecutorRunnable(executorStoreService.buildExecutorRunnable(), signal, signalMinInterval, interval);
+            return scheduler.schedule(runnable, delay, TimeUnit.MILLISECONDS);
+        }
+
+        return scheduler.scheduleAtFixedRate(executorStoreService.buildExecutorRunnable(), delay, interval, TimeUnit.MILLISECONDS);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -349,6 +388,9 @@ public class ExecutorImpl implements Executor {
             } else {
                 logger.debug("JMS message not sent for job {} as the job should not be executed immediately but at {}", requestInfo.getId(), date);
             }
+        } else if (useSignal && System.currentTimeMillis() >= date.getTime()) {
+            logger.debug("Signaling executor threads to trigger job execution for job {}", requestInfo.getId());
+            signalOnCommit();
         }
         
         logger.debug("Scheduled request for Command: {} - requestId: {} with {} retries", commandId, requestInfo.getId(), requestInfo.getRetries());
@@ -366,6 +408,34 @@ public class ExecutorImpl implements Executor {
         logger.debug("After - Cancelling Request with Id: {}", requestId);
     }
 
+    protected void signalOnCommit() {
+        try {
+            if (transactionManager == null) {
+                transactionManager = new JtaTransactionManager(null, null, null);
+            }
+            if (transactionManager.getStatus() == TransactionManager.STATUS_ACTIVE) {
+                // request is visible to executor threads only after it's committed
+                transactionManager.registerTransactionSynchronization(new TransactionSynchronization() {
+
+                    @Override
+                    public void beforeCompletion() {
+                        // not used here
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status == TransactionManager.STATUS_COMMITTED) {
+                            signal.signal();
+                        }
+                    }
+                });
+                return;
+            }
+        } catch (Exception e) {
+            logger.debug("Unable to register transaction synchronization for executor signal due to {}", e.getMessage());
+        }
+        signal.signal();
+    }
     
     protected void sendMessage(String messageBody) {
         if (connectionFactory == null && queue == null) {
@@ -44,6 +44,21 @@ public class ExecutorRunnable implements Runnable {
     		logger.warn("Error while executing jobs due to {}", e.getMessage());
     	}
     }
+
+    /**
+     * Executes available jobs in the calling thread.
+     * @return true if at least one job was executed
+     */
+    public boolean runAvailableJobs() {
+        try {
+            logger.debug("About to execute jobs...");
+
+            return this.availableJobsExecutor.executeAvailableJobs();
+        } catch (Exception e) {
+            logger.warn("Error while executing jobs due to {}", e.getMessage());
+        }
+        return false;
+    }
     
    
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.executor.impl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In JVM notification used to wake up idle executor threads as soon as new request
+ * is ready to be executed, instead of waiting for the next poll interval.
+ * Signals are counted (generation) so they are never lost even if no thread is waiting
+ * at the time the signal is sent.
+ */
+public class ExecutorSignal {
+
+    private final Object monitor = new Object();
+    private long generation = 0;
+    private int waiting = 0;
+
+    /**
+     * Notifies single waiting thread that there is new request available - one request needs one thread
+     * so the other threads are left waiting.
+     */
+    public void signal() {
+        synchronized (monitor) {
+            generation++;
+            monitor.notify();
+        }
+    }
+
+    /**
+     * Returns number of threads currently waiting for the signal.
+     */
+    public int getWaiting() {
+        synchronized (monitor) {
+            return waiting;
+        }
+    }
+
+    /**
+     * Returns current generation of the signal - number of signals sent so far.
+     */
+    public long getGeneration() {
+        synchronized (monitor) {
+            return generation;
+        }
+    }
+
+    /**
+     * Waits for signal sent after given generation was observed, at most given time.
+     * @param seenGeneration last generation observed by the caller
+     * @param timeout maximum time to wait
+     * @param unit time unit of the timeout
+     * @return true if signal was received, false if waiting timed out
+     * @throws InterruptedException if waiting thread was interrupted
+     */
+    public boolean await(long seenGeneration, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (monitor) {
+            waiting++;
+            try {
+                while (generation == seenGeneration) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
+                }
+                return true;
+            } finally {
+                waiting--;
+            }
+        }
+    }
+}
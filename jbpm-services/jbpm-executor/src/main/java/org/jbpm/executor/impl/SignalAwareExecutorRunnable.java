@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.executor.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executor thread loop that replaces fixed rate polling. Executes given executor runnable
+ * immediately when <code>ExecutorSignal</code> is received, otherwise polls with adaptive
+ * back-off - wait time doubles on every idle round starting from minimum interval up to
+ * maximum interval (the configured executor interval). As long as jobs are found it polls
+ * again right away and the back-off starts over from minimum interval.
+ */
+public class SignalAwareExecutorRunnable implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignalAwareExecutorRunnable.class);
+
+    private Runnable delegate;
+    private ExecutorSignal signal;
+    private long minInterval;
+    private long maxInterval;
+
+    public SignalAwareExecutorRunnable(Runnable delegate, ExecutorSignal signal, long minInterval, long maxInterval) {
+        this.delegate = delegate;
+        this.signal = signal;
+        this.minInterval = Math.max(1, minInterval);
+        this.maxInterval = Math.max(this.minInterval, maxInterval);
+    }
+
+    @Override
+    public void run() {
+        long wait = minInterval;
+        while (!Thread.currentThread().isInterrupted()) {
+            // read before polling so signal sent while jobs are executed is not lost
+            long seen = signal.getGeneration();
+            if (executeJobs()) {
+                // there might be more jobs waiting so poll again right away
+                wait = minInterval;
+                continue;
+            }
+            try {
+                if (signal.await(seen, wait, TimeUnit.MILLISECONDS)) {
+                    wait = minInterval;
+                } else {
+                    wait = Math.min(wait * 2, maxInterval);
+                }
+                logger.trace("Executor thread {} next poll in {} ms unless signaled", Thread.currentThread().getName(), wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        logger.debug("Executor thread {} stopped", Thread.currentThread().getName());
+    }
+
+    /**
+     * Runs the delegate and reports if any job was executed. Delegates that cannot tell are considered idle.
+     */
+    protected boolean executeJobs() {
+        if (delegate instanceof ExecutorRunnable) {
+            return ((ExecutorRunnable) delegate).runAvailableJobs();
+        }
+        delegate.run();
+        return false;
+    }
+}
@@ -16,6 +16,8 @@
 
 package org.jbpm.executor.impl.jpa;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -25,6 +27,7 @@ import javax.persistence.NoResultException;
 
 import org.drools.core.command.CommandService;
 import org.drools.core.command.impl.GenericCommand;
+import org.jbpm.executor.BatchProcessingAware;
 import org.jbpm.shared.services.impl.JpaPersistenceContext;
 import org.jbpm.shared.services.impl.QueryManager;
 import org.kie.api.executor.ErrorInfo;
@@ -42,7 +45,7 @@ import org.kie.internal.executor.api.ExecutorQueryService;
  * IMPORTANT: please keep all classes from package org.jbpm.shared.services.impl as FQCN
  * inside method body to avoid exception logged by CDI when used with in memory mode
  */
-public class ExecutorQueryServiceImpl implements ExecutorQueryService {
+public class ExecutorQueryServiceImpl implements ExecutorQueryService, BatchProcessingAware {
 
     private CommandService commandService;
    
@@ -213,6 +216,20 @@ public class ExecutorQueryServiceImpl implements ExecutorQueryService {
         return request;
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RequestInfo> getRequestsForProcessing(int batchSize) {
+        if (batchSize < 1) {
+            return Collections.emptyList();
+        }
+        // lock the whole batch at once to avoid round trip to the data base for every single request
+        List<RequestInfo> requests = commandService.execute(new LockAndUpdateRequestInfoBatchCommand(batchSize));
+
+        return requests;
+    }
+    
     public RequestInfo getRequestForProcessing(Long requestId) {
         
         // need to do the lock here to avoid many executor services fetch the same element
@@ -251,6 +268,42 @@ public class ExecutorQueryServiceImpl implements ExecutorQueryService {
     	
     }
     
+    private class LockAndUpdateRequestInfoBatchCommand implements GenericCommand<List<RequestInfo>> {
+
+        private static final long serialVersionUID = -5047423632519316397L;
+
+        private int batchSize;
+
+        LockAndUpdateRequestInfoBatchCommand(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public List<RequestInfo> execute(Context context) {
+            Map<String, Object> params = new HashMap<String, Object>();
+            params.put("now", new Date());
+            params.put("firstResult", 0);
+            params.put("maxResults", batchSize);
+            params.put("owner", ExecutorService.EXECUTOR_ID);
+            List<RequestInfo> requests = new ArrayList<RequestInfo>();
+
+            org.jbpm.shared.services.impl.JpaPersistenceContext ctx = (org.jbpm.shared.services.impl.JpaPersistenceContext) context;
+            List<RequestInfo> found = ctx.queryAndLockWithParametersInTransaction("PendingRequestsForProcessing",params, false, List.class);
+            if (found != null) {
+                Date startedAt = new Date();
+                for (RequestInfo request : found) {
+                    request.setStatus(STATUS.RUNNING);
+                    // update date on when it was started to be executed
+                    ((org.jbpm.executor.entities.RequestInfo)request).setTime(startedAt);
+                    requests.add(ctx.merge(request));
+                }
+            }
+            return requests;
+        }
+
+    }
+
     private class LockAndUpdateRequestInfoByIdCommand implements GenericCommand<RequestInfo> {
 
         private static final long serialVersionUID = 8670412133363766161L;
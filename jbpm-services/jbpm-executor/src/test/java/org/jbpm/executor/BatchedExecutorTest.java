@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package org.jbpm.executor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.UUID;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import org.jbpm.executor.impl.AvailableJobsExecutor;
+import org.jbpm.executor.impl.ClassCacheManager;
+import org.jbpm.executor.impl.jpa.ExecutorQueryServiceImpl;
+import org.jbpm.executor.impl.jpa.JPAExecutorStoreService;
+import org.jbpm.shared.services.impl.TransactionalCommandService;
+import org.jbpm.test.util.ExecutorTestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.executor.CommandContext;
+import org.kie.api.executor.ExecutorService;
+import org.kie.api.executor.RequestInfo;
+import org.kie.api.runtime.query.QueryContext;
+
+import bitronix.tm.resource.jdbc.PoolingDataSource;
+
+
+public class BatchedExecutorTest {
+
+    protected ExecutorService executorService;
+
+    private PoolingDataSource pds;
+    private EntityManagerFactory emf = null;
+
+    private ExecutorQueryServiceImpl queryService;
+    private JPAExecutorStoreService storeService;
+
+    @Before
+    public void setUp() {
+        pds = ExecutorTestUtil.setupPoolingDataSource();
+        emf = Persistence.createEntityManagerFactory("org.jbpm.executor");
+
+        // executor threads are not started, jobs are executed by the test itself
+        executorService = ExecutorServiceFactory.newExecutorService(emf);
+
+        TransactionalCommandService commandService = new TransactionalCommandService(emf);
+        queryService = new ExecutorQueryServiceImpl(true);
+        queryService.setCommandService(commandService);
+        storeService = new JPAExecutorStoreService(true);
+        storeService.setCommandService(commandService);
+        storeService.setEmf(emf);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.clearAllRequests();
+        executorService.clearAllErrors();
+
+        executorService.destroy();
+        if (emf != null) {
+            emf.close();
+        }
+        pds.close();
+    }
+
+    @Test
+    public void batchedExecutionTest() {
+        scheduleRequests(12);
+
+        CountingJobsExecutor jobExecutor = new CountingJobsExecutor(5, -1);
+        jobExecutor.executeJob();
+
+        // 12 requests claimed by 3 queries - 5, 5 and 2
+        assertEquals(3, jobExecutor.getClaims());
+        assertEquals(12, jobExecutor.getClaimedCount());
+        assertEquals(12, jobExecutor.getExecutedCount());
+
+        List<RequestInfo> inErrorRequests = executorService.getInErrorRequests(new QueryContext());
+        assertEquals(0, inErrorRequests.size());
+        List<RequestInfo> queuedRequests = executorService.getQueuedRequests(new QueryContext());
+        assertEquals(0, queuedRequests.size());
+        List<RequestInfo> runningRequests = executorService.getRunningRequests(new QueryContext());
+        assertEquals(0, runningRequests.size());
+        List<RequestInfo> executedRequests = executorService.getCompletedRequests(new QueryContext());
+        assertEquals(12, executedRequests.size());
+    }
+
+    @Test
+    public void requeueClaimedRequestsOnInterruptTest() {
+        scheduleRequests(5);
+
+        // interrupt the thread after second request is executed
+        CountingJobsExecutor jobExecutor = new CountingJobsExecutor(5, 2);
+        try {
+            jobExecutor.executeJob();
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertEquals(1, jobExecutor.getClaims());
+        assertEquals(5, jobExecutor.getClaimedCount());
+        assertEquals(2, jobExecutor.getExecutedCount());
+
+        List<RequestInfo> runningRequests = executorService.getRunningRequests(new QueryContext());
+        assertEquals(0, runningRequests.size());
+        List<RequestInfo> queuedRequests = executorService.getQueuedRequests(new QueryContext());
+        assertEquals(3, queuedRequests.size());
+        List<RequestInfo> executedRequests = executorService.getCompletedRequests(new QueryContext());
+        assertEquals(2, executedRequests.size());
+    }
+
+    private void scheduleRequests(int amount) {
+        for (int i = 0; i < amount; i++) {
+            CommandContext ctxCMD = new CommandContext();
+            ctxCMD.setData("businessKey", UUID.randomUUID().toString());
+
+            executorService.scheduleRequest("org.jbpm.executor.commands.PrintOutCommand", ctxCMD);
+        }
+    }
+
+    private class CountingJobsExecutor extends AvailableJobsExecutor {
+
+        private int interruptAfter;
+        private int executed;
+
+        CountingJobsExecutor(int batchSize, int interruptAfter) {
+            this.interruptAfter = interruptAfter;
+            setBatchSize(batchSize);
+            setClassCacheManager(new ClassCacheManager());
+            setQueryService(queryService);
+            setExecutorStoreService(storeService);
+        }
+
+        @Override
+        public void executeGivenJob(org.jbpm.executor.entities.RequestInfo request) {
+            super.executeGivenJob(request);
+            executed++;
+            if (executed == interruptAfter) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package org.jbpm.executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import org.jbpm.executor.test.LatchCommand;
+import org.jbpm.test.util.ExecutorTestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.executor.CommandContext;
+import org.kie.api.executor.ExecutorService;
+import org.kie.api.runtime.query.QueryContext;
+
+import bitronix.tm.resource.jdbc.PoolingDataSource;
+
+
+public class SignalExecutorTest {
+
+    protected ExecutorService executorService;
+
+    private PoolingDataSource pds;
+    private EntityManagerFactory emf = null;
+
+    @Before
+    public void setUp() {
+        System.setProperty("org.kie.executor.signal", "true");
+        pds = ExecutorTestUtil.setupPoolingDataSource();
+        emf = Persistence.createEntityManagerFactory("org.jbpm.executor");
+
+        executorService = ExecutorServiceFactory.newExecutorService(emf);
+        executorService.setThreadPoolSize(2);
+        executorService.setInterval(60);
+        executorService.setTimeunit(TimeUnit.SECONDS);
+
+        executorService.init();
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("org.kie.executor.signal");
+        executorService.clearAllRequests();
+        executorService.clearAllErrors();
+
+        executorService.destroy();
+        if (emf != null) {
+            emf.close();
+        }
+        pds.close();
+    }
+
+    @Test(timeout=30000)
+    public void signaledExecutionTest() throws InterruptedException {
+        CountDownLatch executed = LatchCommand.reset(1);
+
+        CommandContext ctxCMD = new CommandContext();
+        ctxCMD.setData("businessKey", UUID.randomUUID().toString());
+
+        executorService.scheduleRequest("org.jbpm.executor.test.LatchCommand", ctxCMD);
+
+        // much shorter than configured interval as executor is woken up by the signal
+        assertTrue(executed.await(10, TimeUnit.SECONDS));
+        assertEquals(0, executorService.getInErrorRequests(new QueryContext()).size());
+
+        // executor threads are idle now so next request is executed right after the signal as well
+        executed = LatchCommand.reset(1);
+        executorService.scheduleRequest("org.jbpm.executor.test.LatchCommand", ctxCMD);
+        assertTrue(executed.await(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jbpm.executor.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ExecutorSignalTest {
+
+    @Test(timeout=10000)
+    public void testSignalWakesUpSingleWaiter() throws Exception {
+        final ExecutorSignal signal = new ExecutorSignal();
+        final long generation = signal.getGeneration();
+        final CountDownLatch woken = new CountDownLatch(3);
+
+        for (int i = 0; i < 3; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (signal.await(generation, 30, TimeUnit.SECONDS)) {
+                            woken.countDown();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }).start();
+        }
+        awaitWaiting(signal, 3);
+
+        // every signal wakes up exactly one of the waiting threads
+        signal.signal();
+        awaitCount(woken, 2);
+        assertEquals(2, signal.getWaiting());
+
+        signal.signal();
+        awaitCount(woken, 1);
+        assertEquals(1, signal.getWaiting());
+
+        signal.signal();
+        assertTrue(woken.await(5, TimeUnit.SECONDS));
+        assertEquals(0, signal.getWaiting());
+    }
+
+    @Test
+    public void testSignalNotLostWithoutWaiters() throws Exception {
+        ExecutorSignal signal = new ExecutorSignal();
+        long generation = signal.getGeneration();
+
+        signal.signal();
+        assertTrue(signal.await(generation, 1, TimeUnit.MILLISECONDS));
+        assertFalse(signal.await(signal.getGeneration(), 1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(timeout=10000)
+    public void testPollsAgainRightAwayWhileJobsExecuted() throws Exception {
+        ExecutorSignal signal = new ExecutorSignal();
+        // three rounds execute jobs, the fourth is idle and must wait for the (long) interval
+        CountingExecutorRunnable jobs = new CountingExecutorRunnable(signal, 3, -1);
+        Thread thread = new Thread(new SignalAwareExecutorRunnable(jobs, signal, 30000, 30000));
+        thread.start();
+        try {
+            assertTrue(jobs.rounds.await(5, TimeUnit.SECONDS));
+            awaitWaiting(signal, 1);
+        } finally {
+            thread.interrupt();
+            thread.join();
+        }
+    }
+
+    @Test(timeout=10000)
+    public void testSignalDuringPollNotLost() throws Exception {
+        ExecutorSignal signal = new ExecutorSignal();
+        // first round finds nothing but new job is signaled meanwhile, second round must follow without waiting
+        CountingExecutorRunnable jobs = new CountingExecutorRunnable(signal, 0, 1);
+        Thread thread = new Thread(new SignalAwareExecutorRunnable(jobs, signal, 30000, 30000));
+        thread.start();
+        try {
+            assertTrue(jobs.rounds.await(5, TimeUnit.SECONDS));
+        } finally {
+            thread.interrupt();
+            thread.join();
+        }
+    }
+
+    private static class CountingExecutorRunnable extends ExecutorRunnable {
+
+        private ExecutorSignal signal;
+        private int executingRounds;
+        private int signalingRound;
+        private int round;
+        private CountDownLatch rounds;
+
+        CountingExecutorRunnable(ExecutorSignal signal, int executingRounds, int signalingRound) {
+            this.signal = signal;
+            this.executingRounds = executingRounds;
+            this.signalingRound = signalingRound;
+            this.rounds = new CountDownLatch(Math.max(executingRounds, signalingRound) + 1);
+        }
+
+        @Override
+        public boolean runAvailableJobs() {
+            round++;
+            rounds.countDown();
+            if (round == signalingRound) {
+                signal.signal();
+            }
+            return round <= executingRounds;
+        }
+    }
+
+    private void awaitWaiting(ExecutorSignal signal, int waiting) {
+        while (signal.getWaiting() != waiting) {
+            Thread.yield();
+        }
+    }
+
+    private void awaitCount(CountDownLatch latch, long count) {
+        while (latch.getCount() > count) {
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jbpm.executor.test;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.kie.api.executor.Command;
+import org.kie.api.executor.CommandContext;
+import org.kie.api.executor.ExecutionResults;
+
+
+public class LatchCommand implements Command {
+
+    private static CountDownLatch latch = new CountDownLatch(0);
+
+    public static CountDownLatch reset(int count) {
+        latch = new CountDownLatch(count);
+        return latch;
+    }
+
+    @Override
+    public ExecutionResults execute(CommandContext ctx) throws Exception {
+        latch.countDown();
+        return new ExecutionResults();
+    }
+
+}
@@ -21,17 +21,21 @@ import static org.kie.scanner.MavenRepository.getMavenRepository;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.persistence.EntityManagerFactory;
 import javax.xml.bind.annotation.XmlRootElement;
 
-import org.apache.commons.codec.binary.Base64;
 import org.drools.compiler.kie.builder.impl.InternalKieModule;
 import org.drools.compiler.kie.builder.impl.KieContainerImpl;
 import org.drools.core.common.ProjectClassLoader;
@@ -77,6 +81,8 @@ public class KModuleDeploymentService extends AbstractDeploymentService {
 
     private static Logger logger = LoggerFactory.getLogger(KModuleDeploymentService.class);
     private static final String DEFAULT_KBASE_NAME = "defaultKieBase";
+    private int deployThreads = Integer.parseInt(System.getProperty("org.jbpm.deploy.parallel",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
     
     private DefinitionService bpmn2Service;
     
@@ -294,21 +300,10 @@ public class KModuleDeploymentService extends AbstractDeploymentService {
 
 	protected void processResources(InternalKieModule module, Collection<String> files,
     		KieContainer kieContainer, DeploymentUnit unit, DeployedUnitImpl deployedUnit, ReleaseId releaseId) {
+	    List<String> processFiles = new ArrayList<String>();
         for (String fileName : files) {
             if(fileName.matches(".+bpmn[2]?$")) {
-                ProcessAssetDesc process;
-                try {
-                    String processString = new String(module.getBytes(fileName), "UTF-8");
-                    process = (ProcessAssetDesc) bpmn2Service.buildProcessDefinition(unit.getIdentifier(), processString, kieContainer, true);
-                    if (process == null) {
-                    	throw new IllegalArgumentException("Unable to read process " + fileName);
-                    }
-                    process.setEncodedProcessSource(Base64.encodeBase64String(processString.getBytes()));
-                    process.setDeploymentId(unit.getIdentifier());
-                    deployedUnit.addAssetLocation(process.getId(), process);
-                } catch (UnsupportedEncodingException e) {
-                	throw new IllegalArgumentException("Unsupported encoding while processing process " + fileName);
-                }
+                processFiles.add(fileName);
             } else if (fileName.matches(".+ftl$") || fileName.matches(".+form$")) {
                 try {
                     String formContent = new String(module.getBytes(fileName), "UTF-8");
@@ -330,7 +325,67 @@ public class KModuleDeploymentService extends AbstractDeploymentService {
 				}
             }
         }
+        processDefinitions(module, processFiles, kieContainer, unit, deployedUnit);
     }
+
+	/**
+	 * Collects definitions of given processes, in parallel when there are more of them - processes have been already built
+	 * by the kie container so collecting definitions does not depend on each other.
+	 */
+	protected void processDefinitions(final InternalKieModule module, List<String> processFiles,
+	        final KieContainer kieContainer, final DeploymentUnit unit, DeployedUnitImpl deployedUnit) {
+	    List<ProcessAssetDesc> processes = new ArrayList<ProcessAssetDesc>(processFiles.size());
+	    int threads = Math.min(deployThreads, processFiles.size());
+	    if (threads <= 1) {
+	        for (String fileName : processFiles) {
+	            processes.add(processDefinition(module, fileName, kieContainer, unit));
+	        }
+	    } else {
+	        java.util.concurrent.ExecutorService executor = Executors.newFixedThreadPool(threads);
+	        try {
+	            List<Future<ProcessAssetDesc>> futures = new ArrayList<Future<ProcessAssetDesc>>(processFiles.size());
+	            for (final String fileName : processFiles) {
+	                futures.add(executor.submit(new Callable<ProcessAssetDesc>() {
+	                    @Override
+	                    public ProcessAssetDesc call() throws Exception {
+	                        return processDefinition(module, fileName, kieContainer, unit);
+	                    }
+	                }));
+	            }
+	            for (Future<ProcessAssetDesc> future : futures) {
+	                processes.add(future.get());
+	            }
+	        } catch (InterruptedException e) {
+	            Thread.currentThread().interrupt();
+	            throw new IllegalStateException("Interrupted while processing processes of " + unit.getIdentifier(), e);
+	        } catch (ExecutionException e) {
+	            if (e.getCause() instanceof RuntimeException) {
+	                throw (RuntimeException) e.getCause();
+	            }
+	            throw new IllegalStateException("Unable to process processes of " + unit.getIdentifier(), e.getCause());
+	        } finally {
+	            executor.shutdownNow();
+	        }
+	    }
+	    for (ProcessAssetDesc process : processes) {
+	        deployedUnit.addAssetLocation(process.getId(), process);
+	    }
+	}
+
+	protected ProcessAssetDesc processDefinition(InternalKieModule module, String fileName, KieContainer kieContainer, DeploymentUnit unit) {
+	    try {
+	        String processString = new String(module.getBytes(fileName), "UTF-8");
+	        ProcessAssetDesc process = (ProcessAssetDesc) bpmn2Service.buildProcessDefinition(unit.getIdentifier(), processString, kieContainer, true);
+	        if (process == null) {
+	            throw new IllegalArgumentException("Unable to read process " + fileName);
+	        }
+	        process.setProcessSource(processString);
+	        process.setDeploymentId(unit.getIdentifier());
+	        return process;
+	    } catch (UnsupportedEncodingException e) {
+	        throw new IllegalArgumentException("Unsupported encoding while processing process " + fileName);
+	    }
+	}
 	
 	protected void processClassloader(KieContainer kieContainer, DeployedUnitImpl deployedUnit) {
 		if (kieContainer.getClassLoader() instanceof ProjectClassLoader) {
@@ -368,6 +423,14 @@ public class KModuleDeploymentService extends AbstractDeploymentService {
 	    this.bpmn2Service = bpmn2Service;
 	}
 
+	/**
+	 * Sets number of threads used to collect process definitions of a deployment, 1 collects them on the calling thread.
+	 * Container managed variants should use 1 as the threads are not managed by the container.
+	 */
+	public void setDeployThreads(int deployThreads) {
+		this.deployThreads = deployThreads;
+	}
+
 	public void setMerger(DeploymentDescriptorMerger merger) {
 		this.merger = merger;
 	}
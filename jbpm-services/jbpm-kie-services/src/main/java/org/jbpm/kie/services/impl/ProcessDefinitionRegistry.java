@@ -0,0 +1,242 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.kie.services.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jbpm.kie.services.impl.model.ProcessAssetDesc;
+
+/**
+ * Registry of deployed process definitions indexed by deployment id, process id and role.
+ * <br/>
+ * Lookups do not need to go over all deployed definitions - they are read without locking from
+ * concurrent indexes while modifications (deploy/undeploy) are serialized. Definitions sorted by
+ * the supported order by columns (ProcessName, ProcessVersion and Project) are computed once
+ * after modification and shared by all readers until next modification.
+ */
+public class ProcessDefinitionRegistry {
+
+    public static final String ORDER_BY_NAME = "ProcessName";
+    public static final String ORDER_BY_VERSION = "ProcessVersion";
+    public static final String ORDER_BY_PROJECT = "Project";
+
+    private static final Map<String, Comparator<ProcessAssetDesc>> comparators = new HashMap<String, Comparator<ProcessAssetDesc>>();
+
+    static {
+        comparators.put(ORDER_BY_NAME, new Comparator<ProcessAssetDesc>() {
+
+            @Override
+            public int compare(ProcessAssetDesc o1, ProcessAssetDesc o2) {
+                return compareValues(o1.getName(), o2.getName());
+            }
+        });
+        comparators.put(ORDER_BY_VERSION, new Comparator<ProcessAssetDesc>() {
+
+            @Override
+            public int compare(ProcessAssetDesc o1, ProcessAssetDesc o2) {
+                return compareValues(o1.getVersion(), o2.getVersion());
+            }
+        });
+        comparators.put(ORDER_BY_PROJECT, new Comparator<ProcessAssetDesc>() {
+
+            @Override
+            public int compare(ProcessAssetDesc o1, ProcessAssetDesc o2) {
+                return compareValues(o1.getDeploymentId(), o2.getDeploymentId());
+            }
+        });
+    }
+
+    private final ConcurrentMap<String, ConcurrentMap<String, ProcessAssetDesc>> byDeploymentId = new ConcurrentHashMap<String, ConcurrentMap<String, ProcessAssetDesc>>();
+    private final ConcurrentMap<String, Set<ProcessAssetDesc>> byProcessId = new ConcurrentHashMap<String, Set<ProcessAssetDesc>>();
+    private final ConcurrentMap<String, Set<ProcessAssetDesc>> byRole = new ConcurrentHashMap<String, Set<ProcessAssetDesc>>();
+    // definitions without roles are accessible to everyone
+    private final Set<ProcessAssetDesc> unrestricted = newConcurrentSet();
+
+    private volatile Map<String, List<ProcessAssetDesc>> sorted;
+
+    public synchronized void add(ProcessAssetDesc process) {
+        ConcurrentMap<String, ProcessAssetDesc> deploymentProcesses = byDeploymentId.get(process.getDeploymentId());
+        if (deploymentProcesses == null) {
+            deploymentProcesses = new ConcurrentHashMap<String, ProcessAssetDesc>();
+            byDeploymentId.put(process.getDeploymentId(), deploymentProcesses);
+        }
+        ProcessAssetDesc replaced = deploymentProcesses.put(process.getId(), process);
+        if (replaced != null) {
+            removeFromIndexes(replaced);
+        }
+        index(byProcessId, process.getId(), process);
+        if (process.getRoles() == null || process.getRoles().isEmpty()) {
+            unrestricted.add(process);
+        } else {
+            for (String role : process.getRoles()) {
+                index(byRole, role, process);
+            }
+        }
+        sorted = null;
+    }
+
+    public synchronized Collection<ProcessAssetDesc> removeByDeploymentId(String deploymentId) {
+        ConcurrentMap<String, ProcessAssetDesc> deploymentProcesses = byDeploymentId.remove(deploymentId);
+        if (deploymentProcesses == null) {
+            return Collections.emptyList();
+        }
+        for (ProcessAssetDesc process : deploymentProcesses.values()) {
+            removeFromIndexes(process);
+        }
+        sorted = null;
+        return deploymentProcesses.values();
+    }
+
+    public Collection<ProcessAssetDesc> getByDeploymentId(String deploymentId) {
+        Map<String, ProcessAssetDesc> deploymentProcesses = byDeploymentId.get(deploymentId);
+        if (deploymentProcesses == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableCollection(deploymentProcesses.values());
+    }
+
+    public ProcessAssetDesc get(String deploymentId, String processId) {
+        Map<String, ProcessAssetDesc> deploymentProcesses = byDeploymentId.get(deploymentId);
+        if (deploymentProcesses == null) {
+            return null;
+        }
+        return deploymentProcesses.get(processId);
+    }
+
+    public Collection<ProcessAssetDesc> getByProcessId(String processId) {
+        Set<ProcessAssetDesc> processes = byProcessId.get(processId);
+        if (processes == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(processes);
+    }
+
+    /**
+     * Returns definitions accessible for given roles - definitions without roles and definitions
+     * that require at least one of the given roles. Empty or null roles give access to all definitions.
+     */
+    public Collection<ProcessAssetDesc> getAccessible(List<String> roles) {
+        if (roles == null || roles.isEmpty()) {
+            return getAll();
+        }
+        Set<ProcessAssetDesc> accessible = new LinkedHashSet<ProcessAssetDesc>(unrestricted);
+        for (String role : roles) {
+            Set<ProcessAssetDesc> processes = byRole.get(role);
+            if (processes != null) {
+                accessible.addAll(processes);
+            }
+        }
+        return accessible;
+    }
+
+    public Collection<ProcessAssetDesc> getAll() {
+        List<ProcessAssetDesc> all = new ArrayList<ProcessAssetDesc>();
+        for (Map<String, ProcessAssetDesc> deploymentProcesses : byDeploymentId.values()) {
+            all.addAll(deploymentProcesses.values());
+        }
+        return all;
+    }
+
+    /**
+     * Returns all definitions sorted ascending by given order by column or null if the column is not supported.
+     */
+    public List<ProcessAssetDesc> getSorted(String orderBy) {
+        if (!comparators.containsKey(orderBy)) {
+            return null;
+        }
+        Map<String, List<ProcessAssetDesc>> current = sorted;
+        if (current == null) {
+            current = buildSorted();
+        }
+        return current.get(orderBy);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<String, ProcessAssetDesc> deploymentProcesses : byDeploymentId.values()) {
+            size += deploymentProcesses.size();
+        }
+        return size;
+    }
+
+    private synchronized Map<String, List<ProcessAssetDesc>> buildSorted() {
+        if (sorted != null) {
+            return sorted;
+        }
+        Collection<ProcessAssetDesc> all = getAll();
+        Map<String, List<ProcessAssetDesc>> computed = new HashMap<String, List<ProcessAssetDesc>>();
+        for (Map.Entry<String, Comparator<ProcessAssetDesc>> entry : comparators.entrySet()) {
+            List<ProcessAssetDesc> ordered = new ArrayList<ProcessAssetDesc>(all);
+            Collections.sort(ordered, entry.getValue());
+            computed.put(entry.getKey(), Collections.unmodifiableList(ordered));
+        }
+        sorted = computed;
+        return computed;
+    }
+
+    private void removeFromIndexes(ProcessAssetDesc process) {
+        unindex(byProcessId, process.getId(), process);
+        unrestricted.remove(process);
+        if (process.getRoles() != null) {
+            for (String role : process.getRoles()) {
+                unindex(byRole, role, process);
+            }
+        }
+    }
+
+    private static void index(ConcurrentMap<String, Set<ProcessAssetDesc>> index, String key, ProcessAssetDesc process) {
+        Set<ProcessAssetDesc> processes = index.get(key);
+        if (processes == null) {
+            processes = newConcurrentSet();
+            index.put(key, processes);
+        }
+        processes.add(process);
+    }
+
+    private static void unindex(ConcurrentMap<String, Set<ProcessAssetDesc>> index, String key, ProcessAssetDesc process) {
+        Set<ProcessAssetDesc> processes = index.get(key);
+        if (processes != null) {
+            processes.remove(process);
+            if (processes.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static Set<ProcessAssetDesc> newConcurrentSet() {
+        return Collections.newSetFromMap(new ConcurrentHashMap<ProcessAssetDesc, Boolean>());
+    }
+
+    private static int compareValues(String s1, String s2) {
+        if (s1 == null) {
+            return s2 == null ? 0 : -1;
+        }
+        if (s2 == null) {
+            return 1;
+        }
+        return s1.compareTo(s2);
+    }
+}
@@ -33,6 +33,7 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.Predicate;
 import org.jbpm.kie.services.impl.model.ProcessAssetDesc;
 import org.jbpm.kie.services.impl.security.DeploymentRolesManager;
+import org.jbpm.query.jpa.data.SeekQueryFilter;
 import org.jbpm.services.api.DeploymentEvent;
 import org.jbpm.services.api.DeploymentEventListener;
 import org.jbpm.services.api.RuntimeDataService;
@@ -61,7 +62,12 @@ import org.kie.internal.task.api.model.TaskEvent;
 
 public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEventListener {
 	
-    protected Set<ProcessDefinition> availableProcesses = new HashSet<ProcessDefinition>();
+    // unique columns used as tie breaker for keyset pagination
+    protected static final String PROCESS_INSTANCE_ID_COLUMN = "log.processInstanceId";
+    protected static final String LOG_ID_COLUMN = "log.id";
+    protected static final String TASK_ID_COLUMN = "t.id";
+	
+    protected ProcessDefinitionRegistry availableProcesses = new ProcessDefinitionRegistry();
     
     
     private TransactionalCommandService commandService;
@@ -123,20 +129,14 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
     }
     
     public void onUnDeploy(DeploymentEvent event) {
-        Collection<ProcessAssetDesc> outputCollection = new HashSet<ProcessAssetDesc>();
-        CollectionUtils.select(availableProcesses, new UnsecureByDeploymentIdPredicate(event.getDeploymentId()), outputCollection);
-        
-        availableProcesses.removeAll(outputCollection);
+        availableProcesses.removeByDeploymentId(event.getDeploymentId());
         deploymentRolesManager.removeRolesForDeployment(event.getDeploymentId());
     }
     
 
 	@Override
 	public void onActivate(DeploymentEvent event) {
-		Collection<ProcessAssetDesc> outputCollection = new HashSet<ProcessAssetDesc>();
-        CollectionUtils.select(availableProcesses, new UnsecureByDeploymentIdPredicate(event.getDeploymentId()), outputCollection);
-        
-        for (ProcessAssetDesc process : outputCollection) {
+        for (ProcessAssetDesc process : availableProcesses.getByDeploymentId(event.getDeploymentId())) {
         	process.setActive(true);
         }
 		
@@ -144,17 +144,29 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
 
 	@Override
 	public void onDeactivate(DeploymentEvent event) {
-		Collection<ProcessAssetDesc> outputCollection = new HashSet<ProcessAssetDesc>();
-        CollectionUtils.select(availableProcesses, new UnsecureByDeploymentIdPredicate(event.getDeploymentId()), outputCollection);
-        
-        for (ProcessAssetDesc process : outputCollection) {
+        for (ProcessAssetDesc process : availableProcesses.getByDeploymentId(event.getDeploymentId())) {
         	process.setActive(false);
         }
 	}
     
     protected void applyQueryContext(Map<String, Object> params, QueryContext queryContext) {
+    	applyQueryContext(params, queryContext, null);
+    }
+    
+    /*
+     * seekIdColumn is the unique column of queried entity that makes keyset pagination possible
+     * when SeekQueryFilter is given, offset is then replaced with predicate on the last seen row
+     */
+    protected void applyQueryContext(Map<String, Object> params, QueryContext queryContext, String seekIdColumn) {
     	if (queryContext != null) {
-        	params.put("firstResult", queryContext.getOffset());
+    		if (seekIdColumn != null && queryContext instanceof SeekQueryFilter) {
+    			((SeekQueryFilter) queryContext).applySeek(params, seekIdColumn);
+    			if (queryContext.isAscending() != null && !queryContext.isAscending()) {
+    				params.put(QueryManager.DESCENDING_KEY, "true");
+    			}
+    		} else {
+    			params.put("firstResult", queryContext.getOffset());
+    		}
         	params.put("maxResults", queryContext.getCount());
         	
         	if (queryContext.getOrderBy() != null && !queryContext.getOrderBy().isEmpty()) {
@@ -198,6 +210,41 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
         return Collections.unmodifiableCollection(input);
     }
     
+    /**
+     * Selects single page of definitions matching given predicate, when the requested order is one of
+     * the precomputed ones only definitions up to the end of the page are evaluated.
+     */
+    protected Collection<ProcessDefinition> selectProcesses(Collection<ProcessAssetDesc> candidates, Predicate predicate, QueryContext queryContext) {
+        List<ProcessAssetDesc> ordered = null;
+        if (queryContext != null && queryContext.getOrderBy() != null && !queryContext.getOrderBy().isEmpty()) {
+            ordered = availableProcesses.getSorted(queryContext.getOrderBy());
+        }
+        if (ordered == null) {
+            List<ProcessDefinition> outputCollection = new ArrayList<ProcessDefinition>();
+            CollectionUtils.select(candidates, predicate, outputCollection);
+
+            applySorting(outputCollection, queryContext);
+            return applyPaginition(outputCollection, queryContext);
+        }
+        // precomputed order covers all deployed definitions, only candidates can be selected
+        Collection<ProcessAssetDesc> allowed = candidates instanceof Set ? candidates : new HashSet<ProcessAssetDesc>(candidates);
+        int offset = queryContext.getOffset();
+        int count = queryContext.getCount();
+        boolean ascending = queryContext.isAscending();
+        List<ProcessDefinition> page = new ArrayList<ProcessDefinition>();
+        int matched = 0;
+        for (int i = 0; i < ordered.size() && page.size() < count; i++) {
+            ProcessAssetDesc process = ordered.get(ascending ? i : ordered.size() - 1 - i);
+            if (allowed.contains(process) && predicate.evaluate(process)) {
+                if (matched >= offset) {
+                    page.add(process);
+                }
+                matched++;
+            }
+        }
+        return Collections.unmodifiableCollection(page);
+    }
+
     protected void applySorting(List<ProcessDefinition> input, final QueryContext queryContext) {
     	if (queryContext != null && queryContext.getOrderBy() != null && !queryContext.getOrderBy().isEmpty()) {
     		Collections.sort(input, new Comparator<ProcessDefinition>() {
@@ -231,28 +278,22 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
      */
 	public Collection<ProcessDefinition> getProcessesByDeploymentId(String deploymentId, QueryContext queryContext) {
         List<ProcessDefinition> outputCollection = new ArrayList<ProcessDefinition>();
-        CollectionUtils.select(availableProcesses, new ByDeploymentIdPredicate(deploymentId, identityProvider.getRoles()), outputCollection);
+        CollectionUtils.select(availableProcesses.getByDeploymentId(deploymentId), new ByDeploymentIdPredicate(deploymentId, identityProvider.getRoles()), outputCollection);
         
         applySorting(outputCollection, queryContext);
         return applyPaginition(outputCollection, queryContext);
     }
     
     public ProcessDefinition getProcessesByDeploymentIdProcessId(String deploymentId, String processId) {
-    	List<ProcessDefinition> outputCollection = new ArrayList<ProcessDefinition>();
-        CollectionUtils.select(availableProcesses, new ByDeploymentIdProcessIdPredicate(deploymentId, processId, identityProvider.getRoles(), true), outputCollection);
-        
-        if (!outputCollection.isEmpty()) {
-            return outputCollection.iterator().next();
+        ProcessAssetDesc process = availableProcesses.get(deploymentId, processId);
+        if (process != null && new ByDeploymentIdProcessIdPredicate(deploymentId, processId, identityProvider.getRoles(), true).evaluate(process)) {
+            return process;
         }
         return null; 
     }
     
     public Collection<ProcessDefinition> getProcessesByFilter(String filter, QueryContext queryContext) {
-    	List<ProcessDefinition> outputCollection = new ArrayList<ProcessDefinition>();
-        CollectionUtils.select(availableProcesses, new RegExPredicate("(?i)^.*"+filter+".*$", identityProvider.getRoles()), outputCollection);
-        
-        applySorting(outputCollection, queryContext);
-        return applyPaginition(outputCollection, queryContext);
+        return selectProcesses(availableProcesses.getAll(), new RegExPredicate("(?i)^.*"+filter+".*$", identityProvider.getRoles()), queryContext);
     }
     
     @Deprecated
@@ -270,27 +311,24 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
     public Collection<ProcessDefinition> getProcessesById(String processId){
         
         Collection<ProcessDefinition> outputCollection = new HashSet<ProcessDefinition>();
-        CollectionUtils.select(availableProcesses, new ByProcessIdPredicate(processId, identityProvider.getRoles()), outputCollection);
+        CollectionUtils.select(availableProcesses.getByProcessId(processId), new ByProcessIdPredicate(processId, identityProvider.getRoles()), outputCollection);
         
         return outputCollection;   
     }
     
     public Collection<ProcessDefinition> getProcesses(QueryContext queryContext) {
-    	List<ProcessDefinition> outputCollection = new ArrayList<ProcessDefinition>();
-    	CollectionUtils.select(availableProcesses, new SecurePredicate(identityProvider.getRoles(), false), outputCollection);
-    	
-    	applySorting(outputCollection, queryContext);
-    	return applyPaginition(outputCollection, queryContext);
+    	List<String> roles = identityProvider.getRoles();
+    	return selectProcesses(availableProcesses.getAccessible(roles), new SecurePredicate(roles, false), queryContext);
     }
 
     @Override
     public Collection<String> getProcessIds(String deploymentId, QueryContext queryContext) {
-        List<String> processIds = new ArrayList<String>(availableProcesses.size());
+        List<String> processIds = new ArrayList<String>();
         if( deploymentId == null || deploymentId.isEmpty() ) { 
             return processIds;
         }
-        for( ProcessDefinition procAssetDesc : availableProcesses ) { 
-            if( ((ProcessAssetDesc)procAssetDesc).getDeploymentId().equals(deploymentId) && ((ProcessAssetDesc)procAssetDesc).isActive()) {
+        for( ProcessAssetDesc procAssetDesc : availableProcesses.getByDeploymentId(deploymentId) ) { 
+            if( procAssetDesc.isActive()) {
                 processIds.add(procAssetDesc.getId());
             }
         }
@@ -309,7 +347,7 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
     
     public Collection<ProcessInstanceDesc> getProcessInstances(QueryContext queryContext) {
     	Map<String, Object> params = new HashMap<String, Object>();
-    	applyQueryContext(params, queryContext);
+    	applyQueryContext(params, queryContext, PROCESS_INSTANCE_ID_COLUMN);
     	applyDeploymentFilter(params);
         List<ProcessInstanceDesc> processInstances =  commandService.execute(
 			new QueryNameCommand<List<ProcessInstanceDesc>>("getProcessInstances", params));
@@ -322,7 +360,7 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
         List<ProcessInstanceDesc> processInstances = null; 
         Map<String, Object> params = new HashMap<String, Object>();
         params.put("states", states);
-        applyQueryContext(params, queryContext);
+        applyQueryContext(params, queryContext, PROCESS_INSTANCE_ID_COLUMN);
         applyDeploymentFilter(params);
         if (initiator == null) {
 
@@ -341,7 +379,7 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
     	Map<String, Object> params = new HashMap<String, Object>();
         params.put("externalId", deploymentId);
         params.put("states", states);
-        applyQueryContext(params, queryContext);
+        applyQueryContext(params, queryContext, PROCESS_INSTANCE_ID_COLUMN);
         applyDeploymentFilter(params);
         List<ProcessInstanceDesc> processInstances = commandService.execute(
 				new QueryNameCommand<List<ProcessInstanceDesc>>("getProcessInstancesByDeploymentId",
@@ -354,7 +392,7 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
     public Collection<ProcessInstanceDesc> getProcessInstancesByProcessDefinition(String processDefId, QueryContext queryContext){
     	Map<String, Object> params = new HashMap<String, Object>();
         params.put("processDefId", processDefId);
-        applyQueryContext(params, queryContext);
+        applyQueryContext(params, queryContext, PROCESS_INSTANCE_ID_COLUMN);
         applyDeploymentFilter(params);
     	List<ProcessInstanceDesc> processInstances = commandService.execute(
 				new QueryNameCommand<List<ProcessInstanceDesc>>("getProcessInstancesByProcessDefinition",
@@ -369,7 +407,7 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
 		Map<String, Object> params = new HashMap<String, Object>();
         params.put("processId", processDefId);
         params.put("states", states);
-        applyQueryContext(params, queryContext);
+        applyQueryContext(params, queryContext, PROCESS_INSTANCE_ID_COLUMN);
         applyDeploymentFilter(params);
     	List<ProcessInstanceDesc> processInstances = commandService.execute(
 				new QueryNameCommand<List<ProcessInstanceDesc>>("getProcessInstancesByProcessIdAndStatus",
@@ -437,7 +475,7 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
     public Collection<ProcessInstanceDesc> getProcessInstancesByCorrelationKey(CorrelationKey correlationKey, QueryContext queryContext) {
         Map<String, Object> params = new HashMap<String, Object>();
         params.put("correlationKey", correlationKey.toExternalForm() + "%");        
-        applyQueryContext(params, queryContext);
+        applyQueryContext(params, queryContext, PROCESS_INSTANCE_ID_COLUMN);
         applyDeploymentFilter(params);
         
         List<ProcessInstanceDesc> processInstances = commandService.execute(
@@ -455,7 +493,7 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
 
         params.put("states", states);        
         params.put("processId", processId);
-        applyQueryContext(params, queryContext);
+        applyQueryContext(params, queryContext, PROCESS_INSTANCE_ID_COLUMN);
         applyDeploymentFilter(params);
         if (initiator == null) {
   
@@ -479,7 +517,7 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
         
         params.put("states", states);        
         params.put("processName", processName);
-        applyQueryContext(params, queryContext);
+        applyQueryContext(params, queryContext, PROCESS_INSTANCE_ID_COLUMN);
         applyDeploymentFilter(params);
         if (initiator == null) {
   
@@ -506,7 +544,7 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
         }
         params.put("states", states);
         params.put("variable", variableName);        
-        applyQueryContext(params, queryContext);
+        applyQueryContext(params, queryContext, PROCESS_INSTANCE_ID_COLUMN);
         applyDeploymentFilter(params);
         
         List<ProcessInstanceDesc> processInstances = commandService.execute(
@@ -527,7 +565,7 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
         params.put("states", states);
         params.put("variable", variableName);        
         params.put("variableValue", variableValue);
-        applyQueryContext(params, queryContext);
+        applyQueryContext(params, queryContext, PROCESS_INSTANCE_ID_COLUMN);
         applyDeploymentFilter(params);
         
         List<ProcessInstanceDesc> processInstances = commandService.execute(
@@ -561,7 +599,7 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
     protected Collection<NodeInstanceDesc> getProcessInstanceHistory(long processId, boolean completed, QueryContext queryContext) {
     	Map<String, Object> params = new HashMap<String, Object>();
     	params.put("processId", processId);
-    	applyQueryContext(params, queryContext);
+    	applyQueryContext(params, queryContext, LOG_ID_COLUMN);
     	List<NodeInstanceDesc> nodeInstances = Collections.emptyList();
         if (completed) {
         	nodeInstances = commandService.execute(
@@ -580,7 +618,7 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
     public Collection<NodeInstanceDesc> getProcessInstanceFullHistory(long processId, QueryContext queryContext) {
     	Map<String, Object> params = new HashMap<String, Object>();
     	params.put("processId", processId);
-    	applyQueryContext(params, queryContext);
+    	applyQueryContext(params, queryContext, LOG_ID_COLUMN);
         List<NodeInstanceDesc> nodeInstances = commandService.execute(
 				new QueryNameCommand<List<NodeInstanceDesc>>("getProcessInstanceFullHistory", 
                 params));
@@ -593,7 +631,7 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
     	Map<String, Object> params = new HashMap<String, Object>();
     	params.put("processId", processId);
     	params.put("type", type.getValue());
-    	applyQueryContext(params, queryContext);
+    	applyQueryContext(params, queryContext, LOG_ID_COLUMN);
         List<NodeInstanceDesc> nodeInstances = commandService.execute(
 				new QueryNameCommand<List<NodeInstanceDesc>>("getProcessInstanceFullHistoryByType", 
                 params));
@@ -639,7 +677,7 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
         Map<String, Object> params = new HashMap<String, Object>();
         params.put("processInstanceId", processInstanceId);
         params.put("variableId", variableId);
-        applyQueryContext(params, queryContext);
+        applyQueryContext(params, queryContext, LOG_ID_COLUMN);
     	List<VariableDesc> variablesState = commandService.execute(
 				new QueryNameCommand<List<VariableDesc>>("getVariableHistory", 
                 params));                
@@ -698,7 +736,7 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
 		Map<String, Object> params = new HashMap<String, Object>();
         params.put("userId", userId);
         params.put("status", allActiveStatus);
-        applyQueryContext(params, filter);
+        applyQueryContext(params, filter, TASK_ID_COLUMN);
         applyQueryFilter(params, filter);
         return (List<TaskSummary>) commandService.execute(
 				new QueryNameCommand<List<TaskSummary>>("TasksAssignedAsBusinessAdministratorByStatus",params));
@@ -795,7 +833,7 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
 		Map<String, Object> params = new HashMap<String, Object>();
 		params.put("processInstanceId", processInstanceId);
 		params.put("status", status);
-		applyQueryContext(params, filter);
+		applyQueryContext(params, filter, TASK_ID_COLUMN);
 		applyQueryFilter(params, filter);
 		return (List<TaskSummary>) commandService.execute(new QueryNameCommand<List<TaskSummary>>("TasksByStatusByProcessId", params));
 	}
@@ -998,26 +1036,6 @@ public class RuntimeDataServiceImpl implements RuntimeDataService, DeploymentEve
     }
 
     
-    private class UnsecureByDeploymentIdPredicate implements Predicate {
-        private String deploymentId;
-        
-        private UnsecureByDeploymentIdPredicate(String deploymentId) {
-            this.deploymentId = deploymentId;
-        }
-        
-        @Override
-        public boolean evaluate(Object object) {
-            if (object instanceof ProcessAssetDesc) {
-                ProcessAssetDesc pDesc = (ProcessAssetDesc) object;                
-                if (pDesc.getDeploymentId().equals(deploymentId)) {
-                    return true;
-                }
-            }
-            return false;
-        }
-        
-    }
-    
     private class ActiveOnlyPredicate implements Predicate {
         
         private ActiveOnlyPredicate() {
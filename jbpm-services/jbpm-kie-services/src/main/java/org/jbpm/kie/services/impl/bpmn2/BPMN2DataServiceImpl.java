@@ -15,9 +15,11 @@
  */
 package org.jbpm.kie.services.impl.bpmn2;
 
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -25,11 +27,12 @@ import java.util.concurrent.ConcurrentMap;
 
 import org.drools.compiler.builder.impl.KnowledgeBuilderConfigurationImpl;
 import org.drools.compiler.builder.impl.KnowledgeBuilderImpl;
-import org.drools.compiler.compiler.BPMN2ProcessFactory;
 import org.drools.compiler.compiler.BPMN2ProcessProvider;
 import org.drools.core.io.impl.ByteArrayResource;
 import org.drools.core.util.StringUtils;
+import org.drools.core.xml.SemanticModules;
 import org.jbpm.bpmn2.xml.BPMNDISemanticModule;
+import org.jbpm.compiler.xml.XmlProcessReader;
 import org.jbpm.kie.services.impl.bpmn2.builder.DataServiceExpressionBuilder;
 import org.jbpm.kie.services.impl.bpmn2.builder.dialect.ThreadLocalAbstractBuilderFacade;
 import org.jbpm.kie.services.impl.bpmn2.builder.dialect.java.DataServiceJavaProcessDialect;
@@ -64,6 +67,8 @@ public class BPMN2DataServiceImpl implements DefinitionService, DeploymentEventL
     private static final BPMN2DataServiceSemanticModule MODULE = new BPMN2DataServiceSemanticModule();
     private static final BPMN2DataServiceExtensionSemanticModule EXTENSIONS_MODULE = new BPMN2DataServiceExtensionSemanticModule(MODULE);
     
+    private static final SemanticModules SEMANTIC_MODULES = new SemanticModules();
+    
     private ConcurrentMap<String, Map<String, ProcessDescRepoHelper>> definitionCache = 
     		new ConcurrentHashMap<String, Map<String, ProcessDescRepoHelper>>();
    
@@ -80,6 +85,9 @@ public class BPMN2DataServiceImpl implements DefinitionService, DeploymentEventL
         for( int i = 0; i < SCRIPT_DIALECT_NAMES.length; ++i ) { 
             ProcessDialectRegistry.setDialect(SCRIPT_DIALECT_NAMES[i], dataServiceDialects[i]);
         }
+        SEMANTIC_MODULES.addSemanticModule(MODULE);
+        SEMANTIC_MODULES.addSemanticModule(EXTENSIONS_MODULE);
+        SEMANTIC_MODULES.addSemanticModule(new BPMNDISemanticModule());
     }
     
     public BPMN2DataServiceImpl() {
@@ -141,37 +149,29 @@ public class BPMN2DataServiceImpl implements DefinitionService, DeploymentEventL
 		
 		validateNonEmptyDeploymentIdAndProcessId(deploymentId, "no proc id");
 	
-        BPMN2ProcessProvider provider = getProvider(MODULE, EXTENSIONS_MODULE);
-        BPMN2ProcessProvider originalProvider = BPMN2ProcessFactory.getBPMN2ProcessProvider();
-        if (originalProvider != provider) {
-            BPMN2ProcessFactory.setBPMN2ProcessProvider(provider);
-        }
         try {
             ProcessDescRepoHelper threadLocalHelper = BPMN2DataServiceSemanticModule.getRepoHelper();
 	        BPMN2DataServiceExtensionSemanticModule.setRepoHelper(threadLocalHelper);
 	      
-	        KnowledgeBuilder kbuilder = null;
-	        
-	        if (kieContainer != null && kieContainer.getClassLoader() != null ) { 
-	            KnowledgeBuilderConfigurationImpl pconf = new KnowledgeBuilderConfigurationImpl(kieContainer.getClassLoader());
-	            kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder(pconf);
+	        Process process = null;
+	        boolean scriptsAnalyzed = false;
+	        if (kieContainer == null) {
+	            // process was not validated by any kie container so it must be built, which collects classes
+	            // referenced from scripts as well
+	            process = buildProcess(bpmn2Content, null);
+	            scriptsAnalyzed = true;
 	        } else {
-	            kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
+	            // only parse the process, it has been already built by the kie container so all information
+	            // but classes referenced from scripts is collected by the data service handlers
+	            process = parseProcess(bpmn2Content, kieContainer.getClassLoader() != null ?
+	                    kieContainer.getClassLoader() : Thread.currentThread().getContextClassLoader());
 	        }
-	        kbuilder.add(new ByteArrayResource(bpmn2Content.getBytes()), ResourceType.BPMN2);
-	        if (kbuilder.hasErrors()) {
-	            for(KnowledgeBuilderError error: kbuilder.getErrors()){
-	                logger.error("Error: {}", error.getMessage());
-	            }
-	            logger.debug("Process Cannot be Parsed! \n {} \n", bpmn2Content);
+	        if (process == null) {
 	            return null;
 	        }
-
-	        KnowledgePackage pckg = kbuilder.getKnowledgePackages().iterator().next();
-	        
-	        Process process = pckg.getProcesses().iterator().next();
 	        
 	        ProcessDescRepoHelper helper = MODULE.getRepo().removeProcessDescription(process.getId());
+	        helper.setScriptsAnalyzed(scriptsAnalyzed);
 	        ProcessAssetDesc definition = helper.getProcess();
 	        
 	        definition.setAssociatedEntities(helper.getTaskAssignments());
@@ -185,6 +185,10 @@ public class BPMN2DataServiceImpl implements DefinitionService, DeploymentEventL
 	        
 	        // cache the data if requested
 	        if (cache) {
+	            if (!scriptsAnalyzed) {
+	                helper.setProcessSource(bpmn2Content);
+	                helper.setClassLoader(kieContainer.getClassLoader());
+	            }
 	        	Map<String, ProcessDescRepoHelper> definitions = null;
 	        	synchronized (definitionCache) {
 	        		definitions = definitionCache.get(deploymentId);
@@ -199,13 +203,90 @@ public class BPMN2DataServiceImpl implements DefinitionService, DeploymentEventL
 	        
 	        return definition;
         } finally {
-        	BPMN2ProcessFactory.setBPMN2ProcessProvider(originalProvider);
+            MODULE.getRepo().dispose();
             BPMN2DataServiceSemanticModule.dispose();
             // BPMN2DataServiceExtensionSemanticModule.dispose() <-- not needed because the modules share the same ThreadLocal instance
 
         }
 	}
 
+	/**
+	 * Classes used in scripts and expressions are only known once the process is built, which is the most expensive
+	 * part of collecting the process information. It is therefore done on first request for the referenced classes.
+	 * @param helper cached process information
+	 */
+	protected void analyzeScripts(ProcessDescRepoHelper helper) {
+	    synchronized (helper) {
+	        if (helper.isScriptsAnalyzed() || helper.getProcessSource() == null) {
+	            return;
+	        }
+	        try {
+	            ProcessDescRepoHelper threadLocalHelper = BPMN2DataServiceSemanticModule.getRepoHelper();
+	            BPMN2DataServiceExtensionSemanticModule.setRepoHelper(threadLocalHelper);
+
+	            Process process = buildProcess(helper.getProcessSource(), helper.getClassLoader());
+	            if (process == null) {
+	                return;
+	            }
+	            ProcessDescRepoHelper builtHelper = MODULE.getRepo().removeProcessDescription(process.getId());
+	            helper.getReferencedClasses().addAll(builtHelper.getReferencedClasses());
+	        } finally {
+	            helper.setScriptsAnalyzed(true);
+	            helper.setProcessSource(null);
+	            helper.setClassLoader(null);
+	            MODULE.getRepo().dispose();
+	            BPMN2DataServiceSemanticModule.dispose();
+	        }
+	    }
+	}
+
+	/**
+	 * Parses the process with data service handlers, without building it.
+	 * @return parsed process or null if the process cannot be parsed
+	 */
+	private Process parseProcess(String bpmn2Content, ClassLoader classLoader) {
+	    List<Process> processes = null;
+	    try {
+	        XmlProcessReader xmlReader = new XmlProcessReader(SEMANTIC_MODULES, classLoader);
+	        processes = xmlReader.read(new StringReader(bpmn2Content));
+	    } catch (Exception e) {
+	        logger.error("Error: {}", e.getMessage());
+	    }
+	    if (processes == null || processes.isEmpty()) {
+	        logger.debug("Process Cannot be Parsed! \n {} \n", bpmn2Content);
+	        return null;
+	    }
+	    return processes.get(0);
+	}
+
+	/**
+	 * Builds and validates the process with data service handlers and dialects.
+	 * @return built process or null if the process has errors
+	 */
+	private Process buildProcess(String bpmn2Content, ClassLoader classLoader) {
+	    KnowledgeBuilderConfigurationImpl pconf = null;
+	    if (classLoader != null) {
+	        pconf = new KnowledgeBuilderConfigurationImpl(classLoader);
+	    } else {
+	        pconf = new KnowledgeBuilderConfigurationImpl();
+	    }
+	    // data service modules are registered directly so there is no need to replace the global BPMN2 provider
+	    pconf.addSemanticModule(MODULE);
+	    pconf.addSemanticModule(EXTENSIONS_MODULE);
+	    pconf.addSemanticModule(new BPMNDISemanticModule());
+	    KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder(pconf);
+	    kbuilder.add(new ByteArrayResource(bpmn2Content.getBytes()), ResourceType.BPMN2);
+	    if (kbuilder.hasErrors()) {
+	        for(KnowledgeBuilderError error: kbuilder.getErrors()){
+	            logger.error("Error: {}", error.getMessage());
+	        }
+	        logger.debug("Process Cannot be Parsed! \n {} \n", bpmn2Content);
+	        return null;
+	    }
+	    KnowledgePackage pckg = kbuilder.getKnowledgePackages().iterator().next();
+	    return pckg.getProcesses().iterator().next();
+	}
+
 	/**
 	 * This method is used to set the process {@link ProcessDescRepoHelper} instance. 
 	 * @param processHelper
@@ -487,6 +568,7 @@ public class BPMN2DataServiceImpl implements DefinitionService, DeploymentEventL
             if (helper == null) {
                 throw new IllegalStateException("No process available with given id : " + processId);
             }
+            analyzeScripts(helper);
             
             return Collections.unmodifiableSet(helper.getReferencedClasses());
         }
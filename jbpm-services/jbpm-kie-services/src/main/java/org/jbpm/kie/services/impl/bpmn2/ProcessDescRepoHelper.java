@@ -57,6 +57,11 @@ public class ProcessDescRepoHelper {
     
     private Queue<String> unresolvedReusableSubProcessNames = new ArrayDeque<String>();
     
+    // kept to collect classes referenced from scripts on demand
+    private String processSource;
+    private ClassLoader classLoader;
+    private boolean scriptsAnalyzed;
+    
     public ProcessDescRepoHelper() {
     }
 
@@ -158,6 +163,30 @@ public class ProcessDescRepoHelper {
         return referencedRules;
     }
 
+    public String getProcessSource() {
+        return processSource;
+    }
+
+    public void setProcessSource(String processSource) {
+        this.processSource = processSource;
+    }
+
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    public void setClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    public boolean isScriptsAnalyzed() {
+        return scriptsAnalyzed;
+    }
+
+    public void setScriptsAnalyzed(boolean scriptsAnalyzed) {
+        this.scriptsAnalyzed = scriptsAnalyzed;
+    }
+
     public void clear(){
         process = null;
         tasks.clear();
@@ -18,16 +18,23 @@ package org.jbpm.kie.services.impl.bpmn2;
 
 import static org.jbpm.kie.services.impl.bpmn2.BPMN2DataServiceImpl.*;
 
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
  * This is a package-level class that is used to manage {@link ProcessDescRepoHelper} instances. 
+ * Helpers are kept per thread, as the same process may be parsed or built by several threads at once
+ * (e.g. parallel deployments of the same process).
  */
 class ProcessDescriptionRepository {
 
-    private Map<String, ProcessDescRepoHelper> processRepoHelperCache = new ConcurrentHashMap<String, ProcessDescRepoHelper>();
+    private ThreadLocal<Map<String, ProcessDescRepoHelper>> processRepoHelperCache = new ThreadLocal<Map<String, ProcessDescRepoHelper>>() {
+        @Override
+        protected Map<String, ProcessDescRepoHelper> initialValue() {
+            return new HashMap<String, ProcessDescRepoHelper>();
+        }
+    };
    
     public static ThreadLocal<ProcessDescRepoHelper> LOCAL_PROCESS_REPO_HELPER = new ThreadLocal<ProcessDescRepoHelper>() { 
         @Override
@@ -38,7 +45,7 @@ class ProcessDescriptionRepository {
 
     
     public ProcessDescRepoHelper getProcessDesc(String processId) {
-        return this.processRepoHelperCache.get(processId);
+        return this.processRepoHelperCache.get().get(processId);
     }
     
     public void addProcessDescription(String processId, ProcessDescRepoHelper helper) {
@@ -46,19 +53,29 @@ class ProcessDescriptionRepository {
         // in order to retrieve information about classes used in scripts, etc.
         useDataServiceExpressionBuilders(helper);
         
-        this.processRepoHelperCache.put(processId, helper);
+        this.processRepoHelperCache.get().put(processId, helper);
     }
     
     public ProcessDescRepoHelper removeProcessDescription(String processId) {
         // reset dialects
         resetDialectExpressionBuilders();
       
-        ProcessDescRepoHelper repoHelper =  this.processRepoHelperCache.remove(processId);
+        ProcessDescRepoHelper repoHelper = this.processRepoHelperCache.get().remove(processId);
+        if (repoHelper == null) {
+            throw new IllegalStateException("No process description collected for process " + processId);
+        }
        
         // resolve unqualified class names
         repoHelper.resolveUnqualifiedClasses();
         
         return repoHelper;
     }
+    
+    /**
+     * Drops helpers of current thread left behind by processes that could not be parsed or built.
+     */
+    public void dispose() {
+        this.processRepoHelperCache.remove();
+    }
  
 }
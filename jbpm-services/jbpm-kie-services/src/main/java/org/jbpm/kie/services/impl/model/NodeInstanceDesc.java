@@ -35,6 +35,8 @@ public class NodeInstanceDesc implements org.jbpm.services.api.model.NodeInstanc
 
     private Long workItemId;
 
+    private Long logId;
+
     public NodeInstanceDesc() {
         // default constructor
     }
@@ -55,6 +57,13 @@ public class NodeInstanceDesc implements org.jbpm.services.api.model.NodeInstanc
         this.workItemId = workItemId;
     }
 
+    public NodeInstanceDesc(String id, String nodeId, String name, String nodeType,
+                            String deploymentId, long processInstanceId, Date date, 
+                            String connection, int type, Long workItemId, Long logId) {
+        this(id, nodeId, name, nodeType, deploymentId, processInstanceId, date, connection, type, workItemId);
+        this.logId = logId;
+    }
+
     public Long getId() {
         return id;
     }
@@ -109,6 +118,13 @@ public class NodeInstanceDesc implements org.jbpm.services.api.model.NodeInstanc
         return type;
     }
 
+    /**
+     * Id of the log entry, used as last id for keyset pagination of node instance queries
+     */
+    public Long getLogId() {
+        return logId;
+    }
+
     public Long getWorkItemId() {
         return workItemId;
     }
@@ -15,12 +15,15 @@
  */
 package org.jbpm.kie.services.impl.model;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.codec.binary.Base64;
 import org.jbpm.services.api.model.ProcessDefinition;
 
 /**
@@ -40,6 +43,7 @@ public class ProcessAssetDesc implements ProcessDefinition {
     private String originalPath;
     private String deploymentId;
     private String encodedProcessSource;
+    private transient String processSource;
     private Map<String, String> forms = new HashMap<String, String>();
     private List<String> roles = new ArrayList<String>();
     
@@ -185,6 +189,11 @@ public class ProcessAssetDesc implements ProcessDefinition {
 
 
     public String getEncodedProcessSource() {
+        if (encodedProcessSource == null && processSource != null) {
+            encodedProcessSource = Base64.encodeBase64String(processSource.getBytes());
+            // raw source is no longer needed once encoded
+            processSource = null;
+        }
         return encodedProcessSource;
     }
 
@@ -194,6 +203,16 @@ public class ProcessAssetDesc implements ProcessDefinition {
     }
 
 
+    /**
+     * Sets the process source that is encoded on first request of the encoded process source.
+     * @param processSource process source as it was deployed
+     */
+    public void setProcessSource(String processSource) {
+        this.processSource = processSource;
+        this.encodedProcessSource = null;
+    }
+
+
     public Map<String, String> getForms() {
         return forms;
     }
@@ -278,4 +297,10 @@ public class ProcessAssetDesc implements ProcessDefinition {
 	public void setActive(boolean active) {
 		this.active = active;
 	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+	    // make sure the source is encoded as the raw source is not serialized
+	    getEncodedProcessSource();
+	    out.defaultWriteObject();
+	}
 }
@@ -37,6 +37,8 @@ public class VariableStateDesc implements VariableDesc, Serializable{
     private long processInstanceId;
     
     private Date dataTimeStamp;
+    
+    private Long logId;
 
     public VariableStateDesc() {
      
@@ -54,6 +56,12 @@ public class VariableStateDesc implements VariableDesc, Serializable{
         this.processInstanceId = processInstanceId;
         this.dataTimeStamp = date;
     }
+    
+    public VariableStateDesc(String variableId, String variableInstanceId, String oldValue, String newValue,
+            String deploymentId, long processInstanceId, Date date, Long logId) {
+        this(variableId, variableInstanceId, oldValue, newValue, deploymentId, processInstanceId, date);
+        this.logId = logId;
+    }
 
    
     public String getVariableId() {
@@ -80,6 +88,13 @@ public class VariableStateDesc implements VariableDesc, Serializable{
         return processInstanceId;
     }
 
+    /**
+     * Id of the log entry, used as last id for keyset pagination of variable queries
+     */
+    public Long getLogId() {
+        return logId;
+    }
+
     public Date getDataTimeStamp() {
         return dataTimeStamp;
     }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.kie.services.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.collections.PredicateUtils;
+import org.jbpm.kie.services.impl.model.ProcessAssetDesc;
+import org.jbpm.services.api.model.ProcessDefinition;
+import org.junit.Test;
+import org.kie.api.runtime.query.QueryContext;
+
+public class ProcessDefinitionRegistryTest {
+
+    @Test
+    public void testLookupByDeploymentAndProcessId() {
+        ProcessDefinitionRegistry registry = new ProcessDefinitionRegistry();
+        ProcessAssetDesc first = process("org.jbpm.first", "First", "1.0", "dep1");
+        ProcessAssetDesc second = process("org.jbpm.second", "Second", "1.0", "dep1");
+        ProcessAssetDesc firstOther = process("org.jbpm.first", "First", "2.0", "dep2");
+        registry.add(first);
+        registry.add(second);
+        registry.add(firstOther);
+
+        assertEquals(3, registry.size());
+        assertEquals(2, registry.getByDeploymentId("dep1").size());
+        assertEquals(2, registry.getByProcessId("org.jbpm.first").size());
+        assertSame(firstOther, registry.get("dep2", "org.jbpm.first"));
+        assertNull(registry.get("dep2", "org.jbpm.second"));
+
+        registry.removeByDeploymentId("dep1");
+        assertEquals(1, registry.size());
+        assertTrue(registry.getByDeploymentId("dep1").isEmpty());
+        assertEquals(1, registry.getByProcessId("org.jbpm.first").size());
+    }
+
+    @Test
+    public void testAccessibleByRoles() {
+        ProcessDefinitionRegistry registry = new ProcessDefinitionRegistry();
+        ProcessAssetDesc open = process("org.jbpm.open", "Open", "1.0", "dep1");
+        ProcessAssetDesc hr = process("org.jbpm.hr", "HR", "1.0", "dep1");
+        hr.setRoles(Arrays.asList("HR"));
+        ProcessAssetDesc it = process("org.jbpm.it", "IT", "1.0", "dep1");
+        it.setRoles(Arrays.asList("IT"));
+        registry.add(open);
+        registry.add(hr);
+        registry.add(it);
+
+        assertEquals(2, registry.getAccessible(Arrays.asList("HR")).size());
+        assertEquals(3, registry.getAccessible(Arrays.asList("HR", "IT")).size());
+        assertEquals(3, registry.getAccessible(Collections.<String>emptyList()).size());
+    }
+
+    @Test
+    public void testPrecomputedSortOrder() {
+        ProcessDefinitionRegistry registry = new ProcessDefinitionRegistry();
+        registry.add(process("org.jbpm.b", "B", "1.0", "dep2"));
+        registry.add(process("org.jbpm.c", "C", "3.0", "dep1"));
+        registry.add(process("org.jbpm.a", "A", "2.0", "dep3"));
+
+        List<ProcessAssetDesc> byName = registry.getSorted(ProcessDefinitionRegistry.ORDER_BY_NAME);
+        assertEquals("A", byName.get(0).getName());
+        assertEquals("C", byName.get(2).getName());
+
+        List<ProcessAssetDesc> byProject = registry.getSorted(ProcessDefinitionRegistry.ORDER_BY_PROJECT);
+        assertEquals("dep1", byProject.get(0).getDeploymentId());
+
+        // sort order is recomputed after modification
+        registry.add(process("org.jbpm.0", "0", "1.0", "dep4"));
+        assertEquals("0", registry.getSorted(ProcessDefinitionRegistry.ORDER_BY_NAME).get(0).getName());
+
+        assertNull(registry.getSorted("Unknown"));
+    }
+
+    @Test
+    public void testPrecomputedSortOrderSelectsOnlyCandidates() {
+        RuntimeDataServiceImpl runtimeDataService = new RuntimeDataServiceImpl();
+        ProcessAssetDesc a = process("org.jbpm.a", "A", "1.0", "dep1");
+        ProcessAssetDesc b = process("org.jbpm.b", "B", "1.0", "dep2");
+        ProcessAssetDesc c = process("org.jbpm.c", "C", "1.0", "dep1");
+        runtimeDataService.availableProcesses.add(a);
+        runtimeDataService.availableProcesses.add(b);
+        runtimeDataService.availableProcesses.add(c);
+
+        Collection<ProcessDefinition> selected = runtimeDataService.selectProcesses(
+                runtimeDataService.availableProcesses.getByDeploymentId("dep1"),
+                PredicateUtils.truePredicate(), new QueryContext(0, 10, ProcessDefinitionRegistry.ORDER_BY_NAME, true));
+        assertEquals(Arrays.<ProcessDefinition>asList(a, c), new ArrayList<ProcessDefinition>(selected));
+    }
+
+    private ProcessAssetDesc process(String id, String name, String version, String deploymentId) {
+        return new ProcessAssetDesc(id, name, version, "org.jbpm", "RuleFlow", "PROCESS", "http://www.jboss.org/drools", deploymentId);
+    }
+}
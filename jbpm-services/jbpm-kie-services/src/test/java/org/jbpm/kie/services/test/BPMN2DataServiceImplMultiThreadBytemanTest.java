@@ -16,9 +16,11 @@
 package org.jbpm.kie.services.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CyclicBarrier;
 
@@ -31,17 +33,12 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.kie.api.io.ResourceType;
-import org.kie.internal.builder.KnowledgeBuilder;
-import org.kie.internal.builder.KnowledgeBuilderError;
-import org.kie.internal.builder.KnowledgeBuilderFactory;
-import org.kie.internal.io.ResourceFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @RunWith(org.jboss.byteman.contrib.bmunit.BMUnitRunner.class)
 @BMUnitConfig(loadDirectory="target/test-classes") // set "debug=true to see debug output
-@BMScript(value="byteman/setBPMN2ProcessProvider.btm")
+@BMScript(value="byteman/buildSameProcessConcurrently.btm")
 public class BPMN2DataServiceImplMultiThreadBytemanTest extends AbstractKieServicesBaseTest {
 
     private static final Logger logger = LoggerFactory.getLogger(BPMN2DataServiceImplMultiThreadBytemanTest.class);
@@ -60,79 +57,75 @@ public class BPMN2DataServiceImplMultiThreadBytemanTest extends AbstractKieServi
         close();
     }
 
-    @Test(timeout=5000)
-    public void testBuildProcessDefinitionConcurrentWithKieBuilder() throws Exception {
-        logger.info("testBuildProcessDefinitionConcurrentWithKieBuilde: start");
+    @Test(timeout=10000)
+    public void testBuildSameProcessDefinitionConcurrently() throws Exception {
+        logger.info("testBuildSameProcessDefinitionConcurrently: start");
         
-        final List<ProcessDefinition> defs = new ArrayList<ProcessDefinition>();
+        final List<ProcessDefinition> defs = Collections.synchronizedList(new ArrayList<ProcessDefinition>());
 
-        byte[] process1 = IoUtils.readBytesFromInputStream(this.getClass().getResourceAsStream(
-                "/repo/processes/general/customtask.bpmn"));
-        final String HUMAN_TASK_BPMN_PATH = "repo/processes/general/humanTask.bpmn";
+        byte[] process = IoUtils.readBytesFromInputStream(this.getClass().getResourceAsStream(
+                "/repo/processes/general/humanTask.bpmn"));
 
-        final String process1Content = new String(process1, "UTF-8");
+        final String processContent = new String(process, "UTF-8");
 
         final CyclicBarrier threadsFinishedBarrier = new CyclicBarrier(3);
+        final Exception [] exceptionHolder = new Exception[1];
         
-        Thread dataServiceThread = new Thread(new Runnable() {
+        // first thread stops after collecting the process description until second thread builds the same process
+        Thread firstBuildThread = new Thread(new Runnable() {
 
             @Override
             public void run() {
-                ProcessDefinition def = bpmn2Service.buildProcessDefinition("test", process1Content, null, true);
-                defs.add(def);
-                
-                waitForTheOtherThreads(threadsFinishedBarrier); 
+                try { 
+                    defs.add(bpmn2Service.buildProcessDefinition("first", processContent, null, true));
+                } catch( Exception e ) { 
+                    e.printStackTrace();
+                    exceptionHolder[0] = e;
+                } finally { 
+                    waitForTheOtherThreads(threadsFinishedBarrier); 
+                }
             }
-        });
+        }, "firstBuildThread");
 
-        final Exception [] exceptionHolder = new Exception[1];
-        
-        Thread kieBuilderThread = new Thread(new Runnable() {
+        Thread secondBuildThread = new Thread(new Runnable() {
 
             @Override
             public void run() {
-               
                 try { 
-                    BPMN2DataServiceImplMultiThreadBytemanTest.createKBuilder(HUMAN_TASK_BPMN_PATH, ResourceType.BPMN2);
+                    waitForFirstThread();
+                    defs.add(bpmn2Service.buildProcessDefinition("second", processContent, null, true));
                 } catch( Exception e ) { 
                     e.printStackTrace();
                     exceptionHolder[0] = e;
                 } finally { 
-                    letDataServiceThreadFinish();
+                    letFirstThreadFinish();
                     waitForTheOtherThreads(threadsFinishedBarrier);
                 }
             }
-        });
+        }, "secondBuildThread");
 
-        dataServiceThread.start();
-        kieBuilderThread.start();
+        firstBuildThread.start();
+        secondBuildThread.start();
 
         waitForTheOtherThreads(threadsFinishedBarrier); 
         
-        assertEquals(1, defs.size());
-        
         if( exceptionHolder[0] != null ) { 
-            fail( "See stacktrace: unable to add resource to KieBuilder: " + exceptionHolder[0].getMessage() );
+            fail( "See stacktrace: unable to build process definition: " + exceptionHolder[0].getMessage() );
         }
+        assertEquals(2, defs.size());
+        for (ProcessDefinition def : defs) {
+            assertNotNull(def);
+            assertEquals("org.jbpm.writedocument", def.getId());
+        }
+        assertEquals(3, bpmn2Service.getTasksDefinitions("first", "org.jbpm.writedocument").size());
+        assertEquals(3, bpmn2Service.getTasksDefinitions("second", "org.jbpm.writedocument").size());
     }
 
-    public static void letDataServiceThreadFinish() { 
+    public static void waitForFirstThread() { 
         // placeholder 
     }
     
-    static KnowledgeBuilder createKBuilder( String resource, ResourceType resourceType ) {
-        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
-        kbuilder.add(ResourceFactory.newClassPathResource(resource), resourceType);
-        if( kbuilder.hasErrors() ) {
-            int errors = kbuilder.getErrors().size();
-            if( errors > 0 ) {
-                System.out.println("Found " + errors + " errors");
-                for( KnowledgeBuilderError error : kbuilder.getErrors() ) {
-                    System.out.println(error.getMessage());
-                }
-            }
-            throw new IllegalArgumentException("Application process definition has errors, see log for more details");
-        }
-        return kbuilder;
+    public static void letFirstThreadFinish() { 
+        // placeholder 
     }
 }
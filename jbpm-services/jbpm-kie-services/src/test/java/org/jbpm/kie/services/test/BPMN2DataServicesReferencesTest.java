@@ -29,13 +29,16 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
 
 import org.drools.compiler.kie.builder.impl.InternalKieModule;
+import org.drools.core.util.IoUtils;
 import org.jbpm.kie.services.api.DeploymentIdResolver;
 import org.jbpm.kie.services.impl.KModuleDeploymentUnit;
 import org.jbpm.kie.test.objects.OtherPerson;
@@ -352,6 +355,38 @@ public class BPMN2DataServicesReferencesTest extends AbstractKieServicesBaseTest
         runScriptTest(PROC_ID_MVEL_SCRIPT_QUALIFIED_CLASS);
     }
     
+    @Test
+    public void testScriptClassesAnalyzedLazily() throws Exception {
+        Assume.assumeTrue("Skip script/expr tests", loadJavaMvelScriptProcesses);
+        String processId = PROC_ID_JAVA_SCRIPT_QUALIFIED_CLASS;
+        
+        // deployed process is only parsed, classes used in scripts are collected on first request
+        final List<Collection<String>> results = Collections.synchronizedList(new ArrayList<Collection<String>>());
+        final CyclicBarrier threadsFinishedBarrier = new CyclicBarrier(4);
+        for (int i = 0; i < 3; ++i) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    results.add(bpmn2Service.getJavaClasses(deploymentId, PROC_ID_JAVA_SCRIPT_QUALIFIED_CLASS));
+                    waitForTheOtherThreads(threadsFinishedBarrier);
+                }
+            }).start();
+        }
+        waitForTheOtherThreads(threadsFinishedBarrier);
+        assertEquals(3, results.size());
+        
+        // process built without kie container has its classes collected right away
+        byte[] content = IoUtils.readBytesFromInputStream(this.getClass().getResourceAsStream(
+                "/repo/processes/references/javaScriptTaskWithQualifiedClass.bpmn2"));
+        assertNotNull(bpmn2Service.buildProcessDefinition("built", new String(content, "UTF-8"), null, true));
+        Set<String> builtClasses = new HashSet<String>(bpmn2Service.getJavaClasses("built", processId));
+        
+        assertEquals(4, builtClasses.size());
+        for (Collection<String> javaClasses : results) {
+            assertEquals(builtClasses, new HashSet<String>(javaClasses));
+        }
+    }
+   
     private void runScriptTest(String processId) { 
         Assume.assumeTrue("Skip script/expr tests", loadJavaMvelScriptProcesses);
         
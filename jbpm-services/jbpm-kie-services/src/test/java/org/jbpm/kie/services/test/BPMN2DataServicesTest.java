@@ -25,12 +25,17 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.drools.compiler.kie.builder.impl.InternalKieModule;
+import org.jbpm.kie.services.impl.KModuleDeploymentService;
 import org.jbpm.kie.services.impl.KModuleDeploymentUnit;
 import org.jbpm.kie.test.util.AbstractKieServicesBaseTest;
+import org.jbpm.services.api.model.DeployedAsset;
 import org.jbpm.services.api.model.DeploymentUnit;
 import org.jbpm.services.api.model.ProcessDefinition;
 import org.jbpm.services.api.model.UserTaskDefinition;
@@ -273,4 +278,39 @@ public class BPMN2DataServicesTest extends AbstractKieServicesBaseTest {
         procDef = bpmn2Service.getProcessDefinition(deploymentUnit.getIdentifier(), processId);
         assertNull(procDef);
     }
+    
+    @Test
+    public void testParallelDeploymentCollectsSameDefinitions() throws IOException {
+        
+        DeploymentUnit deploymentUnit = new KModuleDeploymentUnit(GROUP_ID, ARTIFACT_ID, VERSION);
+        
+        ((KModuleDeploymentService) deploymentService).setDeployThreads(1);
+        deploymentService.deploy(deploymentUnit);
+        Map<String, String> sequential = collectDefinitions(deploymentUnit.getIdentifier());
+        deploymentService.undeploy(deploymentUnit);
+        
+        ((KModuleDeploymentService) deploymentService).setDeployThreads(4);
+        deploymentService.deploy(deploymentUnit);
+        units.add(deploymentUnit);
+        Map<String, String> parallel = collectDefinitions(deploymentUnit.getIdentifier());
+        
+        assertEquals(8, sequential.size());
+        assertEquals(sequential, parallel);
+    }
+    
+    private Map<String, String> collectDefinitions(String deploymentId) {
+        Map<String, String> definitions = new HashMap<String, String>();
+        for (DeployedAsset asset : deploymentService.getDeployedUnit(deploymentId).getDeployedAssets()) {
+            String processId = asset.getId();
+            ProcessDefinition procDef = bpmn2Service.getProcessDefinition(deploymentId, processId);
+            assertNotNull(procDef);
+            definitions.put(processId, procDef.getName()
+                    + " " + new TreeMap<String, String>(bpmn2Service.getProcessVariables(deploymentId, processId))
+                    + " " + bpmn2Service.getTasksDefinitions(deploymentId, processId).size()
+                    + " " + new TreeMap<String, Collection<String>>(bpmn2Service.getAssociatedEntities(deploymentId, processId))
+                    + " " + new TreeMap<String, String>(bpmn2Service.getServiceTasks(deploymentId, processId))
+                    + " " + new TreeSet<String>(bpmn2Service.getReusableSubProcesses(deploymentId, processId)));
+        }
+        return definitions;
+    }
 }
@@ -25,7 +25,9 @@ import static org.kie.scanner.MavenRepository.getMavenRepository;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +35,7 @@ import java.util.Map;
 import org.drools.compiler.kie.builder.impl.InternalKieModule;
 import org.jbpm.kie.services.impl.KModuleDeploymentUnit;
 import org.jbpm.kie.test.util.AbstractKieServicesBaseTest;
+import org.jbpm.query.jpa.data.SeekQueryFilter;
 import org.jbpm.services.api.ProcessInstanceNotFoundException;
 import org.jbpm.services.api.RuntimeDataService.EntryType;
 import org.jbpm.services.api.model.DeploymentUnit;
@@ -279,6 +282,51 @@ private static final Logger logger = LoggerFactory.getLogger(KModuleDeploymentSe
     	assertEquals(3, (int)instances.iterator().next().getState());
     }
     
+    @Test
+    public void testGetProcessInstancesSeekPages() {
+        List<Long> started = new ArrayList<Long>();
+        try {
+            for (int i = 0; i < 5; i++) {
+                started.add(processService.startProcess(deploymentUnit.getIdentifier(), "org.jbpm.writedocument"));
+            }
+            // all instances have the same process name so they are ordered by process instance id
+            List<Integer> pageSizes = new ArrayList<Integer>();
+            assertEquals(started, seekAllProcessInstances(new SeekQueryFilter(2, "ProcessName", true), pageSizes));
+            // last page is the partial one, the one after it is empty
+            assertEquals(Arrays.asList(2, 2, 1), pageSizes);
+
+            List<Long> reversed = new ArrayList<Long>(started);
+            Collections.reverse(reversed);
+            pageSizes.clear();
+            assertEquals(reversed, seekAllProcessInstances(new SeekQueryFilter(2, "ProcessName", false), pageSizes));
+            assertEquals(Arrays.asList(2, 2, 1), pageSizes);
+
+            pageSizes.clear();
+            assertEquals(started, seekAllProcessInstances(new SeekQueryFilter(3), pageSizes));
+            assertEquals(Arrays.asList(3, 2), pageSizes);
+        } finally {
+            for (Long id : started) {
+                processService.abortProcessInstance(id);
+            }
+        }
+    }
+
+    private List<Long> seekAllProcessInstances(SeekQueryFilter filter, List<Integer> pageSizes) {
+        List<Long> ids = new ArrayList<Long>();
+        List<ProcessInstanceDesc> page = new ArrayList<ProcessInstanceDesc>(runtimeDataService.getProcessInstances(filter));
+        while (!page.isEmpty()) {
+            assertTrue("Too many pages, seek does not move forward", pageSizes.size() < 10);
+            pageSizes.add(page.size());
+            for (ProcessInstanceDesc instance : page) {
+                ids.add(instance.getId());
+            }
+            ProcessInstanceDesc last = page.get(page.size() - 1);
+            filter.after(last.getProcessName(), last.getId());
+            page = new ArrayList<ProcessInstanceDesc>(runtimeDataService.getProcessInstances(filter));
+        }
+        return ids;
+    }
+
     @Test
     public void testGetProcessInstancesByState() {
     	Collection<ProcessInstanceDesc> instances = runtimeDataService.getProcessInstances(new QueryContext());
@@ -36,7 +36,7 @@ import org.kie.api.runtime.KieContainer;
 @Lock(LockType.READ)
 public class DefinitionServiceEJBImpl extends BPMN2DataServiceImpl implements DeploymentEventListener, DefinitionService, DefinitionServiceEJBLocal, DefinitionServiceEJBRemote {
 
-	@Lock(LockType.WRITE)
+	@Lock(LockType.READ)
 	@Override
 	public ProcessDefinition buildProcessDefinition(String deploymentId, String bpmn2Content, KieContainer kieContainer, boolean cache) throws IllegalArgumentException {
 		return super.buildProcessDefinition(deploymentId, bpmn2Content, kieContainer, cache);
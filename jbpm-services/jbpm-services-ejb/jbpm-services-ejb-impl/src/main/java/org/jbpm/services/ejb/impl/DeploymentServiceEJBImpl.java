@@ -76,6 +76,8 @@ public class DeploymentServiceEJBImpl extends KModuleDeploymentService implement
 			setIdentityProvider(identityProvider.get());
 		}
 		setManagerFactory(new RuntimeManagerFactoryImpl());
+		// process definitions are collected on the calling thread - unmanaged threads must not call other beans
+		setDeployThreads(1);
 		super.onInit();
 	}
 	
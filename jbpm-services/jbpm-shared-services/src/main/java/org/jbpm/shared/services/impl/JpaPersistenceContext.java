@@ -22,6 +22,7 @@ import javax.persistence.EntityManager;
 import javax.persistence.LockModeType;
 import javax.persistence.Query;
 
+import org.jbpm.query.jpa.data.SeekQueryFilter;
 import org.kie.internal.command.Context;
 import org.kie.internal.command.World;
 
@@ -178,7 +179,8 @@ public class JpaPersistenceContext implements Context {
 				else if (QueryManager.ASCENDING_KEY.equals(name) 
 						|| QueryManager.DESCENDING_KEY.equals(name)
 						|| QueryManager.ORDER_BY_KEY.equals(name)
-						|| QueryManager.FILTER.equals(name)) {
+						|| QueryManager.FILTER.equals(name)
+						|| SeekQueryFilter.SEEK_KEY.equals(name)) {
 					continue;
 				}
 				query.setParameter(name, params.get(name));
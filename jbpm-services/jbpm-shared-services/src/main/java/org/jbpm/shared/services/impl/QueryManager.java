@@ -16,6 +16,10 @@
 
 package org.jbpm.shared.services.impl;
 
+import static org.jbpm.query.jpa.data.SeekQueryFilter.SEEK_ID;
+import static org.jbpm.query.jpa.data.SeekQueryFilter.SEEK_KEY;
+import static org.jbpm.query.jpa.data.SeekQueryFilter.SEEK_VALUE;
+
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -69,9 +73,15 @@ public class QueryManager {
 		if (params != null && params.containsKey(FILTER)) {
 			
             buf.append(operand + params.get(FILTER));
+            operand = " and ";
             query = buf;
         }
 		
+		if (params != null && params.containsKey(SEEK_KEY)) {
+			appendSeek(buf, operand, params);
+			return buf.toString();
+		}
+		
 		if (params != null && params.containsKey(ORDER_BY_KEY)) {
 			 
 			buf.append(" \n ORDER BY " + adaptOrderBy((String)params.get("orderby")));
@@ -128,6 +138,35 @@ public class QueryManager {
 		}
 	}
 	
+	/*
+	 * Keyset pagination - rows following the last seen one are selected by a predicate on sort column
+	 * and id column instead of skipping them with offset, id column is used as tie breaker in order by
+	 */
+	protected void appendSeek(StringBuffer buf, String operand, Map<String, Object> params) {
+		String idColumn = (String) params.get(SEEK_KEY);
+		String orderBy = null;
+		if (params.containsKey(ORDER_BY_KEY)) {
+			orderBy = adaptOrderBy((String) params.get(ORDER_BY_KEY));
+		}
+		boolean descending = params.containsKey(DESCENDING_KEY);
+		String comparator = descending ? " < " : " > ";
+		String direction = descending ? " DESC" : " ASC";
+		
+		if (params.containsKey(SEEK_ID)) {
+			if (orderBy == null) {
+				buf.append(operand + idColumn + comparator + ":" + SEEK_ID);
+			} else {
+				buf.append(operand + "(" + orderBy + comparator + ":" + SEEK_VALUE
+						+ " or (" + orderBy + " = :" + SEEK_VALUE + " and " + idColumn + comparator + ":" + SEEK_ID + "))");
+			}
+		}
+		buf.append(" \n ORDER BY ");
+		if (orderBy != null && !orderBy.equals(idColumn)) {
+			buf.append(orderBy + direction + ", ");
+		}
+		buf.append(idColumn + direction);
+	}
+	
 	private String adaptOrderBy(String orderBy) {
 		if (orderBy != null) {
 			if (orderBy.equals("ProcessInstanceId")) {
@@ -16,13 +16,16 @@
 
 package org.jbpm.shared.services.impl;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.jbpm.query.jpa.data.SeekQueryFilter;
 import org.junit.Test;
 
 public class QueryManagerTest {
@@ -77,4 +80,53 @@ public class QueryManagerTest {
 		assertNotNull(query);
 		assertTrue(query.endsWith("ORDER BY log.date DESC"));
 	}
+	
+	@Test
+	public void testSeekFirstPage() {
+		QueryManager manager = new QueryManager();
+		
+		manager.addNamedQueries("test-orm.xml");
+		
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put(SeekQueryFilter.SEEK_KEY, "log.id");
+		params.put("orderby", "log.date");
+		params.put("desc", "true");
+		String query = manager.getQuery("test-query-3", params);
+		assertNotNull(query);
+		assertFalse(query.contains(":seekId"));
+		assertTrue(query.endsWith("ORDER BY log.date DESC, log.id DESC"));
+	}
+	
+	@Test
+	public void testSeekNextPage() {
+		QueryManager manager = new QueryManager();
+		
+		manager.addNamedQueries("test-orm.xml");
+		
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put(SeekQueryFilter.SEEK_KEY, "log.id");
+		params.put(SeekQueryFilter.SEEK_ID, 10L);
+		params.put(SeekQueryFilter.SEEK_VALUE, new Date());
+		params.put("orderby", "log.date");
+		params.put("asc", "true");
+		String query = manager.getQuery("test-query-3", params);
+		assertNotNull(query);
+		assertTrue(query.contains("and (log.date > :seekValue or (log.date = :seekValue and log.id > :seekId))"));
+		assertTrue(query.endsWith("ORDER BY log.date ASC, log.id ASC"));
+	}
+	
+	@Test
+	public void testSeekNextPageWithoutOrderBy() {
+		QueryManager manager = new QueryManager();
+		
+		manager.addNamedQueries("test-orm.xml");
+		
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put(SeekQueryFilter.SEEK_KEY, "log.processInstanceId");
+		params.put(SeekQueryFilter.SEEK_ID, 10L);
+		String query = manager.getQuery("test-query-1", params);
+		assertNotNull(query);
+		assertTrue(query.contains("and log.processInstanceId > :seekId"));
+		assertTrue(query.endsWith("ORDER BY log.processInstanceId ASC"));
+	}
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.jbpm.test.functional.timer;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import javax.persistence.Persistence;
+
+import org.jbpm.process.core.timer.impl.TimingWheelSchedulerService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.kie.api.runtime.manager.RuntimeEnvironment;
+import org.kie.api.runtime.manager.RuntimeManager;
+import org.kie.api.runtime.manager.RuntimeManagerFactory;
+
+@RunWith(Parameterized.class)
+public class GlobalTimingWheelTimerServiceTest extends GlobalTimerServiceBaseTest {
+    
+    private int managerType;
+    
+    @Parameters
+    public static Collection<Object[]> persistence() {
+        Object[][] data = new Object[][] { { 1 }, { 2 }, { 3 }  };
+        return Arrays.asList(data);
+    };
+    
+    public GlobalTimingWheelTimerServiceTest(int managerType) {
+        this.managerType = managerType;
+    }
+    @Before
+    public void setUp() {
+        cleanupSingletonSessionId();
+        emf = Persistence.createEntityManagerFactory("org.jbpm.test.persistence");
+        globalScheduler = new TimingWheelSchedulerService(1);
+    }
+    
+    @After
+    public void tearDown() {
+        try {
+            globalScheduler.shutdown();
+        } catch (Exception e) {
+            
+        }   
+        cleanup();
+    }
+
+    @Override
+    protected RuntimeManager getManager(RuntimeEnvironment environment, boolean waitOnStart) {
+        if (managerType ==1) {
+            return RuntimeManagerFactory.Factory.get().newSingletonRuntimeManager(environment);
+        } else if (managerType == 2) {
+            return RuntimeManagerFactory.Factory.get().newPerRequestRuntimeManager(environment);
+        } else if (managerType == 3) {
+            return RuntimeManagerFactory.Factory.get().newPerProcessInstanceRuntimeManager(environment);
+        } else {
+            throw new IllegalArgumentException("Invalid runtime maanger type");
+        }
+    }
+
+}